@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.manipulation.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.InfixExpression;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+
+import org.eclipse.jdt.internal.corext.dom.ASTNodes;
+
+/**
+ * Benchmarks for frequently used {@link ASTNodes} helpers, applied to all matching nodes of the
+ * corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ASTNodesBenchmark {
+
+	private List<InfixExpression> fInfixExpressions;
+
+	private List<MethodDeclaration> fMethods;
+
+	private List<Expression> fArguments;
+
+	@Setup
+	public void setUp() throws CoreException {
+		fInfixExpressions= new ArrayList<>();
+		fMethods= new ArrayList<>();
+		fArguments= new ArrayList<>();
+		for (CompilationUnit ast : BenchmarkCorpus.getDefault().getASTs()) {
+			ast.accept(new ASTVisitor() {
+				@Override
+				public boolean visit(InfixExpression node) {
+					fInfixExpressions.add(node);
+					return true;
+				}
+
+				@Override
+				public boolean visit(MethodDeclaration node) {
+					fMethods.add(node);
+					return true;
+				}
+
+				@Override
+				public boolean visit(MethodInvocation node) {
+					for (Object argument : node.arguments()) {
+						fArguments.add((Expression) argument);
+					}
+					return true;
+				}
+			});
+		}
+	}
+
+	@Benchmark
+	public void allOperands(Blackhole blackhole) {
+		for (InfixExpression expression : fInfixExpressions) {
+			blackhole.consume(ASTNodes.allOperands(expression));
+		}
+	}
+
+	@Benchmark
+	public void getUnparenthesedExpression(Blackhole blackhole) {
+		for (InfixExpression expression : fInfixExpressions) {
+			blackhole.consume(ASTNodes.getUnparenthesedExpression(expression.getLeftOperand()));
+		}
+	}
+
+	@Benchmark
+	public void getLocalVariableIdentifiers(Blackhole blackhole) {
+		for (MethodDeclaration method : fMethods) {
+			blackhole.consume(ASTNodes.getLocalVariableIdentifiers(method.getBody(), true));
+		}
+	}
+
+	@Benchmark
+	public void getTargetType(Blackhole blackhole) {
+		for (Expression argument : fArguments) {
+			blackhole.consume(ASTNodes.getTargetType(argument));
+		}
+	}
+
+	@Benchmark
+	public void isPassive(Blackhole blackhole) {
+		for (InfixExpression expression : fInfixExpressions) {
+			blackhole.consume(ASTNodes.isPassive(expression));
+		}
+	}
+
+	@Benchmark
+	public void match(Blackhole blackhole) {
+		for (int i= 1; i < fMethods.size(); i++) {
+			blackhole.consume(ASTNodes.match(fMethods.get(i - 1).getBody(), fMethods.get(i).getBody()));
+		}
+	}
+}
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.manipulation.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.TypeNameRequestor;
+
+import org.eclipse.jdt.launching.JavaRuntime;
+
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+
+/**
+ * A fixed corpus of generated compilation units used by all benchmarks.
+ * <p>
+ * The sources are generated from a constant seed, so every run measures exactly the same code.
+ * The types form inheritance chains of {@link #CHAIN_LENGTH} classes per package, contain fields,
+ * loops, infix expressions, string concatenations and references to <code>java.util</code> types,
+ * some of them without import, so that organize imports has work to do.
+ * </p>
+ */
+public final class BenchmarkCorpus {
+
+	public static final String PROJECT_NAME= "BenchmarkCorpus"; //$NON-NLS-1$
+
+	public static final int TYPE_COUNT= 60;
+
+	public static final int CHAIN_LENGTH= 10;
+
+	private static final long SEED= 42L;
+
+	private static BenchmarkCorpus fgDefault;
+
+	private final IJavaProject fProject;
+
+	private final List<ICompilationUnit> fCompilationUnits;
+
+	private final List<CompilationUnit> fASTs;
+
+	private BenchmarkCorpus() throws CoreException {
+		fProject= createProject();
+		fCompilationUnits= createCompilationUnits(fProject);
+		waitUntilIndexesReady();
+		fASTs= parse(fProject, fCompilationUnits);
+	}
+
+	/**
+	 * Returns the shared corpus, creating the project on first access.
+	 *
+	 * @return the corpus
+	 * @throws CoreException if the project cannot be created
+	 */
+	public static synchronized BenchmarkCorpus getDefault() throws CoreException {
+		if (fgDefault == null) {
+			fgDefault= new BenchmarkCorpus();
+		}
+		return fgDefault;
+	}
+
+	public IJavaProject getProject() {
+		return fProject;
+	}
+
+	public List<ICompilationUnit> getCompilationUnits() {
+		return fCompilationUnits;
+	}
+
+	/**
+	 * @return the ASTs of all compilation units, with resolved bindings
+	 */
+	public List<CompilationUnit> getASTs() {
+		return fASTs;
+	}
+
+	/**
+	 * @return the AST of the deepest class of the first inheritance chain
+	 */
+	public CompilationUnit getDeepestAST() {
+		return fASTs.get(CHAIN_LENGTH - 1);
+	}
+
+	/**
+	 * Generates the source of the type with the given index. The result only depends on the index.
+	 *
+	 * @param index the index of the type, <code>0 &lt;= index &lt; TYPE_COUNT</code>
+	 * @return the source
+	 */
+	public static String generateSource(int index) {
+		Random random= new Random(SEED + index);
+		int methods= 2 + random.nextInt(3);
+		boolean chainStart= index % CHAIN_LENGTH == 0;
+
+		StringBuilder buf= new StringBuilder();
+		buf.append("package ").append(getPackageName(index)).append(";\n\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		buf.append("import java.util.ArrayList;\n"); //$NON-NLS-1$
+		buf.append("import java.util.List;\n"); //$NON-NLS-1$
+		buf.append("import java.util.LinkedList;\n\n"); //$NON-NLS-1$
+		buf.append("public class ").append(getTypeName(index)); //$NON-NLS-1$
+		if (!chainStart) {
+			buf.append(" extends ").append(getTypeName(index - 1)); //$NON-NLS-1$
+		}
+		buf.append(" {\n"); //$NON-NLS-1$
+		buf.append("\tprotected int count").append(index).append(";\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		buf.append("\tprivate String name").append(index).append("= \"").append(getTypeName(index)).append("\";\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		buf.append("\tprotected List<String> values").append(index).append("= new ArrayList<>();\n\n"); //$NON-NLS-1$ //$NON-NLS-2$
+
+		buf.append("\tpublic void work(StringBuilder builder, int times) {\n"); //$NON-NLS-1$
+		if (!chainStart) {
+			buf.append("\t\tsuper.work(builder, times - 1);\n"); //$NON-NLS-1$
+		}
+		buf.append("\t\tbuilder.append(name").append(index).append(").append(times);\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		buf.append("\t}\n"); //$NON-NLS-1$
+
+		for (int m= 0; m < methods; m++) {
+			int bound= 1 + random.nextInt(20);
+			buf.append('\n');
+			buf.append("\tpublic int compute").append(m).append("(int a, int b) {\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			buf.append("\t\tint sum= 0;\n"); //$NON-NLS-1$
+			buf.append("\t\tfor (int i= 0; i < a + ").append(bound).append("; i++) {\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			buf.append("\t\t\tint product= (i * b) + (a - i) * ").append(random.nextInt(7) + 1).append(" + count").append(index).append(";\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			buf.append("\t\t\tif (product > sum && (i % 2 == 0 || b > ").append(bound).append(")) {\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			buf.append("\t\t\t\tsum+= product;\n"); //$NON-NLS-1$
+			buf.append("\t\t\t}\n"); //$NON-NLS-1$
+			buf.append("\t\t}\n"); //$NON-NLS-1$
+			buf.append("\t\tString text= \"sum\" + sum + name").append(index).append(" + values").append(index).append(".size();\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			buf.append("\t\tvalues").append(index).append(".add(text);\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			buf.append("\t\treturn sum;\n"); //$NON-NLS-1$
+			buf.append("\t}\n"); //$NON-NLS-1$
+		}
+
+		// references to types without import
+		buf.append('\n');
+		buf.append("\tpublic Map<String, Integer> index(Collection<String> keys) {\n"); //$NON-NLS-1$
+		buf.append("\t\tMap<String, Integer> map= new HashMap<>();\n"); //$NON-NLS-1$
+		buf.append("\t\tfor (String key : keys) {\n"); //$NON-NLS-1$
+		buf.append("\t\t\tmap.put(key, Integer.valueOf(key.length() + count").append(index).append("));\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		buf.append("\t\t}\n"); //$NON-NLS-1$
+		buf.append("\t\treturn map;\n"); //$NON-NLS-1$
+		buf.append("\t}\n"); //$NON-NLS-1$
+		buf.append("}\n"); //$NON-NLS-1$
+		return buf.toString();
+	}
+
+	public static String getPackageName(int index) {
+		return "corpus.p" + (index / CHAIN_LENGTH); //$NON-NLS-1$
+	}
+
+	public static String getTypeName(int index) {
+		return "Node" + index; //$NON-NLS-1$
+	}
+
+	private static IJavaProject createProject() throws CoreException {
+		IWorkspaceRoot root= ResourcesPlugin.getWorkspace().getRoot();
+		IProject project= root.getProject(PROJECT_NAME);
+		if (project.exists()) {
+			project.delete(true, true, null);
+		}
+		project.create(null);
+		project.open(null);
+		IProjectDescription description= project.getDescription();
+		description.setNatureIds(new String[] { JavaCore.NATURE_ID });
+		project.setDescription(description, null);
+
+		IFolder src= project.getFolder("src"); //$NON-NLS-1$
+		src.create(true, true, null);
+		IFolder bin= project.getFolder("bin"); //$NON-NLS-1$
+		bin.create(true, true, null);
+
+		IJavaProject javaProject= JavaCore.create(project);
+		IClasspathEntry[] classpath= new IClasspathEntry[] {
+				JavaCore.newSourceEntry(src.getFullPath()),
+				JavaRuntime.getDefaultJREContainerEntry()
+		};
+		javaProject.setRawClasspath(classpath, bin.getFullPath(), null);
+		javaProject.setOption(JavaCore.COMPILER_COMPLIANCE, JavaCore.VERSION_11);
+		javaProject.setOption(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_11);
+		javaProject.setOption(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JavaCore.VERSION_11);
+		return javaProject;
+	}
+
+	private static List<ICompilationUnit> createCompilationUnits(IJavaProject project) throws CoreException {
+		IPackageFragmentRoot root= project.getPackageFragmentRoot(project.getProject().getFolder("src")); //$NON-NLS-1$
+		List<ICompilationUnit> result= new ArrayList<>(TYPE_COUNT);
+		IPackageFragment pack= null;
+		for (int i= 0; i < TYPE_COUNT; i++) {
+			if (i % CHAIN_LENGTH == 0) {
+				pack= root.createPackageFragment(getPackageName(i), true, null);
+			}
+			result.add(pack.createCompilationUnit(getTypeName(i) + ".java", generateSource(i), true, null)); //$NON-NLS-1$
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	private static List<CompilationUnit> parse(IJavaProject project, List<ICompilationUnit> units) {
+		CompilationUnit[] result= new CompilationUnit[units.size()];
+		ASTParser parser= ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
+		parser.setProject(project);
+		parser.setResolveBindings(true);
+		parser.setBindingsRecovery(true);
+		parser.createASTs(units.toArray(new ICompilationUnit[units.size()]), new String[0], new ASTRequestor() {
+			@Override
+			public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+				result[units.indexOf(source)]= ast;
+			}
+		}, new NullProgressMonitor());
+		List<CompilationUnit> list= new ArrayList<>(result.length);
+		Collections.addAll(list, result);
+		return Collections.unmodifiableList(list);
+	}
+
+	private static void waitUntilIndexesReady() throws CoreException {
+		new SearchEngine().searchAllTypeNames(
+				null,
+				SearchPattern.R_EXACT_MATCH,
+				"XXXXXXXXX".toCharArray(), //$NON-NLS-1$
+				SearchPattern.R_EXACT_MATCH,
+				IJavaSearchConstants.CLASS,
+				SearchEngine.createJavaSearchScope(new IJavaElement[0]),
+				new TypeNameRequestor() {
+					// nothing to collect
+				},
+				IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH,
+				null);
+	}
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.manipulation.benchmarks;
+
+import org.junit.Test;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs the JMH benchmarks of this bundle inside the running OSGi framework.
+ * <p>
+ * The benchmarks need the Java model, so they cannot be run in a forked plain VM. The system
+ * properties <code>jmh.include</code> (a regular expression selecting the benchmarks) and
+ * <code>jmh.result</code> (the path of the JSON result file) configure the run.
+ * </p>
+ */
+public class BenchmarkRunner {
+
+	@Test
+	public void runBenchmarks() throws RunnerException {
+		Options options= new OptionsBuilder()
+				.include(System.getProperty("jmh.include", ".*")) //$NON-NLS-1$ //$NON-NLS-2$
+				.forks(0)
+				.threads(1)
+				.warmupIterations(3)
+				.warmupTime(TimeValue.seconds(2))
+				.measurementIterations(5)
+				.measurementTime(TimeValue.seconds(2))
+				.resultFormat(ResultFormatType.JSON)
+				.result(System.getProperty("jmh.result", "jmh-result.json")) //$NON-NLS-1$ //$NON-NLS-2$
+				.shouldFailOnError(true)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.manipulation.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+
+import org.eclipse.jdt.internal.corext.dom.Bindings;
+
+/**
+ * Benchmarks {@link Bindings#findMethodInHierarchy(ITypeBinding, String, String[])} on the deepest
+ * class of an inheritance chain, for a method declared in every class, a method inherited from
+ * <code>java.lang.Object</code> and a method which does not exist.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BindingsBenchmark {
+
+	private static final String[] WORK_PARAMETERS= { "java.lang.StringBuilder", "int" }; //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final String[] INT_PARAMETERS= { "int", "int" }; //$NON-NLS-1$ //$NON-NLS-2$
+
+	private ITypeBinding fType;
+
+	@Setup
+	public void setUp() throws CoreException {
+		AbstractTypeDeclaration type= (AbstractTypeDeclaration) BenchmarkCorpus.getDefault().getDeepestAST().types().get(0);
+		fType= type.resolveBinding();
+	}
+
+	@Benchmark
+	public IMethodBinding declaredInType() {
+		return Bindings.findMethodInHierarchy(fType, "work", WORK_PARAMETERS); //$NON-NLS-1$
+	}
+
+	@Benchmark
+	public IMethodBinding declaredInObject() {
+		return Bindings.findMethodInHierarchy(fType, "hashCode", new String[0]); //$NON-NLS-1$
+	}
+
+	@Benchmark
+	public IMethodBinding missing() {
+		return Bindings.findMethodInHierarchy(fType, "missing", INT_PARAMETERS); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.manipulation.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.ISourceRange;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.manipulation.OrganizeImportsOperation;
+import org.eclipse.jdt.core.manipulation.OrganizeImportsOperation.IChooseImportQuery;
+import org.eclipse.jdt.core.search.TypeNameMatch;
+
+/**
+ * Benchmarks {@link OrganizeImportsOperation#createTextEdit(org.eclipse.core.runtime.IProgressMonitor)}
+ * on all compilation units of the corpus. Each unit has an unused import and references to types
+ * which are not imported yet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OrganizeImportsBenchmark {
+
+	private static final IChooseImportQuery FIRST_CHOICE= new IChooseImportQuery() {
+		@Override
+		public TypeNameMatch[] chooseImports(TypeNameMatch[][] openChoices, ISourceRange[] ranges) {
+			TypeNameMatch[] result= new TypeNameMatch[openChoices.length];
+			for (int i= 0; i < openChoices.length; i++) {
+				result[i]= openChoices[i][0];
+			}
+			return result;
+		}
+	};
+
+	private List<ICompilationUnit> fCompilationUnits;
+
+	private List<CompilationUnit> fASTs;
+
+	@Setup
+	public void setUp() throws CoreException {
+		BenchmarkCorpus corpus= BenchmarkCorpus.getDefault();
+		fCompilationUnits= corpus.getCompilationUnits();
+		fASTs= corpus.getASTs();
+	}
+
+	@Benchmark
+	public void sharedAST(Blackhole blackhole) throws CoreException {
+		for (int i= 0; i < fCompilationUnits.size(); i++) {
+			OrganizeImportsOperation op= new OrganizeImportsOperation(fCompilationUnits.get(i), fASTs.get(i), true, false, true, FIRST_CHOICE);
+			blackhole.consume(op.createTextEdit(new NullProgressMonitor()));
+		}
+	}
+
+	@Benchmark
+	public void parseAST(Blackhole blackhole) throws CoreException {
+		for (ICompilationUnit cu : fCompilationUnits) {
+			OrganizeImportsOperation op= new OrganizeImportsOperation(cu, null, true, false, true, FIRST_CHOICE);
+			blackhole.consume(op.createTextEdit(new NullProgressMonitor()));
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.manipulation.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.ReturnStatement;
+
+import org.eclipse.jdt.internal.corext.dom.ScopeAnalyzer;
+
+/**
+ * Benchmarks {@link ScopeAnalyzer#getDeclarationsInScope(int, int)} at every return statement of
+ * the deepest class of an inheritance chain, where the inherited fields and methods of all super
+ * classes are visible.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScopeAnalyzerBenchmark {
+
+	private CompilationUnit fAST;
+
+	private int[] fOffsets;
+
+	@Setup
+	public void setUp() throws CoreException {
+		fAST= BenchmarkCorpus.getDefault().getDeepestAST();
+		List<Integer> offsets= new ArrayList<>();
+		fAST.accept(new ASTVisitor() {
+			@Override
+			public boolean visit(ReturnStatement node) {
+				offsets.add(Integer.valueOf(node.getStartPosition()));
+				return false;
+			}
+		});
+		fOffsets= offsets.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	@Benchmark
+	public void variables(Blackhole blackhole) {
+		getDeclarationsInScope(ScopeAnalyzer.VARIABLES | ScopeAnalyzer.CHECK_VISIBILITY, blackhole);
+	}
+
+	@Benchmark
+	public void methods(Blackhole blackhole) {
+		getDeclarationsInScope(ScopeAnalyzer.METHODS | ScopeAnalyzer.CHECK_VISIBILITY, blackhole);
+	}
+
+	@Benchmark
+	public void all(Blackhole blackhole) {
+		getDeclarationsInScope(ScopeAnalyzer.VARIABLES | ScopeAnalyzer.METHODS | ScopeAnalyzer.TYPES, blackhole);
+	}
+
+	private void getDeclarationsInScope(int flags, Blackhole blackhole) {
+		ScopeAnalyzer analyzer= new ScopeAnalyzer(fAST);
+		for (int offset : fOffsets) {
+			blackhole.consume(analyzer.getDeclarationsInScope(offset, flags));
+		}
+	}
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.manipulation.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.NamingConventions;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+
+import org.eclipse.jdt.internal.core.manipulation.StubUtility;
+
+/**
+ * Benchmarks the variable name guessing of {@link StubUtility}, from type names and from the
+ * arguments of all method invocations of the corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StubUtilityBenchmark {
+
+	private static final String[] TYPE_NAMES= {
+			"String", "StringBuilder", "List<String>", "Map<String, Integer>", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			"HashMap", "IJavaProject", "ASTNode", "URLConnection", "Node42" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	};
+
+	private IJavaProject fProject;
+
+	private List<Expression> fArguments;
+
+	@Setup
+	public void setUp() throws CoreException {
+		BenchmarkCorpus corpus= BenchmarkCorpus.getDefault();
+		fProject= corpus.getProject();
+		fArguments= new ArrayList<>();
+		for (CompilationUnit ast : corpus.getASTs()) {
+			ast.accept(new ASTVisitor() {
+				@Override
+				public boolean visit(MethodInvocation node) {
+					for (Object argument : node.arguments()) {
+						fArguments.add((Expression) argument);
+					}
+					return true;
+				}
+			});
+		}
+	}
+
+	@Benchmark
+	public void fromTypeName(Blackhole blackhole) {
+		for (String typeName : TYPE_NAMES) {
+			blackhole.consume(StubUtility.getVariableNameSuggestions(NamingConventions.VK_LOCAL, fProject, typeName, 0, Collections.emptyList(), true));
+		}
+	}
+
+	@Benchmark
+	public void fromExpression(Blackhole blackhole) {
+		for (Expression argument : fArguments) {
+			ITypeBinding binding= argument.resolveTypeBinding();
+			blackhole.consume(StubUtility.getVariableNameSuggestions(NamingConventions.VK_PARAMETER, fProject, binding, argument, Collections.emptyList()));
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2019 IBM Corporation and others.
+ * Copyright (c) 2008, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -36,6 +36,8 @@ final public class CleanUpRequirementsCore {
 
 	protected final boolean fRequiresChangedRegions;
 
+	protected final boolean fSupportsConcurrentFixes;
+
 
 	/**
 	 * Create a new instance
@@ -46,11 +48,26 @@ final public class CleanUpRequirementsCore {
 	 * @param compilerOptions map of compiler options or <code>null</code> if no requirements
 	 */
 	public CleanUpRequirementsCore(boolean requiresAST, boolean requiresFreshAST, boolean requiresChangedRegions, Map<String, String> compilerOptions) {
+		this(requiresAST, requiresFreshAST, requiresChangedRegions, compilerOptions, false);
+	}
+
+	/**
+	 * Create a new instance
+	 *
+	 * @param requiresAST <code>true</code> if an AST is required
+	 * @param requiresFreshAST <code>true</code> if a fresh AST is required
+	 * @param requiresChangedRegions <code>true</code> if changed regions are required
+	 * @param compilerOptions map of compiler options or <code>null</code> if no requirements
+	 * @param supportsConcurrentFixes <code>true</code> if fixes may be created concurrently
+	 * @since 1.17
+	 */
+	public CleanUpRequirementsCore(boolean requiresAST, boolean requiresFreshAST, boolean requiresChangedRegions, Map<String, String> compilerOptions, boolean supportsConcurrentFixes) {
 		Assert.isLegal(!requiresFreshAST || requiresAST, "Must not request fresh AST if no AST is required"); //$NON-NLS-1$
 		Assert.isLegal(compilerOptions == null || requiresAST, "Must not provide options if no AST is required"); //$NON-NLS-1$
 		fRequiresAST= requiresAST;
 		fRequiresFreshAST= requiresFreshAST;
 		fRequiresChangedRegions= requiresChangedRegions;
+		fSupportsConcurrentFixes= supportsConcurrentFixes;
 
 		fCompilerOptions= compilerOptions;
 		// Make sure that compile warnings are not suppressed since some clean ups work on reported warnings
@@ -110,4 +127,16 @@ final public class CleanUpRequirementsCore {
 		return fRequiresChangedRegions;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Tells whether the clean up supports concurrent calls to create its fixes for different
+	 * compilation units. Clean ups which do not support this are never asked for two fixes at the
+	 * same time, even if the clean ups are computed in parallel.
+	 *
+	 * @return <code>true</code> if fixes may be created concurrently
+	 * @since 1.17
+	 */
+	public boolean supportsConcurrentFixes() {
+		return fSupportsConcurrentFixes;
+	}
+
+}
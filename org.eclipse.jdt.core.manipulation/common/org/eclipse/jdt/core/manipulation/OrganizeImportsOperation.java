@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2021 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -229,6 +229,8 @@ public class OrganizeImportsOperation implements IWorkspaceRunnable {
 
 		private final UnresolvableImportMatcher fUnresolvableImportMatcher;
 
+		private final TypeNameMatchIndex fTypeNameMatchIndex;
+
 		private IPackageFragment fCurrPackage;
 
 		private ScopeAnalyzer fAnalyzer;
@@ -240,12 +242,13 @@ public class OrganizeImportsOperation implements IWorkspaceRunnable {
 		private SourceRange[] fSourceRanges;
 
 
-		public TypeReferenceProcessor(Set<String> oldSingleImports, Set<String> oldDemandImports, CompilationUnit root, ImportRewrite impStructure, boolean ignoreLowerCaseNames, UnresolvableImportMatcher unresolvableImportMatcher) {
+		public TypeReferenceProcessor(Set<String> oldSingleImports, Set<String> oldDemandImports, CompilationUnit root, ImportRewrite impStructure, boolean ignoreLowerCaseNames, UnresolvableImportMatcher unresolvableImportMatcher, TypeNameMatchIndex typeNameMatchIndex) {
 			fOldSingleImports= oldSingleImports;
 			fOldDemandImports= oldDemandImports;
 			fImpStructure= impStructure;
 			fDoIgnoreLowerCaseNames= ignoreLowerCaseNames;
 			fUnresolvableImportMatcher= unresolvableImportMatcher;
+			fTypeNameMatchIndex= typeNameMatchIndex;
 
 			ICompilationUnit cu= impStructure.getCompilationUnit();
 
@@ -351,17 +354,23 @@ public class OrganizeImportsOperation implements IWorkspaceRunnable {
 				if (nUnresolved == 0) {
 					return false;
 				}
-				char[][] allTypes= new char[nUnresolved][];
-				int i= 0;
-				for (String string : fUnresolvedTypes.keySet()) {
-					allTypes[i++]= string.toCharArray();
-				}
 				final ArrayList<TypeNameMatch> typesFound= new ArrayList<>();
 				final IJavaProject project= fCurrPackage.getJavaProject();
 				boolean excludeTestCode= !((IPackageFragmentRoot)fCurrPackage.getParent()).getResolvedClasspathEntry().isTest();
-				IJavaSearchScope scope= SearchEngine.createJavaSearchScope(excludeTestCode, new IJavaElement[] { project }, true);
-				TypeNameMatchCollector collector= new TypeNameMatchCollector(typesFound);
-				new SearchEngine().searchAllTypeNames(null, allTypes, scope, collector, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, monitor);
+				if (fTypeNameMatchIndex != null) {
+					for (String typeName : fUnresolvedTypes.keySet()) {
+						typesFound.addAll(Arrays.asList(fTypeNameMatchIndex.getMatches(project, excludeTestCode, typeName, monitor)));
+					}
+				} else {
+					char[][] allTypes= new char[nUnresolved][];
+					int i= 0;
+					for (String string : fUnresolvedTypes.keySet()) {
+						allTypes[i++]= string.toCharArray();
+					}
+					IJavaSearchScope scope= SearchEngine.createJavaSearchScope(excludeTestCode, new IJavaElement[] { project }, true);
+					TypeNameMatchCollector collector= new TypeNameMatchCollector(typesFound);
+					new SearchEngine().searchAllTypeNames(null, allTypes, scope, collector, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, monitor);
+				}
 
 				boolean is50OrHigher= JavaModelUtil.is50OrHigher(project);
 
@@ -512,6 +521,8 @@ public class OrganizeImportsOperation implements IWorkspaceRunnable {
 
 	private final boolean fAllowSyntaxErrors;
 
+	private TypeNameMatchIndex fTypeNameMatchIndex;
+
 	/**
 	 * Creates a new OrganizeImportsOperation operation.
 	 *
@@ -537,6 +548,19 @@ public class OrganizeImportsOperation implements IWorkspaceRunnable {
 		fParsingError= null;
 	}
 
+	/**
+	 * Sets an index to look up the types of unresolved type references, instead of searching for
+	 * them. Operations on the compilation units of one batch should share the index, so the
+	 * types of each project are only searched once.
+	 *
+	 * @param index the shared index, or <code>null</code> to search for the types of each
+	 *            compilation unit
+	 * @since 1.17
+	 */
+	public void setTypeNameMatchIndex(TypeNameMatchIndex index) {
+		fTypeNameMatchIndex= index;
+	}
+
 	/**
 	 * Runs the operation.
 	 * @param monitor the progress monitor
@@ -587,7 +611,8 @@ public class OrganizeImportsOperation implements IWorkspaceRunnable {
 				astRoot,
 				importsRewrite,
 				fIgnoreLowerCaseNames,
-				unresolvableImportMatcher);
+				unresolvableImportMatcher,
+				fTypeNameMatchIndex);
 
 		Iterator<SimpleName> refIterator= typeReferences.iterator();
 		while (refIterator.hasNext()) {
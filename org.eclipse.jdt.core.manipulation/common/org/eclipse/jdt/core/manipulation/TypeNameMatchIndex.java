@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.manipulation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.TypeNameMatch;
+
+/**
+ * An in-memory index from simple type names to the types visible in a project, which lets
+ * operations on many compilation units share one search for all type names instead of searching
+ * once per compilation unit.
+ * <p>
+ * The index of a project is built on first use, by one search for all type names in the project
+ * and its classpath. The found types are filtered by a {@link TypeNameMatchCollector}. Types from
+ * test source folders are indexed separately, as they are only visible from test code. The index
+ * does not track changes to the Java model, so it should only be kept for the duration of one
+ * batch operation.
+ * </p>
+ * <p>
+ * The index is thread-safe.
+ * </p>
+ *
+ * @see OrganizeImportsOperation#setTypeNameMatchIndex(TypeNameMatchIndex)
+ * @since 1.17
+ */
+public final class TypeNameMatchIndex {
+
+	private static final TypeNameMatch[] NO_MATCHES= new TypeNameMatch[0];
+
+	/**
+	 * The indexes by project, for test code at index <code>0</code> and for main code at index
+	 * <code>1</code>
+	 */
+	private final Map<IJavaProject, Map<String, TypeNameMatch[]>>[] fIndexes;
+
+	/**
+	 * Creates an empty index.
+	 */
+	@SuppressWarnings("unchecked")
+	public TypeNameMatchIndex() {
+		fIndexes= new Map[] { new ConcurrentHashMap<>(), new ConcurrentHashMap<>() };
+	}
+
+	/**
+	 * Returns the types with the given simple name which are visible in the given project.
+	 *
+	 * @param project the project
+	 * @param excludeTestCode if set, types from test source folders are not returned
+	 * @param simpleTypeName the simple name of the types
+	 * @param monitor the progress monitor, used if the index of the project has to be built, or
+	 *            <code>null</code>
+	 * @return the types, the array must not be modified
+	 * @throws JavaModelException if the index cannot be built
+	 */
+	public TypeNameMatch[] getMatches(IJavaProject project, boolean excludeTestCode, String simpleTypeName, IProgressMonitor monitor) throws JavaModelException {
+		TypeNameMatch[] matches= getIndex(project, excludeTestCode, monitor).get(simpleTypeName);
+		return matches != null ? matches : NO_MATCHES;
+	}
+
+	/**
+	 * Releases the indexes of all projects.
+	 */
+	public void clear() {
+		for (Map<IJavaProject, Map<String, TypeNameMatch[]>> indexes : fIndexes) {
+			indexes.clear();
+		}
+	}
+
+	private Map<String, TypeNameMatch[]> getIndex(IJavaProject project, boolean excludeTestCode, IProgressMonitor monitor) throws JavaModelException {
+		Map<IJavaProject, Map<String, TypeNameMatch[]>> indexes= fIndexes[excludeTestCode ? 1 : 0];
+		Map<String, TypeNameMatch[]> index= indexes.get(project);
+		if (index != null)
+			return index;
+		synchronized (indexes) {
+			// another thread may have built the index while this one was waiting
+			index= indexes.get(project);
+			if (index == null) {
+				index= createIndex(project, excludeTestCode, monitor);
+				indexes.put(project, index);
+			}
+			return index;
+		}
+	}
+
+	private static Map<String, TypeNameMatch[]> createIndex(IJavaProject project, boolean excludeTestCode, IProgressMonitor monitor) throws JavaModelException {
+		List<TypeNameMatch> typesFound= new ArrayList<>();
+		IJavaSearchScope scope= SearchEngine.createJavaSearchScope(excludeTestCode, new IJavaElement[] { project }, true);
+		new SearchEngine().searchAllTypeNames(null, null, scope, new TypeNameMatchCollector(typesFound), IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, monitor);
+
+		Map<String, List<TypeNameMatch>> matchesByName= new HashMap<>();
+		for (TypeNameMatch curr : typesFound) {
+			matchesByName.computeIfAbsent(curr.getSimpleTypeName(), k -> new ArrayList<>(1)).add(curr);
+		}
+		Map<String, TypeNameMatch[]> index= new HashMap<>(matchesByName.size() * 4 / 3 + 1);
+		for (Entry<String, List<TypeNameMatch>> entry : matchesByName.entrySet()) {
+			List<TypeNameMatch> matches= entry.getValue();
+			index.put(entry.getKey(), matches.toArray(new TypeNameMatch[matches.size()]));
+		}
+		return index;
+	}
+}
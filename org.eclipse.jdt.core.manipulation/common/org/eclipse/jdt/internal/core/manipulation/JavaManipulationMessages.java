@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -90,4 +90,6 @@ public class JavaManipulationMessages extends NLS {
 	public static String CodeTemplateContextType_validate_unknownvariable;
 	public static String CodeTemplateContextType_validate_missingvariable;
 	public static String CodeTemplateContextType_validate_invalidcomment;
+
+	public static String MemberIndex_job_name;
 }
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.jarpackager;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * The content hashes of the entries of an exported JAR, which let the next export of the same JAR
+ * copy the entries whose content has not changed from the previous JAR.
+ * <p>
+ * The hashes are only valid for the JAR they were recorded for. The size and modification time of
+ * that JAR are stored with the hashes, so a JAR which has been replaced by other means is detected
+ * with {@link #describes(File)}.
+ * </p>
+ * <p>
+ * The hashes are stored as text. The first line holds the version of the format and the size and
+ * modification time of the JAR, each following line holds the hash and the name of an entry.
+ * </p>
+ *
+ * @since 1.17
+ */
+public final class JarEntryHashes {
+
+	private static final String VERSION= "1"; //$NON-NLS-1$
+
+	private static final String HASH_ALGORITHM= "SHA-256"; //$NON-NLS-1$
+
+	private static final char[] HEX_DIGITS= "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+	private final Map<String, String> fHashes= new LinkedHashMap<>();
+
+	private long fJarSize= -1;
+	private long fJarModificationTime= -1;
+
+	/**
+	 * Returns the hash of the given content.
+	 *
+	 * @param content the content of an entry
+	 * @return the hash
+	 */
+	public static String hash(byte[] content) {
+		MessageDigest digest;
+		try {
+			digest= MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+		byte[] hash= digest.digest(content);
+		char[] result= new char[2 * hash.length];
+		for (int i= 0; i < hash.length; i++) {
+			result[2 * i]= HEX_DIGITS[(hash[i] >> 4) & 0xF];
+			result[2 * i + 1]= HEX_DIGITS[hash[i] & 0xF];
+		}
+		return new String(result);
+	}
+
+	/**
+	 * Reads hashes which have been written with {@link #write(OutputStream)}.
+	 *
+	 * @param stream the stream to read, it is not closed
+	 * @return the hashes, or <code>null</code> if the stream does not contain hashes in a known
+	 *         format
+	 * @throws IOException if an I/O error occurred
+	 */
+	public static JarEntryHashes read(InputStream stream) throws IOException {
+		BufferedReader reader= new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+		String header= reader.readLine();
+		if (header == null)
+			return null;
+		String[] fields= header.split(" "); //$NON-NLS-1$
+		if (fields.length != 3 || !VERSION.equals(fields[0]))
+			return null;
+		JarEntryHashes result= new JarEntryHashes();
+		try {
+			result.fJarSize= Long.parseLong(fields[1]);
+			result.fJarModificationTime= Long.parseLong(fields[2]);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		String line;
+		while ((line= reader.readLine()) != null) {
+			int separator= line.indexOf(' ');
+			if (separator <= 0)
+				return null;
+			result.fHashes.put(line.substring(separator + 1), line.substring(0, separator));
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the hashes. The JAR must have been recorded with {@link #setJar(File)} before.
+	 *
+	 * @param stream the stream to write to, it is not closed
+	 * @throws IOException if an I/O error occurred
+	 */
+	public void write(OutputStream stream) throws IOException {
+		Writer writer= new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+		writer.write(VERSION + ' ' + fJarSize + ' ' + fJarModificationTime + '\n');
+		for (Entry<String, String> entry : fHashes.entrySet()) {
+			writer.write(entry.getValue() + ' ' + entry.getKey() + '\n');
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Records the hash of an entry.
+	 *
+	 * @param entryName the name of the entry
+	 * @param hash the hash of its content, see {@link #hash(byte[])}
+	 */
+	public void put(String entryName, String hash) {
+		// names with line breaks cannot be stored, such entries are always written again
+		if (entryName.indexOf('\n') == -1 && entryName.indexOf('\r') == -1)
+			fHashes.put(entryName, hash);
+	}
+
+	/**
+	 * Returns the recorded hash of an entry.
+	 *
+	 * @param entryName the name of the entry
+	 * @return the hash, or <code>null</code> if no hash has been recorded for the entry
+	 */
+	public String get(String entryName) {
+		return fHashes.get(entryName);
+	}
+
+	/**
+	 * Records the JAR which these hashes describe.
+	 *
+	 * @param jarFile the JAR, after it has been written completely
+	 */
+	public void setJar(File jarFile) {
+		fJarSize= jarFile.length();
+		fJarModificationTime= jarFile.lastModified();
+	}
+
+	/**
+	 * Tells whether these hashes describe the given JAR, that is, whether the JAR has not been
+	 * changed since the hashes were recorded for it.
+	 *
+	 * @param jarFile the JAR
+	 * @return <code>true</code> if the hashes describe the JAR
+	 */
+	public boolean describes(File jarFile) {
+		return jarFile.isFile() && jarFile.length() == fJarSize && jarFile.lastModified() == fJarModificationTime;
+	}
+}
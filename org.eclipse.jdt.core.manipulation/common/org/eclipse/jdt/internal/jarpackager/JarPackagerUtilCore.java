@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2020 IBM Corporation and others.
+ * Copyright (c) 2020, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -105,6 +105,8 @@ public class JarPackagerUtilCore {
 			Set<String> directories, MultiStatus status, IProgressMonitor progressMonitor) {
 		Enumeration<? extends ZipEntry> jarEntriesEnum= zipFile.entries();
 		File zipFile1= new File(zipFile.getName());
+		// a parallel stream can copy the compressed data of the entries as is
+		RawZipFile rawZipFile= jarOutputStream instanceof ParallelJarOutputStream ? RawZipFile.open(zipFile1) : null;
 		try {
 			String zipFileCanonical= zipFile1.getCanonicalPath();
 
@@ -115,7 +117,7 @@ public class JarPackagerUtilCore {
 					File zipEntryFile= new File(zipFile1, entryName);
 					String zipEntryCanonical= zipEntryFile.getCanonicalPath();
 					if (zipEntryCanonical.startsWith(zipFileCanonical + File.separator)) {
-						addFile(entryName, zipEntry, zipFile, areDirectoryEntriesIncluded, isCompressed, jarOutputStream, directories, status);
+						addFile(entryName, zipEntry, zipFile, rawZipFile, areDirectoryEntriesIncluded, isCompressed, jarOutputStream, directories, status);
 					} else {
 						addWarning("Invalid path" + entryName, null, status); //$NON-NLS-1$
 					}
@@ -128,6 +130,14 @@ public class JarPackagerUtilCore {
 		} catch (IOException e) {
 			addWarning("ZipFile error" + zipFile.getName(), null, status); //$NON-NLS-1$
 			e.printStackTrace();
+		} finally {
+			if (rawZipFile != null) {
+				try {
+					rawZipFile.close();
+				} catch (IOException e) {
+					// Do nothing
+				}
+			}
 		}
 	}
 
@@ -138,6 +148,7 @@ public class JarPackagerUtilCore {
 	 * @param destinationPath the destinationPath in the jar file
 	 * @param jarEntry the jar entry to write
 	 * @param zipFile the zipFile to extract
+	 * @param rawZipFile the zipFile to copy compressed data from, or <code>null</code>
 	 * @param areDirectoryEntriesIncluded the directory entries are included
 	 * @param isCompressed the jar is compressed
 	 * @param jarOutputStream the destination JarOutputStream
@@ -147,7 +158,7 @@ public class JarPackagerUtilCore {
 	 * @since 1.14
 	 *
 	 */
-	private static void addFile(String destinationPath, ZipEntry jarEntry, ZipFile zipFile,
+	private static void addFile(String destinationPath, ZipEntry jarEntry, ZipFile zipFile, RawZipFile rawZipFile,
 			boolean areDirectoryEntriesIncluded, boolean isCompressed,
 			JarOutputStream jarOutputStream, Set<String> directories, MultiStatus status) {
 		// Handle META-INF/MANIFEST.MF
@@ -156,7 +167,7 @@ public class JarPackagerUtilCore {
 			return;
 		}
 		try {
-			addZipEntry(jarEntry, zipFile, destinationPath, areDirectoryEntriesIncluded, isCompressed, jarOutputStream, directories);
+			addZipEntry(jarEntry, zipFile, rawZipFile, destinationPath, areDirectoryEntriesIncluded, isCompressed, jarOutputStream, directories);
 		} catch (IOException ex) {
 			if (ex instanceof ZipException && ex.getMessage() != null && ex.getMessage().startsWith("duplicate entry:")) {//$NON-NLS-1$
 				// ignore duplicates in META-INF (*.SF, *.RSA)
@@ -189,11 +200,25 @@ public class JarPackagerUtilCore {
 	public static void addZipEntry(ZipEntry zipEntry, ZipFile zipFile, String path,
 			boolean areDirectoryEntriesIncluded, boolean isCompressed,
 			JarOutputStream jarOutputStream, Set<String> directories) throws IOException {
+		addZipEntry(zipEntry, zipFile, null, path, areDirectoryEntriesIncluded, isCompressed, jarOutputStream, directories);
+	}
+
+	private static void addZipEntry(ZipEntry zipEntry, ZipFile zipFile, RawZipFile rawZipFile, String path,
+			boolean areDirectoryEntriesIncluded, boolean isCompressed,
+			JarOutputStream jarOutputStream, Set<String> directories) throws IOException {
 		if (areDirectoryEntriesIncluded) {
 			addDirectories(path, jarOutputStream, directories);
 		}
 		JarEntry newEntry= new JarEntry(path.replace(File.separatorChar, '/'));
 
+		RawZipFile.Entry rawEntry= rawZipFile != null ? rawZipFile.getEntry(zipEntry.getName()) : null;
+		if (rawEntry != null && rawEntry.getMethod() == (isCompressed ? ZipEntry.DEFLATED : ZipEntry.STORED)) {
+			// the data is already in the target format, copy it without inflating and deflating it
+			newEntry.setTime(System.currentTimeMillis());
+			((ParallelJarOutputStream) jarOutputStream).putRawEntry(newEntry, rawZipFile, rawEntry);
+			return;
+		}
+
 		if (isCompressed) {
 			newEntry.setMethod(ZipEntry.DEFLATED);
 			// Entry is filled automatically.
@@ -0,0 +1,692 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.jarpackager;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * A JAR output stream which compresses the entries on a pool of worker threads and writes them in
+ * the order in which they were added.
+ * <p>
+ * The data of a small entry is buffered until the entry is closed, and a worker computes its
+ * CRC-32 and size in the same pass in which it deflates it. At most {@value #MAX_PENDING_BYTES}
+ * bytes of entry data are buffered for the workers, adding an entry waits for the oldest ones to
+ * be written when there are more. Entries larger than {@value #DIRECT_THRESHOLD} bytes are not
+ * buffered: once the entries before them have been written, they are deflated on the calling
+ * thread straight into the archive and followed by a data descriptor. Like with
+ * {@link java.util.zip.ZipOutputStream}, the size and CRC-32 of large stored entries must be set
+ * in advance.
+ * </p>
+ * <p>
+ * Entries which are already compressed in another archive can be copied with
+ * {@link #putRawEntry(ZipEntry, RawZipFile, RawZipFile.Entry)} without inflating and deflating
+ * them again. Archives with more than 65535 entries or larger than 4 GB get ZIP64 records, single
+ * entries must be smaller than 4 GB. Like other output streams, the stream must only be used by
+ * one thread.
+ * </p>
+ *
+ * @since 1.17
+ */
+public class ParallelJarOutputStream extends JarOutputStream {
+
+	/**
+	 * An entry whose compressed data is known, from the time it has been encoded until the end of
+	 * the archive. The data is released once it has been written.
+	 */
+	private static final class EncodedEntry {
+
+		final ZipEntry fEntry;
+		final byte[] fName;
+		final int fMethod;
+		int fFlags= FLAG_UTF8;
+		long fCrc;
+		long fSize;
+		long fCompressedSize;
+		byte[] fData;
+		long fOffset;
+
+		EncodedEntry(ZipEntry entry, int method, long crc, long size, byte[] data, long compressedSize) {
+			fEntry= entry;
+			fName= entry.getName().getBytes(StandardCharsets.UTF_8);
+			fMethod= method;
+			fCrc= crc;
+			fSize= size;
+			fData= data;
+			fCompressedSize= compressedSize;
+		}
+	}
+
+	/**
+	 * An entry which is being encoded by a worker, with the amount of data buffered for it.
+	 */
+	private static final class PendingEntry {
+
+		final Future<EncodedEntry> fFuture;
+		final long fBytes;
+
+		PendingEntry(Future<EncodedEntry> future, long bytes) {
+			fFuture= future;
+			fBytes= bytes;
+		}
+	}
+
+	private static final int LOCSIG= 0x04034b50;
+	private static final int CENSIG= 0x02014b50;
+	private static final int ENDSIG= 0x06054b50;
+	private static final int EXTSIG= 0x08074b50;
+	private static final int ZIP64_ENDSIG= 0x06064b50;
+	private static final int ZIP64_LOCSIG= 0x07064b50;
+
+	private static final long ZIP64_MAGICVAL= 0xFFFFFFFFL;
+	private static final int ZIP64_MAGICCOUNT= 0xFFFF;
+	private static final int ZIP64_EXTID= 0x0001;
+
+	private static final int JAR_MAGIC= 0xCAFE;
+
+	/**
+	 * The names of the entries are encoded in UTF-8
+	 */
+	private static final int FLAG_UTF8= 0x800;
+
+	/**
+	 * The CRC-32 and sizes follow the data in a data descriptor
+	 */
+	private static final int FLAG_DATA_DESCRIPTOR= 0x8;
+
+	private static final int INITIAL_BUFFER_SIZE= 8192;
+
+	/**
+	 * The size above which the data of an entry is written straight through instead of being
+	 * buffered
+	 */
+	private static final int DIRECT_THRESHOLD= 1024 * 1024;
+
+	/**
+	 * The largest amount of entry data which is buffered for the workers, enough to keep them
+	 * busy while the head of the queue is being compressed
+	 */
+	private static final long MAX_PENDING_BYTES= 32 * 1024 * 1024;
+
+	private final OutputStream fOut;
+	private final ExecutorService fExecutor;
+	private final Deque<PendingEntry> fPending= new ArrayDeque<>();
+	private long fPendingBytes;
+	private final List<EncodedEntry> fWritten= new ArrayList<>();
+	private final Set<String> fNames= new HashSet<>();
+
+	private final ThreadLocal<Deflater> fDeflater;
+	private final List<Deflater> fDeflaters= new ArrayList<>();
+
+	private ZipEntry fCurrent;
+	private int fCurrentMethod;
+	private byte[] fBuffer= new byte[INITIAL_BUFFER_SIZE];
+	private int fCount;
+
+	/**
+	 * The current entry if it is written straight through, <code>null</code> otherwise
+	 */
+	private EncodedEntry fDirect;
+	private final CRC32 fDirectCrc= new CRC32();
+	private long fDirectSize;
+	private Deflater fDirectDeflater;
+
+	private int fMethod= DEFLATED;
+	private int fLevel= Deflater.DEFAULT_COMPRESSION;
+	private byte[] fComment;
+
+	private long fPosition;
+	private boolean fFirstEntry= true;
+	private boolean fFinished;
+	private boolean fClosed;
+
+	/**
+	 * Creates a JAR output stream without manifest.
+	 *
+	 * @param out the actual output stream
+	 * @param parallelism the number of threads which compress entries
+	 * @throws IOException if an I/O error occurred
+	 */
+	public ParallelJarOutputStream(OutputStream out, int parallelism) throws IOException {
+		this(out, null, parallelism);
+	}
+
+	/**
+	 * Creates a JAR output stream which starts with the given manifest.
+	 *
+	 * @param out the actual output stream
+	 * @param man the manifest, or <code>null</code> to write no manifest
+	 * @param parallelism the number of threads which compress entries
+	 * @throws IOException if an I/O error occurred
+	 */
+	public ParallelJarOutputStream(OutputStream out, Manifest man, int parallelism) throws IOException {
+		// all data goes to the actual stream, the compressor of the superclass is not used
+		super(OutputStream.nullOutputStream());
+		fOut= Objects.requireNonNull(out);
+		fExecutor= Executors.newFixedThreadPool(Math.max(1, parallelism));
+		fDeflater= ThreadLocal.withInitial(() -> {
+			Deflater deflater= new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+			synchronized (fDeflaters) {
+				fDeflaters.add(deflater);
+			}
+			return deflater;
+		});
+		if (man != null) {
+			putNextEntry(new ZipEntry(JarFile.MANIFEST_NAME));
+			man.write(new BufferedOutputStream(this));
+			closeEntry();
+		}
+	}
+
+	@Override
+	public void setComment(String comment) {
+		fComment= comment != null ? comment.getBytes(StandardCharsets.UTF_8) : null;
+		if (fComment != null && fComment.length > 0xFFFF)
+			throw new IllegalArgumentException("ZIP file comment too long."); //$NON-NLS-1$
+	}
+
+	@Override
+	public void setMethod(int method) {
+		if (method != DEFLATED && method != STORED)
+			throw new IllegalArgumentException("invalid compression method"); //$NON-NLS-1$
+		fMethod= method;
+	}
+
+	@Override
+	public void setLevel(int level) {
+		if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION)
+			throw new IllegalArgumentException("invalid compression level"); //$NON-NLS-1$
+		fLevel= level;
+	}
+
+	@Override
+	public void putNextEntry(ZipEntry e) throws IOException {
+		ensureOpen();
+		if (fCurrent != null)
+			closeEntry();
+		if (!fNames.add(e.getName()))
+			throw new ZipException("duplicate entry: " + e.getName()); //$NON-NLS-1$
+		fCurrent= e;
+		fCurrentMethod= e.getMethod() != -1 ? e.getMethod() : fMethod;
+		fCount= 0;
+		if (fCurrentMethod == STORED && e.getSize() > DIRECT_THRESHOLD && e.getCrc() != -1) {
+			// the header can be written right away
+			startDirectEntry();
+		}
+	}
+
+	/**
+	 * Adds an entry whose data is copied from the compressed data of an entry of another archive.
+	 * The data is neither inflated nor deflated, the entry keeps the compression method, CRC-32 and
+	 * sizes of the source entry. Closes the current entry, if any. Large entries are copied
+	 * straight from the source archive.
+	 *
+	 * @param e the entry to add, its method, CRC-32 and sizes are ignored
+	 * @param source the archive containing the source entry
+	 * @param sourceEntry the source entry
+	 * @throws IOException if an I/O error occurred while reading the source or writing the entry
+	 */
+	public void putRawEntry(ZipEntry e, RawZipFile source, RawZipFile.Entry sourceEntry) throws IOException {
+		ensureOpen();
+		if (fCurrent != null)
+			closeEntry();
+		if (!fNames.add(e.getName()))
+			throw new ZipException("duplicate entry: " + e.getName()); //$NON-NLS-1$
+		if (sourceEntry.getCompressedSize() > DIRECT_THRESHOLD) {
+			EncodedEntry encoded= new EncodedEntry(e, sourceEntry.getMethod(), sourceEntry.getCrc(), sourceEntry.getSize(), null, sourceEntry.getCompressedSize());
+			writePending();
+			writeLocalHeader(encoded);
+			source.transferCompressedData(sourceEntry, fOut);
+			fPosition+= encoded.fCompressedSize;
+			fWritten.add(encoded);
+			return;
+		}
+		byte[] data= source.readCompressedData(sourceEntry);
+		EncodedEntry encoded= new EncodedEntry(e, sourceEntry.getMethod(), sourceEntry.getCrc(), sourceEntry.getSize(), data, data.length);
+		enqueue(CompletableFuture.completedFuture(encoded), data.length);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		Objects.checkFromIndexSize(off, len, b.length);
+		if (fCurrent == null)
+			throw new ZipException("no current ZIP entry"); //$NON-NLS-1$
+		if (fDirect == null && len > DIRECT_THRESHOLD - fCount) {
+			if (fCurrentMethod == STORED)
+				throw new ZipException("STORED entry missing size, compressed size, or crc-32"); //$NON-NLS-1$
+			startDirectEntry();
+		}
+		if (fDirect != null) {
+			writeDirect(b, off, len);
+			return;
+		}
+		if (fCount + len > fBuffer.length)
+			fBuffer= Arrays.copyOf(fBuffer, Math.max(fCount + len, Math.min(DIRECT_THRESHOLD, 2 * fBuffer.length)));
+		System.arraycopy(b, off, fBuffer, fCount, len);
+		fCount+= len;
+	}
+
+	@Override
+	public void closeEntry() throws IOException {
+		ensureOpen();
+		if (fCurrent == null)
+			return;
+		if (fDirect != null) {
+			finishDirectEntry();
+			fCurrent= null;
+			return;
+		}
+		ZipEntry entry= fCurrent;
+		int method= fCurrentMethod;
+		int level= fLevel;
+		byte[] data= fBuffer;
+		int length= fCount;
+		fCurrent= null;
+		// the worker owns the buffer from now on
+		fBuffer= new byte[INITIAL_BUFFER_SIZE];
+		fCount= 0;
+		enqueue(fExecutor.submit(() -> encode(entry, method, level, data, length)), length);
+	}
+
+	@Override
+	public void finish() throws IOException {
+		ensureOpen();
+		if (fFinished)
+			return;
+		if (fCurrent != null)
+			closeEntry();
+		writePending();
+		writeCentralDirectory();
+		fOut.flush();
+		fFinished= true;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		fOut.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (fClosed)
+			return;
+		try {
+			finish();
+		} finally {
+			fClosed= true;
+			fExecutor.shutdownNow();
+			synchronized (fDeflaters) {
+				for (Deflater deflater : fDeflaters) {
+					deflater.end();
+				}
+			}
+			def.end();
+			fOut.close();
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (fClosed)
+			throw new IOException("Stream closed"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Writes the local header of the current entry, so its data can be written straight through.
+	 * The data which has been buffered for the entry so far is written first.
+	 *
+	 * @throws IOException if an I/O error occurred
+	 */
+	private void startDirectEntry() throws IOException {
+		// the entries before this one must be in the archive first
+		writePending();
+		ZipEntry entry= fCurrent;
+		EncodedEntry direct;
+		if (fCurrentMethod == STORED) {
+			if (entry.getSize() >= ZIP64_MAGICVAL)
+				throw new ZipException("entry too large: " + entry.getName()); //$NON-NLS-1$
+			direct= new EncodedEntry(entry, STORED, entry.getCrc(), entry.getSize(), null, entry.getSize());
+		} else {
+			direct= new EncodedEntry(entry, DEFLATED, 0, 0, null, 0);
+			direct.fFlags|= FLAG_DATA_DESCRIPTOR;
+			fDirectDeflater= fDeflater.get();
+			fDirectDeflater.reset();
+			fDirectDeflater.setLevel(fLevel);
+		}
+		writeLocalHeader(direct);
+		fDirect= direct;
+		fDirectCrc.reset();
+		fDirectSize= 0;
+		byte[] buffered= fBuffer;
+		int length= fCount;
+		fBuffer= new byte[INITIAL_BUFFER_SIZE];
+		fCount= 0;
+		writeDirect(buffered, 0, length);
+	}
+
+	private void writeDirect(byte[] b, int off, int len) throws IOException {
+		fDirectCrc.update(b, off, len);
+		fDirectSize+= len;
+		if (fDirect.fMethod == STORED) {
+			fOut.write(b, off, len);
+			fPosition+= len;
+			return;
+		}
+		fDirectDeflater.setInput(b, off, len);
+		while (!fDirectDeflater.needsInput()) {
+			deflateDirect();
+		}
+	}
+
+	private void deflateDirect() throws IOException {
+		int length= fDirectDeflater.deflate(fBuffer, 0, fBuffer.length);
+		if (length > 0)
+			writeBytes(fBuffer, length);
+	}
+
+	private void finishDirectEntry() throws IOException {
+		EncodedEntry direct= fDirect;
+		fDirect= null;
+		if (direct.fMethod == STORED) {
+			if (fDirectSize != direct.fSize)
+				throw new ZipException("invalid entry size (expected " + direct.fSize + " but got " + fDirectSize + " bytes)"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			if (fDirectCrc.getValue() != direct.fCrc)
+				throw new ZipException("invalid entry crc-32 (expected 0x" + Long.toHexString(direct.fCrc) + " but got 0x" + Long.toHexString(fDirectCrc.getValue()) + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		} else {
+			fDirectDeflater.finish();
+			while (!fDirectDeflater.finished()) {
+				deflateDirect();
+			}
+			direct.fCrc= fDirectCrc.getValue();
+			direct.fSize= fDirectSize;
+			direct.fCompressedSize= fDirectDeflater.getBytesWritten();
+			fDirectDeflater= null;
+			if (direct.fSize >= ZIP64_MAGICVAL || direct.fCompressedSize >= ZIP64_MAGICVAL)
+				throw new ZipException("entry too large: " + direct.fEntry.getName()); //$NON-NLS-1$
+			writeInt(EXTSIG);
+			writeInt(direct.fCrc);
+			writeInt(direct.fCompressedSize);
+			writeInt(direct.fSize);
+		}
+		ZipEntry entry= direct.fEntry;
+		entry.setCrc(direct.fCrc);
+		entry.setSize(direct.fSize);
+		entry.setCompressedSize(direct.fCompressedSize);
+		fWritten.add(direct);
+	}
+
+	private EncodedEntry encode(ZipEntry entry, int method, int level, byte[] data, int length) throws ZipException {
+		CRC32 crc= new CRC32();
+		crc.update(data, 0, length);
+		if (method == STORED) {
+			if (entry.getSize() != -1 && entry.getSize() != length)
+				throw new ZipException("invalid entry size (expected " + entry.getSize() + " but got " + length + " bytes)"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			if (entry.getCrc() != -1 && entry.getCrc() != crc.getValue())
+				throw new ZipException("invalid entry crc-32 (expected 0x" + Long.toHexString(entry.getCrc()) + " but got 0x" + Long.toHexString(crc.getValue()) + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			return new EncodedEntry(entry, STORED, crc.getValue(), length, data, length);
+		}
+
+		Deflater deflater= fDeflater.get();
+		deflater.reset();
+		deflater.setLevel(level);
+		deflater.setInput(data, 0, length);
+		deflater.finish();
+		byte[] compressed= new byte[Math.max(64, length / 2)];
+		int compressedLength= 0;
+		while (!deflater.finished()) {
+			if (compressedLength == compressed.length)
+				compressed= Arrays.copyOf(compressed, 2 * compressed.length);
+			compressedLength+= deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+		}
+		return new EncodedEntry(entry, DEFLATED, crc.getValue(), length, compressed, compressedLength);
+	}
+
+	private void enqueue(Future<EncodedEntry> future, long bytes) throws IOException {
+		fPending.addLast(new PendingEntry(future, bytes));
+		fPendingBytes+= bytes;
+		// write the entries which are done, and wait for the oldest when too much data is buffered
+		while (!fPending.isEmpty() && (fPending.peekFirst().fFuture.isDone() || fPendingBytes > MAX_PENDING_BYTES)) {
+			writeFirstPending();
+		}
+	}
+
+	private void writePending() throws IOException {
+		while (!fPending.isEmpty()) {
+			writeFirstPending();
+		}
+	}
+
+	private void writeFirstPending() throws IOException {
+		PendingEntry pending= fPending.removeFirst();
+		fPendingBytes-= pending.fBytes;
+		writeEntry(get(pending.fFuture));
+	}
+
+	private static EncodedEntry get(Future<EncodedEntry> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			Throwable cause= e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IOException(cause);
+		}
+	}
+
+	private void writeEntry(EncodedEntry encoded) throws IOException {
+		ZipEntry entry= encoded.fEntry;
+		entry.setCrc(encoded.fCrc);
+		entry.setSize(encoded.fSize);
+		entry.setCompressedSize(encoded.fCompressedSize);
+		writeLocalHeader(encoded);
+		writeBytes(encoded.fData, (int) encoded.fCompressedSize);
+		encoded.fData= null;
+		fWritten.add(encoded);
+	}
+
+	/**
+	 * Writes the local header of an entry. If the entry has a data descriptor, its CRC-32 and sizes
+	 * are not known yet and written as zero.
+	 *
+	 * @param encoded the entry
+	 * @throws IOException if an I/O error occurred
+	 */
+	private void writeLocalHeader(EncodedEntry encoded) throws IOException {
+		ZipEntry entry= encoded.fEntry;
+		entry.setMethod(encoded.fMethod);
+		if (fFirstEntry) {
+			entry.setExtra(withJarMagic(entry.getExtra()));
+			fFirstEntry= false;
+		}
+		byte[] extra= entry.getExtra();
+		int extraLength= extra != null ? extra.length : 0;
+
+		encoded.fOffset= fPosition;
+		writeInt(LOCSIG);
+		writeShort(getVersion(encoded.fMethod, false));
+		writeShort(encoded.fFlags);
+		writeShort(encoded.fMethod);
+		writeInt(toDosTime(entry.getTime()));
+		writeInt(encoded.fCrc);
+		writeInt(encoded.fCompressedSize);
+		writeInt(encoded.fSize);
+		writeShort(encoded.fName.length);
+		writeShort(extraLength);
+		writeBytes(encoded.fName, encoded.fName.length);
+		if (extra != null)
+			writeBytes(extra, extra.length);
+	}
+
+	private void writeCentralDirectory() throws IOException {
+		long directoryOffset= fPosition;
+		for (EncodedEntry encoded : fWritten) {
+			ZipEntry entry= encoded.fEntry;
+			boolean zip64= encoded.fOffset >= ZIP64_MAGICVAL;
+			byte[] extra= entry.getExtra();
+			int extraLength= (extra != null ? extra.length : 0) + (zip64 ? 12 : 0);
+			if (extraLength > 0xFFFF)
+				throw new ZipException("invalid extra data: " + entry.getName()); //$NON-NLS-1$
+			byte[] comment= entry.getComment() != null ? entry.getComment().getBytes(StandardCharsets.UTF_8) : null;
+			int commentLength= comment != null ? Math.min(comment.length, 0xFFFF) : 0;
+
+			writeInt(CENSIG);
+			writeShort(getVersion(encoded.fMethod, zip64));
+			writeShort(getVersion(encoded.fMethod, zip64));
+			writeShort(encoded.fFlags);
+			writeShort(encoded.fMethod);
+			writeInt(toDosTime(entry.getTime()));
+			writeInt(encoded.fCrc);
+			writeInt(encoded.fCompressedSize);
+			writeInt(encoded.fSize);
+			writeShort(encoded.fName.length);
+			writeShort(extraLength);
+			writeShort(commentLength);
+			writeShort(0); // disk number start
+			writeShort(0); // internal file attributes
+			writeInt(0); // external file attributes
+			writeInt(zip64 ? ZIP64_MAGICVAL : encoded.fOffset);
+			writeBytes(encoded.fName, encoded.fName.length);
+			if (zip64) {
+				writeShort(ZIP64_EXTID);
+				writeShort(8);
+				writeLong(encoded.fOffset);
+			}
+			if (extra != null)
+				writeBytes(extra, extra.length);
+			if (comment != null)
+				writeBytes(comment, commentLength);
+		}
+
+		long directorySize= fPosition - directoryOffset;
+		int count= fWritten.size();
+		if (count >= ZIP64_MAGICCOUNT || directoryOffset >= ZIP64_MAGICVAL || directorySize >= ZIP64_MAGICVAL) {
+			long endOffset= fPosition;
+			writeInt(ZIP64_ENDSIG);
+			writeLong(44); // size of the remaining record
+			writeShort(45); // version made by
+			writeShort(45); // version needed to extract
+			writeInt(0); // number of this disk
+			writeInt(0); // disk with the start of the central directory
+			writeLong(count);
+			writeLong(count);
+			writeLong(directorySize);
+			writeLong(directoryOffset);
+
+			writeInt(ZIP64_LOCSIG);
+			writeInt(0); // disk with the start of the ZIP64 end record
+			writeLong(endOffset);
+			writeInt(1); // total number of disks
+		}
+		writeInt(ENDSIG);
+		writeShort(0); // number of this disk
+		writeShort(0); // disk with the start of the central directory
+		writeShort(Math.min(count, ZIP64_MAGICCOUNT));
+		writeShort(Math.min(count, ZIP64_MAGICCOUNT));
+		writeInt(Math.min(directorySize, ZIP64_MAGICVAL));
+		writeInt(Math.min(directoryOffset, ZIP64_MAGICVAL));
+		if (fComment != null) {
+			writeShort(fComment.length);
+			writeBytes(fComment, fComment.length);
+		} else {
+			writeShort(0);
+		}
+	}
+
+	private static int getVersion(int method, boolean zip64) {
+		if (zip64)
+			return 45;
+		return method == DEFLATED ? 20 : 10;
+	}
+
+	private static byte[] withJarMagic(byte[] extra) {
+		// the first entry of a JAR is marked like JarOutputStream does it
+		int i= 0;
+		while (extra != null && i + 4 <= extra.length) {
+			if (((extra[i] & 0xFF) | (extra[i + 1] & 0xFF) << 8) == JAR_MAGIC)
+				return extra;
+			i+= 4 + ((extra[i + 2] & 0xFF) | (extra[i + 3] & 0xFF) << 8);
+		}
+		int length= extra != null ? extra.length : 0;
+		byte[] result= new byte[length + 4];
+		result[0]= (byte) JAR_MAGIC;
+		result[1]= (byte) (JAR_MAGIC >> 8);
+		if (extra != null)
+			System.arraycopy(extra, 0, result, 4, length);
+		return result;
+	}
+
+	private static long toDosTime(long time) {
+		LocalDateTime dateTime= LocalDateTime.ofInstant(Instant.ofEpochMilli(time != -1 ? time : System.currentTimeMillis()), ZoneId.systemDefault());
+		int year= dateTime.getYear();
+		if (year < 1980)
+			return (1 << 21) | (1 << 16);
+		return (Math.min(year, 2107) - 1980) << 25 | dateTime.getMonthValue() << 21 | dateTime.getDayOfMonth() << 16
+				| dateTime.getHour() << 11 | dateTime.getMinute() << 5 | dateTime.getSecond() >> 1;
+	}
+
+	private void writeShort(int v) throws IOException {
+		fOut.write(v & 0xFF);
+		fOut.write((v >>> 8) & 0xFF);
+		fPosition+= 2;
+	}
+
+	private void writeInt(long v) throws IOException {
+		writeShort((int) (v & 0xFFFF));
+		writeShort((int) ((v >>> 16) & 0xFFFF));
+	}
+
+	private void writeLong(long v) throws IOException {
+		writeInt(v & ZIP64_MAGICVAL);
+		writeInt(v >>> 32);
+	}
+
+	private void writeBytes(byte[] b, int len) throws IOException {
+		fOut.write(b, 0, len);
+		fPosition+= len;
+	}
+}
@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.jarpackager;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the compressed data of the entries of a ZIP archive, so they can be copied into another
+ * archive without inflating and deflating them again.
+ * <p>
+ * Only entries whose sizes and offsets fit into the standard ZIP headers and which are not
+ * encrypted can be read. Archives with a ZIP64 end record or with data before the first entry
+ * cannot be read at all. The compressed data of an entry can be read from several threads.
+ * </p>
+ *
+ * @since 1.17
+ */
+public final class RawZipFile implements Closeable {
+
+	/**
+	 * An entry of the archive, as described by its central directory record.
+	 */
+	public static final class Entry {
+
+		private final int fMethod;
+		private final long fCrc;
+		private final long fCompressedSize;
+		private final long fSize;
+		private final long fLocalHeaderOffset;
+
+		Entry(int method, long crc, long compressedSize, long size, long localHeaderOffset) {
+			fMethod= method;
+			fCrc= crc;
+			fCompressedSize= compressedSize;
+			fSize= size;
+			fLocalHeaderOffset= localHeaderOffset;
+		}
+
+		/**
+		 * @return the compression method, {@link java.util.zip.ZipEntry#STORED} or
+		 *         {@link java.util.zip.ZipEntry#DEFLATED}
+		 */
+		public int getMethod() {
+			return fMethod;
+		}
+
+		/**
+		 * @return the CRC-32 of the uncompressed data
+		 */
+		public long getCrc() {
+			return fCrc;
+		}
+
+		/**
+		 * @return the size of the compressed data
+		 */
+		public long getCompressedSize() {
+			return fCompressedSize;
+		}
+
+		/**
+		 * @return the size of the uncompressed data
+		 */
+		public long getSize() {
+			return fSize;
+		}
+	}
+
+	private static final int LOCSIG= 0x04034b50;
+	private static final int CENSIG= 0x02014b50;
+	private static final int ENDSIG= 0x06054b50;
+
+	private static final int LOCHDR= 30;
+	private static final int CENHDR= 46;
+	private static final int ENDHDR= 22;
+
+	private static final int FLAG_ENCRYPTED= 0x1;
+
+	private static final long ZIP64_MAGICVAL= 0xFFFFFFFFL;
+	private static final int ZIP64_MAGICCOUNT= 0xFFFF;
+
+	/**
+	 * The largest compressed size of an entry whose data can be read into an array
+	 */
+	private static final long MAX_DATA_SIZE= Integer.MAX_VALUE - 8;
+
+	private static final int TRANSFER_BUFFER_SIZE= 64 * 1024;
+
+	private final FileChannel fChannel;
+	private final Map<String, Entry> fEntries;
+
+	private RawZipFile(FileChannel channel, Map<String, Entry> entries) {
+		fChannel= channel;
+		fEntries= entries;
+	}
+
+	/**
+	 * Opens the given archive and reads its central directory.
+	 *
+	 * @param file the archive
+	 * @return the opened archive, or <code>null</code> if the archive cannot be read or its entries
+	 *         cannot be copied raw
+	 */
+	public static RawZipFile open(File file) {
+		FileChannel channel= null;
+		try {
+			channel= FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			Map<String, Entry> entries= readCentralDirectory(channel);
+			if (entries != null) {
+				RawZipFile result= new RawZipFile(channel, entries);
+				channel= null;
+				return result;
+			}
+		} catch (IOException e) {
+			// fall back to reading the entries through ZipFile
+		} finally {
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException e) {
+					// Do nothing
+				}
+			}
+		}
+		return null;
+	}
+
+	private static Map<String, Entry> readCentralDirectory(FileChannel channel) throws IOException {
+		long fileSize= channel.size();
+		if (fileSize < ENDHDR)
+			return null;
+
+		// the end record is followed by a comment of at most 64 KB
+		int tailLength= (int) Math.min(fileSize, ENDHDR + 0xFFFF);
+		ByteBuffer tail= read(channel, fileSize - tailLength, tailLength);
+		int end= -1;
+		for (int i= tailLength - ENDHDR; i >= 0; i--) {
+			if (tail.getInt(i) == ENDSIG && i + ENDHDR + (tail.getShort(i + 20) & 0xFFFF) == tailLength) {
+				end= i;
+				break;
+			}
+		}
+		if (end == -1)
+			return null;
+
+		int count= tail.getShort(end + 10) & 0xFFFF;
+		long directorySize= tail.getInt(end + 12) & ZIP64_MAGICVAL;
+		long directoryOffset= tail.getInt(end + 16) & ZIP64_MAGICVAL;
+		if (count == ZIP64_MAGICCOUNT || directorySize == ZIP64_MAGICVAL || directoryOffset == ZIP64_MAGICVAL)
+			return null;
+		if (directoryOffset + directorySize != fileSize - tailLength + end || directorySize > MAX_DATA_SIZE)
+			return null;
+
+		ByteBuffer directory= read(channel, directoryOffset, (int) directorySize);
+		Map<String, Entry> entries= new HashMap<>(count * 4 / 3 + 1);
+		int pos= 0;
+		for (int i= 0; i < count; i++) {
+			if (pos + CENHDR > directorySize || directory.getInt(pos) != CENSIG)
+				return null;
+			int flags= directory.getShort(pos + 8) & 0xFFFF;
+			int method= directory.getShort(pos + 10) & 0xFFFF;
+			long crc= directory.getInt(pos + 16) & ZIP64_MAGICVAL;
+			long compressedSize= directory.getInt(pos + 20) & ZIP64_MAGICVAL;
+			long size= directory.getInt(pos + 24) & ZIP64_MAGICVAL;
+			int nameLength= directory.getShort(pos + 28) & 0xFFFF;
+			int extraLength= directory.getShort(pos + 30) & 0xFFFF;
+			int commentLength= directory.getShort(pos + 32) & 0xFFFF;
+			long localHeaderOffset= directory.getInt(pos + 42) & ZIP64_MAGICVAL;
+			if (pos + CENHDR + nameLength > directorySize)
+				return null;
+
+			byte[] name= new byte[nameLength];
+			directory.position(pos + CENHDR);
+			directory.get(name);
+			boolean supported= (flags & FLAG_ENCRYPTED) == 0
+					&& (method == java.util.zip.ZipEntry.STORED || method == java.util.zip.ZipEntry.DEFLATED)
+					&& compressedSize != ZIP64_MAGICVAL && size != ZIP64_MAGICVAL && localHeaderOffset != ZIP64_MAGICVAL;
+			if (supported) {
+				// ZipFile decodes all names as UTF-8 by default
+				entries.putIfAbsent(new String(name, StandardCharsets.UTF_8), new Entry(method, crc, compressedSize, size, localHeaderOffset));
+			}
+			pos+= CENHDR + nameLength + extraLength + commentLength;
+		}
+
+		// archives with a prefix have offsets relative to the start of the ZIP data
+		if (count > 0 && (directoryOffset < LOCHDR || read(channel, 0, 4).getInt(0) != LOCSIG))
+			return null;
+		return entries;
+	}
+
+	/**
+	 * Returns the entry with the given name.
+	 *
+	 * @param name the name of the entry
+	 * @return the entry, or <code>null</code> if the archive has no such entry or if its data
+	 *         cannot be copied raw
+	 */
+	public Entry getEntry(String name) {
+		return fEntries.get(name);
+	}
+
+	/**
+	 * Reads the compressed data of the given entry.
+	 *
+	 * @param entry an entry of this archive
+	 * @return the compressed data
+	 * @throws IOException if an I/O error occurred, if the local header of the entry is invalid or
+	 *             if the data is too large for an array
+	 */
+	public byte[] readCompressedData(Entry entry) throws IOException {
+		if (entry.fCompressedSize > MAX_DATA_SIZE)
+			throw new ZipException("entry too large"); //$NON-NLS-1$
+		ByteBuffer data= read(fChannel, getDataOffset(entry), (int) entry.fCompressedSize);
+		return data.array();
+	}
+
+	/**
+	 * Copies the compressed data of the given entry to a stream, without reading all of it into
+	 * memory.
+	 *
+	 * @param entry an entry of this archive
+	 * @param out the stream to write the data to
+	 * @throws IOException if an I/O error occurred or if the local header of the entry is invalid
+	 */
+	public void transferCompressedData(Entry entry, OutputStream out) throws IOException {
+		long position= getDataOffset(entry);
+		long remaining= entry.fCompressedSize;
+		ByteBuffer buffer= ByteBuffer.allocate((int) Math.min(remaining, TRANSFER_BUFFER_SIZE));
+		while (remaining > 0) {
+			buffer.clear();
+			buffer.limit((int) Math.min(remaining, buffer.capacity()));
+			int count= fChannel.read(buffer, position);
+			if (count == -1)
+				throw new EOFException();
+			out.write(buffer.array(), 0, count);
+			position+= count;
+			remaining-= count;
+		}
+	}
+
+	private long getDataOffset(Entry entry) throws IOException {
+		ByteBuffer header= read(fChannel, entry.fLocalHeaderOffset, LOCHDR);
+		if (header.getInt(0) != LOCSIG)
+			throw new ZipException("invalid LOC header (bad signature)"); //$NON-NLS-1$
+		int nameLength= header.getShort(26) & 0xFFFF;
+		int extraLength= header.getShort(28) & 0xFFFF;
+		return entry.fLocalHeaderOffset + LOCHDR + nameLength + extraLength;
+	}
+
+	@Override
+	public void close() throws IOException {
+		fChannel.close();
+	}
+
+	private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer= ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			// positional reads do not change the position of the channel and can run concurrently
+			if (channel.read(buffer, position + buffer.position()) == -1)
+				throw new EOFException();
+		}
+		buffer.flip();
+		return buffer;
+	}
+}
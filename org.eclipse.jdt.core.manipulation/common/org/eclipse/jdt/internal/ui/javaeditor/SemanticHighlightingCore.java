@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 IBM Corporation and others.
+ * Copyright (c) 2018, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -51,9 +51,23 @@ public abstract class SemanticHighlightingCore {
 	 *        {@link org.eclipse.jdt.core.dom.CharacterLiteral}
 	 * @return <code>true</code> iff the semantic highlighting consumes the
 	 *         semantic token
+	 * @see #canConsumeLiterals()
 	 */
 	public boolean consumesLiteral(SemanticToken token) {
 		return false;
 	}
 
+	/**
+	 * Returns <code>true</code> if the semantic highlighting can consume any literal. Clients which
+	 * do not return <code>true</code> are not asked whether they consume literals, so implementors
+	 * which override {@link #consumesLiteral(SemanticToken)} must also override this method.
+	 *
+	 * @return <code>true</code> if {@link #consumesLiteral(SemanticToken)} can return
+	 *         <code>true</code>
+	 * @since 1.17
+	 */
+	public boolean canConsumeLiterals() {
+		return false;
+	}
+
 }
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2010, 2019 Darmstadt University of Technology and others.
+ * Copyright (c) 2010, 2022 Darmstadt University of Technology and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -57,10 +57,13 @@ public class ChainElement {
 		switch (element.getElementType()) {
 			case IJavaElement.FIELD:
 				elementType= ElementType.FIELD;
-				try {
-					signature= ((IField)element).getTypeSignature();
-				} catch (JavaModelException e) {
-					// ignore
+				signature= MemberIndex.getDefault().getTypeSignature((IField)element);
+				if (signature == null) {
+					try {
+						signature= ((IField)element).getTypeSignature();
+					} catch (JavaModelException e) {
+						// ignore
+					}
 				}
 				declType= ((IField)element).getDeclaringType();
 				setReturnType(proj, signature, declType);
@@ -73,10 +76,13 @@ public class ChainElement {
 				break;
 			case IJavaElement.METHOD:
 				elementType= ElementType.METHOD;
-				try {
-					signature= ((IMethod)element).getReturnType();
-				} catch (JavaModelException e) {
-					// ignore
+				signature= MemberIndex.getDefault().getTypeSignature((IMethod)element);
+				if (signature == null) {
+					try {
+						signature= ((IMethod)element).getReturnType();
+					} catch (JavaModelException e) {
+						// ignore
+					}
 				}
 				declType= ((IMethod)element).getDeclaringType();
 				setReturnType(proj, signature, declType);
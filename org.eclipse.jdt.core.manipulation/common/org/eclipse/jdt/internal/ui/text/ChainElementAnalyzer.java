@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2011, 2019 Stefan Henss and others.
+ * Copyright (c) 2011, 2022 Stefan Henss and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,31 +10,99 @@
  */
 package org.eclipse.jdt.internal.ui.text;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 import org.eclipse.jdt.core.CompletionContext;
+import org.eclipse.jdt.core.ElementChangedEvent;
 import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.IElementChangedListener;
 import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
 import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.Signature;
 
 import org.eclipse.jdt.internal.corext.template.java.SignatureUtil;
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+import org.eclipse.jdt.internal.corext.util.LRUMap;
+
+import org.eclipse.jdt.internal.ui.text.MemberIndex.Member;
+import org.eclipse.jdt.internal.ui.text.MemberIndex.TypeEntry;
 
 public final class ChainElementAnalyzer {
 
-	private static final Map<String, IType> typeCache= new HashMap<>();
+	private static final Map<String, IType> typeCache= new ConcurrentHashMap<>();
+
+	/**
+	 * Key of the member cache: the members found for a type depend on the receiver type, which
+	 * determines their visibility, and on whether static or instance members are searched.
+	 */
+	private static final class MemberKey {
+		private final IType type;
+
+		private final IType receiverType;
+
+		private final boolean staticOnly;
+
+		MemberKey(final IType type, final IType receiverType, final boolean staticOnly) {
+			this.type= type;
+			this.receiverType= receiverType;
+			this.staticOnly= staticOnly;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(type, receiverType, Boolean.valueOf(staticOnly));
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof MemberKey)) {
+				return false;
+			}
+			final MemberKey other= (MemberKey) obj;
+			return staticOnly == other.staticOnly && type.equals(other.type) && Objects.equals(receiverType, other.receiverType);
+		}
+	}
+
+	/**
+	 * The maximal number of types whose members are cached.
+	 */
+	private static final int MAX_MEMBER_CACHE_SIZE= 500;
+
+	/**
+	 * Fields and methods of types, shared by all chain searches until the Java model changes. The
+	 * least recently used types are evicted.
+	 */
+	private static final Map<MemberKey, Collection<IJavaElement>> memberCache= Collections.synchronizedMap(new LRUMap<>(MAX_MEMBER_CACHE_SIZE));
+
+	private static volatile boolean listening;
+
+	/**
+	 * Clears the caches when the Java model changes. Reconciling a working copy only clears them
+	 * if members or super types have changed, since edits of method bodies do not change the
+	 * members of any type.
+	 */
+	private static final IElementChangedListener CACHE_INVALIDATOR= event -> {
+		if (event.getType() != ElementChangedEvent.POST_RECONCILE || isStructuralChange(event.getDelta())) {
+			typeCache.clear();
+			memberCache.clear();
+		}
+	};
 
 	private static final Predicate<IField> NON_STATIC_FIELDS_ONLY_FILTER = t -> {
 		try {
@@ -81,20 +149,70 @@ public final class ChainElementAnalyzer {
 
     public static Collection<IJavaElement> findVisibleInstanceFieldsAndRelevantInstanceMethods(final ChainType type,
             final ChainType receiverType) {
-        return findFieldsAndMethods(type, receiverType, NON_STATIC_FIELDS_ONLY_FILTER,
-                RELEVANT_NON_STATIC_METHODS_ONLY_FILTER);
+        return findCachedFieldsAndMethods(type, receiverType, false);
     }
 
     public static Collection<IJavaElement> findAllPublicStaticFieldsAndNonVoidNonPrimitiveStaticMethods(
             final ChainType type, final ChainType receiverType) {
-        return findFieldsAndMethods(type, receiverType, STATIC_FIELDS_ONLY_FILTER,
-                STATIC_NON_VOID_NON_PRIMITIVE_METHODS_ONLY_FILTER);
+        return findCachedFieldsAndMethods(type, receiverType, true);
+    }
+
+    private static Collection<IJavaElement> findCachedFieldsAndMethods(final ChainType type, final ChainType receiverType,
+            final boolean staticOnly) {
+        if (type.getType() == null) {
+            return Collections.emptyList();
+        }
+        startListening();
+        final MemberKey key= new MemberKey(type.getType(), receiverType.getType(), staticOnly);
+        Collection<IJavaElement> members= memberCache.get(key);
+        if (members == null) {
+            members= Collections.unmodifiableList(new ArrayList<>(findFieldsAndMethods(type, receiverType, staticOnly)));
+            memberCache.put(key, members);
+        }
+        return members;
+    }
+
+    private static void startListening() {
+        if (!listening) {
+            synchronized (CACHE_INVALIDATOR) {
+                if (!listening) {
+                    JavaCore.addElementChangedListener(CACHE_INVALIDATOR, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+                    listening= true;
+                }
+            }
+        }
+    }
+
+    private static boolean isStructuralChange(final IJavaElementDelta delta) {
+        if (delta.getKind() != IJavaElementDelta.CHANGED
+                || (delta.getFlags() & (IJavaElementDelta.F_MODIFIERS | IJavaElementDelta.F_SUPER_TYPES)) != 0) {
+            return true;
+        }
+        for (final IJavaElementDelta child : delta.getAffectedChildren()) {
+            if (isStructuralChange(child)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private static Collection<IJavaElement> findFieldsAndMethods(final ChainType type, final ChainType receiverType,
-            final Predicate<IField> fieldFilter, final Predicate<IMethod> methodFilter) {
+            final boolean staticOnly) {
+        final Predicate<IField> fieldFilter= staticOnly ? STATIC_FIELDS_ONLY_FILTER : NON_STATIC_FIELDS_ONLY_FILTER;
+        final Predicate<IMethod> methodFilter= staticOnly ? STATIC_NON_VOID_NON_PRIMITIVE_METHODS_ONLY_FILTER : RELEVANT_NON_STATIC_METHODS_ONLY_FILTER;
         final Map<String, IJavaElement> tmp = new LinkedHashMap<>();
         for (final IType cur : findAllSupertypesIncludingArgument(type)) {
+            final TypeEntry entry= MemberIndex.getDefault().getTypeEntry(cur);
+            if (entry != null) {
+                // library members are filtered on the index, only the relevant ones get a handle
+                for (final Member member : entry.getMembers()) {
+                    if (isRelevant(member, staticOnly) && canBeSeenBy(member, cur, receiverType.getType())) {
+                        final IMember handle= member.createHandle(cur);
+                        tmp.putIfAbsent(handle.getHandleIdentifier(), handle);
+                    }
+                }
+                continue;
+            }
             try {
 				for (final IMethod method : cur.getMethods()) {
 				    if (!methodFilter.test(method) || !methodCanBeSeenBy(method, receiverType.getType())) {
@@ -125,6 +243,20 @@ public final class ChainElementAnalyzer {
         return tmp.values();
     }
 
+    private static boolean isRelevant(final Member member, final boolean staticOnly) {
+        if (Flags.isStatic(member.getFlags()) != staticOnly) {
+            return false;
+        }
+        return member.isField() || !member.isConstructor() && !Signature.SIG_VOID.equals(member.getTypeSignature());
+    }
+
+    private static boolean canBeSeenBy(final Member member, final IType declaringType, final IType invocationType) {
+        if (member.isField()) {
+            return fieldCanBeSeenBy(member.getFlags(), declaringType, invocationType);
+        }
+        return methodCanBeSeenBy(member.getFlags(), declaringType, invocationType);
+    }
+
     private static List<IType> findAllSupertypesIncludingArgument(final ChainType type) {
         if ((type.getPrimitiveType() != null)) {
             return Collections.emptyList();
@@ -139,12 +271,13 @@ public final class ChainElementAnalyzer {
             }
             supertypes.add(superType);
 			try {
-				String superClass= superType.getSuperclassTypeSignature();
+				final TypeEntry entry= MemberIndex.getDefault().getTypeEntry(superType);
+				String superClass= entry != null ? entry.getSuperclassSignature() : superType.getSuperclassTypeSignature();
 				if (superClass != null) {
 					IType superClassType= ChainElementAnalyzer.getTypeFromSignature(type.getType().getJavaProject(), superClass, superType);
 					queue.add(superClassType);
 				}
-				for (final String interfc : superType.getSuperInterfaceTypeSignatures()) {
+				for (final String interfc : entry != null ? entry.getSuperInterfaceSignatures() : superType.getSuperInterfaceTypeSignatures()) {
 					IType interfcType= ChainElementAnalyzer.getTypeFromSignature(type.getType().getJavaProject(), interfc, superType);
 					queue.add(interfcType);
 				}
@@ -293,7 +426,7 @@ public final class ChainElementAnalyzer {
 			if (resType != null) {
 				String fqExpectedType= JavaModelUtil.concatenateName(resType[0][0], resType[0][1]);
 				res= proj.findType(fqExpectedType);
-				if (isResolved) {
+				if (isResolved && res != null) {
 					typeCache.put(typeSig, res);
 				}
 				return res;
@@ -305,104 +438,97 @@ public final class ChainElementAnalyzer {
 	}
 
 	private static boolean methodCanBeSeenBy(IMethod mb, IType invocationType) {
+		int flags= 0;
 		try {
-			if (Flags.isPublic(mb.getFlags())) {
-				return true;
-			}
-		} catch (JavaModelException e1) {
+			flags= mb.getFlags();
+		} catch (JavaModelException e) {
 			// ignore
 		}
-		if (invocationType.equals(mb.getDeclaringType())) {
+		return methodCanBeSeenBy(flags, mb.getDeclaringType(), invocationType);
+	}
+
+	private static boolean methodCanBeSeenBy(int flags, IType declaringType, IType invocationType) {
+		if (Flags.isPublic(flags)) {
+			return true;
+		}
+		if (invocationType.equals(declaringType)) {
 			return true;
 		}
 
 		String invocationPackage= invocationType.getPackageFragment().getElementName();
-		String methodPackage= mb.getDeclaringType().getPackageFragment().getElementName();
-		try {
-			if (Flags.isProtected(mb.getFlags())) {
-				if (invocationPackage.equals(methodPackage)) {
-					return false; // isSuper ?
-				}
+		String methodPackage= declaringType.getPackageFragment().getElementName();
+		if (Flags.isProtected(flags)) {
+			if (invocationPackage.equals(methodPackage)) {
+				return false; // isSuper ?
 			}
-		} catch (JavaModelException e) {
-			// ignore
 		}
 
-		try {
-			if (Flags.isPrivate(mb.getFlags())) {
-				IType mTypeRoot= mb.getDeclaringType();
-				while (invocationType.getDeclaringType() != null) {
-					mTypeRoot= mTypeRoot.getDeclaringType();
-				}
-				IType invTypeRoot= invocationType;
-				while (invTypeRoot.getDeclaringType() != null) {
-					invTypeRoot= invTypeRoot.getDeclaringType();
-				}
-				return mTypeRoot.equals(invTypeRoot);
+		if (Flags.isPrivate(flags)) {
+			IType mTypeRoot= declaringType;
+			while (invocationType.getDeclaringType() != null) {
+				mTypeRoot= mTypeRoot.getDeclaringType();
 			}
-		} catch (JavaModelException e) {
-			// ignore
+			IType invTypeRoot= invocationType;
+			while (invTypeRoot.getDeclaringType() != null) {
+				invTypeRoot= invTypeRoot.getDeclaringType();
+			}
+			return mTypeRoot.equals(invTypeRoot);
 		}
 
 		return invocationPackage.equals(methodPackage);
 	}
 
 	private static boolean fieldCanBeSeenBy(IField fb, IType invocationType) {
+		int flags= 0;
 		try {
-			if (Flags.isPublic(fb.getFlags())) {
-				return true;
-			}
-		} catch (JavaModelException e2) {
+			flags= fb.getFlags();
+		} catch (JavaModelException e) {
 			// ignore
 		}
+		return fieldCanBeSeenBy(flags, fb.getDeclaringType(), invocationType);
+	}
 
-		if (invocationType.equals(fb.getDeclaringType())) {
+	private static boolean fieldCanBeSeenBy(int flags, IType declaringType, IType invocationType) {
+		if (Flags.isPublic(flags)) {
+			return true;
+		}
+
+		if (invocationType.equals(declaringType)) {
 			return true;
 		}
 
 		String invocationpackage = invocationType.getPackageFragment().getElementName();
-		String fieldPackage = fb.getDeclaringType().getPackageFragment().getElementName();
-		try {
-			if (Flags.isProtected(fb.getFlags())) {
-				if (invocationType.equals(fb.getDeclaringType())) {
-					return true;
-				}
-				if (invocationpackage.equals(fieldPackage)) {
-					return true;
-				}
+		String fieldPackage = declaringType.getPackageFragment().getElementName();
+		if (Flags.isProtected(flags)) {
+			if (invocationpackage.equals(fieldPackage)) {
+				return true;
+			}
 
+			try {
 				IType currType= invocationType;
 				while (currType.getSuperclassTypeSignature() != null) {
 					currType= ChainElementAnalyzer.getTypeFromSignature(currType.getJavaProject(), currType.getSuperclassTypeSignature(), currType);
-					if (currType.equals(fb.getDeclaringType())) {
+					if (currType.equals(declaringType)) {
 						return true;
 					}
 				}
+			} catch (JavaModelException e1) {
+				// ignore
 			}
-		} catch (JavaModelException e1) {
-			// ignore
 		}
 
-		try {
-			if (Flags.isPrivate(fb.getFlags())) {
-				IType fTypeRoot= fb.getDeclaringType();
-				while (invocationType.getDeclaringType() != null) {
-					fTypeRoot= fTypeRoot.getDeclaringType();
-				}
-				IType invTypeRoot= invocationType;
-				while (invTypeRoot.getDeclaringType() != null) {
-					invTypeRoot= invTypeRoot.getDeclaringType();
-				}
-				if (fTypeRoot.equals(invTypeRoot)) {
-					return true;
-				}
+		if (Flags.isPrivate(flags)) {
+			IType fTypeRoot= declaringType;
+			while (invocationType.getDeclaringType() != null) {
+				fTypeRoot= fTypeRoot.getDeclaringType();
+			}
+			IType invTypeRoot= invocationType;
+			while (invTypeRoot.getDeclaringType() != null) {
+				invTypeRoot= invTypeRoot.getDeclaringType();
+			}
+			if (fTypeRoot.equals(invTypeRoot)) {
+				return true;
 			}
-		} catch (JavaModelException e) {
-			// ignore
-		}
-
-		if (! invocationpackage.equals(fieldPackage)) {
-			return false;
 		}
 
 		return false;
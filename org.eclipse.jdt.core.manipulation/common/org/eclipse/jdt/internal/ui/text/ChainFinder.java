@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2010, 2020 Darmstadt University of Technology and others.
+ * Copyright (c) 2010, 2022 Darmstadt University of Technology and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,35 +11,74 @@
  */
 package org.eclipse.jdt.internal.ui.text;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IType;
 
 import org.eclipse.jdt.internal.ui.text.ChainElement.ElementType;
 
+/**
+ * Breadth-first search for call chains leading to the expected types.
+ * <p>
+ * The chains of one depth are expanded in parallel on a pool shared by all searches. The results
+ * of the parallel tasks are merged in order, so the chains are found in the same order as by a
+ * sequential search. Found chains are published as soon as their task has been merged, so that
+ * {@link #getChains()} returns useful results when the search is canceled or times out.
+ * </p>
+ */
 public class ChainFinder {
 
+	/**
+	 * The maximal number of incomplete chains of one depth, to bound the memory of the search.
+	 */
+	private static final int MAX_INCOMPLETE_CHAINS= 50000;
+
+	/**
+	 * The minimal number of chains expanded by one parallel task.
+	 */
+	private static final int MIN_CHAINS_PER_TASK= 64;
+
+	private static ForkJoinPool fgPool;
+
 	private final List<ChainType> expectedTypes;
 
 	private final List<String> excludedTypes;
 
 	private final IType receiverType;
 
-	private final List<Chain> chains= new LinkedList<>();
+	private final List<Chain> chains= new CopyOnWriteArrayList<>();
 
-	private final Map<IJavaElement, ChainElement> edgeCache= new HashMap<>();
+	private final Map<IJavaElement, ChainElement> edgeCache= new ConcurrentHashMap<>();
 
-	private final Map<String, List<IJavaElement>> fieldsAndMethodsCache= new HashMap<>();
+	private final Map<ChainType, List<IJavaElement>> instanceMembersCache= new ConcurrentHashMap<>();
 
-	private final Map<String, Boolean> assignableCache= new HashMap<>();
+	private final Map<ChainType, List<IJavaElement>> staticMembersCache= new ConcurrentHashMap<>();
 
 	private volatile boolean isCanceled;
 
+	private long deadline= Long.MAX_VALUE;
+
+	/**
+	 * The result of expanding a part of the chains of one depth.
+	 */
+	private static final class Expansion {
+		final List<List<ChainElement>> completeChains= new ArrayList<>();
+
+		final List<List<ChainElement>> incompleteChains= new ArrayList<>();
+	}
+
 	public ChainFinder(final List<ChainType> expectedTypes, final List<String> excludedTypes,
 			final IType receiverType) {
 		this.expectedTypes= expectedTypes;
@@ -62,30 +101,138 @@ public class ChainFinder {
 		}
 	}
 
+	/**
+	 * Searches for chains until the search completes or the timeout elapses. The chains found
+	 * until then are returned by {@link #getChains()}.
+	 *
+	 * @param entrypoints the first elements of the chains
+	 * @param maxChains the maximal number of chains
+	 * @param minDepth the minimal number of elements of a chain
+	 * @param maxDepth the maximal number of elements of a chain
+	 * @param timeout the timeout in milliseconds
+	 * @return <code>true</code> if the search has completed, <code>false</code> if it has timed out
+	 *         or has been canceled
+	 */
+	public boolean startChainSearch(final List<ChainElement> entrypoints, final int maxChains, final int minDepth,
+			final int maxDepth, final long timeout) {
+		deadline= System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		startChainSearch(entrypoints, maxChains, minDepth, maxDepth);
+		return !isCanceled;
+	}
+
 	public void cancel() {
 		isCanceled= true;
 	}
 
 	private void searchChainsForExpectedType(final ChainType expectedType, final int expectedDimensions,
 			final List<ChainElement> entrypoints, final int maxChains, final int minDepth, final int maxDepth) {
-		final LinkedList<LinkedList<ChainElement>> incompleteChains= prepareQueue(entrypoints);
+		final Map<ChainType, Boolean> assignableCache= new ConcurrentHashMap<>();
+		List<List<ChainElement>> incompleteChains= prepareQueue(entrypoints);
 
-		while (!incompleteChains.isEmpty() && !isCanceled) {
-			final LinkedList<ChainElement> chain= incompleteChains.poll();
-			final ChainElement edge= chain.getLast();
-			if (isValidEndOfChain(edge, expectedType, expectedDimensions)) {
-				if (chain.size() >= minDepth) {
+		while (!incompleteChains.isEmpty() && !isStopped() && chains.size() < maxChains) {
+			final List<Future<Expansion>> tasks= new ArrayList<>();
+			final int parallelism= getPool().getParallelism();
+			final int chunkSize= Math.max(MIN_CHAINS_PER_TASK, (incompleteChains.size() + 4 * parallelism - 1) / (4 * parallelism));
+			final List<List<ChainElement>> depth= incompleteChains;
+			for (int start= 0; start < depth.size(); start+= chunkSize) {
+				final List<List<ChainElement>> chunk= depth.subList(start, Math.min(start + chunkSize, depth.size()));
+				if (chunk.size() == depth.size()) {
+					// not worth a task
+					tasks.add(CompletableFuture.completedFuture(expand(chunk, expectedType, expectedDimensions, minDepth, maxDepth, assignableCache)));
+				} else {
+					tasks.add(getPool().submit(() -> expand(chunk, expectedType, expectedDimensions, minDepth, maxDepth, assignableCache)));
+				}
+			}
+
+			incompleteChains= new ArrayList<>();
+			for (int i= 0; i < tasks.size(); i++) {
+				final Expansion expansion= await(tasks.get(i));
+				if (expansion == null) {
+					cancelTasks(tasks, i);
+					return;
+				}
+				for (final List<ChainElement> chain : expansion.completeChains) {
 					chains.add(new Chain(chain, expectedDimensions));
-					if (chains.size() == maxChains) {
-						break;
+					if (chains.size() >= maxChains) {
+						cancelTasks(tasks, i + 1);
+						return;
 					}
 				}
+				if (incompleteChains.size() <= MAX_INCOMPLETE_CHAINS) {
+					incompleteChains.addAll(expansion.incompleteChains);
+				}
+			}
+		}
+	}
+
+	private Expansion expand(final List<List<ChainElement>> incompleteChains, final ChainType expectedType,
+			final int expectedDimensions, final int minDepth, final int maxDepth, final Map<ChainType, Boolean> assignableCache) {
+		final Expansion expansion= new Expansion();
+		for (final List<ChainElement> chain : incompleteChains) {
+			if (isStopped()) {
+				break;
+			}
+			final ChainElement edge= chain.get(chain.size() - 1);
+			if (isValidEndOfChain(edge, expectedType, expectedDimensions, assignableCache)) {
+				if (chain.size() >= minDepth) {
+					expansion.completeChains.add(chain);
+				}
 				continue;
 			}
-			if (chain.size() < maxDepth && incompleteChains.size() <= 50000) {
-				searchDeeper(chain, incompleteChains, edge.getReturnType());
+			if (chain.size() < maxDepth) {
+				searchDeeper(chain, expansion.incompleteChains, edge.getReturnType());
 			}
 		}
+		return expansion;
+	}
+
+	/**
+	 * Tells whether the search has been canceled or has passed its deadline. Expanding the chains
+	 * checks this, as small depths are expanded without a task and cannot be timed out by
+	 * {@link #await(Future)}.
+	 *
+	 * @return <code>true</code> if the search has been canceled or timed out
+	 */
+	private boolean isStopped() {
+		if (!isCanceled && deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+			isCanceled= true;
+		}
+		return isCanceled;
+	}
+
+	/**
+	 * Waits for the result of a task until the deadline of the search.
+	 *
+	 * @param task the task
+	 * @return the result, or <code>null</code> if the search has been canceled or timed out
+	 */
+	private Expansion await(final Future<Expansion> task) {
+		try {
+			if (deadline == Long.MAX_VALUE) {
+				return task.get();
+			}
+			return task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException | ExecutionException e) {
+			isCanceled= true;
+			return null;
+		} catch (InterruptedException e) {
+			isCanceled= true;
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	private static void cancelTasks(final List<Future<Expansion>> tasks, final int start) {
+		for (int i= start; i < tasks.size(); i++) {
+			tasks.get(i).cancel(false);
+		}
+	}
+
+	private static synchronized ForkJoinPool getPool() {
+		if (fgPool == null) {
+			fgPool= new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+		}
+		return fgPool;
 	}
 
 	/**
@@ -98,10 +245,10 @@ public class ChainFinder {
 		return chains;
 	}
 
-	private static LinkedList<LinkedList<ChainElement>> prepareQueue(final List<ChainElement> entrypoints) {
-		final LinkedList<LinkedList<ChainElement>> incompleteChains= new LinkedList<>();
+	private static List<List<ChainElement>> prepareQueue(final List<ChainElement> entrypoints) {
+		final List<List<ChainElement>> incompleteChains= new ArrayList<>();
 		for (final ChainElement entrypoint : entrypoints) {
-			final LinkedList<ChainElement> chain= new LinkedList<>();
+			final List<ChainElement> chain= new ArrayList<>(1);
 			chain.add(entrypoint);
 			incompleteChains.add(chain);
 		}
@@ -124,7 +271,7 @@ public class ChainFinder {
 	}
 
 	private boolean isValidEndOfChain(final ChainElement edge, final ChainType expectedType,
-			final int expectedDimension) {
+			final int expectedDimension, final Map<ChainType, Boolean> assignableCache) {
 		if (edge.getElementType() == ElementType.TYPE) {
 			return false;
 		}
@@ -134,18 +281,22 @@ public class ChainFinder {
 		if (expectedType.getPrimitiveType() != null) {
 			return expectedType.getPrimitiveType().equals(edge.getReturnType().getPrimitiveType());
 		}
-		Boolean isAssignable= assignableCache.get(edge.toString() + expectedType.toString());
+		if (expectedDimension > edge.getReturnTypeDimension()) {
+			return false;
+		}
+		// apart from the dimension, only the return type matters
+		Boolean isAssignable= assignableCache.get(edge.getReturnType());
 		if (isAssignable == null) {
 			isAssignable= ChainElementAnalyzer.isAssignable(edge, expectedType.getType(), expectedDimension);
-			assignableCache.put(edge.toString() + expectedType.toString(), isAssignable);
+			assignableCache.put(edge.getReturnType(), isAssignable);
 		}
 		return isAssignable;
 	}
 
-	private void searchDeeper(final LinkedList<ChainElement> chain,
-			final List<LinkedList<ChainElement>> incompleteChains, final ChainType currentlyVisitedType) {
+	private void searchDeeper(final List<ChainElement> chain,
+			final List<List<ChainElement>> incompleteChains, final ChainType currentlyVisitedType) {
 		boolean staticOnly= false;
-		if (chain.getLast().getElementType() == ElementType.TYPE) {
+		if (chain.get(chain.size() - 1).getElementType() == ElementType.TYPE) {
 			staticOnly= true;
 		}
 
@@ -158,9 +309,10 @@ public class ChainFinder {
 	}
 
 	private List<IJavaElement> findAllFieldsAndMethods(final ChainType chainElementType, boolean staticOnly) {
-		List<IJavaElement> cached= fieldsAndMethodsCache.get(chainElementType.toString() + Boolean.toString(staticOnly));
+		final Map<ChainType, List<IJavaElement>> cache= staticOnly ? staticMembersCache : instanceMembersCache;
+		List<IJavaElement> cached= cache.get(chainElementType);
 		if (cached == null) {
-			cached= new LinkedList<>();
+			cached= new ArrayList<>();
 			Collection<IJavaElement> candidates= staticOnly
 					? ChainElementAnalyzer.findAllPublicStaticFieldsAndNonVoidNonPrimitiveStaticMethods(chainElementType, new ChainType(receiverType))
 					: ChainElementAnalyzer.findVisibleInstanceFieldsAndRelevantInstanceMethods(chainElementType, new ChainType(receiverType));
@@ -169,7 +321,7 @@ public class ChainFinder {
 					cached.add(e);
 				}
 			}
-			fieldsAndMethodsCache.put(chainElementType.toString() + Boolean.toString(staticOnly), cached);
+			cache.put(chainElementType, cached);
 		}
 		return cached;
 	}
@@ -178,15 +330,18 @@ public class ChainFinder {
 		ChainElement cached= edgeCache.get(member);
 		if (cached == null) {
 			cached= new ChainElement(member, false);
-			edgeCache.put(member, cached);
+			final ChainElement existing= edgeCache.putIfAbsent(member, cached);
+			if (existing != null) {
+				cached= existing;
+			}
 		}
 		return cached;
 	}
 
-	private static LinkedList<ChainElement> cloneChainAndAppendEdge(final LinkedList<ChainElement> chain,
+	private static List<ChainElement> cloneChainAndAppendEdge(final List<ChainElement> chain,
 			final ChainElement newEdge) {
-		@SuppressWarnings("unchecked")
-		final LinkedList<ChainElement> chainCopy= (LinkedList<ChainElement>) chain.clone();
+		final List<ChainElement> chainCopy= new ArrayList<>(chain.size() + 1);
+		chainCopy.addAll(chain);
 		chainCopy.add(newEdge);
 		return chainCopy;
 	}
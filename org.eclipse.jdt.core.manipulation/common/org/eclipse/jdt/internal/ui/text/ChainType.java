@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2019 Red Hat Inc. and others.
+ * Copyright (c) 2019, 2022 Red Hat Inc. and others.
  *
  * This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License 2.0
@@ -12,11 +12,14 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text;
 
+import java.util.Objects;
+
 import org.eclipse.jdt.core.IType;
 
 /**
  * Unify IType and primitive types so they may be treated the same way
- * in the chain completion logic.
+ * in the chain completion logic. Chain types are equal if they denote the
+ * same type, so they can be used as keys of the search caches.
  */
 public class ChainType {
 
@@ -51,6 +54,23 @@ public class ChainType {
 		return dimension;
 	}
 
+	@Override
+	public int hashCode() {
+		return type != null ? type.hashCode() : Objects.hash(primitiveType, Integer.valueOf(dimension));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof ChainType)) {
+			return false;
+		}
+		ChainType other= (ChainType) obj;
+		if (type != null) {
+			return type.equals(other.type);
+		}
+		return other.type == null && dimension == other.dimension && Objects.equals(primitiveType, other.primitiveType);
+	}
+
 	@Override
 	public String toString() {
 		return (type != null) ? type.getFullyQualifiedName() : primitiveType;
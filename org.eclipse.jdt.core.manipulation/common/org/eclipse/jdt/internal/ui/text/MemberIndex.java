@@ -0,0 +1,736 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.core.resources.IResource;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IOrdinaryClassFile;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.internal.core.manipulation.JavaManipulationMessages;
+import org.eclipse.jdt.internal.core.manipulation.JavaManipulationPlugin;
+import org.eclipse.jdt.internal.corext.util.LRUMap;
+
+/**
+ * A workspace wide index of the super types, fields and methods of the types in library archives.
+ * Type based completions use it to find the members of a type and their types without opening the
+ * class files of the type and its super types.
+ * <p>
+ * Archives are indexed in the background when they are first requested. The index is kept in the
+ * state location of the plug-in and an archive is indexed again when it has changed on disk or when
+ * the Java model reports a change of its content.
+ * </p>
+ * <p>
+ * Only the types of the most recently used archives are kept in memory. When the index is loaded,
+ * only the table of contents of the file is read, the types of an archive are read from the file
+ * when the archive is requested. Archives which are no longer on a class path are evicted from
+ * memory when the class path of a project changes or a project is removed.
+ * </p>
+ */
+public final class MemberIndex {
+
+	/**
+	 * A field or method of an indexed type.
+	 */
+	public static final class Member {
+
+		private static final byte FIELD= 0;
+
+		private static final byte METHOD= 1;
+
+		private static final byte CONSTRUCTOR= 2;
+
+		private final byte fKind;
+
+		private final String fName;
+
+		private final int fFlags;
+
+		private final String fTypeSignature;
+
+		private final String[] fParameterTypes;
+
+		Member(byte kind, String name, int flags, String typeSignature, String[] parameterTypes) {
+			fKind= kind;
+			fName= name;
+			fFlags= flags;
+			fTypeSignature= typeSignature;
+			fParameterTypes= parameterTypes;
+		}
+
+		public String getName() {
+			return fName;
+		}
+
+		public int getFlags() {
+			return fFlags;
+		}
+
+		public boolean isField() {
+			return fKind == FIELD;
+		}
+
+		public boolean isConstructor() {
+			return fKind == CONSTRUCTOR;
+		}
+
+		/**
+		 * @return the type signature of a field or the return type signature of a method
+		 */
+		public String getTypeSignature() {
+			return fTypeSignature;
+		}
+
+		/**
+		 * Creates the handle of this member, which is equal to the handle returned by the Java
+		 * model.
+		 *
+		 * @param declaringType the type declaring this member
+		 * @return the field or method handle
+		 */
+		public IMember createHandle(IType declaringType) {
+			if (fKind == FIELD) {
+				return declaringType.getField(fName);
+			}
+			return declaringType.getMethod(fName, fParameterTypes);
+		}
+
+		boolean matches(IMember member) {
+			if (!fName.equals(member.getElementName())) {
+				return false;
+			}
+			if (member instanceof IField) {
+				return fKind == FIELD;
+			}
+			return fKind != FIELD && Arrays.equals(fParameterTypes, ((IMethod) member).getParameterTypes());
+		}
+	}
+
+	/**
+	 * The super types and members of an indexed type.
+	 */
+	public static final class TypeEntry {
+
+		private final String fSuperclassSignature;
+
+		private final String[] fSuperInterfaceSignatures;
+
+		private final Member[] fMembers;
+
+		TypeEntry(String superclassSignature, String[] superInterfaceSignatures, Member[] members) {
+			fSuperclassSignature= superclassSignature;
+			fSuperInterfaceSignatures= superInterfaceSignatures;
+			fMembers= members;
+		}
+
+		/**
+		 * @return the super class signature, or <code>null</code> if the type has no super class
+		 */
+		public String getSuperclassSignature() {
+			return fSuperclassSignature;
+		}
+
+		public String[] getSuperInterfaceSignatures() {
+			return fSuperInterfaceSignatures;
+		}
+
+		/**
+		 * @return the fields and methods in the order of the Java model
+		 */
+		public Member[] getMembers() {
+			return fMembers;
+		}
+
+		Member findMember(IMember member) {
+			for (Member each : fMembers) {
+				if (each.matches(member)) {
+					return each;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * The location of the types of an archive in the file of the index.
+	 */
+	private static final class StoredRoot {
+
+		private final long fModified;
+
+		private final long fLength;
+
+		private final long fOffset;
+
+		private final int fSize;
+
+		StoredRoot(long modified, long length, long offset, int size) {
+			fModified= modified;
+			fLength= length;
+			fOffset= offset;
+			fSize= size;
+		}
+	}
+
+	/**
+	 * The indexed types of an archive.
+	 */
+	private static final class RootEntry {
+
+		private final long fModified;
+
+		private final long fLength;
+
+		private final Map<String, TypeEntry> fTypes;
+
+		RootEntry(long modified, long length, Map<String, TypeEntry> types) {
+			fModified= modified;
+			fLength= length;
+			fTypes= types;
+		}
+	}
+
+	private static final String INDEX_FILE= "memberindex.dat"; //$NON-NLS-1$
+
+	private static final int MAGIC= 0x4A4D4958;
+
+	private static final int VERSION= 2;
+
+	/**
+	 * The default number of archives whose types are kept in memory
+	 */
+	private static final int MAX_CACHED_ROOTS= 64;
+
+	private static MemberIndex fgDefault;
+
+	/**
+	 * The file of the index, or <code>null</code> if the index is not persisted
+	 */
+	private final File fFile;
+
+	/**
+	 * The most recently used up to date archives, by root key
+	 */
+	private final Map<String, RootEntry> fRoots;
+
+	/**
+	 * The archives in the file of the index, by root key. They have not necessarily been checked
+	 * against the file system.
+	 */
+	private final Map<String, StoredRoot> fStored= new ConcurrentHashMap<>();
+
+	/**
+	 * The archives which have been indexed since the index was last saved, by root key
+	 */
+	private final Map<String, RootEntry> fUnsaved= new ConcurrentHashMap<>();
+
+	/**
+	 * The archives waiting to be indexed
+	 */
+	private final Set<IPackageFragmentRoot> fPending= new LinkedHashSet<>();
+
+	private final Job fJob;
+
+	private volatile boolean fIsLoaded;
+
+	private volatile boolean fIsDirty;
+
+	/**
+	 * Creates a member index.
+	 *
+	 * @param file the file of the index, or <code>null</code> to keep the index in memory only
+	 */
+	public MemberIndex(File file) {
+		this(file, MAX_CACHED_ROOTS);
+	}
+
+	/**
+	 * Creates a member index which keeps the types of a limited number of archives in memory.
+	 *
+	 * @param file the file of the index, or <code>null</code> to keep the index in memory only
+	 * @param maxCachedRoots the number of archives whose types are kept in memory
+	 */
+	public MemberIndex(File file, int maxCachedRoots) {
+		fFile= file;
+		fRoots= Collections.synchronizedMap(new LRUMap<>(maxCachedRoots));
+		fJob= new Job(JavaManipulationMessages.MemberIndex_job_name) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				return update(monitor);
+			}
+		};
+		fJob.setSystem(true);
+		fJob.setPriority(Job.DECORATE);
+	}
+
+	/**
+	 * @return the shared index of the workspace
+	 */
+	public static synchronized MemberIndex getDefault() {
+		if (fgDefault == null) {
+			JavaManipulationPlugin plugin= JavaManipulationPlugin.getDefault();
+			fgDefault= new MemberIndex(plugin != null ? plugin.getStateLocation().append(INDEX_FILE).toFile() : null);
+			JavaCore.addElementChangedListener(fgDefault::elementChanged, ElementChangedEvent.POST_CHANGE);
+		}
+		return fgDefault;
+	}
+
+	/**
+	 * Returns the indexed super types and members of a type. If the archive of the type has not
+	 * been indexed yet, it is indexed in the background.
+	 *
+	 * @param type the type
+	 * @return the entry of the type, or <code>null</code> if the type is not indexed
+	 */
+	public TypeEntry getTypeEntry(IType type) {
+		if (!type.isBinary()) {
+			return null;
+		}
+		IPackageFragmentRoot root= (IPackageFragmentRoot) type.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+		if (root == null || !root.isArchive()) {
+			return null;
+		}
+		RootEntry entry= fRoots.get(getKey(root));
+		if (entry == null) {
+			schedule(root);
+			return null;
+		}
+		return entry.fTypes.get(type.getFullyQualifiedName());
+	}
+
+	/**
+	 * Returns the indexed type signature of a field or the return type signature of a method.
+	 *
+	 * @param member the field or method
+	 * @return the type signature, or <code>null</code> if the member is not indexed
+	 */
+	public String getTypeSignature(IMember member) {
+		IType declaringType= member.getDeclaringType();
+		if (declaringType == null) {
+			return null;
+		}
+		TypeEntry entry= getTypeEntry(declaringType);
+		if (entry == null) {
+			return null;
+		}
+		Member indexed= entry.findMember(member);
+		return indexed != null ? indexed.getTypeSignature() : null;
+	}
+
+	/**
+	 * Indexes the archives on the class path of a project in the background.
+	 *
+	 * @param project the project
+	 */
+	public void indexClasspath(IJavaProject project) {
+		try {
+			for (IPackageFragmentRoot root : project.getPackageFragmentRoots()) {
+				if (root.isArchive() && !fRoots.containsKey(getKey(root))) {
+					schedule(root);
+				}
+			}
+		} catch (JavaModelException e) {
+			// the project is not open or does not exist
+		}
+	}
+
+	/**
+	 * Indexes the pending archives and saves the index if it has changed. This is done by a
+	 * background job whenever archives are requested.
+	 *
+	 * @param monitor the progress monitor
+	 * @return the status of the update
+	 */
+	public synchronized IStatus update(IProgressMonitor monitor) {
+		if (!fIsLoaded) {
+			load();
+		}
+		while (true) {
+			IPackageFragmentRoot root;
+			synchronized (fPending) {
+				if (fPending.isEmpty()) {
+					break;
+				}
+				root= fPending.iterator().next();
+				fPending.remove(root);
+			}
+			if (monitor.isCanceled()) {
+				synchronized (fPending) {
+					fPending.clear();
+				}
+				break;
+			}
+			String key= getKey(root);
+			if (fRoots.containsKey(key)) {
+				continue;
+			}
+			File file= getFile(root);
+			long modified= file != null ? file.lastModified() : 0;
+			long length= file != null ? file.length() : 0;
+			StoredRoot stored= fStored.get(key);
+			RootEntry entry= null;
+			if (stored != null && stored.fModified == modified && stored.fLength == length) {
+				entry= readRoot(stored);
+			}
+			if (entry == null) {
+				// the stored types are outdated or cannot be read
+				if (fStored.remove(key) != null) {
+					fIsDirty= true;
+				}
+				try {
+					Map<String, TypeEntry> types= indexRoot(root, monitor);
+					if (types != null) {
+						entry= new RootEntry(modified, length, types);
+						fUnsaved.put(key, entry);
+						fIsDirty= true;
+					}
+				} catch (JavaModelException e) {
+					// the archive cannot be read, try again on the next request
+				}
+			}
+			if (entry != null) {
+				fRoots.put(key, entry);
+			}
+		}
+		if (fIsDirty) {
+			save();
+		}
+		return Status.OK_STATUS;
+	}
+
+	private void schedule(IPackageFragmentRoot root) {
+		synchronized (fPending) {
+			if (!fPending.add(root)) {
+				return;
+			}
+		}
+		fJob.schedule();
+	}
+
+	private static Map<String, TypeEntry> indexRoot(IPackageFragmentRoot root, IProgressMonitor monitor) throws JavaModelException {
+		Map<String, TypeEntry> types= new HashMap<>();
+		for (IJavaElement child : root.getChildren()) {
+			if (monitor.isCanceled()) {
+				return null;
+			}
+			for (IOrdinaryClassFile classFile : ((IPackageFragment) child).getOrdinaryClassFiles()) {
+				IType type= classFile.getType();
+				try {
+					types.put(type.getFullyQualifiedName(), createTypeEntry(type));
+				} catch (JavaModelException e) {
+					// skip class files which cannot be read
+				}
+			}
+		}
+		return types;
+	}
+
+	private static TypeEntry createTypeEntry(IType type) throws JavaModelException {
+		IField[] fields= type.getFields();
+		IMethod[] methods= type.getMethods();
+		Member[] members= new Member[fields.length + methods.length];
+		int i= 0;
+		for (IMethod method : methods) {
+			members[i++]= new Member(method.isConstructor() ? Member.CONSTRUCTOR : Member.METHOD, method.getElementName(), method.getFlags(), method.getReturnType(), method.getParameterTypes());
+		}
+		for (IField field : fields) {
+			members[i++]= new Member(Member.FIELD, field.getElementName(), field.getFlags(), field.getTypeSignature(), null);
+		}
+		return new TypeEntry(type.getSuperclassTypeSignature(), type.getSuperInterfaceTypeSignatures(), members);
+	}
+
+	private void elementChanged(ElementChangedEvent event) {
+		if (processDelta(event.getDelta())) {
+			fIsDirty= true;
+			fJob.schedule();
+		}
+	}
+
+	/**
+	 * Removes the archives whose content has changed or which have been removed, and evicts the
+	 * archives of changed class paths and removed projects from memory.
+	 *
+	 * @param delta the delta
+	 * @return <code>true</code> if the index has changed
+	 */
+	private boolean processDelta(IJavaElementDelta delta) {
+		IJavaElement element= delta.getElement();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				boolean changed= false;
+				for (IJavaElementDelta child : delta.getAffectedChildren()) {
+					changed|= processDelta(child);
+				}
+				return changed;
+			case IJavaElement.JAVA_PROJECT:
+				if (delta.getKind() == IJavaElementDelta.REMOVED
+						|| (delta.getFlags() & (IJavaElementDelta.F_CLOSED | IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0) {
+					// the archives may no longer be used, the stored ones are read again on demand
+					evictStoredRoots();
+				}
+				changed= false;
+				for (IJavaElementDelta child : delta.getAffectedChildren()) {
+					changed|= processDelta(child);
+				}
+				return changed;
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				IPackageFragmentRoot root= (IPackageFragmentRoot) element;
+				if (root.isArchive() && (delta.getKind() == IJavaElementDelta.REMOVED || (delta.getFlags() & IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED) != 0)) {
+					String key= getKey(root);
+					fRoots.remove(key);
+					fUnsaved.remove(key);
+					return fStored.remove(key) != null;
+				}
+				return false;
+			default:
+				return false;
+		}
+	}
+
+	private void evictStoredRoots() {
+		synchronized (fRoots) {
+			fRoots.keySet().removeIf(fStored::containsKey);
+		}
+	}
+
+	/**
+	 * Returns the key of an archive. The roots of the modules of a JRT system share the same path,
+	 * so the key also contains the name of the root.
+	 *
+	 * @param root the archive
+	 * @return the key
+	 */
+	private static String getKey(IPackageFragmentRoot root) {
+		return root.getPath().toString() + '!' + root.getElementName();
+	}
+
+	private static File getFile(IPackageFragmentRoot root) {
+		IResource resource= root.getResource();
+		IPath location= resource != null ? resource.getLocation() : root.getPath();
+		return location != null ? location.toFile() : null;
+	}
+
+	/**
+	 * Reads the table of contents of the file of the index. Each archive is stored as its key,
+	 * modification time, length and the size of its types, followed by its types.
+	 */
+	private void load() {
+		fIsLoaded= true;
+		if (fFile == null || !fFile.isFile()) {
+			return;
+		}
+		try (RandomAccessFile input= new RandomAccessFile(fFile, "r")) { //$NON-NLS-1$
+			if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+				return;
+			}
+			long fileLength= input.length();
+			for (int roots= input.readInt(); roots > 0; roots--) {
+				String key= input.readUTF();
+				long modified= input.readLong();
+				long length= input.readLong();
+				int size= input.readInt();
+				long offset= input.getFilePointer();
+				if (size < 0 || offset + size > fileLength) {
+					throw new IOException("Truncated member index"); //$NON-NLS-1$
+				}
+				fStored.put(key, new StoredRoot(modified, length, offset, size));
+				input.seek(offset + size);
+			}
+		} catch (IOException e) {
+			// a corrupt index is rebuilt
+			fStored.clear();
+		}
+	}
+
+	/**
+	 * Reads the types of an archive from the file of the index.
+	 *
+	 * @param stored the location of the types
+	 * @return the types, or <code>null</code> if they cannot be read
+	 */
+	private RootEntry readRoot(StoredRoot stored) {
+		try {
+			DataInputStream input= new DataInputStream(new ByteArrayInputStream(readStoredBytes(stored)));
+			int count= input.readInt();
+			Map<String, TypeEntry> types= new HashMap<>(count * 4 / 3 + 1);
+			for (int i= 0; i < count; i++) {
+				String name= input.readUTF();
+				String superclass= readString(input);
+				String[] interfaces= readStrings(input);
+				Member[] members= new Member[input.readInt()];
+				for (int j= 0; j < members.length; j++) {
+					byte kind= input.readByte();
+					members[j]= new Member(kind, input.readUTF(), input.readInt(), input.readUTF(), kind == Member.FIELD ? null : readStrings(input));
+				}
+				types.put(name, new TypeEntry(superclass, interfaces, members));
+			}
+			return new RootEntry(stored.fModified, stored.fLength, types);
+		} catch (IOException e) {
+			// the archive is indexed again
+			return null;
+		}
+	}
+
+	private byte[] readStoredBytes(StoredRoot stored) throws IOException {
+		try (RandomAccessFile input= new RandomAccessFile(fFile, "r")) { //$NON-NLS-1$
+			byte[] bytes= new byte[stored.fSize];
+			input.seek(stored.fOffset);
+			input.readFully(bytes);
+			return bytes;
+		}
+	}
+
+	private void save() {
+		fIsDirty= false;
+		if (fFile == null) {
+			fUnsaved.clear();
+			return;
+		}
+		File temp= new File(fFile.getPath() + ".tmp"); //$NON-NLS-1$
+		try {
+			Map<String, RootEntry> unsaved= new HashMap<>(fUnsaved);
+			Map<String, StoredRoot> stored= new HashMap<>(fStored);
+			stored.keySet().removeAll(unsaved.keySet());
+			Map<String, StoredRoot> written= new HashMap<>();
+			try (DataOutputStream output= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+					RandomAccessFile input= stored.isEmpty() ? null : new RandomAccessFile(fFile, "r")) { //$NON-NLS-1$
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+				output.writeInt(stored.size() + unsaved.size());
+				// the stored types are copied from the old file without reading them
+				for (Map.Entry<String, StoredRoot> root : stored.entrySet()) {
+					StoredRoot entry= root.getValue();
+					byte[] bytes= new byte[entry.fSize];
+					input.seek(entry.fOffset);
+					input.readFully(bytes);
+					written.put(root.getKey(), writeRoot(output, root.getKey(), entry.fModified, entry.fLength, bytes));
+				}
+				for (Map.Entry<String, RootEntry> root : unsaved.entrySet()) {
+					RootEntry entry= root.getValue();
+					written.put(root.getKey(), writeRoot(output, root.getKey(), entry.fModified, entry.fLength, writeTypes(entry.fTypes)));
+				}
+			}
+			Files.move(temp.toPath(), fFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			for (Map.Entry<String, StoredRoot> root : written.entrySet()) {
+				String key= root.getKey();
+				// archives which have changed in the meantime are not stored again
+				if (unsaved.containsKey(key) ? fUnsaved.remove(key, unsaved.get(key)) : fStored.containsKey(key)) {
+					fStored.put(key, root.getValue());
+				}
+			}
+		} catch (FileNotFoundException e) {
+			// the state location is not writable
+		} catch (IOException e) {
+			JavaManipulationPlugin.log(e);
+			temp.delete();
+		}
+	}
+
+	private static StoredRoot writeRoot(DataOutputStream output, String key, long modified, long length, byte[] types) throws IOException {
+		output.writeUTF(key);
+		output.writeLong(modified);
+		output.writeLong(length);
+		output.writeInt(types.length);
+		StoredRoot stored= new StoredRoot(modified, length, output.size(), types.length);
+		output.write(types);
+		return stored;
+	}
+
+	private static byte[] writeTypes(Map<String, TypeEntry> types) throws IOException {
+		ByteArrayOutputStream bytes= new ByteArrayOutputStream();
+		DataOutputStream output= new DataOutputStream(bytes);
+		output.writeInt(types.size());
+		for (Map.Entry<String, TypeEntry> type : types.entrySet()) {
+			TypeEntry typeEntry= type.getValue();
+			output.writeUTF(type.getKey());
+			writeString(output, typeEntry.fSuperclassSignature);
+			writeStrings(output, typeEntry.fSuperInterfaceSignatures);
+			output.writeInt(typeEntry.fMembers.length);
+			for (Member member : typeEntry.fMembers) {
+				output.writeByte(member.fKind);
+				output.writeUTF(member.fName);
+				output.writeInt(member.fFlags);
+				output.writeUTF(member.fTypeSignature);
+				if (member.fKind != Member.FIELD) {
+					writeStrings(output, member.fParameterTypes);
+				}
+			}
+		}
+		output.flush();
+		return bytes.toByteArray();
+	}
+
+	private static String readString(DataInputStream input) throws IOException {
+		return input.readBoolean() ? input.readUTF() : null;
+	}
+
+	private static String[] readStrings(DataInputStream input) throws IOException {
+		String[] strings= new String[input.readInt()];
+		for (int i= 0; i < strings.length; i++) {
+			strings[i]= input.readUTF();
+		}
+		return strings;
+	}
+
+	private static void writeString(DataOutputStream output, String string) throws IOException {
+		output.writeBoolean(string != null);
+		if (string != null) {
+			output.writeUTF(string);
+		}
+	}
+
+	private static void writeStrings(DataOutputStream output, String[] strings) throws IOException {
+		output.writeInt(strings.length);
+		for (String string : strings) {
+			output.writeUTF(string);
+		}
+	}
+}
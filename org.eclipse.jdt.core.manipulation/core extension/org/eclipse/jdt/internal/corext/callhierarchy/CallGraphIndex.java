@@ -0,0 +1,904 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.EnumConstantDeclaration;
+import org.eclipse.jdt.core.dom.ExpressionMethodReference;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.LambdaExpression;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.SuperMethodInvocation;
+import org.eclipse.jdt.core.dom.SuperMethodReference;
+import org.eclipse.jdt.core.dom.TypeMethodReference;
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+import org.eclipse.jdt.core.manipulation.JavaManipulation;
+
+import org.eclipse.jdt.internal.core.manipulation.JavaManipulationPlugin;
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+
+/**
+ * A reverse call graph of the compilation units in the workspace. For each method declared in
+ * source, the index knows the call sites of the method, so callers can be found without a search.
+ * <p>
+ * The index is built in the background when it is first requested and it is kept in the state
+ * location of the plug-in. When the body of a compilation unit changes, only that unit is indexed
+ * again. When the members declared by a unit change, the bindings of the units which refer to
+ * members of the same names may change as well, and these units are indexed again. When the types
+ * declared by a unit, their super types or the class path of a project change, the whole workspace
+ * is indexed again. While the index is not up to date or while working copies have unsaved
+ * changes, {@link #getCallers(IMethod)} returns <code>null</code> and callers have to be searched.
+ * </p>
+ * <p>
+ * The shared index only listens to changes of the Java model while the call graph index is
+ * enabled in the call hierarchy preferences.
+ * </p>
+ * <p>
+ * Only exact invocations and method references are indexed. Constructors, fields and methods
+ * declared in libraries are not indexed.
+ * </p>
+ */
+public final class CallGraphIndex {
+
+	/**
+	 * A call site of an indexed method.
+	 */
+	private static final class CallSite {
+
+		private final String fCallerKey;
+
+		private final int fStart;
+
+		private final int fEnd;
+
+		private final int fLineNumber;
+
+		CallSite(String callerKey, int start, int end, int lineNumber) {
+			fCallerKey= callerKey;
+			fStart= start;
+			fEnd= end;
+			fLineNumber= lineNumber;
+		}
+	}
+
+	/**
+	 * The call sites in an indexed compilation unit.
+	 */
+	private static final class UnitEntry {
+
+		private final long fStamp;
+
+		/**
+		 * A hash of the types declared in the unit and their super types, which tells whether all
+		 * units must be indexed again when the unit has changed
+		 */
+		private final long fTypeHash;
+
+		/**
+		 * Hashes of the declarations of the methods and fields of the unit by their simple names,
+		 * which tell the names whose references in other units must be indexed again
+		 */
+		private final Map<String, Long> fMemberHashes;
+
+		/**
+		 * The simple names referenced by the unit which may be bound to methods or fields
+		 */
+		private final Set<String> fReferencedNames;
+
+		/**
+		 * The call sites by handle identifier of the called method
+		 */
+		private final Map<String, CallSite[]> fCalls;
+
+		UnitEntry(long stamp, long typeHash, Map<String, Long> memberHashes, Set<String> referencedNames, Map<String, CallSite[]> calls) {
+			fStamp= stamp;
+			fTypeHash= typeHash;
+			fMemberHashes= memberHashes;
+			fReferencedNames= referencedNames;
+			fCalls= calls;
+		}
+	}
+
+	/**
+	 * Collects the call sites of a compilation unit.
+	 */
+	private static final class CallSiteCollector extends ASTVisitor {
+
+		private final ICompilationUnit fUnit;
+
+		private final CompilationUnit fAST;
+
+		private final Map<String, List<CallSite>> fCalls= new HashMap<>();
+
+		private final Set<String> fReferencedNames= new HashSet<>();
+
+		CallSiteCollector(ICompilationUnit unit, CompilationUnit ast) {
+			fUnit= unit;
+			fAST= ast;
+		}
+
+		@Override
+		public boolean visit(SimpleName node) {
+			if (node.isDeclaration())
+				return false;
+			IBinding binding= node.resolveBinding();
+			// local variables are not bound to other units
+			if (!(binding instanceof IVariableBinding) || ((IVariableBinding) binding).isField())
+				fReferencedNames.add(node.getIdentifier());
+			return false;
+		}
+
+		@Override
+		public boolean visit(MethodInvocation node) {
+			addCall(node.resolveMethodBinding(), node.getName(), node);
+			return true;
+		}
+
+		@Override
+		public boolean visit(SuperMethodInvocation node) {
+			addCall(node.resolveMethodBinding(), node.getName(), node);
+			return true;
+		}
+
+		@Override
+		public boolean visit(ExpressionMethodReference node) {
+			addCall(node.resolveMethodBinding(), node.getName(), node.getName());
+			return true;
+		}
+
+		@Override
+		public boolean visit(SuperMethodReference node) {
+			addCall(node.resolveMethodBinding(), node.getName(), node.getName());
+			return true;
+		}
+
+		@Override
+		public boolean visit(TypeMethodReference node) {
+			addCall(node.resolveMethodBinding(), node.getName(), node.getName());
+			return true;
+		}
+
+		/**
+		 * Adds a call site. Like the matches of the search engine, the call site starts at the name
+		 * of the method.
+		 *
+		 * @param binding the binding of the called method
+		 * @param name the name of the called method
+		 * @param node the node of the call
+		 */
+		private void addCall(IMethodBinding binding, SimpleName name, ASTNode node) {
+			if (binding == null || binding.isConstructor())
+				return;
+			IJavaElement called= binding.getMethodDeclaration().getJavaElement();
+			if (!(called instanceof IMethod) || ((IMethod) called).isBinary())
+				return;
+			IMember caller= getEnclosingMember(node);
+			if (caller == null)
+				return;
+			int start= name.getStartPosition();
+			int end= node.getStartPosition() + node.getLength();
+			fCalls.computeIfAbsent(called.getHandleIdentifier(), k -> new ArrayList<>())
+					.add(new CallSite(caller.getHandleIdentifier(), start, end, fAST.getLineNumber(start)));
+		}
+
+		private IMember getEnclosingMember(ASTNode node) {
+			for (ASTNode parent= node.getParent(); parent != null; parent= parent.getParent()) {
+				IBinding binding;
+				switch (parent.getNodeType()) {
+					case ASTNode.LAMBDA_EXPRESSION:
+						binding= ((LambdaExpression) parent).resolveMethodBinding();
+						break;
+					case ASTNode.METHOD_DECLARATION:
+						binding= ((MethodDeclaration) parent).resolveBinding();
+						break;
+					case ASTNode.VARIABLE_DECLARATION_FRAGMENT:
+						if (!(parent.getParent() instanceof FieldDeclaration))
+							continue;
+						binding= ((VariableDeclarationFragment) parent).resolveBinding();
+						break;
+					case ASTNode.ENUM_CONSTANT_DECLARATION:
+						binding= ((EnumConstantDeclaration) parent).resolveVariable();
+						break;
+					case ASTNode.INITIALIZER:
+						binding= null;
+						break;
+					default:
+						continue;
+				}
+				IJavaElement element= binding != null ? binding.getJavaElement() : null;
+				if (element instanceof IMember)
+					return (IMember) element;
+				try {
+					element= fUnit.getElementAt(node.getStartPosition());
+				} catch (JavaModelException e) {
+					return null;
+				}
+				return element instanceof IMember ? (IMember) element : null;
+			}
+			return null;
+		}
+
+		Set<String> getReferencedNames() {
+			return fReferencedNames;
+		}
+
+		Map<String, CallSite[]> getCalls() {
+			Map<String, CallSite[]> calls= new HashMap<>(fCalls.size() * 4 / 3 + 1);
+			for (Map.Entry<String, List<CallSite>> entry : fCalls.entrySet()) {
+				calls.put(entry.getKey(), entry.getValue().toArray(new CallSite[entry.getValue().size()]));
+			}
+			return calls;
+		}
+	}
+
+	private static final String INDEX_FILE= "callgraph.dat"; //$NON-NLS-1$
+
+	private static final int MAGIC= 0x4A434749;
+
+	private static final int VERSION= 2;
+
+	private static final String PREF_USE_CALL_GRAPH_INDEX= "PREF_USE_CALL_GRAPH_INDEX"; //$NON-NLS-1$
+
+	/**
+	 * The number of compilation units which are parsed together
+	 */
+	private static final int BATCH_SIZE= 64;
+
+	private static CallGraphIndex fgDefault;
+
+	/**
+	 * The listener which keeps the shared index up to date, or <code>null</code> while the index is
+	 * disabled
+	 */
+	private static IElementChangedListener fgListener;
+
+	/**
+	 * The file of the index, or <code>null</code> if the index is not persisted
+	 */
+	private final File fFile;
+
+	/**
+	 * The indexed compilation units, by handle identifier
+	 */
+	private final Map<String, UnitEntry> fUnits= new ConcurrentHashMap<>();
+
+	/**
+	 * The call sites by handle identifier of the called method and of the calling unit
+	 */
+	private final Map<String, Map<String, CallSite[]>> fCallers= new ConcurrentHashMap<>();
+
+	/**
+	 * The compilation units whose bodies have changed
+	 */
+	private final Set<ICompilationUnit> fPending= new LinkedHashSet<>();
+
+	private final Job fJob;
+
+	private volatile boolean fIsLoaded;
+
+	/**
+	 * Tells whether the index must be checked against the units of the workspace
+	 */
+	private volatile boolean fNeedsRebuild= true;
+
+	/**
+	 * Tells whether all units must be indexed again
+	 */
+	private volatile boolean fIsInvalid;
+
+	private volatile boolean fIsUpdating;
+
+	/**
+	 * Counts the changes of the index, to detect changes during a lookup
+	 */
+	private volatile int fModificationCount;
+
+	private volatile boolean fIsDirty;
+
+	/**
+	 * Creates a call graph index. The index is not notified about changes of the Java model, see
+	 * {@link #getDefault()}.
+	 *
+	 * @param file the file of the index, or <code>null</code> to keep the index in memory only
+	 */
+	public CallGraphIndex(File file) {
+		fFile= file;
+		fJob= new Job(CallHierarchyMessages.CallGraphIndex_job_name) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				return update(monitor);
+			}
+		};
+		fJob.setSystem(true);
+		fJob.setPriority(Job.DECORATE);
+	}
+
+	/**
+	 * @return the shared index of the workspace, which is updated on changes of the Java model
+	 */
+	public static synchronized CallGraphIndex getDefault() {
+		if (fgDefault == null) {
+			JavaManipulationPlugin plugin= JavaManipulationPlugin.getDefault();
+			fgDefault= new CallGraphIndex(plugin != null ? plugin.getStateLocation().append(INDEX_FILE).toFile() : null);
+			String nodeId= JavaManipulation.getPreferenceNodeId();
+			if (nodeId != null) {
+				InstanceScope.INSTANCE.getNode(nodeId).addPreferenceChangeListener(event -> {
+					if (PREF_USE_CALL_GRAPH_INDEX.equals(event.getKey()))
+						updateListener();
+				});
+			}
+			updateListener();
+		}
+		return fgDefault;
+	}
+
+	/**
+	 * Listens to changes of the Java model while the index is enabled. Changes made while the index
+	 * was not listening are found by checking the index against the workspace.
+	 */
+	private static synchronized void updateListener() {
+		boolean enabled= JavaManipulation.getPreferenceNodeId() != null && CallHierarchyCore.getDefault().isCallGraphIndexEnabled();
+		if (enabled == (fgListener != null))
+			return;
+		if (enabled) {
+			fgListener= fgDefault::elementChanged;
+			JavaCore.addElementChangedListener(fgListener, ElementChangedEvent.POST_CHANGE);
+		} else {
+			JavaCore.removeElementChangedListener(fgListener);
+			fgListener= null;
+			fgDefault.fJob.cancel();
+		}
+		fgDefault.fNeedsRebuild= true;
+	}
+
+	/**
+	 * Tells whether the index is up to date with the compilation units of the workspace. If the
+	 * index has not been built yet, it is built in the background.
+	 *
+	 * @return <code>true</code> if the index can be used to find callers
+	 */
+	public boolean isUpToDate() {
+		if (fNeedsRebuild && !fIsUpdating) {
+			fJob.schedule();
+			return false;
+		}
+		if (fIsUpdating || fNeedsRebuild) {
+			return false;
+		}
+		synchronized (fPending) {
+			if (!fPending.isEmpty())
+				return false;
+		}
+		return !hasUnsavedChanges();
+	}
+
+	/**
+	 * Returns the callers of a method.
+	 *
+	 * @param method the method
+	 * @return a map from handle identifier ({@link String}) to {@link MethodCall}, or
+	 *         <code>null</code> if the callers cannot be found in the index
+	 */
+	public Map<String, MethodCall> getCallers(IMethod method) {
+		try {
+			if (method.isBinary() || method.isConstructor())
+				return null;
+		} catch (JavaModelException e) {
+			return null;
+		}
+		int modificationCount= fModificationCount;
+		if (!isUpToDate())
+			return null;
+		CallSearchResultCollector collector= new CallSearchResultCollector();
+		Map<String, CallSite[]> sites= fCallers.get(method.getHandleIdentifier());
+		if (sites != null) {
+			for (CallSite[] unitSites : sites.values()) {
+				for (CallSite site : unitSites) {
+					IJavaElement caller= JavaCore.create(site.fCallerKey);
+					if (caller instanceof IMember) {
+						collector.addMember((IMember) caller, (IMember) caller, site.fStart, site.fEnd, site.fLineNumber, false);
+					}
+				}
+			}
+		}
+		if (modificationCount != fModificationCount || !isUpToDate())
+			return null;
+		return collector.getCallers();
+	}
+
+	/**
+	 * Brings the index up to date with the compilation units of the workspace and saves it if it
+	 * has changed. This is done by a background job whenever the index is requested or the Java
+	 * model has changed.
+	 *
+	 * @param monitor the progress monitor
+	 * @return the status of the update
+	 */
+	public synchronized IStatus update(IProgressMonitor monitor) {
+		fIsUpdating= true;
+		try {
+			if (!fIsLoaded) {
+				load();
+			}
+			while (fNeedsRebuild || !isPendingEmpty()) {
+				if (fNeedsRebuild) {
+					boolean invalid= fIsInvalid;
+					fIsInvalid= false;
+					fNeedsRebuild= false;
+					rebuild(invalid, monitor);
+				} else {
+					ICompilationUnit unit;
+					synchronized (fPending) {
+						unit= fPending.iterator().next();
+						fPending.remove(unit);
+					}
+					indexUnit(unit);
+				}
+			}
+			if (fIsDirty) {
+				save();
+			}
+			return Status.OK_STATUS;
+		} catch (OperationCanceledException e) {
+			fNeedsRebuild= true;
+			return Status.CANCEL_STATUS;
+		} finally {
+			fIsUpdating= false;
+		}
+	}
+
+	private boolean isPendingEmpty() {
+		synchronized (fPending) {
+			return fPending.isEmpty();
+		}
+	}
+
+	private static boolean hasUnsavedChanges() {
+		for (ICompilationUnit workingCopy : JavaCore.getWorkingCopies(null)) {
+			try {
+				if (workingCopy.hasUnsavedChanges())
+					return true;
+			} catch (JavaModelException e) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks the index against the compilation units of the workspace. Changes made while the
+	 * index was not listening may have changed the bindings of any unit, so all units are indexed
+	 * again if any unit has changed.
+	 *
+	 * @param invalid <code>true</code> to index all units again
+	 * @param progressMonitor the progress monitor
+	 */
+	private void rebuild(boolean invalid, IProgressMonitor progressMonitor) {
+		Map<IJavaProject, List<ICompilationUnit>> units= new LinkedHashMap<>();
+		int count= 0;
+		boolean valid= !invalid;
+		try {
+			for (IJavaProject project : JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()).getJavaProjects()) {
+				if (!project.getProject().isOpen())
+					continue;
+				List<ICompilationUnit> projectUnits= new ArrayList<>();
+				for (IPackageFragmentRoot root : project.getPackageFragmentRoots()) {
+					if (root.getKind() != IPackageFragmentRoot.K_SOURCE)
+						continue;
+					for (IJavaElement fragment : root.getChildren()) {
+						for (ICompilationUnit unit : ((IPackageFragment) fragment).getCompilationUnits()) {
+							projectUnits.add(unit);
+							if (valid) {
+								UnitEntry entry= fUnits.get(unit.getHandleIdentifier());
+								valid= entry != null && entry.fStamp == getStamp(unit);
+							}
+						}
+					}
+				}
+				units.put(project, projectUnits);
+				count+= projectUnits.size();
+			}
+		} catch (JavaModelException e) {
+			JavaManipulationPlugin.log(e);
+			fNeedsRebuild= true;
+			return;
+		}
+		if (valid && count == fUnits.size())
+			return;
+
+		fModificationCount++;
+		fUnits.clear();
+		fCallers.clear();
+		fIsDirty= true;
+		SubMonitor monitor= SubMonitor.convert(progressMonitor, CallHierarchyMessages.CallGraphIndex_job_name, count);
+		ASTRequestor requestor= new ASTRequestor() {
+			@Override
+			public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+				putUnit(source, ast);
+			}
+		};
+		for (Map.Entry<IJavaProject, List<ICompilationUnit>> entry : units.entrySet()) {
+			List<ICompilationUnit> projectUnits= entry.getValue();
+			for (int i= 0; i < projectUnits.size(); i+= BATCH_SIZE) {
+				List<ICompilationUnit> batch= projectUnits.subList(i, Math.min(i + BATCH_SIZE, projectUnits.size()));
+				createParser(entry.getKey()).createASTs(batch.toArray(new ICompilationUnit[batch.size()]), new String[0], requestor, monitor.split(batch.size()));
+			}
+		}
+	}
+
+	private static ASTParser createParser(IJavaProject project) {
+		ASTParser parser= ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
+		parser.setProject(project);
+		parser.setResolveBindings(true);
+		return parser;
+	}
+
+	/**
+	 * Indexes a unit whose body has changed. If the members it declares have changed as well, the
+	 * units which refer to members of the same names are indexed again. If the types it declares
+	 * have changed, all units are indexed again.
+	 *
+	 * @param unit the unit
+	 */
+	private void indexUnit(ICompilationUnit unit) {
+		if (!unit.exists()) {
+			fNeedsRebuild= true;
+			fIsInvalid= true;
+			return;
+		}
+		ASTParser parser= createParser(unit.getJavaProject());
+		parser.setSource(unit);
+		CompilationUnit ast= (CompilationUnit) parser.createAST(null);
+		String key= unit.getHandleIdentifier();
+		UnitEntry entry= createEntry(unit, ast);
+		UnitEntry old= putUnit(key, entry);
+		if (old == null || old.fTypeHash != entry.fTypeHash) {
+			fNeedsRebuild= true;
+			fIsInvalid= true;
+			return;
+		}
+		Set<String> changedNames= new HashSet<>();
+		for (Map.Entry<String, Long> member : entry.fMemberHashes.entrySet()) {
+			if (!member.getValue().equals(old.fMemberHashes.get(member.getKey())))
+				changedNames.add(member.getKey());
+		}
+		for (String name : old.fMemberHashes.keySet()) {
+			if (!entry.fMemberHashes.containsKey(name))
+				changedNames.add(name);
+		}
+		if (changedNames.isEmpty())
+			return;
+		for (Map.Entry<String, UnitEntry> other : fUnits.entrySet()) {
+			if (!other.getKey().equals(key) && !Collections.disjoint(changedNames, other.getValue().fReferencedNames)) {
+				IJavaElement dependent= JavaCore.create(other.getKey());
+				if (dependent instanceof ICompilationUnit) {
+					synchronized (fPending) {
+						fPending.add((ICompilationUnit) dependent);
+					}
+				}
+			}
+		}
+	}
+
+	private UnitEntry putUnit(ICompilationUnit unit, CompilationUnit ast) {
+		return putUnit(unit.getHandleIdentifier(), createEntry(unit, ast));
+	}
+
+	private static UnitEntry createEntry(ICompilationUnit unit, CompilationUnit ast) {
+		CallSiteCollector collector= new CallSiteCollector(unit, ast);
+		ast.accept(collector);
+		StringBuilder types= new StringBuilder();
+		Map<String, StringBuilder> members= new HashMap<>();
+		for (Object type : ast.types()) {
+			appendDeclarations(types, members, ((AbstractTypeDeclaration) type).resolveBinding());
+		}
+		Map<String, Long> memberHashes= new HashMap<>(members.size() * 4 / 3 + 1);
+		for (Map.Entry<String, StringBuilder> member : members.entrySet()) {
+			memberHashes.put(member.getKey(), getHash(member.getValue()));
+		}
+		return new UnitEntry(getStamp(unit), getHash(types), memberHashes, collector.getReferencedNames(), collector.getCalls());
+	}
+
+	private UnitEntry putUnit(String key, UnitEntry entry) {
+		fModificationCount++;
+		fIsDirty= true;
+		UnitEntry old= fUnits.put(key, entry);
+		if (old != null) {
+			for (String called : old.fCalls.keySet()) {
+				fCallers.computeIfPresent(called, (k, sites) -> {
+					sites.remove(key);
+					return sites.isEmpty() ? null : sites;
+				});
+			}
+		}
+		for (Map.Entry<String, CallSite[]> calls : entry.fCalls.entrySet()) {
+			fCallers.computeIfAbsent(calls.getKey(), k -> new ConcurrentHashMap<>()).put(key, calls.getValue());
+		}
+		return old;
+	}
+
+	private static long getStamp(ICompilationUnit unit) {
+		IResource resource= unit.getResource();
+		return resource != null ? resource.getModificationStamp() : IResource.NULL_STAMP;
+	}
+
+	private static long getHash(CharSequence declarations) {
+		// 64 bit FNV-1a
+		long hash= 0xcbf29ce484222325L;
+		for (int i= 0; i < declarations.length(); i++) {
+			hash^= declarations.charAt(i);
+			hash*= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	/**
+	 * Appends the declarations of a type. The type, its modifiers and super types and its member
+	 * types are appended to <code>types</code>, and the signatures and modifiers of its methods
+	 * and fields are appended to <code>members</code> by their simple names.
+	 *
+	 * @param types the declarations of the types
+	 * @param members the declarations of the members by simple name
+	 * @param type the type
+	 */
+	private static void appendDeclarations(StringBuilder types, Map<String, StringBuilder> members, ITypeBinding type) {
+		if (type == null) {
+			types.append('?');
+			return;
+		}
+		types.append(type.getKey()).append(type.getModifiers());
+		if (type.getSuperclass() != null) {
+			types.append(type.getSuperclass().getKey());
+		}
+		for (ITypeBinding superInterface : type.getInterfaces()) {
+			types.append(superInterface.getKey());
+		}
+		for (IMethodBinding method : type.getDeclaredMethods()) {
+			members.computeIfAbsent(method.getName(), k -> new StringBuilder())
+					.append(method.getKey()).append(method.getModifiers()).append(method.getReturnType().getKey());
+		}
+		for (IVariableBinding field : type.getDeclaredFields()) {
+			members.computeIfAbsent(field.getName(), k -> new StringBuilder())
+					.append(field.getKey()).append(field.getModifiers()).append(field.getType().getKey());
+		}
+		for (ITypeBinding member : type.getDeclaredTypes()) {
+			appendDeclarations(types, members, member);
+		}
+		types.append(';');
+	}
+
+	private void elementChanged(ElementChangedEvent event) {
+		if (processDelta(event.getDelta())) {
+			fModificationCount++;
+			fJob.schedule();
+		}
+	}
+
+	/**
+	 * Marks the units whose content has changed. Added or removed units and changes of the class
+	 * path can change the bindings of any unit.
+	 *
+	 * @param delta the delta
+	 * @return <code>true</code> if the index has to be updated
+	 */
+	private boolean processDelta(IJavaElementDelta delta) {
+		IJavaElement element= delta.getElement();
+		int kind= delta.getKind();
+		int flags= delta.getFlags();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_PROJECT:
+				if (kind != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED
+						| IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0) {
+					return invalidate();
+				}
+				//$FALL-THROUGH$
+			case IJavaElement.JAVA_MODEL:
+				boolean changed= false;
+				for (IJavaElementDelta child : delta.getAffectedChildren()) {
+					changed|= processDelta(child);
+				}
+				return changed;
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				if (kind != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED
+						| IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH)) != 0) {
+					return invalidate();
+				}
+				changed= false;
+				for (IJavaElementDelta child : delta.getAffectedChildren()) {
+					changed|= processDelta(child);
+				}
+				return changed;
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (kind != IJavaElementDelta.CHANGED) {
+					return invalidate();
+				}
+				changed= false;
+				for (IJavaElementDelta child : delta.getAffectedChildren()) {
+					changed|= processDelta(child);
+				}
+				return changed;
+			case IJavaElement.COMPILATION_UNIT:
+				ICompilationUnit unit= (ICompilationUnit) element;
+				if (!unit.isPrimary()) {
+					return false;
+				}
+				if (kind != IJavaElementDelta.CHANGED) {
+					return invalidate();
+				}
+				// a discarded working copy may have been indexed with unsaved content
+				if ((flags & (IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_PRIMARY_WORKING_COPY)) == 0) {
+					return false;
+				}
+				synchronized (fPending) {
+					fPending.add(unit);
+				}
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	private boolean invalidate() {
+		fIsInvalid= true;
+		fNeedsRebuild= true;
+		return true;
+	}
+
+	private void load() {
+		fIsLoaded= true;
+		if (fFile == null || !fFile.isFile()) {
+			return;
+		}
+		try (DataInputStream input= new DataInputStream(new BufferedInputStream(new FileInputStream(fFile)))) {
+			if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+				return;
+			}
+			for (int units= input.readInt(); units > 0; units--) {
+				String key= input.readUTF();
+				long stamp= input.readLong();
+				long typeHash= input.readLong();
+				int memberCount= input.readInt();
+				Map<String, Long> memberHashes= new HashMap<>(memberCount * 4 / 3 + 1);
+				for (int i= 0; i < memberCount; i++) {
+					memberHashes.put(input.readUTF(), input.readLong());
+				}
+				int nameCount= input.readInt();
+				Set<String> referencedNames= new HashSet<>(nameCount * 4 / 3 + 1);
+				for (int i= 0; i < nameCount; i++) {
+					referencedNames.add(input.readUTF());
+				}
+				int count= input.readInt();
+				Map<String, CallSite[]> calls= new HashMap<>(count * 4 / 3 + 1);
+				for (int i= 0; i < count; i++) {
+					String called= input.readUTF();
+					CallSite[] sites= new CallSite[input.readInt()];
+					for (int j= 0; j < sites.length; j++) {
+						sites[j]= new CallSite(input.readUTF(), input.readInt(), input.readInt(), input.readInt());
+					}
+					calls.put(called, sites);
+				}
+				putUnit(key, new UnitEntry(stamp, typeHash, memberHashes, referencedNames, calls));
+			}
+			fIsDirty= false;
+		} catch (IOException e) {
+			// a corrupt index is rebuilt
+			fUnits.clear();
+			fCallers.clear();
+		}
+	}
+
+	private void save() {
+		fIsDirty= false;
+		if (fFile == null) {
+			return;
+		}
+		File temp= new File(fFile.getPath() + ".tmp"); //$NON-NLS-1$
+		try {
+			try (DataOutputStream output= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				Map<String, UnitEntry> units= new HashMap<>(fUnits);
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+				output.writeInt(units.size());
+				for (Map.Entry<String, UnitEntry> unit : units.entrySet()) {
+					UnitEntry entry= unit.getValue();
+					output.writeUTF(unit.getKey());
+					output.writeLong(entry.fStamp);
+					output.writeLong(entry.fTypeHash);
+					output.writeInt(entry.fMemberHashes.size());
+					for (Map.Entry<String, Long> member : entry.fMemberHashes.entrySet()) {
+						output.writeUTF(member.getKey());
+						output.writeLong(member.getValue());
+					}
+					output.writeInt(entry.fReferencedNames.size());
+					for (String name : entry.fReferencedNames) {
+						output.writeUTF(name);
+					}
+					output.writeInt(entry.fCalls.size());
+					for (Map.Entry<String, CallSite[]> calls : entry.fCalls.entrySet()) {
+						output.writeUTF(calls.getKey());
+						output.writeInt(calls.getValue().length);
+						for (CallSite site : calls.getValue()) {
+							output.writeUTF(site.fCallerKey);
+							output.writeInt(site.fStart);
+							output.writeInt(site.fEnd);
+							output.writeInt(site.fLineNumber);
+						}
+					}
+				}
+			}
+			Files.move(temp.toPath(), fFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (FileNotFoundException e) {
+			// the state location is not writable
+		} catch (IOException e) {
+			JavaManipulationPlugin.log(e);
+			temp.delete();
+		}
+	}
+}
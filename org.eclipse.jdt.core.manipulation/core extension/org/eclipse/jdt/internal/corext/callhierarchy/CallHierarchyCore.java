@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2019, 2021 IBM Corporation and others.
+ * Copyright (c) 2019, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -50,6 +50,7 @@ public class CallHierarchyCore {
     private static final String PREF_USE_FILTERS= "PREF_USE_FILTERS"; //$NON-NLS-1$
     private static final String PREF_FILTERS_LIST= "PREF_FILTERS_LIST"; //$NON-NLS-1$
     private static final String PREF_FILTER_TESTCODE= "PREF_FILTER_TESTCODE"; //$NON-NLS-1$
+    private static final String PREF_USE_CALL_GRAPH_INDEX= "PREF_USE_CALL_GRAPH_INDEX"; //$NON-NLS-1$
 
     private String defaultIgnoreFilters= "java.*,javax.*"; //$NON-NLS-1$
 
@@ -73,6 +74,15 @@ public class CallHierarchyCore {
         return Boolean.parseBoolean(JavaManipulation.getPreference(PREF_FILTER_TESTCODE, null));
     }
 
+    /**
+     * Tells whether callers are looked up in the {@link CallGraphIndex} when it is up to date.
+     *
+     * @return <code>true</code> if the call graph index is used
+     */
+    public boolean isCallGraphIndexEnabled() {
+        return Boolean.parseBoolean(JavaManipulation.getPreference(PREF_USE_CALL_GRAPH_INDEX, null));
+    }
+
     public Collection<IJavaElement> getImplementingMethods(IMethod method) {
         if (isSearchUsingImplementorsEnabled()) {
             IJavaElement[] result= Implementors.getInstance().searchForImplementors(new IJavaElement[] {
@@ -0,0 +1,355 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+
+import org.eclipse.jdt.core.IBuffer;
+import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IOpenable;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchParticipant;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.SearchRequestor;
+
+import org.eclipse.jdt.internal.core.manipulation.JavaManipulationPlugin;
+
+/**
+ * Expands call hierarchies level by level up to a maximum depth.
+ * <p>
+ * The callers of all methods and fields of a level which can be told apart by their name are found
+ * by a single search for an OR pattern. The other members, and the callees, are searched one by
+ * one. The searches of a level run concurrently on a bounded number of threads. The children of
+ * each expanded wrapper are cached in its tree and reported to a listener as soon as they are
+ * found.
+ * </p>
+ */
+public class CallHierarchyExpander {
+
+	/**
+	 * The maximum number of members searched by a single OR pattern
+	 */
+	private static final int BATCH_SIZE= 32;
+
+	/**
+	 * Collects the callers found by a batched search. The called member of a match is identified
+	 * by the name found in the source of the match.
+	 */
+	private static class BatchSearchRequestor extends SearchRequestor {
+
+		private final Map<String, CallSearchResultCollector> fCollectors;
+
+		private boolean fIsAmbiguous;
+
+		BatchSearchRequestor(Set<String> names) {
+			fCollectors= new HashMap<>();
+			for (String name : names) {
+				fCollectors.put(name, new CallSearchResultCollector());
+			}
+		}
+
+		Map<String, MethodCall> getCallers(String name) {
+			return fCollectors.get(name).getCallers();
+		}
+
+		/**
+		 * @return <code>true</code> if a match could not be assigned to a called member
+		 */
+		boolean isAmbiguous() {
+			return fIsAmbiguous;
+		}
+
+		@Override
+		public void acceptSearchMatch(SearchMatch match) throws CoreException {
+			if (fIsAmbiguous || match.getAccuracy() != SearchMatch.A_ACCURATE || match.isInsideDocComment())
+				return;
+			if (!(match.getElement() instanceof IMember))
+				return;
+			IMember member= (IMember) match.getElement();
+			switch (member.getElementType()) {
+				case IJavaElement.METHOD:
+				case IJavaElement.TYPE:
+				case IJavaElement.FIELD:
+				case IJavaElement.INITIALIZER:
+					String name= findCalledName(member, match.getOffset(), match.getLength());
+					if (name == null) {
+						fIsAmbiguous= true;
+					} else {
+						fCollectors.get(name).addMember(member, member, match.getOffset(), match.getOffset() + match.getLength());
+					}
+					break;
+				default:
+					break;
+			}
+		}
+
+		/**
+		 * Finds the name of the called member in the source of a match. The names in a batch are
+		 * unique, so the name is known if a single name of the batch occurs in the source, or if
+		 * the source starts with one of them.
+		 *
+		 * @param member the calling member
+		 * @param offset the offset of the match
+		 * @param length the length of the match
+		 * @return the name, or <code>null</code> if the name cannot be determined
+		 * @throws JavaModelException if the source cannot be read
+		 */
+		private String findCalledName(IMember member, int offset, int length) throws JavaModelException {
+			IOpenable openable= member.getOpenable();
+			IBuffer buffer= openable != null ? openable.getBuffer() : null;
+			if (buffer == null || offset < 0 || offset + length > buffer.getLength())
+				return null;
+			String text= buffer.getText(offset, length);
+			String found= null;
+			for (int i= 0; i < text.length();) {
+				if (!Character.isJavaIdentifierStart(text.charAt(i))) {
+					i++;
+					continue;
+				}
+				int start= i++;
+				while (i < text.length() && Character.isJavaIdentifierPart(text.charAt(i)))
+					i++;
+				String identifier= text.substring(start, i);
+				if (fCollectors.containsKey(identifier)) {
+					if (start == 0)
+						return identifier;
+					if (found != null && !found.equals(identifier))
+						return null;
+					found= identifier;
+				}
+			}
+			return found;
+		}
+	}
+
+	private final int fMaxDepth;
+
+	private final int fParallelism;
+
+	private final Consumer<MethodWrapper> fListener;
+
+	/**
+	 * Creates an expander.
+	 *
+	 * @param maxDepth the level up to which wrappers are expanded
+	 * @param parallelism the maximum number of concurrent searches
+	 * @param listener notified with each wrapper whose children have been found, from the thread
+	 *            which found them
+	 */
+	public CallHierarchyExpander(int maxDepth, int parallelism, Consumer<MethodWrapper> listener) {
+		fMaxDepth= maxDepth;
+		fParallelism= Math.max(1, parallelism);
+		fListener= listener;
+	}
+
+	/**
+	 * Expands the given wrappers and all their descendants up to the maximum depth. Recursive
+	 * calls are not expanded.
+	 *
+	 * @param wrappers the wrappers to expand
+	 * @param progressMonitor the progress monitor, can be <code>null</code>
+	 * @throws OperationCanceledException if the expansion has been canceled
+	 */
+	public void expand(MethodWrapper[] wrappers, IProgressMonitor progressMonitor) {
+		SubMonitor monitor= SubMonitor.convert(progressMonitor, CallHierarchyMessages.CallerMethodWrapper_taskname, fMaxDepth);
+		IProgressMonitor cancelMonitor= new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+		ExecutorService executor= Executors.newFixedThreadPool(fParallelism);
+		try {
+			List<MethodWrapper> level= new ArrayList<>();
+			for (MethodWrapper wrapper : wrappers) {
+				if (isExpandable(wrapper))
+					level.add(wrapper);
+			}
+			Map<MethodWrapper, Set<String>> searched= new IdentityHashMap<>();
+			while (!level.isEmpty()) {
+				checkCanceled(monitor);
+				expandLevel(level, searched, executor, cancelMonitor);
+				List<MethodWrapper> nextLevel= new ArrayList<>();
+				for (MethodWrapper wrapper : level) {
+					for (MethodWrapper child : wrapper.getCalls(cancelMonitor)) {
+						if (isExpandable(child))
+							nextLevel.add(child);
+					}
+				}
+				level= nextLevel;
+				monitor.worked(1);
+			}
+		} finally {
+			executor.shutdownNow();
+			monitor.done();
+		}
+	}
+
+	private boolean isExpandable(MethodWrapper wrapper) {
+		return wrapper.getLevel() <= fMaxDepth && wrapper.canHaveChildren() && !wrapper.isRecursive();
+	}
+
+	private void expandLevel(List<MethodWrapper> level, Map<MethodWrapper, Set<String>> searched, ExecutorService executor, IProgressMonitor monitor) {
+		List<MethodWrapper> singles= new ArrayList<>();
+		// wrappers whose member has already been searched in their tree
+		List<MethodWrapper> cached= new ArrayList<>();
+		// the wrappers of a level by their search scope and the name of their member, and the distinct members of each name
+		Map<IJavaSearchScope, Map<String, List<CallerMethodWrapper>>> batchable= new LinkedHashMap<>();
+		Map<String, Set<String>> membersByName= new HashMap<>();
+		Map<MethodWrapper, SearchPattern> patterns= new HashMap<>();
+		for (MethodWrapper wrapper : level) {
+			MethodWrapper root= getRoot(wrapper);
+			Set<String> keys= searched.computeIfAbsent(root, r -> new HashSet<>());
+			if (wrapper.hasCachedCalls() || !keys.add(wrapper.getMethodCall().getKey())) {
+				cached.add(wrapper);
+				continue;
+			}
+			SearchPattern pattern= null;
+			if (wrapper instanceof CallerMethodWrapper) {
+				try {
+					pattern= ((CallerMethodWrapper) wrapper).createBatchSearchPattern();
+				} catch (JavaModelException e) {
+					// searched on its own
+				}
+			}
+			if (pattern == null) {
+				singles.add(wrapper);
+				continue;
+			}
+			IMember member= wrapper.getMember();
+			String name= member.getElementName();
+			String key= member instanceof IField ? wrapper.getMethodCall().getKey() + '#' + wrapper.getFieldSearchMode() : wrapper.getMethodCall().getKey();
+			membersByName.computeIfAbsent(name, n -> new HashSet<>()).add(key);
+			IJavaSearchScope scope= ((CallerMethodWrapper) wrapper).getSearchScope();
+			batchable.computeIfAbsent(scope, sc -> new LinkedHashMap<>()).computeIfAbsent(name, n -> new ArrayList<>()).add((CallerMethodWrapper) wrapper);
+			patterns.put(wrapper, pattern);
+		}
+
+		List<Future<?>> futures= new ArrayList<>();
+		// only members searched in the same scope are batched
+		for (Map.Entry<IJavaSearchScope, Map<String, List<CallerMethodWrapper>>> scopeEntry : batchable.entrySet()) {
+			IJavaSearchScope scope= scopeEntry.getKey();
+			Map<String, List<CallerMethodWrapper>> batch= new LinkedHashMap<>();
+			for (Map.Entry<String, List<CallerMethodWrapper>> entry : scopeEntry.getValue().entrySet()) {
+				if (membersByName.get(entry.getKey()).size() > 1) {
+					// overloaded methods or members of the same name cannot be told apart
+					singles.addAll(entry.getValue());
+					continue;
+				}
+				batch.put(entry.getKey(), entry.getValue());
+				if (batch.size() == BATCH_SIZE) {
+					Map<String, List<CallerMethodWrapper>> members= batch;
+					futures.add(executor.submit(() -> searchBatch(members, scope, patterns, monitor)));
+					batch= new LinkedHashMap<>();
+				}
+			}
+			if (batch.size() == 1) {
+				singles.addAll(batch.values().iterator().next());
+			} else if (!batch.isEmpty()) {
+				Map<String, List<CallerMethodWrapper>> members= batch;
+				futures.add(executor.submit(() -> searchBatch(members, scope, patterns, monitor)));
+			}
+		}
+		for (MethodWrapper wrapper : singles) {
+			futures.add(executor.submit(() -> search(wrapper, monitor)));
+		}
+
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof OperationCanceledException)
+					throw (OperationCanceledException) e.getCause();
+				JavaManipulationPlugin.log(e.getCause());
+			}
+		}
+		for (MethodWrapper wrapper : cached) {
+			fListener.accept(wrapper);
+		}
+	}
+
+	private void search(MethodWrapper wrapper, IProgressMonitor monitor) {
+		checkCanceled(monitor);
+		Map<String, MethodCall> calls= wrapper.findChildren(monitor);
+		checkCanceled(monitor);
+		wrapper.setCachedCalls(calls);
+		fListener.accept(wrapper);
+	}
+
+	private void searchBatch(Map<String, List<CallerMethodWrapper>> members, IJavaSearchScope scope, Map<MethodWrapper, SearchPattern> patterns, IProgressMonitor monitor) {
+		checkCanceled(monitor);
+		SearchPattern pattern= null;
+		for (List<CallerMethodWrapper> wrappers : members.values()) {
+			SearchPattern memberPattern= patterns.get(wrappers.get(0));
+			pattern= pattern == null ? memberPattern : SearchPattern.createOrPattern(pattern, memberPattern);
+		}
+		BatchSearchRequestor requestor= new BatchSearchRequestor(members.keySet());
+		try {
+			new SearchEngine().search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() },
+					scope, requestor, monitor);
+		} catch (CoreException e) {
+			JavaManipulationPlugin.log(e);
+			return;
+		}
+		checkCanceled(monitor);
+		for (Map.Entry<String, List<CallerMethodWrapper>> entry : members.entrySet()) {
+			for (CallerMethodWrapper wrapper : entry.getValue()) {
+				if (requestor.isAmbiguous()) {
+					search(wrapper, monitor);
+				} else {
+					wrapper.setCachedCalls(requestor.getCallers(entry.getKey()));
+					fListener.accept(wrapper);
+				}
+			}
+		}
+	}
+
+	private static MethodWrapper getRoot(MethodWrapper wrapper) {
+		MethodWrapper root= wrapper;
+		while (root.getParent() != null)
+			root= root.getParent();
+		return root;
+	}
+
+	private static void checkCanceled(IProgressMonitor monitor) {
+		if (monitor.isCanceled())
+			throw new OperationCanceledException();
+	}
+}
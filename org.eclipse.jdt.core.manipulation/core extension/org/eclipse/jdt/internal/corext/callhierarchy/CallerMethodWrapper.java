@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -105,6 +105,11 @@ public class CallerMethodWrapper extends MethodWrapper {
 			checkCanceled(progressMonitor);
 
 			IMember member= getMember();
+			Map<String, MethodCall> indexed= findChildrenInIndex();
+			if (indexed != null) {
+				return indexed;
+			}
+
 			SearchPattern pattern= null;
 			IType type= null;
 			if (member instanceof IType) {
@@ -162,6 +167,55 @@ public class CallerMethodWrapper extends MethodWrapper {
 		}
 	}
 
+	/**
+	 * Returns the pattern to search the callers of this member together with the callers of other
+	 * members, see {@link CallHierarchyExpander}. Types, constructors and initializers need a
+	 * special search, and private members are searched in a narrower scope, so they are not
+	 * batched. Callers which are found in the {@link CallGraphIndex} are not searched at all.
+	 *
+	 * @return the search pattern, or <code>null</code> if the callers must be found by
+	 *         {@link #findChildren(IProgressMonitor)}
+	 * @throws JavaModelException if the member does not exist
+	 */
+	SearchPattern createBatchSearchPattern() throws JavaModelException {
+		if (canFindChildrenInIndex())
+			return null;
+		IMember member= getMember();
+		int limitTo;
+		if (member instanceof IField) {
+			limitTo= getFieldSearchMode();
+		} else if (member instanceof IMethod && !((IMethod) member).isConstructor()) {
+			limitTo= IJavaSearchConstants.REFERENCES;
+		} else {
+			return null;
+		}
+		if (JdtFlags.isPrivate(member))
+			return null;
+		return SearchPattern.createPattern(member, limitTo, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
+	}
+
+	/**
+	 * Finds the callers of a method in the call graph index. The index only covers the source of
+	 * the workspace, so it is only used with the workspace scope.
+	 *
+	 * @return the callers, or <code>null</code> if they must be searched
+	 */
+	private Map<String, MethodCall> findChildrenInIndex() {
+		if (!isIndexable())
+			return null;
+		return CallGraphIndex.getDefault().getCallers((IMethod) getMember());
+	}
+
+	private boolean canFindChildrenInIndex() {
+		return isIndexable() && CallGraphIndex.getDefault().isUpToDate();
+	}
+
+	private boolean isIndexable() {
+		IMember member= getMember();
+		return member instanceof IMethod && !member.isBinary() && CallHierarchyCore.getDefault().isCallGraphIndexEnabled()
+				&& SearchEngine.createWorkspaceScope().equals(getSearchScope());
+	}
+
 	private IJavaSearchScope getAccurateSearchScope(IJavaSearchScope defaultSearchScope, IMember member) throws JavaModelException {
 		if (! JdtFlags.isPrivate(member))
 			return defaultSearchScope;
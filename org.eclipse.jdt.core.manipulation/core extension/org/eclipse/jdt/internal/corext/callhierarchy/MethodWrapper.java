@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,6 +19,7 @@ package org.eclipse.jdt.internal.corext.callhierarchy;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -51,7 +52,8 @@ public abstract class MethodWrapper extends PlatformObject {
     /*
      * A cache of previously found methods. This cache should be searched
      * before adding a "new" method object reference to the list of elements.
-     * This way previously found methods won't be searched again.
+     * This way previously found methods won't be searched again. The cache is
+     * shared by all wrappers of a tree, which may be expanded concurrently.
      */
     private Map<String, Map<String, MethodCall>> fMethodCache;
     private final MethodCall fMethodCall;
@@ -67,7 +69,7 @@ public abstract class MethodWrapper extends PlatformObject {
         Assert.isNotNull(methodCall);
 
         if (parent == null) {
-            setMethodCache(new HashMap<String, Map<String, MethodCall>>());
+            setMethodCache(new ConcurrentHashMap<String, Map<String, MethodCall>>());
             fLevel = 1;
         } else {
             setMethodCache(parent.getMethodCache());
@@ -167,9 +169,23 @@ public abstract class MethodWrapper extends PlatformObject {
 
     protected abstract String getTaskName();
 
-    private void addCallToCache(MethodCall methodCall) {
-        Map<String, MethodCall> cachedCalls = lookupMethod(this.getMethodCall());
-        cachedCalls.put(methodCall.getKey(), methodCall);
+    /**
+     * Caches the children of this member, e.g. if they have been found by a search for several
+     * members. The cached children are shared by all wrappers of this member in the tree.
+     *
+     * @param calls a map from handle identifier ({@link String}) to {@link MethodCall}
+     */
+    void setCachedCalls(Map<String, MethodCall> calls) {
+        getMethodCache().put(getMethodCall().getKey(), new HashMap<>(calls));
+    }
+
+    /**
+     * Tells whether the children of this member have already been searched.
+     *
+     * @return <code>true</code> if {@link #getCalls(IProgressMonitor)} answers without a search
+     */
+    public boolean hasCachedCalls() {
+        return lookupMethod(getMethodCall()) != null;
     }
 
 	/**
@@ -183,12 +199,10 @@ public abstract class MethodWrapper extends PlatformObject {
     private void doFindChildren(IProgressMonitor progressMonitor) {
         Map<String, MethodCall> existingResults = lookupMethod(getMethodCall());
 
-        if (existingResults != null && !existingResults.isEmpty()) {
+        if (existingResults != null) {
             fElements = new HashMap<>();
             fElements.putAll(existingResults);
         } else {
-            initCalls();
-
             if (progressMonitor != null) {
                 progressMonitor.beginTask(getTaskName(), 100);
             }
@@ -247,12 +261,6 @@ public abstract class MethodWrapper extends PlatformObject {
         return fMethodCache;
     }
 
-    private void initCalls() {
-        this.fElements = new HashMap<>();
-
-        initCacheForMethod();
-    }
-
     /**
      * Looks up a previously created search result in the "global" cache.
      * @param methodCall the method call
@@ -264,24 +272,16 @@ public abstract class MethodWrapper extends PlatformObject {
 
     private void performSearch(IProgressMonitor progressMonitor) {
         fElements = findChildren(progressMonitor);
+        checkCanceled(progressMonitor);
 
-        for (String string : fElements.keySet()) {
-            checkCanceled(progressMonitor);
-
-            MethodCall methodCall = getMethodCallFromMap(fElements, string);
-            addCallToCache(methodCall);
-        }
+        // the children are only cached when complete, so that concurrent lookups never see a partial result
+        setCachedCalls(fElements);
     }
 
     private MethodCall getMethodCallFromMap(Map<String, MethodCall> elements, String key) {
         return elements.get(key);
     }
 
-    private void initCacheForMethod() {
-        Map<String, MethodCall> cachedCalls = new HashMap<>();
-        getMethodCache().put(this.getMethodCall().getKey(), cachedCalls);
-    }
-
     /**
      * Checks with the progress monitor to see whether the creation of the type hierarchy
      * should be canceled. Should be regularly called
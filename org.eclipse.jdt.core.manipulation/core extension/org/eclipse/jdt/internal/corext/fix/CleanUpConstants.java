@@ -2298,6 +2298,28 @@ public class CleanUpConstants {
 
 	public static final String CLEANUP_ON_SAVE_ADDITIONAL_OPTIONS= "cleanup.on_save_use_additional_actions"; //$NON-NLS-1$
 
+	/**
+	 * The maximal number of threads used to compute clean ups for a set of compilation units.
+	 * A value of <code>1</code> or less computes the clean ups sequentially on the calling thread.
+	 * The compilation units are parsed in parallel, but only clean ups which support concurrent
+	 * fixes (see {@link org.eclipse.jdt.core.manipulation.CleanUpRequirementsCore#supportsConcurrentFixes()})
+	 * create their fixes at the same time.<br>
+	 * <br>
+	 * Possible values: Integer value<br>
+	 * Default value: <code><b>1</b></code><br>
+	 * <br>
+	 *
+	 * @since 1.17
+	 */
+	public static final String CLEANUP_PARALLELISM= "cleanup.parallelism"; //$NON-NLS-1$
+
+	/**
+	 * Default value for {@link #CLEANUP_PARALLELISM}: clean ups are computed sequentially.
+	 *
+	 * @since 1.17
+	 */
+	public static final int DEFAULT_CLEANUP_PARALLELISM= 1;
+
 	/**
 	 * The id of the profile used as a default profile when executing clean up.<br>
 	 * <br>
@@ -735,6 +735,8 @@ public final class RefactoringCoreMessages extends NLS {
 
 	public static String InferTypeArgumentsRefactoring_calculating_dependencies;
 
+	public static String InferTypeArgumentsRefactoring_creating_constraints;
+
 	public static String InferTypeArgumentsRefactoring_creatingChanges;
 
 	public static String InferTypeArgumentsRefactoring_descriptor_description;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -45,6 +45,20 @@ public final class PrimitiveType extends TType {
 		"double",  //$NON-NLS-1$
 		"byte"};  //$NON-NLS-1$
 
+	/**
+	 * The widening primitive conversions (JLS 5.1.2), as a bit set of the target type codes for each
+	 * source type code
+	 */
+	private static final int[] WIDENINGS= {
+		1 << LONG | 1 << FLOAT | 1 << DOUBLE, // int
+		1 << INT | 1 << LONG | 1 << FLOAT | 1 << DOUBLE, // char
+		0, // boolean
+		1 << INT | 1 << LONG | 1 << FLOAT | 1 << DOUBLE, // short
+		1 << FLOAT | 1 << DOUBLE, // long
+		1 << DOUBLE, // float
+		0, // double
+		1 << SHORT | 1 << INT | 1 << LONG | 1 << FLOAT | 1 << DOUBLE}; // byte
+
 	private int fId;
 
 	protected PrimitiveType(TypeEnvironment environment, int id, String signature) {
@@ -81,57 +95,7 @@ public final class PrimitiveType extends TType {
 			return false;
 		}
 
-		switch (((PrimitiveType)lhs).fId) {
-			case BOOLEAN :
-			case BYTE :
-			case CHAR :
-				return false;
-			case DOUBLE :
-				switch (fId) {
-					case BYTE :
-					case CHAR :
-					case SHORT :
-					case INT :
-					case LONG :
-					case FLOAT :
-						return true;
-					default :
-						return false;
-				}
-			case FLOAT :
-				switch (fId) {
-					case BYTE :
-					case CHAR :
-					case SHORT :
-					case INT :
-					case LONG :
-						return true;
-					default :
-						return false;
-				}
-			case LONG :
-				switch (fId) {
-					case BYTE :
-					case CHAR :
-					case SHORT :
-					case INT :
-						return true;
-					default :
-						return false;
-				}
-			case INT :
-				switch (fId) {
-					case BYTE :
-					case CHAR :
-					case SHORT :
-						return true;
-					default :
-						return false;
-				}
-			case SHORT :
-				return (fId == BYTE);
-		}
-		return false;
+		return (WIDENINGS[fId] & (1 << ((PrimitiveType)lhs).fId)) != 0;
 	}
 
 	@Override
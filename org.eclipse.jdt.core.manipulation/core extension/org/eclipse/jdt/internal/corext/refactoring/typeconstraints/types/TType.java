@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -71,6 +71,7 @@ public abstract class TType {
 	protected static final TType[] EMPTY_TYPE_ARRAY= new TType[0];
 
 	private TypeEnvironment fEnvironment;
+	private final int fTypeId;
 	private String fBindingKey;
 	private int fModifiers;
 	private int fFlags;
@@ -83,6 +84,7 @@ public abstract class TType {
 	 */
 	protected TType(TypeEnvironment environment) {
 		fEnvironment= environment;
+		fTypeId= environment.nextTypeId();
 	}
 
 	/**
@@ -142,6 +144,17 @@ public abstract class TType {
 		return fEnvironment;
 	}
 
+	/**
+	 * Returns the id of this type. The types of an environment are numbered densely in the order
+	 * of their creation, so ids can be used to index arrays and caches of the environment.
+	 *
+	 * @return the id of this type in its environment
+	 * @see TypeEnvironment#getTypeCount()
+	 */
+	public final int getTypeId() {
+		return fTypeId;
+	}
+
 	/**
 	 * Returns the key of the binding from which this type
 	 * got constructed.
@@ -537,7 +550,15 @@ public abstract class TType {
 	public final boolean canAssignTo(TType lhs) {
 		if (this.isTypeEquivalentTo(lhs))
 			return true;
-		return doCanAssignTo(lhs);
+		if (fEnvironment != lhs.fEnvironment || (isPrimitiveType() && lhs.isPrimitiveType()))
+			return doCanAssignTo(lhs);
+		TypePairCache cache= fEnvironment.getAssignmentCache();
+		int cached= cache.get(this, lhs);
+		if (cached != TypePairCache.UNKNOWN)
+			return cached == TypePairCache.TRUE;
+		boolean result= doCanAssignTo(lhs);
+		cache.put(this, lhs, result);
+		return result;
 	}
 
 	/**
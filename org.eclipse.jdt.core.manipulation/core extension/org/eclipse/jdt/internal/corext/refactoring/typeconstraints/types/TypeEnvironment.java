@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,7 +16,6 @@ package org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -70,6 +69,12 @@ public class TypeEnvironment {
 		}
 	}
 
+	/**
+	 * The number of types created in this environment. Declared without initializer, so that it is
+	 * not reset after the primitive types below have been counted.
+	 */
+	private int fTypeCount;
+
 	/** Type code for the primitive type "int". */
 	public final PrimitiveType INT= new PrimitiveType(this, PrimitiveType.INT, BindingKey.createTypeBindingKey("int")); //$NON-NLS-1$
 	/** Type code for the primitive type "char". */
@@ -117,14 +122,13 @@ public class TypeEnvironment {
 	private Map<TType, SuperWildcardType>    fSuperWildcardTypes= new HashMap<>();
 	private UnboundWildcardType fUnboundWildcardType= null;
 
-	private static final int MAX_ENTRIES= 1024;
-	private Map<TypeTuple, Boolean> fSubTypeCache= new LinkedHashMap<TypeTuple, Boolean>(50, 0.75f, true) {
-		private static final long serialVersionUID= 1L;
-		@Override
-		protected boolean removeEldestEntry(Map.Entry<TypeTuple, Boolean> eldest) {
-			return size() > MAX_ENTRIES;
-		}
-	};
+	private final TypePairCache fSubTypeCache= new TypePairCache(this);
+	private final TypePairCache fAssignmentCache= new TypePairCache(this);
+
+	/**
+	 * The boxed types of the primitive types, by project and primitive type code
+	 */
+	private Map<IJavaProject, StandardType[]> fBoxedTypes= new HashMap<>();
 
 	/**
 	 * Map from TType to its known subtypes, or <code>null</code> iff subtype
@@ -182,10 +186,39 @@ public class TypeEnvironment {
 		fRemoveCapures= removeCapures;
 	}
 
-	Map<TypeTuple, Boolean> getSubTypeCache() {
+	int nextTypeId() {
+		return fTypeCount++;
+	}
+
+	/**
+	 * Returns the number of types of this environment.
+	 *
+	 * @return the number of types, which is larger than the id of any type
+	 * @see TType#getTypeId()
+	 */
+	public int getTypeCount() {
+		return fTypeCount;
+	}
+
+	/**
+	 * Returns the cache of the subtype relation between hierarchy types.
+	 *
+	 * @return the subtype cache, whose statistics tell how well it works
+	 */
+	public TypePairCache getSubTypeCache() {
 		return fSubTypeCache;
 	}
 
+	/**
+	 * Returns the cache of {@link TType#canAssignTo(TType)}, keyed by the right and the left hand
+	 * side.
+	 *
+	 * @return the assignment cache, whose statistics tell how well it works
+	 */
+	public TypePairCache getAssignmentCache() {
+		return fAssignmentCache;
+	}
+
 	public TType create(ITypeBinding binding) {
 		if (binding.isPrimitive()) {
 			return createPrimitiveType(binding);
@@ -267,8 +300,14 @@ public class TypeEnvironment {
 	}
 
 	StandardType createBoxed(PrimitiveType type, IJavaProject focus) {
-		String fullyQualifiedName= BOXED_PRIMITIVE_NAMES[type.getId()];
-		return createStandardType(fullyQualifiedName, focus);
+		StandardType[] boxedTypes= fBoxedTypes.computeIfAbsent(focus, p -> new StandardType[PRIMITIVE_TYPES.length]);
+		StandardType result= boxedTypes[type.getId()];
+		if (result == null) {
+			String fullyQualifiedName= BOXED_PRIMITIVE_NAMES[type.getId()];
+			result= createStandardType(fullyQualifiedName, focus);
+			boxedTypes[type.getId()]= result;
+		}
+		return result;
 	}
 
 	private StandardType createStandardType(String fullyQualifiedName, IJavaProject focus) {
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types;
+
+import java.util.Arrays;
+
+/**
+ * A cache of a boolean relation between the types of a {@link TypeEnvironment}, like the subtype
+ * relation. Pairs of types are keyed by their type ids and stored in an open addressing table, so
+ * lookups do not allocate. The cache grows with the number of types up to a bounded number of pairs
+ * and is cleared when it is full.
+ *
+ * @see TType#getTypeId()
+ */
+public final class TypePairCache {
+
+	/** Result of {@link #get(TType, TType)} if the pair is not cached. */
+	public static final int UNKNOWN= -1;
+	/** Result of {@link #get(TType, TType)} if the relation does not hold. */
+	public static final int FALSE= 0;
+	/** Result of {@link #get(TType, TType)} if the relation holds. */
+	public static final int TRUE= 1;
+
+	/**
+	 * The number of entries after which the cache is cleared, to bound its memory. The table is at
+	 * most half full, so it never has more than {@link #MAX_CAPACITY} slots of 9 bytes, about 300
+	 * KB per cache. The cache it replaced held 1024 pairs as map entries of about 80 bytes each,
+	 * this bound keeps each of the two caches of an environment within a few times that footprint
+	 * while holding 16 times as many pairs.
+	 */
+	private static final int MAX_SIZE= 1 << 14;
+
+	private static final int MAX_CAPACITY= MAX_SIZE << 1;
+
+	private static final int MIN_CAPACITY= 64;
+
+	private final TypeEnvironment fEnvironment;
+
+	/**
+	 * The keys of the entries plus one, so that <code>0</code> marks a free slot
+	 */
+	private long[] fKeys;
+
+	private boolean[] fValues;
+
+	private int fSize;
+
+	private long fHits;
+
+	private long fMisses;
+
+	TypePairCache(TypeEnvironment environment) {
+		fEnvironment= environment;
+	}
+
+	/**
+	 * Looks up a pair of types.
+	 *
+	 * @param first the first type
+	 * @param second the second type
+	 * @return {@link #TRUE} or {@link #FALSE} if the pair is cached, {@link #UNKNOWN} otherwise
+	 */
+	public int get(TType first, TType second) {
+		if (fKeys != null) {
+			long key= getKey(first, second);
+			int mask= fKeys.length - 1;
+			for (int i= getSlot(key, mask); fKeys[i] != 0; i= (i + 1) & mask) {
+				if (fKeys[i] == key) {
+					fHits++;
+					return fValues[i] ? TRUE : FALSE;
+				}
+			}
+		}
+		fMisses++;
+		return UNKNOWN;
+	}
+
+	/**
+	 * Caches a pair of types.
+	 *
+	 * @param first the first type
+	 * @param second the second type
+	 * @param value whether the relation holds
+	 */
+	public void put(TType first, TType second, boolean value) {
+		if (fKeys == null) {
+			// size the table to the types known so far
+			int capacity= Integer.highestOneBit(Math.max(MIN_CAPACITY, fEnvironment.getTypeCount() * 4) - 1) << 1;
+			allocate(Math.min(capacity, MAX_CAPACITY));
+		} else if (fSize >= MAX_SIZE) {
+			clear();
+		} else if (2 * (fSize + 1) > fKeys.length) {
+			rehash(fKeys.length << 1);
+		}
+		insert(getKey(first, second), value);
+	}
+
+	/**
+	 * @return the number of cached pairs
+	 */
+	public int size() {
+		return fSize;
+	}
+
+	/**
+	 * @return the number of lookups which found a cached pair
+	 */
+	public long getHitCount() {
+		return fHits;
+	}
+
+	/**
+	 * @return the number of lookups which did not find a cached pair
+	 */
+	public long getMissCount() {
+		return fMisses;
+	}
+
+	/**
+	 * Removes all pairs. The statistics are kept.
+	 */
+	public void clear() {
+		if (fKeys != null) {
+			Arrays.fill(fKeys, 0);
+			fSize= 0;
+		}
+	}
+
+	private void allocate(int capacity) {
+		fKeys= new long[capacity];
+		fValues= new boolean[capacity];
+		fSize= 0;
+	}
+
+	private void rehash(int capacity) {
+		long[] keys= fKeys;
+		boolean[] values= fValues;
+		allocate(capacity);
+		for (int i= 0; i < keys.length; i++) {
+			if (keys[i] != 0) {
+				insert(keys[i], values[i]);
+			}
+		}
+	}
+
+	private void insert(long key, boolean value) {
+		int mask= fKeys.length - 1;
+		int i= getSlot(key, mask);
+		while (fKeys[i] != 0 && fKeys[i] != key) {
+			i= (i + 1) & mask;
+		}
+		if (fKeys[i] == 0) {
+			fKeys[i]= key;
+			fSize++;
+		}
+		fValues[i]= value;
+	}
+
+	private static long getKey(TType first, TType second) {
+		return (((long) first.getTypeId()) << 32 | second.getTypeId()) + 1;
+	}
+
+	private static int getSlot(long key, int mask) {
+		long hash= key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	@Override
+	public String toString() {
+		return "TypePairCache [size=" + fSize + ", hits=" + fHits + ", misses=" + fMisses + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+}
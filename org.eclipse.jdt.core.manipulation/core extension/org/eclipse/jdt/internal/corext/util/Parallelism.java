@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.util;
+
+/**
+ * The number of threads of operations which process independent items concurrently, like the
+ * text matches of a rename refactoring, the expansion of a call hierarchy or the entries of an
+ * exported JAR file.
+ */
+public final class Parallelism {
+
+	/**
+	 * The default number of threads. One processor is left to the UI and to the build, and at
+	 * most four threads are used, since the operations also contend for the Java model.
+	 */
+	public static final int DEFAULT= Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+	private Parallelism() {
+	}
+}
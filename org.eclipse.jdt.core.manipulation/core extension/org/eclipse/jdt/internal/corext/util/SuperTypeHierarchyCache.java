@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,8 +14,9 @@
 package org.eclipse.jdt.internal.corext.util;
 
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 
@@ -23,20 +24,46 @@ import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeHierarchy;
 import org.eclipse.jdt.core.ITypeHierarchyChangedListener;
 import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.manipulation.JavaManipulation;
 
 /**
  * A thread-safe cache for super type hierarchies.
+ * <p>
+ * Every type of a cached hierarchy is indexed, so a lookup is a single hash map access. The cache
+ * is bounded by the number of hierarchies ({@link #PREF_CAPACITY}) and by the total number of
+ * types in all hierarchies ({@link #PREF_MAX_WEIGHT}); when a bound is exceeded, the least recently
+ * used hierarchies are evicted. The {@link MethodOverrideTester}s are kept with the hierarchy they
+ * are based on and are discarded together with it.
+ * </p>
  */
 // @see JDTUIHelperClasses
 public class SuperTypeHierarchyCache {
 
+	/**
+	 * Preference key for the maximal number of hierarchies in the cache (value is an integer).
+	 */
+	public static final String PREF_CAPACITY= "org.eclipse.jdt.ui.typehierarchy.cache.capacity"; //$NON-NLS-1$
+
+	/**
+	 * Preference key for the maximal number of types in all cached hierarchies together (value is
+	 * an integer).
+	 */
+	public static final String PREF_MAX_WEIGHT= "org.eclipse.jdt.ui.typehierarchy.cache.maxWeight"; //$NON-NLS-1$
+
+	public static final int DEFAULT_CAPACITY= 64;
+
+	public static final int DEFAULT_MAX_WEIGHT= 10000;
+
 	private static class HierarchyCacheEntry implements ITypeHierarchyChangedListener {
 
-		private ITypeHierarchy fTypeHierarchy;
-		private long fLastAccess;
+		private final ITypeHierarchy fTypeHierarchy;
+		private final IType[] fTypes;
+		private final ConcurrentHashMap<IType, MethodOverrideTester> fMethodOverrideTesters= new ConcurrentHashMap<>();
+		private volatile long fLastAccess;
 
 		public HierarchyCacheEntry(ITypeHierarchy hierarchy) {
 			fTypeHierarchy= hierarchy;
+			fTypes= hierarchy.getAllTypes();
 			fTypeHierarchy.addTypeHierarchyChangedListener(this);
 			markAsAccessed();
 		}
@@ -50,8 +77,20 @@ public class SuperTypeHierarchyCache {
 			return fTypeHierarchy;
 		}
 
+		public IType[] getTypes() {
+			return fTypes;
+		}
+
+		public int getWeight() {
+			return fTypes.length;
+		}
+
+		public MethodOverrideTester getMethodOverrideTester(IType type) {
+			return fMethodOverrideTesters.computeIfAbsent(type, t -> new MethodOverrideTester(t, fTypeHierarchy));
+		}
+
 		public void markAsAccessed() {
-			fLastAccess= System.currentTimeMillis();
+			fLastAccess= fgAccessCounter.incrementAndGet();
 		}
 
 		public long getLastAccess() {
@@ -59,10 +98,8 @@ public class SuperTypeHierarchyCache {
 		}
 
 		public void dispose() {
-			if (fTypeHierarchy != null) {
-				fTypeHierarchy.removeTypeHierarchyChangedListener(this);
-				fTypeHierarchy= null;
-			}
+			fTypeHierarchy.removeTypeHierarchyChangedListener(this);
+			fMethodOverrideTesters.clear();
 		}
 
 		@Override
@@ -73,13 +110,21 @@ public class SuperTypeHierarchyCache {
 	}
 
 
-	private static final int CACHE_SIZE= 8;
+	/**
+	 * Maps every type of a cached hierarchy to the most recently added entry containing it.
+	 */
+	private static final ConcurrentHashMap<IType, HierarchyCacheEntry> fgTypeIndex= new ConcurrentHashMap<>();
 
-	private static ArrayList<HierarchyCacheEntry> fgHierarchyCache= new ArrayList<>(CACHE_SIZE);
-	private static Map<IType, MethodOverrideTester> fgMethodOverrideTesterCache= new LRUMap<>(CACHE_SIZE);
+	/**
+	 * All cached entries; also the lock for all structural modifications of the cache.
+	 */
+	private static final ArrayList<HierarchyCacheEntry> fgHierarchyCache= new ArrayList<>();
+	private static int fgTotalWeight= 0;
 
-	private static int fgCacheHits= 0;
-	private static int fgCacheMisses= 0;
+	private static final AtomicLong fgAccessCounter= new AtomicLong();
+	private static final AtomicLong fgCacheHits= new AtomicLong();
+	private static final AtomicLong fgCacheMisses= new AtomicLong();
+	private static final AtomicLong fgEvictions= new AtomicLong();
 
 	/**
 	 * Returns a super type hierarchy that contains the given type.
@@ -97,32 +142,7 @@ public class SuperTypeHierarchyCache {
 	}
 
 	public static MethodOverrideTester getMethodOverrideTester(IType type) throws JavaModelException {
-		MethodOverrideTester test= null;
-		synchronized (fgMethodOverrideTesterCache) {
-			test= fgMethodOverrideTesterCache.get(type);
-		}
-		if (test == null) {
-			ITypeHierarchy hierarchy= getTypeHierarchy(type); // don't nest the locks
-			synchronized (fgMethodOverrideTesterCache) {
-				test= fgMethodOverrideTesterCache.get(type); // test again after waiting a long time for 'getTypeHierarchy'
-				if (test == null) {
-					test= new MethodOverrideTester(type, hierarchy);
-					fgMethodOverrideTesterCache.put(type, test);
-				}
-			}
-		}
-		return test;
-	}
-
-	private static void removeMethodOverrideTester(ITypeHierarchy hierarchy) {
-		synchronized (fgMethodOverrideTesterCache) {
-			for (Iterator<MethodOverrideTester> iter= fgMethodOverrideTesterCache.values().iterator(); iter.hasNext();) {
-				MethodOverrideTester curr= iter.next();
-				if (curr.getTypeHierarchy().equals(hierarchy)) {
-					iter.remove();
-				}
-			}
-		}
+		return getHierarchyEntry(type, null).getMethodOverrideTester(type);
 	}
 
 	/**
@@ -138,45 +158,56 @@ public class SuperTypeHierarchyCache {
 	 * @throws JavaModelException if a problem occurs
 	 */
 	public static ITypeHierarchy getTypeHierarchy(IType type, IProgressMonitor progressMonitor) throws JavaModelException {
-		ITypeHierarchy hierarchy= findTypeHierarchyInCache(type);
-		if (hierarchy == null) {
-			fgCacheMisses++;
-			hierarchy= type.newSupertypeHierarchy(progressMonitor);
-			addTypeHierarchyToCache(hierarchy);
+		return getHierarchyEntry(type, progressMonitor).getTypeHierarchy();
+	}
+
+	private static HierarchyCacheEntry getHierarchyEntry(IType type, IProgressMonitor progressMonitor) throws JavaModelException {
+		HierarchyCacheEntry entry= findHierarchyEntryInCache(type);
+		if (entry == null) {
+			fgCacheMisses.incrementAndGet();
+			entry= addTypeHierarchyToCache(type.newSupertypeHierarchy(progressMonitor));
 		} else {
-			fgCacheHits++;
+			fgCacheHits.incrementAndGet();
 		}
-		return hierarchy;
+		return entry;
 	}
 
-	private static void addTypeHierarchyToCache(ITypeHierarchy hierarchy) {
+	private static HierarchyCacheEntry addTypeHierarchyToCache(ITypeHierarchy hierarchy) {
+		HierarchyCacheEntry newEntry= new HierarchyCacheEntry(hierarchy);
 		synchronized (fgHierarchyCache) {
-			int nEntries= fgHierarchyCache.size();
-			if (nEntries >= CACHE_SIZE) {
-				// find obsolete entries or remove entry that was least recently accessed
+			// remove obsolete entries and entries which are contained in the new hierarchy
+			List<HierarchyCacheEntry> obsoleteHierarchies= new ArrayList<>();
+			for (HierarchyCacheEntry entry : fgHierarchyCache) {
+				ITypeHierarchy curr= entry.getTypeHierarchy();
+				if (!curr.exists() || hierarchy.contains(curr.getType())) {
+					obsoleteHierarchies.add(entry);
+				}
+			}
+			for (HierarchyCacheEntry obsoleteHierarchy : obsoleteHierarchies) {
+				removeHierarchyEntryFromCache(obsoleteHierarchy);
+			}
+
+			fgHierarchyCache.add(newEntry);
+			fgTotalWeight+= newEntry.getWeight();
+			for (IType type : newEntry.getTypes()) {
+				fgTypeIndex.put(type, newEntry);
+			}
+
+			// evict the least recently accessed entries, but never the new one
+			int capacity= Math.max(1, getIntPreference(PREF_CAPACITY, DEFAULT_CAPACITY));
+			int maxWeight= getIntPreference(PREF_MAX_WEIGHT, DEFAULT_MAX_WEIGHT);
+			while (fgHierarchyCache.size() > 1 && (fgHierarchyCache.size() > capacity || fgTotalWeight > maxWeight)) {
 				HierarchyCacheEntry oldest= null;
-				ArrayList<HierarchyCacheEntry> obsoleteHierarchies= new ArrayList<>(CACHE_SIZE);
 				for (HierarchyCacheEntry entry : fgHierarchyCache) {
-					ITypeHierarchy curr= entry.getTypeHierarchy();
-					if (!curr.exists() || hierarchy.contains(curr.getType())) {
-						obsoleteHierarchies.add(entry);
-					} else {
-						if (oldest == null || entry.getLastAccess() < oldest.getLastAccess()) {
-							oldest= entry;
-						}
-					}
-				}
-				if (!obsoleteHierarchies.isEmpty()) {
-					for (HierarchyCacheEntry obsoleteHierarchie : obsoleteHierarchies) {
-						removeHierarchyEntryFromCache(obsoleteHierarchie);
+					if (entry != newEntry && (oldest == null || entry.getLastAccess() < oldest.getLastAccess())) {
+						oldest= entry;
 					}
-				} else if (oldest != null) {
-					removeHierarchyEntryFromCache(oldest);
 				}
+				removeHierarchyEntryFromCache(oldest);
+				fgEvictions.incrementAndGet();
 			}
-			HierarchyCacheEntry newEntry= new HierarchyCacheEntry(hierarchy);
-			fgHierarchyCache.add(newEntry);
 		}
+		return newEntry;
 	}
 
 
@@ -186,34 +217,71 @@ public class SuperTypeHierarchyCache {
 	 * @return <code>true</code> if a hierarchy for the given type is cached
 	 */
 	public static boolean hasInCache(IType type) {
-		return findTypeHierarchyInCache(type) != null;
+		return findHierarchyEntryInCache(type) != null;
 	}
 
 
-	private static ITypeHierarchy findTypeHierarchyInCache(IType type) {
+	private static HierarchyCacheEntry findHierarchyEntryInCache(IType type) {
+		HierarchyCacheEntry entry= fgTypeIndex.get(type);
+		if (entry == null) {
+			return null;
+		}
+		if (!entry.getTypeHierarchy().exists()) {
+			removeHierarchyEntryFromCache(entry);
+			return null;
+		}
+		entry.markAsAccessed();
+		return entry;
+	}
+
+	private static void removeHierarchyEntryFromCache(HierarchyCacheEntry entry) {
 		synchronized (fgHierarchyCache) {
-			for (int i= fgHierarchyCache.size() - 1; i>= 0; i--) {
-				HierarchyCacheEntry curr= fgHierarchyCache.get(i);
-				ITypeHierarchy hierarchy= curr.getTypeHierarchy();
-				if (!hierarchy.exists()) {
-					removeHierarchyEntryFromCache(curr);
-				} else {
-					if (hierarchy.contains(type)) {
-						curr.markAsAccessed();
-						return hierarchy;
+			if (!fgHierarchyCache.remove(entry)) {
+				return; // already removed
+			}
+			fgTotalWeight-= entry.getWeight();
+			for (IType type : entry.getTypes()) {
+				if (fgTypeIndex.remove(type, entry)) {
+					// shared super types like java.lang.Object are still contained in other hierarchies
+					HierarchyCacheEntry remaining= findRemainingEntry(type);
+					if (remaining != null) {
+						fgTypeIndex.put(type, remaining);
 					}
 				}
 			}
+			entry.dispose();
 		}
-		return null;
 	}
 
-	private static void removeHierarchyEntryFromCache(HierarchyCacheEntry entry) {
-		synchronized (fgHierarchyCache) {
-			removeMethodOverrideTester(entry.getTypeHierarchy());
-			entry.dispose();
-			fgHierarchyCache.remove(entry);
+	/**
+	 * Returns the most recently accessed cached hierarchy which contains the given type.
+	 *
+	 * @param type a type
+	 * @return the entry of the hierarchy, or <code>null</code> if no cached hierarchy contains the type
+	 */
+	private static HierarchyCacheEntry findRemainingEntry(IType type) {
+		HierarchyCacheEntry result= null;
+		for (HierarchyCacheEntry entry : fgHierarchyCache) {
+			if ((result == null || entry.getLastAccess() > result.getLastAccess()) && entry.getTypeHierarchy().contains(type)) {
+				result= entry;
+			}
 		}
+		return result;
+	}
+
+	private static int getIntPreference(String key, int defaultValue) {
+		if (JavaManipulation.getPreferenceNodeId() == null) {
+			return defaultValue;
+		}
+		String value= JavaManipulation.getPreference(key, null);
+		if (value != null) {
+			try {
+				return Integer.parseInt(value);
+			} catch (NumberFormatException e) {
+				// use the default
+			}
+		}
+		return defaultValue;
 	}
 
 
@@ -222,7 +290,7 @@ public class SuperTypeHierarchyCache {
 	 * @return Returns a int
 	 */
 	public static int getCacheHits() {
-		return fgCacheHits;
+		return (int) fgCacheHits.get();
 	}
 
 	/**
@@ -230,7 +298,34 @@ public class SuperTypeHierarchyCache {
 	 * @return Returns a int
 	 */
 	public static int getCacheMisses() {
-		return fgCacheMisses;
+		return (int) fgCacheMisses.get();
+	}
+
+	/**
+	 * Gets the number of hierarchies which have been removed from the cache because it was full.
+	 * Hierarchies which became invalid are not counted.
+	 * @return the number of evictions
+	 */
+	public static long getEvictions() {
+		return fgEvictions.get();
+	}
+
+	/**
+	 * @return the number of hierarchies in the cache
+	 */
+	public static int getSize() {
+		synchronized (fgHierarchyCache) {
+			return fgHierarchyCache.size();
+		}
+	}
+
+	/**
+	 * @return the number of types in all cached hierarchies
+	 */
+	public static int getWeight() {
+		synchronized (fgHierarchyCache) {
+			return fgTotalWeight;
+		}
 	}
 
 	private SuperTypeHierarchyCache() {
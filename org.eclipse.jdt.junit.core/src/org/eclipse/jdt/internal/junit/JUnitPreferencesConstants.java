@@ -45,6 +45,14 @@ public class JUnitPreferencesConstants {
 
 	public static final boolean ENABLE_ASSERTIONS_DEFAULT= true;
 
+	/**
+	 * Boolean preference controlling whether the test runner is asked to report the test events in
+	 * the binary protocol. Test runners which do not support it fall back to the text protocol.
+	 */
+	public static final String BINARY_PROTOCOL= JUnitCorePlugin.PLUGIN_ID + ".binary_protocol"; //$NON-NLS-1$
+
+	public static final boolean BINARY_PROTOCOL_DEFAULT= true;
+
 	/**
 	 * List of active stack filters. A String containing a comma separated list
 	 * of fully qualified type names/patterns.
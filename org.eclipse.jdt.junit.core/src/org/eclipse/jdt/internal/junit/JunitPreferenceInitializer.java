@@ -32,6 +32,7 @@ public class JunitPreferenceInitializer extends AbstractPreferenceInitializer {
 
 		prefs.putBoolean(JUnitPreferencesConstants.SHOW_ON_ERROR_ONLY, false);
 		prefs.putBoolean(JUnitPreferencesConstants.ENABLE_ASSERTIONS, JUnitPreferencesConstants.ENABLE_ASSERTIONS_DEFAULT);
+		prefs.putBoolean(JUnitPreferencesConstants.BINARY_PROTOCOL, JUnitPreferencesConstants.BINARY_PROTOCOL_DEFAULT);
 
 		String[] filters= JUnitPreferencesConstants.createDefaultStackFiltersList();
 		String active= JUnitPreferencesConstants.serializeList(filters);
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jdt.internal.junit.runner.MessageIds;
+
+/**
+ * Reads the messages sent by the RemoteTestRunner in the binary protocol, see
+ * {@link MessageIds#BINARY_PROTOCOL}.
+ */
+public class BinaryMessageReader {
+
+	/**
+	 * Receives the decoded messages.
+	 */
+	public interface IMessageHandler {
+		/**
+		 * @param message a message as it is sent in the text protocol, without line delimiter
+		 */
+		void message(String message);
+
+		/**
+		 * @param header one of {@link MessageIds#RECORD_TEST_HEADERS}
+		 * @param testId the test id
+		 * @param testName the test name
+		 */
+		void testMessage(String header, String testId, String testName);
+
+		/**
+		 * @param treeEntry the payload of a {@link MessageIds#TEST_TREE} message
+		 */
+		void treeEntry(String treeEntry);
+	}
+
+	private final DataInputStream fIn;
+
+	private final List<String> fStrings= new ArrayList<>();
+
+	private String[] fTestIds= new String[1024];
+
+	private byte[] fFrame= new byte[8 * 1024];
+
+	private int fPosition;
+
+	private int fLength;
+
+	/**
+	 * Creates a reader for a stream whose protocol header has already been read.
+	 *
+	 * @param in the stream
+	 * @see #readProtocolHeader(BufferedInputStream)
+	 */
+	public BinaryMessageReader(InputStream in) {
+		fIn= new DataInputStream(in);
+		fStrings.add(null); // string references start at 1
+	}
+
+	/**
+	 * Reads the header of the binary protocol if the stream starts with it. Otherwise, the stream
+	 * is reset, so that the text protocol can be read from the start.
+	 *
+	 * @param in the stream
+	 * @return <code>true</code> if the messages are sent in the binary protocol
+	 * @throws IOException if reading fails or the protocol version is not supported
+	 */
+	public static boolean readProtocolHeader(BufferedInputStream in) throws IOException {
+		byte[] expected= MessageIds.BINARY_PROTOCOL.getBytes(StandardCharsets.US_ASCII);
+		byte[] header= new byte[expected.length];
+		in.mark(header.length);
+		int read= 0;
+		while (read < header.length) {
+			int count= in.read(header, read, header.length - read);
+			if (count == -1)
+				break;
+			read+= count;
+		}
+		if (read < header.length || !Arrays.equals(expected, header)) {
+			in.reset();
+			return false;
+		}
+		int version= new DataInputStream(in).readInt();
+		if (version != MessageIds.BINARY_PROTOCOL_VERSION)
+			throw new IOException("Unsupported binary protocol version: " + version); //$NON-NLS-1$
+		return true;
+	}
+
+	/**
+	 * Reads the next frame and passes its messages to the handler.
+	 *
+	 * @param handler the handler
+	 * @return <code>false</code> if the end of the stream has been reached
+	 * @throws IOException if reading fails or the frame is corrupt
+	 */
+	public boolean readFrame(IMessageHandler handler) throws IOException {
+		int length;
+		try {
+			length= fIn.readInt();
+		} catch (EOFException e) {
+			return false;
+		}
+		if (length < 0)
+			throw new IOException("Corrupt frame length: " + length); //$NON-NLS-1$
+		if (length > fFrame.length)
+			fFrame= new byte[Math.max(length, fFrame.length * 2)];
+		fIn.readFully(fFrame, 0, length);
+
+		fPosition= 0;
+		fLength= length;
+		while (fPosition < length) {
+			byte kind= fFrame[fPosition++];
+			switch (kind) {
+				case MessageIds.RECORD_MESSAGE:
+					handler.message(readString());
+					break;
+				case MessageIds.RECORD_TEST: {
+					int header= readByte();
+					if (header < 0 || header >= MessageIds.RECORD_TEST_HEADERS.length)
+						throw new IOException("Corrupt test record: " + header); //$NON-NLS-1$
+					String testId= getTestId(readVarInt());
+					handler.testMessage(MessageIds.RECORD_TEST_HEADERS[header], testId, readStringReference());
+					break;
+				}
+				case MessageIds.RECORD_TREE: {
+					String testId= getTestId(readVarInt());
+					String testName= readStringReference();
+					String rest= readString();
+					handler.treeEntry(new StringBuilder(testId.length() + testName.length() + rest.length() + 1)
+							.append(testId).append(',').append(testName).append(rest).toString());
+					break;
+				}
+				default:
+					throw new IOException("Corrupt record kind: " + kind); //$NON-NLS-1$
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the canonical string of a test id, so that the ids of start, end and failure
+	 * messages share the same instance.
+	 *
+	 * @param id the test id
+	 * @return the string
+	 * @throws IOException if the id is corrupt
+	 */
+	private String getTestId(int id) throws IOException {
+		if (id < 0)
+			throw new IOException("Corrupt test id: " + id); //$NON-NLS-1$
+		if (id >= fTestIds.length)
+			fTestIds= Arrays.copyOf(fTestIds, Math.max(id + 1, fTestIds.length * 2));
+		String testId= fTestIds[id];
+		if (testId == null) {
+			testId= Integer.toString(id);
+			fTestIds[id]= testId;
+		}
+		return testId;
+	}
+
+	private String readStringReference() throws IOException {
+		int index= readVarInt();
+		if (index == 0) {
+			String s= readString();
+			fStrings.add(s);
+			return s;
+		}
+		if (index >= fStrings.size())
+			throw new IOException("Corrupt string reference: " + index); //$NON-NLS-1$
+		return fStrings.get(index);
+	}
+
+	private String readString() throws IOException {
+		int length= readVarInt();
+		if (length < 0 || length > fLength - fPosition)
+			throw new IOException("Corrupt string length: " + length); //$NON-NLS-1$
+		String s= new String(fFrame, fPosition, length, StandardCharsets.UTF_8);
+		fPosition+= length;
+		return s;
+	}
+
+	private byte readByte() throws IOException {
+		if (fPosition >= fLength)
+			throw new IOException("Corrupt frame"); //$NON-NLS-1$
+		return fFrame[fPosition++];
+	}
+
+	private int readVarInt() throws IOException {
+		int value= 0;
+		for (int shift= 0; shift < 32; shift+= 7) {
+			byte b= readByte();
+			value|= (b & 0x7f) << shift;
+			if (b >= 0)
+				return value;
+		}
+		throw new IOException("Corrupt varint"); //$NON-NLS-1$
+	}
+}
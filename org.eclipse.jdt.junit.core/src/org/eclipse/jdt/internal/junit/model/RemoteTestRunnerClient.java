@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,8 +15,10 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.junit.model;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -215,6 +217,37 @@ public class RemoteTestRunnerClient {
 	ProcessingState fRerunState= new AppendingProcessingState(fFailedRerunTrace, MessageIds.RTRACE_END);
 	ProcessingState fCurrentState= fDefaultState;
 
+	/**
+	 * Dispatches the messages of the binary protocol. Test messages and tree entries are passed to
+	 * the listeners directly, all other messages go through the state machine.
+	 */
+	private class BinaryMessageHandler implements BinaryMessageReader.IMessageHandler {
+		@Override
+		public void message(String message) {
+			receiveMessage(message);
+		}
+
+		@Override
+		public void testMessage(String header, String testId, String testName) {
+			if (fCurrentState != fDefaultState) {
+				receiveMessage(header + testId + ',' + testName);
+			} else if (MessageIds.TEST_START.equals(header)) {
+				notifyTestStarted(testId, testName);
+			} else if (MessageIds.TEST_END.equals(header)) {
+				notifyTestEnded(testId, testName);
+			} else {
+				fFailedTestId= testId;
+				fFailedTest= testName;
+				fFailureKind= MessageIds.TEST_ERROR.equals(header) ? ITestRunListener2.STATUS_ERROR : ITestRunListener2.STATUS_FAILURE;
+			}
+		}
+
+		@Override
+		public void treeEntry(String treeEntry) {
+			notifyTestTreeEntry(treeEntry);
+		}
+	}
+
 	/**
 	 * An array of listeners that are informed about test events.
 	 */
@@ -228,6 +261,10 @@ public class RemoteTestRunnerClient {
 	private int fPort= -1;
 	private PrintWriter fWriter;
 	private PushbackReader fPushbackReader;
+	/**
+	 * The stream of the binary protocol, <code>null</code> if the text protocol is used
+	 */
+	private InputStream fBinaryInput;
 	private String fLastLineDelimiter;
 	/**
 	 * The protocol version
@@ -266,11 +303,25 @@ public class RemoteTestRunnerClient {
 					System.out.println("Creating server socket "+fServerPort); //$NON-NLS-1$
 				fServerSocket= new ServerSocket(fServerPort);
 				fSocket= fServerSocket.accept();
-				fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(fSocket.getInputStream(), StandardCharsets.UTF_8)));
 				fWriter= new PrintWriter(new OutputStreamWriter(fSocket.getOutputStream(), StandardCharsets.UTF_8), true);
-				String message;
-				while(fPushbackReader != null && (message= readMessage(fPushbackReader)) != null)
-					receiveMessage(message);
+				BufferedInputStream in= new BufferedInputStream(fSocket.getInputStream());
+				if (BinaryMessageReader.readProtocolHeader(in)) {
+					if (fDebug)
+						System.out.println("Using binary protocol"); //$NON-NLS-1$
+					fBinaryInput= in;
+					// messages of the binary protocol have no line delimiter, appended text is separated like println() does
+					fLastLineDelimiter= "\n"; //$NON-NLS-1$
+					BinaryMessageReader reader= new BinaryMessageReader(in);
+					BinaryMessageHandler handler= new BinaryMessageHandler();
+					while (fBinaryInput != null && reader.readFrame(handler)) {
+						// messages are dispatched by the handler
+					}
+				} else {
+					fPushbackReader= new PushbackReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+					String message;
+					while(fPushbackReader != null && (message= readMessage(fPushbackReader)) != null)
+						receiveMessage(message);
+				}
 			} catch (SocketException e) {
 				notifyTestRunTerminated();
 			} catch (IOException e) {
@@ -324,6 +375,10 @@ public class RemoteTestRunnerClient {
 				fPushbackReader.close();
 				fPushbackReader= null;
 			}
+			if (fBinaryInput != null) {
+				fBinaryInput.close();
+				fBinaryInput= null;
+			}
 		} catch(IOException e) {
 		}
 		try {
@@ -513,28 +568,36 @@ public class RemoteTestRunnerClient {
 	}
 
 	private void notifyTestEnded(final String test) {
+		String s[]= extractTestId(test);
+		notifyTestEnded(s[0], s[1]);
+	}
+
+	private void notifyTestEnded(final String testId, final String testName) {
 		if (JUnitCorePlugin.isStopped())
 			return;
 		for (ITestRunListener2 listener : fListeners) {
 			SafeRunner.run(new ListenerSafeRunnable() {
 				@Override
 				public void run() {
-					String s[]= extractTestId(test);
-					listener.testEnded(s[0], s[1]);
+					listener.testEnded(testId, testName);
 				}
 			});
 		}
 	}
 
 	private void notifyTestStarted(final String test) {
+		String s[]= extractTestId(test);
+		notifyTestStarted(s[0], s[1]);
+	}
+
+	private void notifyTestStarted(final String testId, final String testName) {
 		if (JUnitCorePlugin.isStopped())
 			return;
 		for (ITestRunListener2 listener : fListeners) {
 			SafeRunner.run(new ListenerSafeRunnable() {
 				@Override
 				public void run() {
-					String s[]= extractTestId(test);
-					listener.testStarted(s[0], s[1]);
+					listener.testStarted(testId, testName);
 				}
 			});
 		}
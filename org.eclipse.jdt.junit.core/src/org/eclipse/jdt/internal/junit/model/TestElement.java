@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -190,9 +190,9 @@ public abstract class TestElement implements ITestElement {
 	private String fUniqueId;
 
 	private Status fStatus;
-	private String fTrace;
-	private String fExpected;
-	private String fActual;
+	private TraceText fTrace;
+	private TraceText fExpected;
+	private TraceText fActual;
 
 	private boolean fAssumptionFailed;
 
@@ -261,13 +261,21 @@ public abstract class TestElement implements ITestElement {
 	@Override
 	public FailureTrace getFailureTrace() {
 		Result testResult= getTestResult(false);
-		if (testResult == Result.ERROR || testResult == Result.FAILURE
-				|| (testResult == Result.IGNORED && fTrace != null)) {
-			return new FailureTrace(fTrace, fExpected, fActual);
+		if (hasFailureTrace()) {
+			return new FailureTrace(getTrace(), getExpected(), getActual());
 		}
 		return null;
 	}
 
+	/**
+	 * @return <code>true</code> if {@link #getFailureTrace()} is not <code>null</code>
+	 */
+	public boolean hasFailureTrace() {
+		Result testResult= getTestResult(false);
+		return testResult == Result.ERROR || testResult == Result.FAILURE
+				|| (testResult == Result.IGNORED && fTrace != null);
+	}
+
 	/**
 	 * @return the parent suite, or <code>null</code> for the root
 	 */
@@ -304,9 +312,23 @@ public abstract class TestElement implements ITestElement {
 	}
 
 	public void setStatus(Status status, String trace, String expected, String actual) {
+		TraceStore store= getTraceStore();
+		setStatusAndTraces(status, TraceText.create(trace, store), TraceText.create(expected, store), TraceText.create(actual, store));
+	}
+
+	/**
+	 * Sets the status together with texts which may be kept in the trace store of the test run
+	 * session.
+	 *
+	 * @param status the status
+	 * @param trace the failure trace, can be <code>null</code>
+	 * @param expected the expected value, can be <code>null</code>
+	 * @param actual the actual value, can be <code>null</code>
+	 */
+	public void setStatusAndTraces(Status status, TraceText trace, TraceText expected, TraceText actual) {
 		if (trace != null && fTrace != null) {
 			//don't overwrite first trace if same test run logs multiple errors
-			fTrace= fTrace + trace;
+			fTrace= TraceText.create(fTrace.toString() + trace.toString(), getTraceStore());
 		} else {
 			fTrace= trace;
 			fExpected= expected;
@@ -320,17 +342,45 @@ public abstract class TestElement implements ITestElement {
 	}
 
 	public String getTrace() {
-		return fTrace;
+		return fTrace != null ? fTrace.toString() : null;
 	}
 
 	public String getExpected() {
-		return fExpected;
+		return fExpected != null ? fExpected.toString() : null;
 	}
 
 	public String getActual() {
+		return fActual != null ? fActual.toString() : null;
+	}
+
+	/**
+	 * @return the failure trace without reading it from the trace store, or <code>null</code>
+	 */
+	public TraceText getTraceText() {
+		return fTrace;
+	}
+
+	/**
+	 * @return the expected value without reading it from the trace store, or <code>null</code>
+	 */
+	public TraceText getExpectedText() {
+		return fExpected;
+	}
+
+	/**
+	 * @return the actual value without reading it from the trace store, or <code>null</code>
+	 */
+	public TraceText getActualText() {
 		return fActual;
 	}
 
+	private TraceStore getTraceStore() {
+		ITestRunSession session= getTestRunSession();
+		if (session instanceof TestRunSession)
+			return ((TestRunSession) session).getTraceStore();
+		return null;
+	}
+
 	public boolean isComparisonFailure() {
 		return fExpected != null && fActual != null;
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2017 IBM Corporation and others.
+ * Copyright (c) 2007, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -52,11 +52,15 @@ public class TestRunHandler extends DefaultHandler {
 	private TestCaseElement fTestCase;
 	private Stack<Boolean> fNotRun= new Stack<>();
 
-	private StringBuffer fFailureBuffer;
+	/*
+	 * Long texts are moved to the trace store of the session while they are read,
+	 * so that huge reports can be imported with bounded memory.
+	 */
+	private TraceText.Builder fFailureBuffer;
 	private boolean fInExpected;
 	private boolean fInActual;
-	private StringBuffer fExpectedBuffer;
-	private StringBuffer fActualBuffer;
+	private TraceText.Builder fExpectedBuffer;
+	private TraceText.Builder fActualBuffer;
 
 	private Locator fLocator;
 
@@ -185,20 +189,20 @@ public class TestRunHandler extends DefaultHandler {
 		case IXMLTags.NODE_ERROR:
 			//TODO: multiple failures: https://bugs.eclipse.org/bugs/show_bug.cgi?id=125296
 			fStatus= Status.ERROR;
-			fFailureBuffer= new StringBuffer();
+			fFailureBuffer= newBuffer();
 			break;
 		case IXMLTags.NODE_FAILURE:
 			//TODO: multiple failures: https://bugs.eclipse.org/bugs/show_bug.cgi?id=125296
 			fStatus= Status.FAILURE;
-			fFailureBuffer= new StringBuffer();
+			fFailureBuffer= newBuffer();
 			break;
 		case IXMLTags.NODE_EXPECTED:
 			fInExpected= true;
-			fExpectedBuffer= new StringBuffer();
+			fExpectedBuffer= newBuffer();
 			break;
 		case IXMLTags.NODE_ACTUAL:
 			fInActual= true;
-			fActualBuffer= new StringBuffer();
+			fActualBuffer= newBuffer();
 			break;
 		// not interested
 		case IXMLTags.NODE_SYSTEM_OUT:
@@ -208,10 +212,10 @@ public class TestRunHandler extends DefaultHandler {
 			// before Ant 1.9.0: not an Ant JUnit tag, see https://bugs.eclipse.org/bugs/show_bug.cgi?id=276068
 			// later: child of <suite> or <test>, see https://issues.apache.org/bugzilla/show_bug.cgi?id=43969
 			fStatus= Status.OK;
-			fFailureBuffer= new StringBuffer();
+			fFailureBuffer= newBuffer();
 			String message= attributes.getValue(IXMLTags.ATTR_MESSAGE);
 			if (message != null) {
-				fFailureBuffer.append(message).append('\n');
+				fFailureBuffer.append(message).append("\n"); //$NON-NLS-1$
 			}
 			break;
 		default:
@@ -219,6 +223,10 @@ public class TestRunHandler extends DefaultHandler {
 		}
 	}
 
+	private TraceText.Builder newBuffer() {
+		return new TraceText.Builder(fTestRunSession != null ? fTestRunSession.getTraceStore() : null);
+	}
+
 	private void readTime(TestElement testElement, Attributes attributes) {
 		String timeString= attributes.getValue(IXMLTags.ATTR_TIME);
 		if (timeString != null) {
@@ -277,14 +285,14 @@ public class TestRunHandler extends DefaultHandler {
 			fInExpected= false;
 			if (fFailureBuffer != null) {
 				// skip whitespace from before <expected> and <actual> nodes
-				fFailureBuffer.setLength(0);
+				fFailureBuffer.clear();
 			}
 			break;
 		case IXMLTags.NODE_ACTUAL:
 			fInActual= false;
 			if (fFailureBuffer != null) {
 				// skip whitespace from before <expected> and <actual> nodes
-				fFailureBuffer.setLength(0);
+				fFailureBuffer.clear();
 			}
 			break;
 		// OK
@@ -318,7 +326,7 @@ public class TestRunHandler extends DefaultHandler {
 
 	private void handleFailure(TestElement testElement) {
 		if (fFailureBuffer != null) {
-			fTestRunSession.registerTestFailureStatus(testElement, fStatus, fFailureBuffer.toString(), toString(fExpectedBuffer), toString(fActualBuffer));
+			fTestRunSession.registerTestFailureTraces(testElement, fStatus, fFailureBuffer.build(), build(fExpectedBuffer), build(fActualBuffer));
 			fFailureBuffer= null;
 			fExpectedBuffer= null;
 			fActualBuffer= null;
@@ -326,8 +334,8 @@ public class TestRunHandler extends DefaultHandler {
 		}
 	}
 
-	private String toString(StringBuffer buffer) {
-		return buffer != null ? buffer.toString() : null;
+	private TraceText build(TraceText.Builder buffer) {
+		return buffer != null ? buffer.build() : null;
 	}
 
 	private void handleUnknownNode(String qName) throws SAXException {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -83,6 +83,12 @@ public class TestRunSession implements ITestRunSession {
 	 */
 	private Result fTestResult;
 
+	/**
+	 * Store for long failure traces of the test elements of {@link #fTestRoot}, or
+	 * <code>null</code> if none has been needed yet.
+	 */
+	private TraceStore fTraceStore;
+
 	/**
 	 * Map from testId to testElement.
 	 */
@@ -239,6 +245,23 @@ public class TestRunSession implements ITestRunSession {
 		fTestRoot= new TestRoot(this);
 		fTestResult= null;
 		fIdToTest= new HashMap<>();
+		disposeTraceStore();
+	}
+
+	/**
+	 * @return the store for long failure traces of the test elements of this session
+	 */
+	public synchronized TraceStore getTraceStore() {
+		if (fTraceStore == null)
+			fTraceStore= new TraceStore();
+		return fTraceStore;
+	}
+
+	private synchronized void disposeTraceStore() {
+		if (fTraceStore != null) {
+			fTraceStore.dispose();
+			fTraceStore= null;
+		}
 	}
 
 	@Override
@@ -373,6 +396,7 @@ public class TestRunSession implements ITestRunSession {
 			JUnitModel.exportTestRunSession(this, swapFile);
 			fTestResult= fTestRoot.getTestResult(true);
 			fTestRoot= null;
+			disposeTraceStore();
 			fTestRunnerClient= null;
 			fIdToTest= new HashMap<>();
 			fIncompleteTestSuites= null;
@@ -390,6 +414,7 @@ public class TestRunSession implements ITestRunSession {
 
 
 	public void removeSwapFile() {
+		disposeTraceStore();
 		File swapFile= getSwapFile();
 		if (swapFile.exists())
 			swapFile.delete();
@@ -814,6 +839,15 @@ public class TestRunSession implements ITestRunSession {
 
 	public void registerTestFailureStatus(TestElement testElement, Status status, String trace, String expected, String actual) {
 		testElement.setStatus(status, trace, expected, actual);
+		countFailure(testElement, status);
+	}
+
+	public void registerTestFailureTraces(TestElement testElement, Status status, TraceText trace, TraceText expected, TraceText actual) {
+		testElement.setStatusAndTraces(status, trace, expected, actual);
+		countFailure(testElement, status);
+	}
+
+	private void countFailure(TestElement testElement, Status status) {
 		if (!testElement.isAssumptionFailure()) {
 			if (status.isError()) {
 				fErrorCount++;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2017 IBM Corporation and others.
+ * Copyright (c) 2007, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -35,7 +35,6 @@ import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.AttributesImpl;
 
 import org.eclipse.jdt.junit.model.ITestElement;
-import org.eclipse.jdt.junit.model.ITestElement.FailureTrace;
 import org.eclipse.jdt.junit.model.ITestElement.ProgressState;
 import org.eclipse.jdt.junit.model.ITestElement.Result;
 
@@ -48,6 +47,7 @@ public class TestRunSessionSerializer implements XMLReader {
 	private static final String EMPTY= ""; //$NON-NLS-1$
 	private static final String CDATA= "CDATA"; //$NON-NLS-1$
 	private static final Attributes NO_ATTS= new AttributesImpl();
+	private static final int CHUNK_SIZE= 8 * 1024;
 
 
 	private final TestRunSession fTestRunSession;
@@ -173,23 +173,24 @@ public class TestRunSessionSerializer implements XMLReader {
 	}
 
 	private void addFailure(TestElement testElement) throws SAXException {
-		FailureTrace failureTrace= testElement.getFailureTrace();
+		// the texts are written in chunks, so that traces in the trace store are never read completely
+		boolean hasFailureTrace= testElement.hasFailureTrace();
 
 		if (testElement.isAssumptionFailure()) {
 			startElement(IXMLTags.NODE_SKIPPED, NO_ATTS);
-			if (failureTrace != null) {
-				addCharacters(failureTrace.getTrace());
+			if (hasFailureTrace) {
+				addCharacters(testElement.getTraceText());
 			}
 			endElement(IXMLTags.NODE_SKIPPED);
 
-		} else if (failureTrace != null) {
+		} else if (hasFailureTrace) {
 			AttributesImpl failureAtts= new AttributesImpl();
 //				addCDATA(failureAtts, IXMLTags.ATTR_MESSAGE, xx);
 //				addCDATA(failureAtts, IXMLTags.ATTR_TYPE, xx);
 			String failureKind= testElement.getTestResult(false) == Result.ERROR ? IXMLTags.NODE_ERROR : IXMLTags.NODE_FAILURE;
 			startElement(failureKind, failureAtts);
-			String expected= failureTrace.getExpected();
-			String actual= failureTrace.getActual();
+			TraceText expected= testElement.getExpectedText();
+			TraceText actual= testElement.getActualText();
 			if (expected != null) {
 				startElement(IXMLTags.NODE_EXPECTED, NO_ATTS);
 				addCharacters(expected);
@@ -200,8 +201,7 @@ public class TestRunSessionSerializer implements XMLReader {
 				addCharacters(actual);
 				endElement(IXMLTags.NODE_ACTUAL);
 			}
-			String trace= failureTrace.getTrace();
-			addCharacters(trace);
+			addCharacters(testElement.getTraceText());
 			endElement(failureKind);
 		}
 	}
@@ -222,6 +222,24 @@ public class TestRunSessionSerializer implements XMLReader {
 		atts.addAttribute(EMPTY, EMPTY, name, CDATA, value);
 	}
 
+	private void addCharacters(TraceText text) throws SAXException {
+		if (text == null)
+			return;
+		int length= text.length();
+		int start= 0;
+		while (start < length) {
+			int end= Math.min(start + CHUNK_SIZE, length);
+			String chunk= text.substring(start, end);
+			if (end < length && Character.isHighSurrogate(chunk.charAt(chunk.length() - 1))) {
+				// don't split surrogate pairs
+				end--;
+				chunk= chunk.substring(0, chunk.length() - 1);
+			}
+			addCharacters(chunk);
+			start= end;
+		}
+	}
+
 	private void addCharacters(String string) throws SAXException {
 		string= escapeNonUnicodeChars(string);
 		fHandler.characters(string.toCharArray(), 0, string.length());
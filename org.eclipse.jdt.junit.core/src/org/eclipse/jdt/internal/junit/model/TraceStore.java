@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Temporary file holding the long failure traces, expected and actual values of a test run
+ * session, so that they do not have to be kept on the heap.
+ * <p>
+ * Texts are only appended. They are addressed by the index of their first char and their length;
+ * every char takes two bytes in the file. The file is created on first use and deleted by
+ * {@link #dispose()}.
+ * </p>
+ */
+public class TraceStore {
+
+	private File fFile;
+
+	private FileChannel fChannel;
+
+	/**
+	 * The number of chars in the store
+	 */
+	private long fSize;
+
+	private boolean fDisposed;
+
+	/**
+	 * @return the number of chars in the store, which is the index of the next appended char
+	 */
+	public synchronized long size() {
+		return fSize;
+	}
+
+	/**
+	 * Appends chars to the store.
+	 *
+	 * @param chars the chars
+	 * @param start the index of the first char to append
+	 * @param length the number of chars to append
+	 * @return the index of the first appended char in the store
+	 * @throws IOException if writing fails or the store has been disposed
+	 */
+	public synchronized long append(char[] chars, int start, int length) throws IOException {
+		FileChannel channel= getChannel();
+		ByteBuffer buffer= ByteBuffer.allocate(length * 2);
+		buffer.asCharBuffer().put(chars, start, length);
+		long index= fSize;
+		long position= index * 2;
+		while (buffer.hasRemaining()) {
+			position+= channel.write(buffer, position);
+		}
+		fSize+= length;
+		return index;
+	}
+
+	/**
+	 * Reads chars from the store.
+	 *
+	 * @param index the index of the first char
+	 * @param length the number of chars to read
+	 * @return the chars
+	 * @throws IOException if reading fails or the store has been disposed
+	 */
+	public synchronized char[] read(long index, int length) throws IOException {
+		if (index < 0 || length < 0 || index + length > fSize)
+			throw new IOException("Invalid range: " + index + ", " + length); //$NON-NLS-1$ //$NON-NLS-2$
+		FileChannel channel= getChannel();
+		ByteBuffer buffer= ByteBuffer.allocate(length * 2);
+		long position= index * 2;
+		while (buffer.hasRemaining()) {
+			int read= channel.read(buffer, position);
+			if (read == -1)
+				throw new IOException("Unexpected end of " + fFile); //$NON-NLS-1$
+			position+= read;
+		}
+		buffer.flip();
+		char[] chars= new char[length];
+		buffer.asCharBuffer().get(chars);
+		return chars;
+	}
+
+	/**
+	 * Closes and deletes the file. Texts which are still referenced can no longer be read.
+	 */
+	public synchronized void dispose() {
+		fDisposed= true;
+		try {
+			if (fChannel != null)
+				fChannel.close();
+		} catch (IOException e) {
+			// the file is deleted anyway
+		}
+		fChannel= null;
+		if (fFile != null)
+			fFile.delete();
+		fFile= null;
+		fSize= 0;
+	}
+
+	private FileChannel getChannel() throws IOException {
+		if (fDisposed)
+			throw new IOException("Trace store has been disposed"); //$NON-NLS-1$
+		if (fChannel == null) {
+			fFile= File.createTempFile("junit-traces", ".tmp"); //$NON-NLS-1$ //$NON-NLS-2$
+			fFile.deleteOnExit();
+			fChannel= FileChannel.open(fFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		}
+		return fChannel;
+	}
+}
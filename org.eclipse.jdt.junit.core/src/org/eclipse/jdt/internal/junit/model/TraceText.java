@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.IOException;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+
+/**
+ * A failure trace, expected or actual value of a test element. Texts longer than
+ * {@link #SPILL_THRESHOLD} chars are kept in the {@link TraceStore} of the test run session and
+ * only read when they are requested.
+ */
+public final class TraceText {
+
+	/**
+	 * The number of chars from which a text is moved to the trace store
+	 */
+	public static final int SPILL_THRESHOLD= 32 * 1024;
+
+	/**
+	 * Collects a text from chunks, e.g. from SAX events, without keeping more than
+	 * {@link TraceText#SPILL_THRESHOLD} chars on the heap.
+	 */
+	public static final class Builder {
+
+		private final TraceStore fStore;
+
+		private final StringBuilder fBuffer= new StringBuilder();
+
+		/**
+		 * The index of the first spilled char in the store, or <code>-1</code> if nothing has been
+		 * spilled
+		 */
+		private long fStart= -1;
+
+		private int fSpilled;
+
+		private IOException fException;
+
+		/**
+		 * @param store the store for long texts, or <code>null</code> to keep the text on the heap
+		 */
+		public Builder(TraceStore store) {
+			fStore= store;
+		}
+
+		public Builder append(char[] chars, int start, int length) {
+			fBuffer.append(chars, start, length);
+			if (fStore != null && fBuffer.length() >= SPILL_THRESHOLD)
+				spill();
+			return this;
+		}
+
+		public Builder append(String s) {
+			fBuffer.append(s);
+			if (fStore != null && fBuffer.length() >= SPILL_THRESHOLD)
+				spill();
+			return this;
+		}
+
+		public int length() {
+			return fSpilled + fBuffer.length();
+		}
+
+		/**
+		 * Discards the collected text.
+		 */
+		public void clear() {
+			fBuffer.setLength(0);
+			fStart= -1;
+			fSpilled= 0;
+		}
+
+		/**
+		 * @return the collected text
+		 */
+		public TraceText build() {
+			if (fStart == -1)
+				return new TraceText(fBuffer.toString());
+			spill();
+			if (fException != null) {
+				JUnitCorePlugin.log(fException);
+				return new TraceText(""); //$NON-NLS-1$
+			}
+			return new TraceText(fStore, fStart, fSpilled);
+		}
+
+		private void spill() {
+			if (fException != null) {
+				fBuffer.setLength(0);
+				return;
+			}
+			try {
+				synchronized (fStore) {
+					if (fStart != -1 && fStore.size() != fStart + fSpilled) {
+						// another text has been appended in between: move the spilled part to the end
+						long start= -1;
+						for (int i= 0; i < fSpilled; i+= SPILL_THRESHOLD) {
+							int length= Math.min(SPILL_THRESHOLD, fSpilled - i);
+							long index= fStore.append(fStore.read(fStart + i, length), 0, length);
+							if (start == -1)
+								start= index;
+						}
+						fStart= start;
+					}
+					char[] chars= new char[fBuffer.length()];
+					fBuffer.getChars(0, chars.length, chars, 0);
+					long index= fStore.append(chars, 0, chars.length);
+					if (fStart == -1)
+						fStart= index;
+					fSpilled+= chars.length;
+				}
+			} catch (IOException e) {
+				fException= e;
+			}
+			fBuffer.setLength(0);
+		}
+	}
+
+	/**
+	 * The text if it is kept on the heap, otherwise <code>null</code>
+	 */
+	private final String fText;
+
+	private final TraceStore fStore;
+
+	private final long fStart;
+
+	private final int fLength;
+
+	private TraceText(String text) {
+		fText= text;
+		fStore= null;
+		fStart= -1;
+		fLength= text.length();
+	}
+
+	private TraceText(TraceStore store, long start, int length) {
+		fText= null;
+		fStore= store;
+		fStart= start;
+		fLength= length;
+	}
+
+	/**
+	 * Creates a text, which is moved to the store if it is long.
+	 *
+	 * @param text the text, can be <code>null</code>
+	 * @param store the store for long texts, or <code>null</code> to keep the text on the heap
+	 * @return the text, or <code>null</code> if <code>text</code> is <code>null</code>
+	 */
+	public static TraceText create(String text, TraceStore store) {
+		if (text == null)
+			return null;
+		if (store == null || text.length() < SPILL_THRESHOLD)
+			return new TraceText(text);
+		return new Builder(store).append(text).build();
+	}
+
+	/**
+	 * @return the number of chars of the text
+	 */
+	public int length() {
+		return fLength;
+	}
+
+	/**
+	 * @return <code>true</code> if the text is kept in a trace store
+	 */
+	public boolean isSpilled() {
+		return fText == null;
+	}
+
+	/**
+	 * Returns a part of the text. Only the requested part is read from the store.
+	 *
+	 * @param start the index of the first char
+	 * @param end the index after the last char
+	 * @return the part of the text
+	 */
+	public String substring(int start, int end) {
+		if (fText != null)
+			return fText.substring(start, end);
+		if (start < 0 || end > fLength || start > end)
+			throw new IndexOutOfBoundsException(start + ", " + end); //$NON-NLS-1$
+		try {
+			return new String(fStore.read(fStart + start, end - start));
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+			return ""; //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	public String toString() {
+		if (fText != null)
+			return fText;
+		return substring(0, fLength);
+	}
+}
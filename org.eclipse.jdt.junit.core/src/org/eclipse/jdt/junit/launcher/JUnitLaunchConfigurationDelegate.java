@@ -66,6 +66,7 @@ import org.eclipse.jdt.core.JavaModelException;
 
 import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
 import org.eclipse.jdt.internal.junit.JUnitMessages;
+import org.eclipse.jdt.internal.junit.JUnitPreferencesConstants;
 import org.eclipse.jdt.internal.junit.Messages;
 import org.eclipse.jdt.internal.junit.launcher.ITestKind;
 import org.eclipse.jdt.internal.junit.launcher.JUnitLaunchConfigurationConstants;
@@ -442,6 +443,10 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 		if (fKeepAlive)
 			programArguments.add(0, "-keepalive"); //$NON-NLS-1$
 
+		// runtimes which don't know the binary protocol ignore the argument and use the text protocol
+		if (Platform.getPreferencesService().getBoolean(JUnitCorePlugin.CORE_PLUGIN_ID, JUnitPreferencesConstants.BINARY_PROTOCOL, JUnitPreferencesConstants.BINARY_PROTOCOL_DEFAULT, null))
+			programArguments.add("-binaryProtocol"); //$NON-NLS-1$
+
 		ITestKind testRunnerKind= getTestRunnerKind(configuration);
 
 		programArguments.add("-testLoaderClass"); //$NON-NLS-1$
@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Sends the messages of the RemoteTestRunner in the binary protocol, see
+ * {@link MessageIds#BINARY_PROTOCOL}.
+ * <p>
+ * Messages are collected into a frame which is written when it is full, after at most
+ * {@link #FLUSH_INTERVAL} milliseconds, or immediately for the messages which end a (re)run.
+ * Test names are interned, so that the name of a test is sent only once although it is reported
+ * in the tree entry and in the start and end messages.
+ * </p>
+ * <p>
+ * Like a <code>PrintWriter</code>, this writer never throws exceptions: after an I/O error, all
+ * further messages are dropped.
+ * </p>
+ */
+public class BinaryMessageWriter implements MessageSender {
+
+	/**
+	 * The size in bytes after which a frame is written without waiting for the flush interval
+	 */
+	static final int FRAME_SIZE= 64 * 1024;
+
+	/**
+	 * The maximum time in milliseconds a flushed message is delayed
+	 */
+	static final long FLUSH_INTERVAL= 50;
+
+	private final DataOutputStream fOut;
+
+	private final ByteArrayOutputStream fFrame= new ByteArrayOutputStream(FRAME_SIZE + 1024);
+
+	private final Map<String, Integer> fStrings= new HashMap<>();
+
+	private final Timer fTimer;
+
+	private boolean fFlushRequested;
+
+	private boolean fFailed;
+
+	/**
+	 * Creates a writer and sends the protocol header.
+	 *
+	 * @param out the stream to write to
+	 * @param flushInBackground <code>true</code> if pending messages should be written by a
+	 *            background thread after {@link #FLUSH_INTERVAL}, <code>false</code> if they are
+	 *            written by {@link #flush()} directly
+	 * @throws IOException if writing the header fails
+	 */
+	public BinaryMessageWriter(OutputStream out, boolean flushInBackground) throws IOException {
+		fOut= new DataOutputStream(new BufferedOutputStream(out, FRAME_SIZE));
+		fOut.write(MessageIds.BINARY_PROTOCOL.getBytes(StandardCharsets.US_ASCII));
+		fOut.writeInt(MessageIds.BINARY_PROTOCOL_VERSION);
+		fOut.flush();
+		if (flushInBackground) {
+			fTimer= new Timer("BinaryMessageWriter", true); //$NON-NLS-1$
+			fTimer.schedule(new TimerTask() {
+				@Override
+				public void run() {
+					flushRequested();
+				}
+			}, FLUSH_INTERVAL, FLUSH_INTERVAL);
+		} else {
+			fTimer= null;
+		}
+	}
+
+	@Override
+	public synchronized void sendMessage(String msg) {
+		if (fFailed)
+			return;
+		if (!writeTestRecord(msg) && !writeTreeRecord(msg)) {
+			fFrame.write(MessageIds.RECORD_MESSAGE);
+			writeString(msg);
+		}
+
+		if (msg.startsWith(MessageIds.TEST_RUN_END) || msg.startsWith(MessageIds.TEST_STOPPED) || msg.startsWith(MessageIds.TEST_RERAN)) {
+			writeFrame(true);
+		} else if (fFrame.size() >= FRAME_SIZE) {
+			writeFrame(false);
+		}
+	}
+
+	/**
+	 * Requests that the pending messages are sent. If the writer flushes in background, they are
+	 * sent within {@link #FLUSH_INTERVAL}.
+	 */
+	@Override
+	public synchronized void flush() {
+		if (fTimer != null)
+			fFlushRequested= true;
+		else
+			writeFrame(true);
+	}
+
+	/**
+	 * Sends the pending messages and closes the stream.
+	 */
+	public synchronized void close() {
+		if (fTimer != null)
+			fTimer.cancel();
+		writeFrame(true);
+		try {
+			fOut.close();
+		} catch (IOException e) {
+			// like PrintWriter#close()
+		}
+		fFailed= true;
+	}
+
+	private synchronized void flushRequested() {
+		if (fFlushRequested) {
+			fFlushRequested= false;
+			writeFrame(true);
+		}
+	}
+
+	private boolean writeTestRecord(String msg) {
+		for (int i= 0; i < MessageIds.RECORD_TEST_HEADERS.length; i++) {
+			if (msg.startsWith(MessageIds.RECORD_TEST_HEADERS[i])) {
+				// format: testId + "," + testName
+				int comma= msg.indexOf(',', MessageIds.MSG_HEADER_LENGTH);
+				int testId= parseTestId(msg, comma);
+				if (testId < 0)
+					return false;
+				fFrame.write(MessageIds.RECORD_TEST);
+				fFrame.write(i);
+				writeVarInt(testId);
+				writeStringReference(msg.substring(comma + 1));
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean writeTreeRecord(String msg) {
+		if (!msg.startsWith(MessageIds.TEST_TREE))
+			return false;
+		// format: testId + "," + testName + "," + ..., the test name is escaped by RemoteTestRunner#escapeText(String)
+		int comma= msg.indexOf(',', MessageIds.MSG_HEADER_LENGTH);
+		int testId= parseTestId(msg, comma);
+		if (testId < 0)
+			return false;
+		int nameEnd= -1;
+		for (int i= comma + 1; i < msg.length(); i++) {
+			char c= msg.charAt(i);
+			if (c == '\\') {
+				i++;
+			} else if (c == ',') {
+				nameEnd= i;
+				break;
+			}
+		}
+		if (nameEnd == -1)
+			return false;
+		fFrame.write(MessageIds.RECORD_TREE);
+		writeVarInt(testId);
+		writeStringReference(msg.substring(comma + 1, nameEnd));
+		writeString(msg.substring(nameEnd));
+		return true;
+	}
+
+	/**
+	 * @param msg the message
+	 * @param end the end of the test id
+	 * @return the test id of the message or <code>-1</code> if it is not a non-negative
+	 *         <code>int</code> in canonical form
+	 */
+	private static int parseTestId(String msg, int end) {
+		int start= MessageIds.MSG_HEADER_LENGTH;
+		int length= end - start;
+		if (length <= 0 || length > 9 || (length > 1 && msg.charAt(start) == '0'))
+			return -1;
+		int id= 0;
+		for (int i= start; i < end; i++) {
+			char c= msg.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			id= id * 10 + (c - '0');
+		}
+		return id;
+	}
+
+	private void writeStringReference(String s) {
+		Integer index= fStrings.get(s);
+		if (index != null) {
+			writeVarInt(index.intValue());
+		} else {
+			fStrings.put(s, Integer.valueOf(fStrings.size() + 1));
+			writeVarInt(0);
+			writeString(s);
+		}
+	}
+
+	private void writeString(String s) {
+		byte[] bytes= s.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(bytes.length);
+		fFrame.write(bytes, 0, bytes.length);
+	}
+
+	private void writeVarInt(int value) {
+		while ((value & ~0x7f) != 0) {
+			fFrame.write((value & 0x7f) | 0x80);
+			value>>>= 7;
+		}
+		fFrame.write(value);
+	}
+
+	private void writeFrame(boolean flush) {
+		if (fFailed)
+			return;
+		try {
+			if (fFrame.size() > 0) {
+				fOut.writeInt(fFrame.size());
+				fFrame.writeTo(fOut);
+				fFrame.reset();
+			}
+			if (flush)
+				fOut.flush();
+		} catch (IOException e) {
+			fFailed= true;
+		}
+	}
+}
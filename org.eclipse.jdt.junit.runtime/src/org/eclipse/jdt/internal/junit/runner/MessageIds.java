@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -134,6 +134,62 @@ public class MessageIds {
 	 */
 	public static final String TEST_RERUN=	">RERUN  "; //$NON-NLS-1$
 
+	/**
+	 * Notification that the messages are sent in the binary protocol. Only sent if the
+	 * RemoteTestRunner has been started with <code>-binaryprotocol</code>, as the very first
+	 * bytes on the connection, encoded in ASCII and followed by the protocol version as an
+	 * <code>int</code>.
+	 * <p>
+	 * In the binary protocol, the messages are batched into frames. A frame is an <code>int</code>
+	 * with the number of bytes in the frame, followed by records. Each record starts with a byte
+	 * giving its kind:
+	 * </p>
+	 * <ul>
+	 * <li>{@link #RECORD_MESSAGE} + string: a message as it is sent in the text protocol</li>
+	 * <li>{@link #RECORD_TEST} + byte index into {@link #RECORD_TEST_HEADERS} + varint testId +
+	 * string reference to the testName: one of the test messages with the payload testId + "," +
+	 * testName</li>
+	 * <li>{@link #RECORD_TREE} + varint testId + string reference to the testName + string: a
+	 * {@link #TEST_TREE} message, the last string is the tree entry following the testName</li>
+	 * </ul>
+	 * <p>
+	 * Varints are unsigned and encoded in groups of 7 bits, least significant group first. A string
+	 * is a varint with the length of its UTF-8 encoding, followed by the UTF-8 bytes. A string
+	 * reference is a varint: <code>0</code> is followed by a new string, which gets the next index
+	 * starting at <code>1</code>; any other value refers to the string with that index.
+	 * </p>
+	 * <p>
+	 * The requests sent to the RemoteTestRunner always use the text protocol.
+	 * </p>
+	 */
+	public static final String BINARY_PROTOCOL= "%BINPROT"; //$NON-NLS-1$
+
+	/**
+	 * The version of the binary protocol.
+	 */
+	public static final int BINARY_PROTOCOL_VERSION= 1;
+
+	/**
+	 * Binary protocol record holding a message of the text protocol.
+	 */
+	public static final byte RECORD_MESSAGE= 0;
+
+	/**
+	 * Binary protocol record holding a test message with interned test name.
+	 */
+	public static final byte RECORD_TEST= 1;
+
+	/**
+	 * Binary protocol record holding a test tree entry with interned test name.
+	 */
+	public static final byte RECORD_TREE= 2;
+
+	/**
+	 * The messages which can be sent as {@link #RECORD_TEST}, indexed by the byte following the
+	 * record kind.
+	 */
+	public static final String[] RECORD_TEST_HEADERS= { TEST_START, TEST_END, TEST_ERROR, TEST_FAILED };
+
 	/**
 	 * MessageFormat to encode test method identifiers:
 	 * testMethod(testClass)
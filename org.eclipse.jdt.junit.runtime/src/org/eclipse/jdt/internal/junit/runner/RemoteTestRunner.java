@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2021 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -90,6 +90,11 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * Print writer for sending messages
 	 */
 	private PrintWriter fWriter;
+	/**
+	 * Writer for sending messages in the binary protocol, <code>null</code> if the text protocol
+	 * is used
+	 */
+	private BinaryMessageWriter fBinaryWriter;
 	/**
 	 * Reader for incoming messages
 	 */
@@ -111,6 +116,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * This allows to rerun tests.
 	 */
 	private boolean fKeepAlive= false;
+	/**
+	 * Send the messages in the binary protocol, see {@link MessageIds#BINARY_PROTOCOL}.
+	 */
+	private boolean fBinaryProtocol= false;
 	/**
 	 * Has the server been stopped
 	 */
@@ -201,6 +210,7 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * -host: the host to connect to default local host
 	 * -port: the port to connect to, mandatory argument
 	 * -keepalive: keep the process alive after a test run
+	 * -binaryprotocol: send the messages in the binary protocol
      * </pre>
      */
 	public static void main(String[] args) {
@@ -300,6 +310,9 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			else if("-keepalive".equals(args[i].toLowerCase())) { //$NON-NLS-1$
 				fKeepAlive= true;
 			}
+			else if("-binaryprotocol".equals(args[i].toLowerCase())) { //$NON-NLS-1$
+				fBinaryProtocol= true;
+			}
 			else if("-debugging".equals(args[i].toLowerCase()) || "-debug".equals(args[i].toLowerCase())){ //$NON-NLS-1$ //$NON-NLS-2$
 			    fDebugMode= true;
 
@@ -647,11 +660,15 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		for (int i= 1; i < 20; i++) {
 			try{
 				fClientSocket= new Socket(fHost, fPort);
-				try {
-				    fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(fClientSocket.getOutputStream(), "UTF-8")), false/*true*/); //$NON-NLS-1$
-	            } catch (UnsupportedEncodingException e1) {
-	                fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(fClientSocket.getOutputStream())), false/*true*/);
-	            }
+				if (fBinaryProtocol) {
+					fBinaryWriter= new BinaryMessageWriter(fClientSocket.getOutputStream(), true);
+				} else {
+					try {
+					    fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(fClientSocket.getOutputStream(), "UTF-8")), false/*true*/); //$NON-NLS-1$
+		            } catch (UnsupportedEncodingException e1) {
+		                fWriter= new PrintWriter(new BufferedWriter(new OutputStreamWriter(fClientSocket.getOutputStream())), false/*true*/);
+		            }
+				}
 				try {
 				    fReader= new BufferedReader(new InputStreamReader(fClientSocket.getInputStream(), "UTF-8")); //$NON-NLS-1$
                 } catch (UnsupportedEncodingException e1) {
@@ -680,6 +697,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			fWriter.close();
 			fWriter= null;
 		}
+		if (fBinaryWriter != null) {
+			fBinaryWriter.close();
+			fBinaryWriter= null;
+		}
 		try {
 			if (fReaderThread != null)   {
 				// interrupt reader thread so that we don't block on close
@@ -709,6 +730,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 
 	@Override
 	public void sendMessage(String msg) {
+		if (fBinaryWriter != null) {
+			fBinaryWriter.sendMessage(msg);
+			return;
+		}
 		if(fWriter == null)
 			return;
 		fWriter.println(msg);
@@ -749,6 +774,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 
 	@Override
 	public void flush() {
+		if (fBinaryWriter != null) {
+			fBinaryWriter.flush();
+			return;
+		}
 	    fWriter.flush();
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -44,6 +44,7 @@ import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
 import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting;
 import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingManager;
 import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingPresenter;
+import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingReconciler;
 import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightings;
 
 public class AbstractSemanticHighlightingTest {
@@ -144,6 +145,33 @@ public class AbstractSemanticHighlightingTest {
 		return document.getPositions(positionCategory);
 	}
 
+	/**
+	 * Replaces text in the editor's document and waits until the semantic highlighting has been
+	 * reconciled.
+	 *
+	 * @param line the line of the replaced text
+	 * @param column the column of the replaced text
+	 * @param length the length of the replaced text
+	 * @param text the new text
+	 * @throws BadLocationException if the text cannot be replaced
+	 */
+	protected void replace(int line, int column, int length, String text) throws BadLocationException {
+		IDocument document= fSourceViewer.getDocument();
+		document.replace(document.getLineOffset(line) + column, length, text);
+		assertTrue(EditorTestHelper.joinReconciler(fSourceViewer, 0, 10000, 100));
+		EditorTestHelper.runEventQueue(100);
+	}
+
+	/**
+	 * @return the fingerprints of the AST from which the presented positions were computed, or
+	 *         <code>null</code> if the next reconcile collects the positions of the whole AST
+	 */
+	protected Object getPresentedFingerprints() {
+		SemanticHighlightingManager manager= (SemanticHighlightingManager) new Accessor(fEditor, JavaEditor.class).get("fSemanticManager");
+		SemanticHighlightingReconciler reconciler= (SemanticHighlightingReconciler) new Accessor(manager, manager.getClass()).get("fReconciler");
+		return new Accessor(reconciler, reconciler.getClass()).get("fPresentedFingerprints");
+	}
+
 	protected void setUpSemanticHighlighting(String semanticHighlighting) {
 		enableSemanticHighlighting(semanticHighlighting);
 		EditorTestHelper.forceReconcile(fSourceViewer);
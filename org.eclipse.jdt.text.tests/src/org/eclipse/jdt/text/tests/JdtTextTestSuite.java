@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -20,6 +20,7 @@ import org.junit.runners.Suite;
 import org.eclipse.jdt.text.tests.codemining.CodeMiningTriggerTest;
 import org.eclipse.jdt.text.tests.codemining.ParameterNamesCodeMiningTest;
 import org.eclipse.jdt.text.tests.contentassist.ContentAssistTestSuite;
+import org.eclipse.jdt.text.tests.spelling.CompiledSpellDictionaryTest;
 import org.eclipse.jdt.text.tests.spelling.SpellCheckEngineTestCase;
 import org.eclipse.jdt.text.tests.templates.TemplatesTestSuite;
 
@@ -58,8 +59,10 @@ import org.eclipse.jdt.text.tests.templates.TemplatesTestSuite;
 //			});
 	BracketInserterTest.class,
 	SpellCheckEngineTestCase.class,
+	CompiledSpellDictionaryTest.class,
 	SemanticHighlightingTest.class,
 	AutoboxingSemanticHighlightingTest.class,
+	MemberBodyFingerprintsTest.class,
 	NewForLoopJavaContextTest.class,
 	IteratorForLoopJavaContextTest.class,
 	ArrayWithTempVarForLoopJavaContextTest.class,
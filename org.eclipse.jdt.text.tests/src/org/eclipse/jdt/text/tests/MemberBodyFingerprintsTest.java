@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.Block;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Initializer;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+
+import org.eclipse.jdt.internal.ui.javaeditor.MemberBodyFingerprints;
+
+/**
+ * Tests which member bodies the semantic highlighting reconciler considers changed.
+ */
+public class MemberBodyFingerprintsTest {
+
+	private static final String SOURCE= ""
+			+ "package p;\n"
+			+ "public class A {\n"
+			+ "	int field= 1;\n"
+			+ "	static {\n"
+			+ "		System.out.println(\"init\");\n"
+			+ "	}\n"
+			+ "	/** Returns one. */\n"
+			+ "	int one() {\n"
+			+ "		return 1;\n"
+			+ "	}\n"
+			+ "	void two(int param) {\n"
+			+ "		Runnable r= new Runnable() {\n"
+			+ "			public void run() {\n"
+			+ "				field++;\n"
+			+ "			}\n"
+			+ "		};\n"
+			+ "		param+= field;\n"
+			+ "	}\n"
+			+ "	int three() {\n"
+			+ "		return field;\n"
+			+ "	}\n"
+			+ "}\n";
+
+	private static MemberBodyFingerprints fingerprints(String source) {
+		ASTParser parser= ASTParser.newParser(AST.getJLSLatest());
+		parser.setKind(ASTParser.K_COMPILATION_UNIT);
+		parser.setSource(source.toCharArray());
+		return MemberBodyFingerprints.create((CompilationUnit) parser.createAST(null));
+	}
+
+	private static List<Block> changedBodies(String oldSource, String newSource) {
+		return fingerprints(newSource).getChangedBodies(fingerprints(oldSource).withoutNodes());
+	}
+
+	private static String replace(String source, String oldText, String newText) {
+		assertTrue(source.contains(oldText));
+		return source.replace(oldText, newText);
+	}
+
+	private static String getMemberName(Block body) {
+		ASTNode parent= body.getParent();
+		if (parent instanceof Initializer)
+			return "<clinit>";
+		return ((MethodDeclaration) parent).getName().getIdentifier();
+	}
+
+	@Test
+	public void unchangedUnit() {
+		assertEquals(0, changedBodies(SOURCE, SOURCE).size());
+	}
+
+	@Test
+	public void changedLiteral() {
+		List<Block> changed= changedBodies(SOURCE, replace(SOURCE, "return 1;", "return 2;"));
+		assertEquals(1, changed.size());
+		assertEquals("one", getMemberName(changed.get(0)));
+	}
+
+	@Test
+	public void changedLengthOfBody() {
+		// the later bodies move, but do not change
+		String newSource= replace(SOURCE, "return 1;", "int two= 2;\n\t\treturn two - 1;");
+		List<Block> changed= changedBodies(SOURCE, newSource);
+		assertEquals(1, changed.size());
+		assertEquals("one", getMemberName(changed.get(0)));
+		assertTrue(changed.get(0).toString().contains("two"));
+	}
+
+	@Test
+	public void changedInitializer() {
+		List<Block> changed= changedBodies(SOURCE, replace(SOURCE, "\"init\"", "\"initialized\""));
+		assertEquals(1, changed.size());
+		assertEquals("<clinit>", getMemberName(changed.get(0)));
+	}
+
+	@Test
+	public void changedNestedBody() {
+		// the body of the anonymous class is part of the enclosing member body
+		List<Block> changed= changedBodies(SOURCE, replace(SOURCE, "field++;", "field--;"));
+		assertEquals(1, changed.size());
+		assertEquals("two", getMemberName(changed.get(0)));
+	}
+
+	@Test
+	public void changedSeveralBodies() {
+		String newSource= replace(replace(SOURCE, "return 1;", "return 2;"), "return field;", "return -field;");
+		List<Block> changed= changedBodies(SOURCE, newSource);
+		assertEquals(2, changed.size());
+		assertEquals("one", getMemberName(changed.get(0)));
+		assertEquals("three", getMemberName(changed.get(1)));
+	}
+
+	@Test
+	public void changedName() {
+		// names are resolved differently, for example a local variable can hide a field
+		List<Block> changed= changedBodies(SOURCE, replace(SOURCE, "return field;", "return fielt;"));
+		assertEquals(1, changed.size());
+		assertEquals("three", getMemberName(changed.get(0)));
+	}
+
+	@Test
+	public void changedSkeleton() {
+		assertNull(changedBodies(SOURCE, replace(SOURCE, "int field= 1;", "long field= 1;")));
+		assertNull(changedBodies(SOURCE, replace(SOURCE, "int field= 1;", "int field= 2;")));
+		assertNull(changedBodies(SOURCE, replace(SOURCE, "void two(int param)", "void two(long param)")));
+		assertNull(changedBodies(SOURCE, replace(SOURCE, "/** Returns one. */", "/** Returns 1. */")));
+		assertNull(changedBodies(SOURCE, replace(SOURCE, "\tint three() {", "\tint zero() {\n\t\treturn 0;\n\t}\n\tint three() {")));
+	}
+
+	@Test
+	public void removedBody() {
+		assertNull(changedBodies(SOURCE, replace(SOURCE, "\tint three() {\n\t\treturn field;\n\t}\n", "")));
+	}
+}
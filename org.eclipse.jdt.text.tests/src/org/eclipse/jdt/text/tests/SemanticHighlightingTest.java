@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,6 +15,8 @@
  *******************************************************************************/
 package org.eclipse.jdt.text.tests;
 
+import static org.junit.Assert.assertNotNull;
+
 import org.junit.Rule;
 import org.junit.Test;
 
@@ -94,6 +96,42 @@ public class SemanticHighlightingTest extends AbstractSemanticHighlightingTest {
 		assertEqualPositions(expected, actual);
 	}
 
+	@Test
+	public void editOneMemberBody() throws Exception {
+		setUpSemanticHighlighting(SemanticHighlightings.FIELD);
+		Position[] before= getSemanticHighlightingPositions();
+
+		replace(9, 0, 0, "\t\tfield= staticField;\n");
+		Position[] expected= new Position[] {
+				createPosition( 3,  5,  5),
+				createPosition( 4, 12, 11),
+				createPosition( 5, 11, 10),
+				createPosition( 6, 18, 16),
+				createPosition( 9,  2,  5),
+				createPosition( 9,  9, 11),
+				createPosition(23,  5, 15),
+				createPosition(26,  2, 15),
+				createPosition(32,  9,  6),
+				createPosition(33,  6, 11),
+				createPosition(33, 31,  5),
+				createPosition(34,  6, 17),
+				createPosition(34, 32, 11),
+				createPosition(35,  6, 16),
+				createPosition(35, 36, 10),
+				createPosition(36,  6, 22),
+				createPosition(36, 37, 16),
+				createPosition(49,  6, 14),
+				createPosition(49, 22,  5),
+		};
+		assertEqualPositions(expected, getSemanticHighlightingPositions());
+		// the next edit of a member body only reconciles that body
+		assertNotNull(getPresentedFingerprints());
+
+		replace(9, 0, "\t\tfield= staticField;\n".length(), "");
+		assertEqualPositions(before, getSemanticHighlightingPositions());
+		assertNotNull(getPresentedFingerprints());
+	}
+
 	@Test
 	public void inheritedFieldHighlighting() throws Exception {
 		setUpSemanticHighlighting(SemanticHighlightings.INHERITED_FIELD);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2019, 2020 Red Hat Inc. and others.
+ * Copyright (c) 2019, 2022 Red Hat Inc. and others.
  *
  * This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License 2.0
@@ -121,6 +121,40 @@ public class ChainCompletionTest {
 		assertEquals("getBar().getBaz() - 2 elements", proposals.get(0).getDisplayString());
 	}
 
+	@Test
+	public void testMembersAreUpdatedAfterChange() throws Exception {
+		String bar= "package test;\n" +
+				"public class Bar {\n" +
+				"  public Baz getBaz() {\n" +
+				"    return new Baz();\n" +
+				"  }\n" +
+				"}";
+		pkg.createCompilationUnit("Bar.java", bar, false, null);
+		pkg.createCompilationUnit("Baz.java", "package test;\npublic class Baz {\n}", false, null);
+
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test;\n" +
+				"public class Foo {\n" +
+				"  public static void mainMethod () {\n" +
+				"    Bar b = new Bar();\n" +
+				"    Baz z = b.$\n" +
+				"  }\n" +
+				"}");
+
+		int completionIndex= getCompletionIndex(buf);
+		ICompilationUnit cu= getCompilationUnit(pkg, buf, "Foo.java");
+
+		List<ICompletionProposal> proposals= computeCompletionProposals(cu, completionIndex);
+		assertProposalsExist(Arrays.asList("b.getBaz() - 2 elements"), proposals);
+		assertFalse(proposals.stream().anyMatch(p -> p.getDisplayString().startsWith("b.getOtherBaz()")));
+
+		// the members cached by the first search must not hide the new method
+		pkg.createCompilationUnit("Bar.java", bar.replace("}\n}", "}\n  public Baz getOtherBaz() {\n    return null;\n  }\n}"), true, null);
+
+		proposals= computeCompletionProposals(cu, completionIndex);
+		assertProposalsExist(Arrays.asList("b.getBaz() - 2 elements", "b.getOtherBaz() - 2 elements"), proposals);
+	}
+
 	@Test
 	public void testPrimitiveCompletion() throws Exception {
 		StringBuffer buf= new StringBuffer();
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.contentassist;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.testplugin.JavaTestPlugin;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.ui.tests.core.rules.ProjectTestSetup;
+
+import org.eclipse.jdt.internal.ui.text.MemberIndex;
+import org.eclipse.jdt.internal.ui.text.MemberIndex.Member;
+import org.eclipse.jdt.internal.ui.text.MemberIndex.TypeEntry;
+
+public class MemberIndexTest {
+
+	@Rule
+	public ProjectTestSetup pts= new ProjectTestSetup();
+
+	private IJavaProject fJProject;
+
+	private File fFile;
+
+	@Before
+	public void setUp() throws Exception {
+		fJProject= JavaProjectHelper.createJavaProject("TestProject", "bin");
+		JavaProjectHelper.addRTJar18(fJProject);
+		fFile= File.createTempFile("memberindex", ".dat");
+		fFile.delete();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		JavaProjectHelper.delete(fJProject);
+		fFile.delete();
+	}
+
+	private static MemberIndex createIndex(File file, IJavaProject project) {
+		MemberIndex index= new MemberIndex(file);
+		index.indexClasspath(project);
+		index.update(new NullProgressMonitor());
+		return index;
+	}
+
+	@Test
+	public void testLibraryMembers() throws Exception {
+		MemberIndex index= createIndex(fFile, fJProject);
+		IType string= fJProject.findType("java.lang.String");
+		TypeEntry entry= index.getTypeEntry(string);
+		assertNotNull(entry);
+		assertEquals(string.getSuperclassTypeSignature(), entry.getSuperclassSignature());
+		assertEquals(string.getMethods().length + string.getFields().length, entry.getMembers().length);
+		for (Member member : entry.getMembers()) {
+			assertTrue(member.createHandle(string).exists());
+		}
+		assertEquals("I", index.getTypeSignature(string.getMethod("length", new String[0])));
+	}
+
+	@Test
+	public void testPersistedIndex() throws Exception {
+		createIndex(fFile, fJProject);
+		assertTrue(fFile.isFile());
+
+		MemberIndex index= createIndex(fFile, fJProject);
+		IType list= fJProject.findType("java.util.List");
+		TypeEntry entry= index.getTypeEntry(list);
+		assertNotNull(entry);
+		assertEquals(list.getSuperInterfaceTypeSignatures().length, entry.getSuperInterfaceSignatures().length);
+		assertEquals(list.getMethod("size", new String[0]).getReturnType(), index.getTypeSignature(list.getMethod("size", new String[0])));
+	}
+
+	@Test
+	public void testEvictedArchivesAreReadFromFile() throws Exception {
+		File lib= JavaTestPlugin.getDefault().getFileInPlugin(JavaProjectHelper.MYLIB);
+		assertNotNull("lib does not exist", lib);
+		JavaProjectHelper.addLibrary(fJProject, Path.fromOSString(lib.getPath()));
+		MemberIndex index= new MemberIndex(fFile, 1);
+		index.indexClasspath(fJProject);
+		index.update(new NullProgressMonitor());
+		assertTrue(fFile.isFile());
+
+		IType string= fJProject.findType("java.lang.String");
+		IType foo= fJProject.findType("mylib.Foo");
+		if (index.getTypeEntry(string) == null) {
+			index.update(new NullProgressMonitor());
+		}
+		assertNotNull(index.getTypeEntry(string));
+		assertNull(index.getTypeEntry(foo));
+		index.update(new NullProgressMonitor());
+		assertNotNull(index.getTypeEntry(foo));
+		// only one archive is kept in memory
+		assertNull(index.getTypeEntry(string));
+		index.update(new NullProgressMonitor());
+		assertNotNull(index.getTypeEntry(string));
+	}
+
+	@Test
+	public void testSourceTypesAreNotIndexed() throws Exception {
+		IPackageFragment pack= JavaProjectHelper.addSourceContainer(fJProject, "src").createPackageFragment("test", false, null);
+		IType type= pack.createCompilationUnit("A.java", "package test;\npublic class A {\n  public int a;\n}", false, null).getType("A");
+		MemberIndex index= createIndex(null, fJProject);
+		assertNull(index.getTypeEntry(type));
+		assertNull(index.getTypeSignature(type.getField("a")));
+	}
+}
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.spelling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.AbstractSpellDictionary;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.CompiledSpellDictionary;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.RankedWordProposal;
+
+public class CompiledSpellDictionaryTest {
+
+	private static class CompilableDictionary extends AbstractSpellDictionary {
+
+		private final URL fURL;
+
+		CompilableDictionary(URL url) {
+			fURL= url;
+		}
+
+		@Override
+		protected boolean isCompilable() {
+			return true;
+		}
+
+		@Override
+		protected URL getURL() throws MalformedURLException {
+			return fURL;
+		}
+	}
+
+	private File fDirectory;
+
+	/**
+	 * The folder with the compiled dictionaries in the state location
+	 */
+	private File fCompiledDirectory;
+
+	private List<File> fCompiledFiles;
+
+	@Before
+	public void setUp() throws IOException {
+		fDirectory= Files.createTempDirectory("spelling").toFile(); //$NON-NLS-1$
+		fCompiledDirectory= JavaPlugin.getDefault().getStateLocation().append("spelling").toFile(); //$NON-NLS-1$
+		fCompiledFiles= getCompiledFiles();
+	}
+
+	@After
+	public void tearDown() {
+		for (File file : fDirectory.listFiles())
+			file.delete();
+		fDirectory.delete();
+		for (File file : getCompiledFiles()) {
+			if (!fCompiledFiles.contains(file))
+				file.delete();
+		}
+	}
+
+	private List<File> getCompiledFiles() {
+		File[] files= fCompiledDirectory.listFiles();
+		return files != null ? Arrays.asList(files) : new ArrayList<>();
+	}
+
+	private List<File> getNewCompiledFiles() {
+		List<File> files= new ArrayList<>(getCompiledFiles());
+		files.removeAll(fCompiledFiles);
+		return files;
+	}
+
+	private static void corrupt(File file, long position) throws IOException {
+		try (RandomAccessFile out= new RandomAccessFile(file, "rw")) { //$NON-NLS-1$
+			out.seek(position);
+			int b= out.read();
+			out.seek(position);
+			out.write(b ^ 0xFF);
+		}
+	}
+
+	private static byte[] utf8(String string) {
+		return string.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testReadWrite() throws IOException {
+		CompiledSpellDictionary.Builder builder= new CompiledSpellDictionary.Builder();
+		builder.add(utf8("TRK"), Arrays.asList(utf8("truck"), utf8("trick"))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		builder.add(utf8("AAL"), Arrays.asList(utf8("all"))); //$NON-NLS-1$ //$NON-NLS-2$
+		builder.add(utf8("LR"), Arrays.asList(utf8("lorry"), utf8("über"))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		File file= new File(fDirectory, "test.dictionary"); //$NON-NLS-1$
+		builder.write(file, "key"); //$NON-NLS-1$
+
+		assertNull(CompiledSpellDictionary.open(file, "other key")); //$NON-NLS-1$
+		assertNull(CompiledSpellDictionary.open(new File(fDirectory, "missing"), "key")); //$NON-NLS-1$ //$NON-NLS-2$
+
+		CompiledSpellDictionary dictionary= CompiledSpellDictionary.open(file, "key"); //$NON-NLS-1$
+		assertNotNull(dictionary);
+		assertEquals(5, dictionary.getWordCount());
+
+		int bucket= dictionary.findBucket(utf8("TRK")); //$NON-NLS-1$
+		assertEquals(2, dictionary.getWordCount(bucket));
+		assertEquals("truck", dictionary.getWord(bucket, 0)); //$NON-NLS-1$
+		assertEquals("trick", dictionary.getWord(bucket, 1)); //$NON-NLS-1$
+		assertTrue(dictionary.contains(bucket, utf8("trick"))); //$NON-NLS-1$
+		assertFalse(dictionary.contains(bucket, utf8("track"))); //$NON-NLS-1$
+
+		bucket= dictionary.findBucket(utf8("LR")); //$NON-NLS-1$
+		assertEquals("über", dictionary.getWord(bucket, 1)); //$NON-NLS-1$
+		assertTrue(dictionary.findBucket(utf8("AAL")) >= 0); //$NON-NLS-1$
+		assertEquals(-1, dictionary.findBucket(utf8("TR"))); //$NON-NLS-1$
+		assertEquals(-1, dictionary.findBucket(utf8("ZZZ"))); //$NON-NLS-1$
+
+		// a corrupt file fails the checksum
+		File corrupt= new File(fDirectory, "corrupt.dictionary"); //$NON-NLS-1$
+		Files.copy(file.toPath(), corrupt.toPath());
+		corrupt(corrupt, corrupt.length() - 1);
+		assertNull(CompiledSpellDictionary.open(corrupt, "key")); //$NON-NLS-1$
+
+		// a file must not be replaced, it may still be mapped
+		try {
+			builder.write(file, "key"); //$NON-NLS-1$
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCompiledDictionaryIsUsedOnReload() throws IOException {
+		File wordList= new File(fDirectory, "words.txt"); //$NON-NLS-1$
+		Files.write(wordList.toPath(), utf8("truck\nlorry\nsentence\n")); //$NON-NLS-1$
+		URL url= wordList.toURI().toURL();
+
+		CompilableDictionary dictionary= new CompilableDictionary(url);
+		assertTrue(dictionary.isCorrect("truck")); //$NON-NLS-1$
+		assertTrue(dictionary.isCorrect("Lorry")); //$NON-NLS-1$
+		assertFalse(dictionary.isCorrect("trucks")); //$NON-NLS-1$
+		List<File> compiledFiles= getNewCompiledFiles();
+		assertEquals(1, compiledFiles.size());
+		File compiledFile= compiledFiles.get(0);
+
+		// a word list with the same length and modification time has the same key, so a
+		// dictionary which knows the old word but not the new one reads the compiled file
+		long lastModified= wordList.lastModified();
+		Files.write(wordList.toPath(), utf8("trick\nlorry\nsentence\n")); //$NON-NLS-1$
+		assertTrue(wordList.setLastModified(lastModified));
+		CompilableDictionary reloaded= new CompilableDictionary(url);
+		assertTrue(reloaded.isCorrect("truck")); //$NON-NLS-1$
+		assertFalse(reloaded.isCorrect("trick")); //$NON-NLS-1$
+		assertTrue(reloaded.isCorrect("sentence")); //$NON-NLS-1$
+		Set<RankedWordProposal> proposals= reloaded.getProposals("truck", false); //$NON-NLS-1$
+		boolean found= false;
+		for (RankedWordProposal proposal : proposals)
+			found|= proposal.getText().equals("truck"); //$NON-NLS-1$
+		assertTrue(found);
+
+		// a corrupt compiled file is not used, the word list is read instead
+		corrupt(compiledFile, compiledFile.length() - 1);
+		CompilableDictionary fallback= new CompilableDictionary(url);
+		assertTrue(fallback.isCorrect("trick")); //$NON-NLS-1$
+		assertFalse(fallback.isCorrect("truck")); //$NON-NLS-1$
+
+		// a changed word list is compiled into a new file
+		Files.write(wordList.toPath(), utf8("truck\nlorry\nsentence\nwagon\n")); //$NON-NLS-1$
+		wordList.setLastModified(lastModified + 2000);
+		assertTrue(new CompilableDictionary(url).isCorrect("wagon")); //$NON-NLS-1$
+		compiledFiles= getNewCompiledFiles();
+		// the old file is deleted unless it is still mapped
+		compiledFiles.remove(compiledFile);
+		assertEquals(1, compiledFiles.size());
+	}
+}
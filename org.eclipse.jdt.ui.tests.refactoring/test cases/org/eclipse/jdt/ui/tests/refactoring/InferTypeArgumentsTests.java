@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -47,6 +47,7 @@ import org.eclipse.jdt.core.JavaCore;
 
 import org.eclipse.jdt.internal.corext.refactoring.RefactoringAvailabilityTester;
 import org.eclipse.jdt.internal.corext.refactoring.generics.InferTypeArgumentsRefactoring;
+import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
 
 import org.eclipse.jdt.ui.tests.refactoring.infra.ZipTools;
 import org.eclipse.jdt.ui.tests.refactoring.rules.Java1d6Setup;
@@ -57,6 +58,8 @@ public class InferTypeArgumentsTests extends GenericRefactoringTest {
 
 	private boolean fAssumeCloneReturnsSameType= true;
 	private boolean fLeaveUnconstrainedRaw= true;
+	private int fParallelism= 1;
+	private int fBatchSize= 150;
 
 	public InferTypeArgumentsTests() {
 		rts= new Java1d6Setup();
@@ -101,6 +104,8 @@ public class InferTypeArgumentsTests extends GenericRefactoringTest {
 
 		refactoring.setAssumeCloneReturnsSameType(fAssumeCloneReturnsSameType);
 		refactoring.setLeaveUnconstrainedRaw(fLeaveUnconstrainedRaw);
+		refactoring.setParallelism(fParallelism);
+		refactoring.setBatchSize(fBatchSize);
 
 		PerformRefactoringOperation op= new PerformRefactoringOperation(
 				refactoring, CheckConditionsOperation.FINAL_CONDITIONS);
@@ -275,6 +280,37 @@ public class InferTypeArgumentsTests extends GenericRefactoringTest {
 
 	}
 
+	@Test
+	public void testJUnitConcurrently() throws Exception {
+		fAssumeCloneReturnsSameType= false;
+		fLeaveUnconstrainedRaw= true;
+		// more batches than threads, so that batches are resolved concurrently in several rounds
+		fParallelism= 3;
+		fBatchSize= 7;
+		IJavaProject javaProject= JavaProjectHelper.createJavaProject("InferTypeArguments", "bin");
+		try {
+			IPackageFragmentRoot jdk= JavaProjectHelper.addRTJar(javaProject);
+			assertNotNull(jdk);
+
+			File junitSrcArchive= JavaTestPlugin.getDefault().getFileInPlugin(JavaProjectHelper.JUNIT_SRC_381);
+			assertNotNull(junitSrcArchive);
+			assertTrue(junitSrcArchive.exists());
+
+			IPackageFragmentRoot src= JavaProjectHelper.addSourceContainerWithImport(javaProject, "src", junitSrcArchive, JavaProjectHelper.JUNIT_SRC_ENCODING);
+			ICompilationUnit[] cus= JavaModelUtil.getAllCompilationUnits(new IJavaElement[] { src });
+			assertTrue(cus.length > 3 * fParallelism * fBatchSize);
+
+			boolean performed= perform(new IJavaElement[] { javaProject }, RefactoringStatus.OK, RefactoringStatus.OK);
+			assertTrue(performed);
+
+			// same result as the sequential run in testJUnit()
+			compareWithZipFile(src, "junit381-noUI-generified-src.zip");
+		} finally {
+			if (javaProject != null && javaProject.exists())
+				JavaProjectHelper.delete(javaProject);
+		}
+	}
+
 	@Test
 	public void testJUnitWithCloneNotRaw() throws Exception {
 		fAssumeCloneReturnsSameType= true;
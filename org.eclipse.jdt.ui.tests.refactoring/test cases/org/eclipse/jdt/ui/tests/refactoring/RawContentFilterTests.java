@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import org.eclipse.core.runtime.IPath;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.ITextFileBufferManager;
+import org.eclipse.core.filebuffers.LocationKind;
+
+import org.eclipse.jface.text.IDocument;
+
+import org.eclipse.jdt.internal.corext.refactoring.util.RawContentFilter;
+
+import org.eclipse.jdt.ui.tests.refactoring.rules.RefactoringTestSetup;
+
+public class RawContentFilterTests extends GenericRefactoringTest {
+
+	/**
+	 * The size of the buffer in which the filter reads the files
+	 */
+	private static final int BUFFER_SIZE= 8192;
+
+	private static final String NAME= "TestPattern";
+
+	public RawContentFilterTests() {
+		rts= new RefactoringTestSetup();
+	}
+
+	private IFile createFile(String fileName, byte[] contents, String charset) throws Exception {
+		IProject project= getRoot().getJavaProject().getProject();
+		IFile file= project.getFile(fileName);
+		file.create(new ByteArrayInputStream(contents), true, null);
+		file.setCharset(charset, null);
+		return file;
+	}
+
+	private IFile createFile(String fileName, String contents, String charset) throws Exception {
+		return createFile(fileName, contents.getBytes(Charset.forName(charset)), charset);
+	}
+
+	private static String fill(int length) {
+		char[] chars= new char[length];
+		Arrays.fill(chars, 'x');
+		return new String(chars);
+	}
+
+	private static String contentsWithNameAt(int offset, int length) {
+		return fill(offset) + NAME + fill(length - offset - NAME.length());
+	}
+
+	@Test
+	public void testMatchesAcrossBufferBoundaries() throws Exception {
+		RawContentFilter filter= new RawContentFilter(NAME);
+		int length= 3 * BUFFER_SIZE;
+		int[] offsets= { 0, BUFFER_SIZE - NAME.length() - 1, BUFFER_SIZE - NAME.length(), BUFFER_SIZE - NAME.length() + 1,
+				BUFFER_SIZE - 1, BUFFER_SIZE, 2 * BUFFER_SIZE - 5, length - NAME.length() };
+		for (int i= 0; i < offsets.length; i++) {
+			IFile file= createFile("match" + i + ".txt", contentsWithNameAt(offsets[i], length), "US-ASCII");
+			assertTrue("match at " + offsets[i], filter.canContain(file));
+		}
+	}
+
+	@Test
+	public void testSplitNameIsNoMatch() throws Exception {
+		RawContentFilter filter= new RawContentFilter(NAME);
+		// the start of the name ends the first buffer, but the name is not complete
+		String contents= fill(BUFFER_SIZE - 4) + NAME.substring(0, 4) + NAME.substring(5) + fill(BUFFER_SIZE);
+		assertFalse(filter.canContain(createFile("split.txt", contents, "US-ASCII")));
+		assertFalse(filter.canContain(createFile("empty.txt", "", "US-ASCII")));
+		assertFalse(filter.canContain(createFile("prefix.txt", NAME.substring(0, NAME.length() - 1), "US-ASCII")));
+		assertTrue(filter.canContain(createFile("exact.txt", NAME, "US-ASCII")));
+	}
+
+	@Test
+	public void testSingleByteCharset() throws Exception {
+		RawContentFilter filter= new RawContentFilter(NAME);
+		String contents= "// \u00e4\u00f6\u00fc\u00df " + fill(BUFFER_SIZE);
+		assertFalse(filter.canContain(createFile("latin1.txt", contents, "ISO-8859-1")));
+		assertTrue(filter.canContain(createFile("latin1Match.txt", contents + NAME, "ISO-8859-1")));
+		assertFalse(filter.canContain(createFile("utf8.txt", contents, "UTF-8")));
+		assertTrue(filter.canContain(createFile("utf8Match.txt", contents + NAME, "UTF-8")));
+	}
+
+	@Test
+	public void testWideCharset() throws Exception {
+		RawContentFilter filter= new RawContentFilter(NAME);
+		// the bytes of the name do not occur in the file, but its characters do
+		IFile file= createFile("utf16.txt", contentsWithNameAt(BUFFER_SIZE, 2 * BUFFER_SIZE), "UTF-16");
+		assertTrue(filter.canContain(file));
+		file= createFile("utf16le.txt", contentsWithNameAt(0, BUFFER_SIZE), "UTF-16LE");
+		assertTrue(filter.canContain(file));
+	}
+
+	@Test
+	public void testUnknownCharset() throws Exception {
+		RawContentFilter filter= new RawContentFilter(NAME);
+		IFile file= createFile("unknown.txt", fill(BUFFER_SIZE), "US-ASCII");
+		file.setCharset("x-unknown-charset", null);
+		assertTrue(filter.canContain(file));
+	}
+
+	@Test
+	public void testNonAsciiName() throws Exception {
+		RawContentFilter filter= new RawContentFilter("Test\u00c4");
+		assertTrue(filter.canContain(createFile("nonAscii.txt", fill(BUFFER_SIZE), "UTF-8")));
+	}
+
+	@Test
+	public void testDirtyBuffer() throws Exception {
+		RawContentFilter filter= new RawContentFilter(NAME);
+		IFile file= createFile("dirty.txt", fill(BUFFER_SIZE), "US-ASCII");
+		assertFalse(filter.canContain(file));
+
+		ITextFileBufferManager manager= FileBuffers.getTextFileBufferManager();
+		IPath path= file.getFullPath();
+		manager.connect(path, LocationKind.IFILE, null);
+		try {
+			ITextFileBuffer buffer= manager.getTextFileBuffer(path, LocationKind.IFILE);
+			IDocument document= buffer.getDocument();
+			document.replace(0, 0, NAME);
+			assertTrue(filter.canContain(file));
+			buffer.revert(null);
+			assertFalse(filter.canContain(file));
+		} finally {
+			manager.disconnect(path, LocationKind.IFILE, null);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -37,9 +37,15 @@ import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+
+import org.eclipse.ltk.core.refactoring.Change;
+import org.eclipse.ltk.core.refactoring.CompositeChange;
 import org.eclipse.ltk.core.refactoring.Refactoring;
 import org.eclipse.ltk.core.refactoring.RefactoringDescriptor;
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
+import org.eclipse.ltk.core.refactoring.TextFileChange;
 import org.eclipse.ltk.core.refactoring.participants.RenameArguments;
 import org.eclipse.ltk.core.refactoring.participants.RenameRefactoring;
 
@@ -1413,6 +1419,85 @@ public class RenameTypeTests extends GenericRefactoringTest {
 		assertEqualLines("invalid updating", definedContent, newContent.toString());
 	}
 
+	@Test
+	public void testQualifiedNamesAndTextualMatchesInManyCUs() throws Exception {
+		ICompilationUnit cu= createCU(getPackageP(), "A.java", "package p;\npublic class A {\n}\n");
+		IType classA= getType(cu, "A");
+		int cuCount= 12;
+		for (int i= 0; i < cuCount; i++) {
+			String name= "C" + i;
+			if (i % 3 == 0) {
+				createCU(getPackageP(), name + ".java", "package p;\npublic class " + name + " {\n}\n");
+			} else {
+				createCU(getPackageP(), name + ".java", "package p;\n/** Uses p.A and A. */\npublic class " + name + " {\n\tString s= \"p.A\";\n\t// A, p.A\n\tA a;\n}\n");
+			}
+		}
+		IProject project= classA.getJavaProject().getProject();
+		IFile[] files= new IFile[cuCount];
+		for (int i= 0; i < files.length; i++) {
+			files[i]= project.getFile("mapping" + i + ".xml");
+			String content= i % 3 == 0 ? "<bean/>\n" : "<bean class=\"p.A\"/>\n<!-- p.A -->\n";
+			files[i].create(new ByteArrayInputStream(content.getBytes()), true, null);
+		}
+
+		RenameJavaElementDescriptor descriptor= createRefactoringDescriptor(classA, "B");
+		descriptor.setUpdateTextualOccurrences(true);
+		descriptor.setUpdateQualifiedNames(true);
+		descriptor.setFileNamePatterns("*.xml");
+
+		// the files are scanned concurrently, but the edits must not depend on the timing
+		List<String> edits= getTextEdits(createRefactoring(descriptor));
+		assertEquals(getTextEdits(createRefactoring(descriptor)), edits);
+
+		assertNull("was supposed to pass", performRefactoring(descriptor));
+		assertEqualLines("package p;\npublic class B {\n}\n", getPackageP().getCompilationUnit("B.java").getSource());
+		for (int i= 0; i < cuCount; i++) {
+			String name= "C" + i;
+			String expected;
+			if (i % 3 == 0) {
+				expected= "package p;\npublic class " + name + " {\n}\n";
+			} else {
+				expected= "package p;\n/** Uses p.B and B. */\npublic class " + name + " {\n\tString s= \"p.B\";\n\t// B, p.B\n\tB a;\n}\n";
+			}
+			assertEqualLines(name, expected, getPackageP().getCompilationUnit(name + ".java").getSource());
+			String expectedContent= i % 3 == 0 ? "<bean/>\n" : "<bean class=\"p.B\"/>\n<!-- p.B -->\n";
+			assertEqualLines(files[i].getName(), expectedContent, getContents(files[i]));
+		}
+	}
+
+	/**
+	 * Returns the text edits of a refactoring as strings of the modified file, the offset, the length
+	 * and the new text, in the order in which they occur in the change.
+	 *
+	 * @param refactoring the refactoring
+	 * @return the text edits
+	 * @throws Exception if the change cannot be created
+	 */
+	private static List<String> getTextEdits(Refactoring refactoring) throws Exception {
+		NullProgressMonitor pm= new NullProgressMonitor();
+		assertTrue(refactoring.checkAllConditions(pm).isOK());
+		List<String> result= new ArrayList<>();
+		addTextEdits(refactoring.createChange(pm), result);
+		return result;
+	}
+
+	private static void addTextEdits(Change change, List<String> result) {
+		if (change instanceof CompositeChange) {
+			for (Change child : ((CompositeChange) change).getChildren()) {
+				addTextEdits(child, result);
+			}
+		} else if (change instanceof TextFileChange) {
+			String path= ((TextFileChange) change).getFile().getFullPath().toString();
+			int lastOffset= -1;
+			for (TextEdit edit : ((TextFileChange) change).getEdit().getChildren()) {
+				assertTrue("edits are sorted", edit.getOffset() > lastOffset);
+				lastOffset= edit.getOffset();
+				String text= edit instanceof ReplaceEdit ? ((ReplaceEdit) edit).getText() : edit.toString();
+				result.add(path + ":" + edit.getOffset() + ":" + edit.getLength() + ":" + text);
+			}
+		}
+	}
+
 	@Test
 	public void testGenerics1() throws Exception {
 		helper2("A", "B");
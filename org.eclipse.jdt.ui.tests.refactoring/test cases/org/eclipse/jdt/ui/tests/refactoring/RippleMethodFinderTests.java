@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -19,6 +19,8 @@ import static org.junit.Assert.assertTrue;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 
 import org.junit.Rule;
@@ -81,10 +83,18 @@ public class RippleMethodFinderTests extends AbstractJunit4CUTestCase {
 			start++;
 		}
 
-		for (IMethod method : RippleMethodFinder2.getRelatedMethods(target, new NullProgressMonitor(), null)) {
+		IMethod[] relatedMethods= RippleMethodFinder2.getRelatedMethods(target, new NullProgressMonitor(), null);
+		for (IMethod method : relatedMethods) {
 			assertTrue("method not found: " + method, rippleMethods.remove(method));
 		}
 		assertEquals("found wrong ripple methods: " + rippleMethods, 0, rippleMethods.size());
+
+		// a shared hierarchy cache must not change the result, also when it is reused
+		RippleMethodFinder2.HierarchyCache cache= new RippleMethodFinder2.HierarchyCache(null);
+		for (int i= 0; i < 2; i++) {
+			IMethod[] cachedMethods= RippleMethodFinder2.getRelatedMethods(target, cache, new NullProgressMonitor());
+			assertEquals(new HashSet<>(Arrays.asList(relatedMethods)), new HashSet<>(Arrays.asList(cachedMethods)));
+		}
 	}
 
 	@Test
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,6 +14,7 @@
 package org.eclipse.jdt.ui.tests.refactoring.typeconstraints;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -35,7 +36,9 @@ import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.ConstraintVar
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.FullConstraintCreator;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.ITypeConstraint;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.TypeConstraintFactory;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TType;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TypeEnvironment;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TypePairCache;
 import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TypeTuple;
 
 import org.eclipse.jdt.ui.tests.refactoring.GenericRefactoringTest;
@@ -286,4 +289,55 @@ public class TypeConstraintTests extends GenericRefactoringTest {
 				new TypeTuple(te.INT, te.BOOLEAN).hashCode(),
 				new TypeTuple(te.INT, te.DOUBLE).hashCode());
 	}
+
+	@Test
+	public void testTypeIds() {
+		TypeEnvironment te= new TypeEnvironment();
+		TType[] types= { te.INT, te.CHAR, te.BOOLEAN, te.SHORT, te.LONG, te.FLOAT, te.DOUBLE, te.BYTE, te.NULL, te.VOID };
+		assertEquals(types.length, te.getTypeCount());
+		boolean[] seen= new boolean[types.length];
+		for (TType type : types) {
+			assertFalse(seen[type.getTypeId()]);
+			seen[type.getTypeId()]= true;
+		}
+	}
+
+	@Test
+	public void testPrimitiveAssignments() {
+		TypeEnvironment te= new TypeEnvironment();
+		assertTrue(te.BYTE.canAssignTo(te.SHORT));
+		assertTrue(te.CHAR.canAssignTo(te.INT));
+		assertTrue(te.INT.canAssignTo(te.LONG));
+		assertTrue(te.LONG.canAssignTo(te.FLOAT));
+		assertTrue(te.FLOAT.canAssignTo(te.DOUBLE));
+		assertTrue(te.BOOLEAN.canAssignTo(te.BOOLEAN));
+		assertFalse(te.CHAR.canAssignTo(te.SHORT));
+		assertFalse(te.SHORT.canAssignTo(te.CHAR));
+		assertFalse(te.DOUBLE.canAssignTo(te.FLOAT));
+		assertFalse(te.INT.canAssignTo(te.BOOLEAN));
+		assertFalse(te.BOOLEAN.canAssignTo(te.INT));
+		assertEquals(0, te.getAssignmentCache().size());
+	}
+
+	@Test
+	public void testTypePairCache() {
+		TypeEnvironment te= new TypeEnvironment();
+		TType[] types= { te.INT, te.CHAR, te.BOOLEAN, te.SHORT, te.LONG, te.FLOAT, te.DOUBLE, te.BYTE, te.NULL, te.VOID };
+		TypePairCache cache= te.getSubTypeCache();
+		assertEquals(TypePairCache.UNKNOWN, cache.get(te.INT, te.LONG));
+		for (TType first : types) {
+			for (TType second : types) {
+				cache.put(first, second, first.getTypeId() < second.getTypeId());
+			}
+		}
+		assertEquals(types.length * types.length, cache.size());
+		for (TType first : types) {
+			for (TType second : types) {
+				int expected= first.getTypeId() < second.getTypeId() ? TypePairCache.TRUE : TypePairCache.FALSE;
+				assertEquals(expected, cache.get(first, second));
+			}
+		}
+		assertEquals(types.length * types.length, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
 }
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring.typeconstraints;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TType;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TypeEnvironment;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.typesets.EnumeratedTypeSet;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.typesets.TypeSet;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.typesets.TypeSetEnvironment;
+
+/**
+ * Compares the enumerated type sets which keep their members in bit sets with the ones which
+ * only keep them hashed.
+ */
+public class TypeSetTests {
+
+	private static final int DIMENSIONS= 25;
+
+	private TypeEnvironment fTypeEnvironment;
+
+	/**
+	 * Types spread over several words of a bit set
+	 */
+	private List<TType> fTypes;
+
+	private TypeSetEnvironment fDenseEnvironment;
+
+	private TypeSetEnvironment fSparseEnvironment;
+
+	@Before
+	public void setUp() {
+		fTypeEnvironment= new TypeEnvironment();
+		fTypes= new ArrayList<>();
+		TType[] elementTypes= { fTypeEnvironment.INT, fTypeEnvironment.CHAR, fTypeEnvironment.BOOLEAN, fTypeEnvironment.SHORT,
+				fTypeEnvironment.LONG, fTypeEnvironment.FLOAT, fTypeEnvironment.DOUBLE, fTypeEnvironment.BYTE };
+		for (TType elementType : elementTypes) {
+			fTypes.add(elementType);
+			for (int dimensions= 1; dimensions <= DIMENSIONS; dimensions++) {
+				fTypes.add(fTypeEnvironment.createArrayType(elementType, dimensions));
+			}
+		}
+		fDenseEnvironment= new TypeSetEnvironment(fTypeEnvironment);
+		fSparseEnvironment= new TypeSetEnvironment(fTypeEnvironment, -1);
+	}
+
+	private List<TType> randomTypes(Random random, int percent) {
+		List<TType> result= new ArrayList<>();
+		for (TType type : fTypes) {
+			if (random.nextInt(100) < percent)
+				result.add(type);
+		}
+		return result;
+	}
+
+	private static List<TType> members(TypeSet set) {
+		List<TType> result= new ArrayList<>();
+		for (Iterator<TType> iter= set.iterator(); iter.hasNext();) {
+			result.add(iter.next());
+		}
+		return result;
+	}
+
+	@Test
+	public void environments() {
+		assertTrue(fDenseEnvironment.isDense());
+		assertFalse(fSparseEnvironment.isDense());
+		assertTrue(fTypeEnvironment.getTypeCount() > 3 * 64);
+	}
+
+	@Test
+	public void bitSetsAgreeWithHashedSets() {
+		Random random= new Random(4711);
+		for (int i= 0; i < 200; i++) {
+			List<TType> first= randomTypes(random, 1 + random.nextInt(60));
+			List<TType> second= randomTypes(random, 1 + random.nextInt(60));
+
+			EnumeratedTypeSet denseFirst= new EnumeratedTypeSet(first.iterator(), fDenseEnvironment);
+			EnumeratedTypeSet denseSecond= new EnumeratedTypeSet(second.iterator(), fDenseEnvironment);
+			EnumeratedTypeSet sparseFirst= new EnumeratedTypeSet(first.iterator(), fSparseEnvironment);
+			EnumeratedTypeSet sparseSecond= new EnumeratedTypeSet(second.iterator(), fSparseEnvironment);
+
+			for (TType type : fTypes) {
+				assertEquals(sparseFirst.contains(type), denseFirst.contains(type));
+			}
+			assertEquals(sparseFirst.containsAll(sparseSecond), denseFirst.containsAll(denseSecond));
+			assertEquals(sparseSecond.containsAll(sparseFirst), denseSecond.containsAll(denseFirst));
+			assertEquals(sparseFirst.equals(sparseSecond), denseFirst.equals(denseSecond));
+			assertEquals(members(sparseFirst.intersectedWith(sparseSecond)), members(denseFirst.intersectedWith(denseSecond)));
+
+			EnumeratedTypeSet denseUnion= (EnumeratedTypeSet) denseFirst.makeClone();
+			EnumeratedTypeSet sparseUnion= (EnumeratedTypeSet) sparseFirst.makeClone();
+			assertEquals(sparseUnion.addAll(sparseSecond), denseUnion.addAll(denseSecond));
+			assertEquals(members(sparseUnion), members(denseUnion));
+			assertTrue(denseUnion.containsAll(denseFirst) && denseUnion.containsAll(denseSecond));
+
+			EnumeratedTypeSet denseRetained= (EnumeratedTypeSet) denseFirst.makeClone();
+			EnumeratedTypeSet sparseRetained= (EnumeratedTypeSet) sparseFirst.makeClone();
+			assertEquals(sparseRetained.retainAll(sparseSecond), denseRetained.retainAll(denseSecond));
+			assertEquals(members(sparseRetained), members(denseRetained));
+
+			EnumeratedTypeSet denseRemoved= (EnumeratedTypeSet) denseFirst.makeClone();
+			EnumeratedTypeSet sparseRemoved= (EnumeratedTypeSet) sparseFirst.makeClone();
+			assertEquals(sparseRemoved.removeAll(sparseSecond), denseRemoved.removeAll(denseSecond));
+			assertEquals(members(sparseRemoved), members(denseRemoved));
+			for (TType type : fTypes) {
+				assertEquals(sparseRemoved.contains(type), denseRemoved.contains(type));
+			}
+		}
+	}
+
+	@Test
+	public void disjointIntersectionIsEmptyTypeSet() {
+		EnumeratedTypeSet first= new EnumeratedTypeSet(fTypes.subList(0, 10).iterator(), fDenseEnvironment);
+		EnumeratedTypeSet second= new EnumeratedTypeSet(fTypes.subList(100, 110).iterator(), fDenseEnvironment);
+		assertSame(fDenseEnvironment.getEmptyTypeSet(), first.intersectedWith(second));
+
+		EnumeratedTypeSet sparseFirst= new EnumeratedTypeSet(fTypes.subList(0, 10).iterator(), fSparseEnvironment);
+		EnumeratedTypeSet sparseSecond= new EnumeratedTypeSet(fTypes.subList(100, 110).iterator(), fSparseEnvironment);
+		assertSame(fSparseEnvironment.getEmptyTypeSet(), sparseFirst.intersectedWith(sparseSecond));
+	}
+
+	@Test
+	public void switchFromDenseToSparse() {
+		TypeSetEnvironment environment= new TypeSetEnvironment(fTypeEnvironment, fTypeEnvironment.getTypeCount());
+		assertTrue(environment.isDense());
+		EnumeratedTypeSet dense= new EnumeratedTypeSet(fTypes.subList(0, 60).iterator(), environment);
+
+		// a new type makes the universe too large for new bit sets
+		TType newType= fTypeEnvironment.createArrayType(fTypeEnvironment.INT, DIMENSIONS + 1);
+		assertFalse(environment.isDense());
+		List<TType> types= new ArrayList<>(fTypes.subList(30, 90));
+		types.add(newType);
+		EnumeratedTypeSet sparse= new EnumeratedTypeSet(types.iterator(), environment);
+
+		assertEquals(fTypes.subList(30, 60), members(dense.intersectedWith(sparse)));
+		assertFalse(dense.containsAll(sparse));
+		assertTrue(sparse.contains(newType));
+
+		// the sets created before keep their bit sets and can hold the new type
+		assertTrue(dense.add(newType));
+		assertTrue(dense.contains(newType));
+		assertTrue(dense.retainAll(sparse));
+		assertEquals(types.subList(0, 30), members(dense).subList(0, 30));
+		assertTrue(sparse.containsAll(dense));
+	}
+
+	@Test
+	public void typeOfOtherEnvironment() {
+		EnumeratedTypeSet set= new EnumeratedTypeSet(fTypes.subList(0, 70).iterator(), fDenseEnvironment);
+		TypeEnvironment otherEnvironment= new TypeEnvironment();
+		// types are equal by structure, so the type must not occur in this environment
+		TType foreign= otherEnvironment.createArrayType(otherEnvironment.INT, DIMENSIONS + 5);
+		assertFalse(set.contains(foreign));
+
+		// a type without an id in this environment switches the set to its hashed members
+		assertTrue(set.add(foreign));
+		assertTrue(set.contains(foreign));
+		assertEquals(71, set.size());
+		EnumeratedTypeSet other= new EnumeratedTypeSet(fTypes.subList(60, 80).iterator(), fDenseEnvironment);
+		assertEquals(fTypes.subList(60, 70), members(set.intersectedWith(other)));
+		assertFalse(set.containsAll(other));
+		assertTrue(set.remove(foreign));
+		assertTrue(set.containsAll(new EnumeratedTypeSet(fTypes.subList(10, 20).iterator(), fDenseEnvironment)));
+	}
+}
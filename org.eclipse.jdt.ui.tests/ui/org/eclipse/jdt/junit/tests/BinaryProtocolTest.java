@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.eclipse.jdt.internal.junit.model.BinaryMessageReader;
+import org.eclipse.jdt.internal.junit.runner.BinaryMessageWriter;
+import org.eclipse.jdt.internal.junit.runner.MessageIds;
+
+public class BinaryProtocolTest {
+
+	private static class RecordingHandler implements BinaryMessageReader.IMessageHandler {
+		final List<String> fMessages= new ArrayList<>();
+		final List<String> fTestIds= new ArrayList<>();
+
+		@Override
+		public void message(String message) {
+			fMessages.add(message);
+		}
+
+		@Override
+		public void testMessage(String header, String testId, String testName) {
+			fMessages.add(header + testId + ',' + testName);
+			fTestIds.add(testId);
+		}
+
+		@Override
+		public void treeEntry(String treeEntry) {
+			fMessages.add(MessageIds.TEST_TREE + treeEntry);
+		}
+	}
+
+	private static RecordingHandler roundTrip(String[] messages, boolean flush) throws IOException {
+		ByteArrayOutputStream bytes= new ByteArrayOutputStream();
+		BinaryMessageWriter writer= new BinaryMessageWriter(bytes, false);
+		for (String message : messages) {
+			writer.sendMessage(message);
+			if (flush)
+				writer.flush();
+		}
+		writer.close();
+
+		BufferedInputStream in= new BufferedInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertTrue(BinaryMessageReader.readProtocolHeader(in));
+		BinaryMessageReader reader= new BinaryMessageReader(in);
+		RecordingHandler handler= new RecordingHandler();
+		while (reader.readFrame(handler)) {
+			// collect
+		}
+		return handler;
+	}
+
+	@Test
+	public void messagesAreDecodedUnchanged() throws Exception {
+		String[] messages= {
+				MessageIds.TEST_RUN_START + "2 v2",
+				MessageIds.TEST_TREE + "1,p.ATest,true,2,false,-1,ATest,,[engine:junit-jupiter]/[class:p.ATest]",
+				MessageIds.TEST_TREE + "2,m(p.ATest),false,1,false,1,m\\, with comma,,",
+				MessageIds.TEST_TREE + "3,dyn\u00e9(p.ATest),false,1,true,1,[1] \u00e4\\\\,java.lang.String,",
+				MessageIds.TEST_START + "2,m(p.ATest)",
+				MessageIds.TEST_FAILED + "2,m(p.ATest)",
+				MessageIds.EXPECTED_START,
+				"a\nb",
+				MessageIds.EXPECTED_END,
+				MessageIds.TRACE_START,
+				"java.lang.AssertionError: expected\n\tat p.ATest.m(ATest.java:10)\n",
+				MessageIds.TRACE_END,
+				MessageIds.TEST_END + "2,m(p.ATest)",
+				MessageIds.TEST_START + "not a number,x",
+				MessageIds.TEST_RUN_END + "42"
+		};
+		RecordingHandler handler= roundTrip(messages, true);
+		assertEquals(List.of(messages), handler.fMessages);
+	}
+
+	@Test
+	public void testIdsAreShared() throws Exception {
+		RecordingHandler handler= roundTrip(new String[] {
+				MessageIds.TEST_START + "17,t(p.T)",
+				MessageIds.TEST_END + "17,t(p.T)"
+		}, true);
+		assertEquals(2, handler.fTestIds.size());
+		assertSame(handler.fTestIds.get(0), handler.fTestIds.get(1));
+	}
+
+	@Test
+	public void batchedMessagesSpanSeveralFrames() throws Exception {
+		String[] messages= new String[20000];
+		for (int i= 0; i < messages.length; i++) {
+			messages[i]= (i % 2 == 0 ? MessageIds.TEST_START : MessageIds.TEST_END) + (i / 2 + 1) + ",test" + (i / 2) + "(p.Many)";
+		}
+		RecordingHandler handler= roundTrip(messages, false);
+		assertEquals(List.of(messages), handler.fMessages);
+	}
+
+	@Test
+	public void textProtocolIsDetected() throws Exception {
+		byte[] text= (MessageIds.TEST_RUN_START + "1 v2\n").getBytes(StandardCharsets.UTF_8);
+		BufferedInputStream in= new BufferedInputStream(new ByteArrayInputStream(text));
+		assertFalse(BinaryMessageReader.readProtocolHeader(in));
+		assertEquals(MessageIds.TEST_RUN_START + "1 v2\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+
+		BufferedInputStream shortInput= new BufferedInputStream(new ByteArrayInputStream("%TE".getBytes(StandardCharsets.US_ASCII)));
+		assertFalse(BinaryMessageReader.readProtocolHeader(shortInput));
+		assertEquals(3, shortInput.readAllBytes().length);
+	}
+}
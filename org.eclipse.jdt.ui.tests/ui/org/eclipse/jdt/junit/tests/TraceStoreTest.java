@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.eclipse.jdt.internal.junit.model.JUnitModel;
+import org.eclipse.jdt.internal.junit.model.TestCaseElement;
+import org.eclipse.jdt.internal.junit.model.TestElement;
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+import org.eclipse.jdt.internal.junit.model.TestRunHandler;
+import org.eclipse.jdt.internal.junit.model.TestRunSession;
+import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
+import org.eclipse.jdt.internal.junit.model.TraceStore;
+import org.eclipse.jdt.internal.junit.model.TraceText;
+
+public class TraceStoreTest {
+
+	private final TraceStore fStore= new TraceStore();
+
+	@After
+	public void tearDown() {
+		fStore.dispose();
+	}
+
+	private static String createText(char c, int length) {
+		StringBuilder buf= new StringBuilder(length);
+		for (int i= 0; i < length; i++) {
+			buf.append(i % 100 == 99 ? '\n' : (char) (c + i % 10));
+		}
+		return buf.toString();
+	}
+
+	@Test
+	public void shortTextsStayOnHeap() throws Exception {
+		TraceText text= TraceText.create("at p.T.m(T.java:1)", fStore);
+		assertFalse(text.isSpilled());
+		assertEquals(0, fStore.size());
+	}
+
+	@Test
+	public void longTextsAreSpilled() throws Exception {
+		String trace= createText('a', 3 * TraceText.SPILL_THRESHOLD + 17);
+		TraceText text= TraceText.create(trace, fStore);
+		assertTrue(text.isSpilled());
+		assertEquals(trace.length(), text.length());
+		assertEquals(trace, text.toString());
+		assertEquals(trace.substring(100, 200), text.substring(100, 200));
+	}
+
+	@Test
+	public void interleavedBuildersStayContiguous() throws Exception {
+		String first= createText('a', 2 * TraceText.SPILL_THRESHOLD);
+		String second= createText('k', 2 * TraceText.SPILL_THRESHOLD);
+		TraceText.Builder firstBuilder= new TraceText.Builder(fStore);
+		TraceText.Builder secondBuilder= new TraceText.Builder(fStore);
+		int half= TraceText.SPILL_THRESHOLD;
+		firstBuilder.append(first.substring(0, half));
+		secondBuilder.append(second.substring(0, half));
+		firstBuilder.append(first.substring(half));
+		secondBuilder.append(second.substring(half));
+		assertEquals(first, firstBuilder.build().toString());
+		assertEquals(second, secondBuilder.build().toString());
+	}
+
+	@Test
+	public void sessionWithLongTraceRoundTrips() throws Exception {
+		String trace= createText('a', 4 * TraceText.SPILL_THRESHOLD);
+		String expected= createText('k', TraceText.SPILL_THRESHOLD + 1);
+		TestRunSession session= new TestRunSession("Long traces", null);
+		TestSuiteElement suite= (TestSuiteElement) session.createTestElement(session.getTestRoot(), "1", "p.T", true, 1, false, null, null, null);
+		TestCaseElement testCase= (TestCaseElement) session.createTestElement(suite, "2", "m(p.T)", false, 1, false, null, null, null);
+		session.registerTestFailureStatus(testCase, Status.FAILURE, trace, expected, "actual");
+		session.registerTestEnded(testCase, true);
+		session.registerTestEnded(suite, true);
+		assertTrue(testCase.getTraceText().isSpilled());
+
+		ByteArrayOutputStream out= new ByteArrayOutputStream();
+		JUnitModel.exportTestRunSession(session, out);
+		session.removeSwapFile();
+
+		TestRunHandler handler= new TestRunHandler();
+		SAXParserFactory.newInstance().newSAXParser().parse(new ByteArrayInputStream(out.toByteArray()), handler);
+		TestRunSession imported= handler.getTestRunSession();
+		try {
+			TestElement importedSuite= (TestElement) imported.getTestRoot().getChildren()[0];
+			TestElement importedCase= (TestElement) ((TestSuiteElement) importedSuite).getChildren()[0];
+			assertTrue(importedCase.getTraceText().isSpilled());
+			assertEquals(trace, importedCase.getTrace());
+			assertEquals(expected, importedCase.getExpected());
+			assertEquals("actual", importedCase.getActual());
+		} finally {
+			imported.removeSwapFile();
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2021 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -17,12 +17,17 @@ package org.eclipse.jdt.ui.tests.core;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.After;
 import org.junit.Before;
@@ -35,7 +40,10 @@ import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
 
+import org.eclipse.jdt.internal.corext.callhierarchy.CallGraphIndex;
 import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchy;
+import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchyExpander;
+import org.eclipse.jdt.internal.corext.callhierarchy.MethodCall;
 import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
 
 import org.eclipse.jdt.ui.tests.callhierarchy.CallHierarchyTestHelper;
@@ -96,6 +104,89 @@ public class CallHierarchyTest {
         helper.assertCalls(expectedSecondLevelMethods, wrapper2.getCalls(new NullProgressMonitor()));
     }
 
+    @Test
+    public void expandedCallers() throws Exception {
+        helper.createSimpleClasses();
+
+        IMethod method1= helper.getMethod1();
+        IMethod method2= helper.getMethod2();
+        IMethod method3= helper.getMethod3();
+
+        MethodWrapper wrapper= getSingleCallerRoot(method1);
+        List<IMember> expanded= Collections.synchronizedList(new ArrayList<>());
+        new CallHierarchyExpander(5, 2, w -> expanded.add(w.getMember())).expand(new MethodWrapper[] { wrapper }, new NullProgressMonitor());
+        assertTrue(expanded.containsAll(Arrays.asList(method1, method2, method3)));
+
+        // method2 and method3 are searched by a single search, the children are cached for the view
+        MethodWrapper[] calls= wrapper.getCalls(new NullProgressMonitor());
+        helper.assertCalls(Arrays.asList(method2, method3), calls);
+
+        MethodWrapper method2Wrapper= helper.findMethodWrapper(method2, calls);
+        assertTrue(method2Wrapper.hasCachedCalls());
+        helper.assertCalls(Arrays.asList(method3), method2Wrapper.getCalls(new NullProgressMonitor()));
+
+        MethodWrapper method3Wrapper= helper.findMethodWrapper(method3, calls);
+        assertTrue(method3Wrapper.hasCachedCalls());
+        helper.assertCalls(Arrays.asList(helper.getMethod4()), method3Wrapper.getCalls(new NullProgressMonitor()));
+    }
+
+	@Test
+	public void callersFromIndex() throws Exception {
+        helper.createSimpleClasses();
+
+        IMethod method1= helper.getMethod1();
+        IMethod method4= helper.getMethod4();
+
+        CallGraphIndex index= new CallGraphIndex(null);
+        index.update(new NullProgressMonitor());
+        assertTrue(index.isUpToDate());
+        assertEquals(new HashSet<>(Arrays.asList(helper.getMethod2(), helper.getMethod3())), getMembers(index.getCallers(method1)));
+        assertTrue(index.getCallers(method4).isEmpty());
+        assertNull(index.getCallers(helper.getType1().getMethod("A", EMPTY)));
+    }
+
+	@Test
+	public void callersFromUpdatedIndex() throws Exception {
+        helper.createSimpleClasses();
+
+        IMethod method4= helper.getMethod4();
+        CallHierarchy.setCallGraphIndexEnabled(true);
+        try {
+            CallGraphIndex.getDefault().update(new NullProgressMonitor());
+            assertEquals(0, getSingleCallerRoot(method4).getCalls(new NullProgressMonitor()).length);
+
+            IMethod method5= helper.getType2().createMethod("public void method5() { method4(); }\n", null, true, null);
+            CallGraphIndex.getDefault().update(new NullProgressMonitor());
+            assertEquals(Collections.singleton(method5), getMembers(CallGraphIndex.getDefault().getCallers(method4)));
+            helper.assertCalls(Arrays.asList(method5), getSingleCallerRoot(method4).getCalls(new NullProgressMonitor()));
+        } finally {
+            CallHierarchy.setCallGraphIndexEnabled(false);
+        }
+    }
+
+	@Test
+	public void callersFromIndexAfterDeclarationChange() throws Exception {
+        helper.createSimpleClasses();
+
+        IMethod method1= helper.getMethod1();
+        IType type3= helper.getPackage2().createCompilationUnit("C.java",
+                "package pack2;\npublic class C extends B {\npublic void method5() { method1(); }\n}\n", true, null).getType("C");
+        IMethod method5= type3.getMethod("method5", EMPTY);
+        CallHierarchy.setCallGraphIndexEnabled(true);
+        try {
+            CallGraphIndex.getDefault().update(new NullProgressMonitor());
+            assertTrue(getMembers(CallGraphIndex.getDefault().getCallers(method1)).contains(method5));
+
+            // the call in C is bound to the new method, although C has not changed
+            IMethod overriding= helper.getType2().createMethod("public void method1() { }\n", null, true, null);
+            CallGraphIndex.getDefault().update(new NullProgressMonitor());
+            assertFalse(getMembers(CallGraphIndex.getDefault().getCallers(method1)).contains(method5));
+            assertEquals(Collections.singleton(method5), getMembers(CallGraphIndex.getDefault().getCallers(overriding)));
+        } finally {
+            CallHierarchy.setCallGraphIndexEnabled(false);
+        }
+    }
+
 	@Test
 	public void callersNoResults() throws Exception {
         helper.createSimpleClasses();
@@ -527,6 +618,14 @@ public class CallHierarchyTest {
         helper.assertCalls(List.of(expectedCallers), callers);
     }
 
+    private static Set<IMember> getMembers(Map<String, MethodCall> calls) {
+        Set<IMember> members= new HashSet<>();
+        for (MethodCall call : calls.values()) {
+            members.add(call.getMember());
+        }
+        return members;
+    }
+
     private void assertRecursive(MethodWrapper[] callResults, boolean shouldBeRecursive) {
     	for (MethodWrapper callResult : callResults) {
     		assertEquals("Wrong recursive value: " + callResult.getName(), shouldBeRecursive, callResult.isRecursive());
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2020 IBM Corporation and others.
+ * Copyright (c) 2020, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -36,6 +36,7 @@ ImportOrganizeTest.class,
 ImportOrganizeTest1d8.class,
 JavaElementLabelsTest.class,
 JavaElementLabelsTest1d8.class,
+ProblemsLabelDecoratorTest.class,
 BindingLabelsTest.class,
 BindingLabels18Test.class,
 JavaElementPropertyTesterTest.class,
@@ -46,6 +47,7 @@ NameProposerTest.class,
 OverrideTest.class,
 PartialASTTest.class,
 ScopeAnalyzerTest.class,
+SuperTypeHierarchyCacheTest.class,
 TemplateStoreTest.class,
 TypeHierarchyTest.class,
 TypeHierarchyViewPartTest.class,
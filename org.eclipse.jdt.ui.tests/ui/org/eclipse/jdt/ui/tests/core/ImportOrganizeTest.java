@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -48,6 +48,7 @@ import org.eclipse.jdt.core.Signature;
 import org.eclipse.jdt.core.formatter.DefaultCodeFormatterConstants;
 import org.eclipse.jdt.core.manipulation.OrganizeImportsOperation;
 import org.eclipse.jdt.core.manipulation.OrganizeImportsOperation.IChooseImportQuery;
+import org.eclipse.jdt.core.manipulation.TypeNameMatchIndex;
 import org.eclipse.jdt.core.search.TypeNameMatch;
 
 import org.eclipse.jdt.ui.JavaUI;
@@ -201,6 +202,65 @@ public class ImportOrganizeTest extends CoreTests {
 		});
 	}
 
+	@Test
+	public void testSharedTypeNameMatchIndex() throws Exception {
+		File junitSrcArchive= JavaTestPlugin.getDefault().getFileInPlugin(JavaProjectHelper.JUNIT_SRC_381);
+		assertNotNull("junit src not found", junitSrcArchive);
+		assertTrue("junit src not found", junitSrcArchive.exists());
+
+		JavaProjectHelper.addSourceContainerWithImport(fJProject1, "src", junitSrcArchive, JavaProjectHelper.JUNIT_SRC_ENCODING);
+
+		ICompilationUnit cu1= (ICompilationUnit) fJProject1.findElement(new Path("junit/runner/BaseTestRunner.java"));
+		assertNotNull("BaseTestRunner.java", cu1);
+		ICompilationUnit cu2= (ICompilationUnit) fJProject1.findElement(new Path("junit/runner/LoadingTestCollector.java"));
+		assertNotNull("LoadingTestCollector.java", cu2);
+
+		IPackageFragmentRoot root= (IPackageFragmentRoot)cu1.getParent().getParent();
+		IPackageFragment pack= root.createPackageFragment("mytest", true, null);
+
+		ICompilationUnit colidingCU= pack.getCompilationUnit("TestListener.java");
+		colidingCU.createType("public abstract class TestListener {\n}\n", null, true, null);
+
+		TypeNameMatchIndex index= new TypeNameMatchIndex();
+		String[] order= new String[0];
+
+		IChooseImportQuery query1= createQuery("BaseTestRunner", new String[] { "junit.framework.TestListener" }, new int[] { 2 });
+		OrganizeImportsOperation op1= createOperation(cu1, order, 99, false, true, true, query1);
+		op1.setTypeNameMatchIndex(index);
+		op1.run(null);
+
+		IChooseImportQuery query2= createQuery("LoadingTestCollector", new String[] { }, new int[] { });
+		OrganizeImportsOperation op2= createOperation(cu2, order, 99, false, true, true, query2);
+		op2.setTypeNameMatchIndex(index);
+		op2.run(null);
+
+		assertImports(cu1, new String[] {
+			"java.io.BufferedReader",
+			"java.io.File",
+			"java.io.FileInputStream",
+			"java.io.FileOutputStream",
+			"java.io.IOException",
+			"java.io.InputStream",
+			"java.io.PrintWriter",
+			"java.io.StringReader",
+			"java.io.StringWriter",
+			"java.lang.reflect.InvocationTargetException",
+			"java.lang.reflect.Method",
+			"java.lang.reflect.Modifier",
+			"java.text.NumberFormat",
+			"java.util.Properties",
+			"junit.framework.AssertionFailedError",
+			"junit.framework.Test",
+			"junit.framework.TestListener",
+			"junit.framework.TestSuite"
+		});
+		assertImports(cu2, new String[] {
+			"java.lang.reflect.Modifier",
+			"junit.framework.Test",
+			"junit.framework.TestSuite",
+		});
+	}
+
 
 	@Test
 	public void test2() throws Exception {
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.testplugin.util.DisplayHelper;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.jface.viewers.ILabelProviderListener;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.ui.JavaElementImageDescriptor;
+import org.eclipse.jdt.ui.ProblemsLabelDecorator;
+import org.eclipse.jdt.ui.ProblemsLabelDecorator.ProblemsLabelChangedEvent;
+import org.eclipse.jdt.ui.examples.AddTestMarkersAction;
+import org.eclipse.jdt.ui.tests.core.rules.ProjectTestSetup;
+
+/**
+ * Tests the problem decorations of the members of compilation units which are not open in an
+ * editor, with the problem markers looked up in the cached marker index of the file and by testing
+ * each marker.
+ */
+public class ProblemsLabelDecoratorTest extends CoreTests {
+
+	private static final String CONTENTS= ""
+			+ "package p;\n"
+			+ "public class A {\n"
+			+ "	int foo() {\n"
+			+ "		return 1;\n"
+			+ "	}\n"
+			+ "	int bar() {\n"
+			+ "		return 2;\n"
+			+ "	}\n"
+			+ "	int baz() {\n"
+			+ "		return 3;\n"
+			+ "	}\n"
+			+ "}\n";
+
+	/**
+	 * More files than the decorator keeps marker indexes for
+	 */
+	private static final int FILE_COUNT= 40;
+
+	private static final long TIMEOUT= 10000;
+
+	private static class TestDecorator extends ProblemsLabelDecorator {
+
+		private final boolean fIndexed;
+
+		TestDecorator(boolean indexed) {
+			fIndexed= indexed;
+		}
+
+		@Override
+		protected boolean isInsideSourceRange() {
+			return fIndexed;
+		}
+
+		int getFlags(IJavaElement element) {
+			return computeAdornmentFlags(element);
+		}
+	}
+
+	@Rule
+	public ProjectTestSetup pts= new ProjectTestSetup();
+
+	private IJavaProject fJProject1;
+
+	private IPackageFragment fPack;
+
+	private TestDecorator[] fDecorators;
+
+	private volatile IResource[] fChangedResources;
+
+	@Before
+	public void setUp() throws Exception {
+		fJProject1= pts.getProject();
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		fPack= sourceFolder.createPackageFragment("p", false, null);
+
+		fDecorators= new TestDecorator[] { new TestDecorator(true), new TestDecorator(false) };
+		// the marker indexes are only cached while the decorators have listeners
+		ILabelProviderListener listener= event -> {
+			if (event instanceof ProblemsLabelChangedEvent && ((ProblemsLabelChangedEvent) event).isMarkerChange()) {
+				Object[] elements= event.getElements();
+				fChangedResources= Arrays.copyOf(elements, elements.length, IResource[].class);
+			}
+		};
+		for (TestDecorator decorator : fDecorators) {
+			decorator.addListener(listener);
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (TestDecorator decorator : fDecorators) {
+			decorator.dispose();
+		}
+		JavaProjectHelper.clear(fJProject1, pts.getDefaultClasspath());
+	}
+
+	private ICompilationUnit createCompilationUnit(String name) throws CoreException {
+		return fPack.createCompilationUnit(name + ".java", CONTENTS.replace("class A", "class " + name), false, null);
+	}
+
+	private static IMarker createMarker(ICompilationUnit cu, int severity, String text) throws CoreException {
+		String contents= cu.getSource();
+		int offset= contents.indexOf(text);
+		assertTrue(offset != -1);
+		IMarker marker= cu.getResource().createMarker(AddTestMarkersAction.MARKER_TYPE);
+		marker.setAttribute(IMarker.MESSAGE, "Test marker");
+		marker.setAttribute(IMarker.SEVERITY, severity);
+		marker.setAttribute(IMarker.CHAR_START, offset);
+		marker.setAttribute(IMarker.CHAR_END, offset + text.length());
+		return marker;
+	}
+
+	private void runAndWaitForMarkerChange(IFile file, ResourcesRunnable runnable) throws CoreException {
+		fChangedResources= null;
+		// one resource delta for all marker changes
+		ResourcesPlugin.getWorkspace().run(monitor -> runnable.run(), null);
+		boolean changed= new DisplayHelper() {
+			@Override
+			protected boolean condition() {
+				IResource[] changedResources= fChangedResources;
+				return changedResources != null && Arrays.asList(changedResources).contains(file);
+			}
+		}.waitForCondition(Display.getDefault(), TIMEOUT);
+		assertTrue("no problem change for " + file.getName(), changed);
+	}
+
+	private interface ResourcesRunnable {
+		void run() throws CoreException;
+	}
+
+	private void assertFlags(ICompilationUnit cu, int typeFlags, int fooFlags, int barFlags, int bazFlags) throws CoreException {
+		IType type= cu.getTypes()[0];
+		for (TestDecorator decorator : fDecorators) {
+			String message= cu.getElementName() + (decorator.fIndexed ? " indexed" : " tested");
+			assertEquals(message, typeFlags, decorator.getFlags(type));
+			assertEquals(message, fooFlags, decorator.getFlags(type.getMethod("foo", new String[0])));
+			assertEquals(message, barFlags, decorator.getFlags(type.getMethod("bar", new String[0])));
+			assertEquals(message, bazFlags, decorator.getFlags(type.getMethod("baz", new String[0])));
+		}
+	}
+
+	@Test
+	public void testMarkersInSourceRanges() throws Exception {
+		ICompilationUnit cu= createCompilationUnit("A");
+		IFile file= (IFile) cu.getResource();
+		assertFlags(cu, 0, 0, 0, 0);
+
+		runAndWaitForMarkerChange(file, () -> {
+			createMarker(cu, IMarker.SEVERITY_INFO, "return 1;");
+			createMarker(cu, IMarker.SEVERITY_ERROR, "return 1;");
+			createMarker(cu, IMarker.SEVERITY_WARNING, "int bar()");
+		});
+		assertFlags(cu, JavaElementImageDescriptor.ERROR, JavaElementImageDescriptor.ERROR, JavaElementImageDescriptor.WARNING, 0);
+	}
+
+	@Test
+	public void testDecorationsAfterMarkerChanges() throws Exception {
+		ICompilationUnit cu= createCompilationUnit("A");
+		IFile file= (IFile) cu.getResource();
+		IMarker[] markers= new IMarker[2];
+		runAndWaitForMarkerChange(file, () -> {
+			markers[0]= createMarker(cu, IMarker.SEVERITY_ERROR, "return 1;");
+			markers[1]= createMarker(cu, IMarker.SEVERITY_WARNING, "return 2;");
+		});
+		// fills the cached marker indexes
+		assertFlags(cu, JavaElementImageDescriptor.ERROR, JavaElementImageDescriptor.ERROR, JavaElementImageDescriptor.WARNING, 0);
+
+		runAndWaitForMarkerChange(file, () -> {
+			markers[0].delete();
+			markers[1].setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+			createMarker(cu, IMarker.SEVERITY_INFO, "return 3;");
+		});
+		assertFlags(cu, JavaElementImageDescriptor.ERROR, 0, JavaElementImageDescriptor.ERROR, JavaElementImageDescriptor.INFO);
+
+		runAndWaitForMarkerChange(file, () -> file.deleteMarkers(AddTestMarkersAction.MARKER_TYPE, true, IResource.DEPTH_ZERO));
+		assertFlags(cu, 0, 0, 0, 0);
+	}
+
+	@Test
+	public void testDecorationsOfManyFiles() throws Exception {
+		ICompilationUnit[] cus= new ICompilationUnit[FILE_COUNT];
+		for (int i= 0; i < cus.length; i++) {
+			cus[i]= createCompilationUnit("A" + i);
+		}
+		ICompilationUnit first= cus[0];
+		runAndWaitForMarkerChange((IFile) first.getResource(), () -> {
+			for (ICompilationUnit cu : cus) {
+				createMarker(cu, IMarker.SEVERITY_WARNING, "return 2;");
+			}
+		});
+		// more files than cached marker indexes, so the first ones are evicted
+		for (ICompilationUnit cu : cus) {
+			assertFlags(cu, JavaElementImageDescriptor.WARNING, 0, JavaElementImageDescriptor.WARNING, 0);
+		}
+
+		ICompilationUnit last= cus[cus.length - 1];
+		runAndWaitForMarkerChange((IFile) last.getResource(), () -> {
+			createMarker(first, IMarker.SEVERITY_ERROR, "return 1;");
+			createMarker(last, IMarker.SEVERITY_ERROR, "return 3;");
+		});
+		assertFlags(first, JavaElementImageDescriptor.ERROR, JavaElementImageDescriptor.ERROR, JavaElementImageDescriptor.WARNING, 0);
+		assertFlags(last, JavaElementImageDescriptor.ERROR, 0, JavaElementImageDescriptor.WARNING, JavaElementImageDescriptor.ERROR);
+		for (int i= 1; i < cus.length - 1; i++) {
+			assertFlags(cus[i], JavaElementImageDescriptor.WARNING, 0, JavaElementImageDescriptor.WARNING, 0);
+		}
+	}
+}
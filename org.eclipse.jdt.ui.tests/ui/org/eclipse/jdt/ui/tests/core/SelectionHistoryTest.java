@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,8 +13,13 @@
  *******************************************************************************/
 package org.eclipse.jdt.ui.tests.core;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.Collator;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -25,9 +30,12 @@ import org.junit.Test;
 import org.w3c.dom.Element;
 
 import org.eclipse.jdt.internal.corext.util.History;
+import org.eclipse.jdt.internal.corext.util.QualifiedTypeNameHistory;
 
 import org.eclipse.jdt.ui.tests.core.rules.ProjectTestSetup;
 
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
 public class SelectionHistoryTest {
 	@Rule
 	public ProjectTestSetup pts= new ProjectTestSetup();
@@ -190,4 +198,59 @@ public class SelectionHistoryTest {
 		Arrays.sort(strings, comparator);
 		assertEquals(strings, expected);
 	}
+
+	@Test
+	public void binaryLog() throws Exception {
+		File logFile= JavaPlugin.getDefault().getStateLocation().append("SelectionHistoryTest.bin").toFile();
+		logFile.delete();
+		try {
+			History<String, String> history= new QualifiedTypeNameHistory("SelectionHistoryTest.xml");
+			history.accessed("a");
+			history.accessed("b");
+			history.accessed("c");
+			history.save();
+			history.remove("b");
+			history.accessed("a");
+			history.save();
+
+			history= new QualifiedTypeNameHistory("SelectionHistoryTest.xml");
+			assertFalse(history.contains("b"));
+			assertTrue(history.getPosition("a") > history.getPosition("c"));
+			history.accessed("c");
+			history.save();
+
+			history= new QualifiedTypeNameHistory("SelectionHistoryTest.xml");
+			assertTrue(history.contains("a"));
+			assertTrue(history.getPosition("c") > history.getPosition("a"));
+		} finally {
+			logFile.delete();
+		}
+	}
+
+	@Test
+	public void binaryLogMigratesXml() throws Exception {
+		File xmlFile= JavaPlugin.getDefault().getStateLocation().append("SelectionHistoryTest.xml").toFile();
+		File logFile= JavaPlugin.getDefault().getStateLocation().append("SelectionHistoryTest.bin").toFile();
+		logFile.delete();
+		String xml= "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+				+ "<qualifiedTypeNameHistroy>\n"
+				+ "<fullyQualifiedTypeName name=\"a\"/>\n"
+				+ "<fullyQualifiedTypeName name=\"b\"/>\n"
+				+ "</qualifiedTypeNameHistroy>\n";
+		Files.write(xmlFile.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+		try {
+			History<String, String> history= new QualifiedTypeNameHistory("SelectionHistoryTest.xml");
+			assertTrue(history.getPosition("b") > history.getPosition("a"));
+			assertTrue(xmlFile.exists());
+			history.save();
+			assertTrue(logFile.exists());
+			assertFalse(xmlFile.exists());
+
+			history= new QualifiedTypeNameHistory("SelectionHistoryTest.xml");
+			assertTrue(history.getPosition("b") > history.getPosition("a"));
+		} finally {
+			xmlFile.delete();
+			logFile.delete();
+		}
+	}
 }
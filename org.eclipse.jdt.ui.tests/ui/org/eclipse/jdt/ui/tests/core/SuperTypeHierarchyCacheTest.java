@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+
+import org.eclipse.jdt.internal.corext.util.MethodOverrideTester;
+import org.eclipse.jdt.internal.corext.util.SuperTypeHierarchyCache;
+
+import org.eclipse.jdt.ui.tests.core.rules.ProjectTestSetup;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+public class SuperTypeHierarchyCacheTest {
+	@Rule
+	public ProjectTestSetup pts= new ProjectTestSetup();
+
+	private IJavaProject fJProject1;
+
+	private IPackageFragment fPack;
+
+	@Before
+	public void setUp() throws Exception {
+		fJProject1= pts.getProject();
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		fPack= sourceFolder.createPackageFragment("test1", false, null);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		IPreferenceStore store= JavaPlugin.getDefault().getPreferenceStore();
+		store.setToDefault(SuperTypeHierarchyCache.PREF_CAPACITY);
+		JavaProjectHelper.clear(fJProject1, pts.getDefaultClasspath());
+	}
+
+	@Test
+	public void superTypesAreFoundInHierarchyOfSubType() throws Exception {
+		StringBuilder buf= new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("public class A {\n");
+		buf.append("}\n");
+		buf.append("class B extends A {\n");
+		buf.append("}\n");
+		buf.append("class C extends B {\n");
+		buf.append("}\n");
+		ICompilationUnit cu= fPack.createCompilationUnit("A.java", buf.toString(), false, null);
+		IType typeA= cu.getType("A");
+		IType typeC= cu.getType("C");
+
+		int misses= SuperTypeHierarchyCache.getCacheMisses();
+		ITypeHierarchy hierarchy= SuperTypeHierarchyCache.getTypeHierarchy(typeC);
+		assertEquals(misses + 1, SuperTypeHierarchyCache.getCacheMisses());
+
+		int hits= SuperTypeHierarchyCache.getCacheHits();
+		assertTrue(SuperTypeHierarchyCache.hasInCache(cu.getType("B")));
+		assertSame(hierarchy, SuperTypeHierarchyCache.getTypeHierarchy(typeA));
+		assertEquals(misses + 1, SuperTypeHierarchyCache.getCacheMisses());
+		assertEquals(hits + 2, SuperTypeHierarchyCache.getCacheHits());
+
+		MethodOverrideTester tester= SuperTypeHierarchyCache.getMethodOverrideTester(typeA);
+		assertSame(typeA, tester.getFocusType());
+		assertSame(tester, SuperTypeHierarchyCache.getMethodOverrideTester(typeA));
+	}
+
+	@Test
+	public void leastRecentlyUsedHierarchyIsEvicted() throws Exception {
+		JavaPlugin.getDefault().getPreferenceStore().setValue(SuperTypeHierarchyCache.PREF_CAPACITY, 2);
+
+		StringBuilder buf= new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("public class X {\n");
+		buf.append("}\n");
+		buf.append("class Y {\n");
+		buf.append("}\n");
+		buf.append("class Z {\n");
+		buf.append("}\n");
+		ICompilationUnit cu= fPack.createCompilationUnit("X.java", buf.toString(), false, null);
+		IType typeX= cu.getType("X");
+		IType typeY= cu.getType("Y");
+		IType typeZ= cu.getType("Z");
+
+		SuperTypeHierarchyCache.getTypeHierarchy(typeX);
+		SuperTypeHierarchyCache.getTypeHierarchy(typeY);
+		SuperTypeHierarchyCache.getTypeHierarchy(typeX); // Y is now the least recently used
+
+		long evictions= SuperTypeHierarchyCache.getEvictions();
+		SuperTypeHierarchyCache.getTypeHierarchy(typeZ);
+		assertEquals(evictions + 1, SuperTypeHierarchyCache.getEvictions());
+		assertEquals(2, SuperTypeHierarchyCache.getSize());
+		assertTrue(SuperTypeHierarchyCache.hasInCache(typeX));
+		assertFalse(SuperTypeHierarchyCache.hasInCache(typeY));
+		assertTrue(SuperTypeHierarchyCache.hasInCache(typeZ));
+	}
+
+	@Test
+	public void sharedSuperTypesStayCachedWhenHierarchyIsRemoved() throws Exception {
+		ICompilationUnit cuX= fPack.createCompilationUnit("X.java", "package test1;\npublic class X {\n}\n", false, null);
+		ICompilationUnit cuY= fPack.createCompilationUnit("Y.java", "package test1;\npublic class Y {\n}\n", false, null);
+		IType object= fJProject1.findType("java.lang.Object");
+
+		ITypeHierarchy hierarchy= SuperTypeHierarchyCache.getTypeHierarchy(cuX.getType("X"));
+		SuperTypeHierarchyCache.getTypeHierarchy(cuY.getType("Y"));
+
+		// the hierarchy of Y changes and is removed from the cache
+		fPack.createCompilationUnit("Y.java", "package test1;\npublic class Y extends Exception {\n}\n", true, null);
+		assertFalse(SuperTypeHierarchyCache.hasInCache(cuY.getType("Y")));
+
+		int misses= SuperTypeHierarchyCache.getCacheMisses();
+		assertTrue(SuperTypeHierarchyCache.hasInCache(object));
+		assertSame(hierarchy, SuperTypeHierarchyCache.getTypeHierarchy(object));
+		assertEquals(misses, SuperTypeHierarchyCache.getCacheMisses());
+	}
+}
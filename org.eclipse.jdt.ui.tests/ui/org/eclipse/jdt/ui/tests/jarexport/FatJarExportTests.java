@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2020 IBM Corporation and others.
+ * Copyright (c) 2007, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -1015,4 +1015,36 @@ public class FatJarExportTests {
 			JavaProjectHelper.removeFromClasspath(fProject, externalRoot.getPath());
 		}
 	}
+
+	@Test
+	public void exportInternalLib_ParallelCompression() throws Exception {
+		File lib= JavaTestPlugin.getDefault().getFileInPlugin(JavaProjectHelper.MYLIB_STDOUT);
+		IPackageFragmentRoot root= JavaProjectHelper.addLibraryWithImport(fProject, Path.fromOSString(lib.getPath()), null, null);
+
+		try {
+			buildProject();
+			for (boolean compressJar : new boolean[] { true, false }) {
+				String testName= getName() + (compressJar ? "" : "_Uncompressed"); //$NON-NLS-1$ //$NON-NLS-2$
+				JarPackageData data= createJarPackageData(fProject, testName, new ExtractLibraryHandler());
+				data.setCompress(compressJar);
+				data.setParallelCompression(true);
+
+				try (ZipFile generatedArchive= createArchive(data)) {
+					assertNotNull(generatedArchive.getEntry("META-INF/MANIFEST.MF")); //$NON-NLS-1$
+					assertNotNull(generatedArchive.getEntry("org/eclipse/jdt/ui/test/Main.class")); //$NON-NLS-1$
+					ZipEntry fooEntry= generatedArchive.getEntry("mylib/Foo.class"); //$NON-NLS-1$
+					assertNotNull(fooEntry);
+					assertEquals(compressJar ? ZipEntry.DEFLATED : ZipEntry.STORED, fooEntry.getMethod());
+					assertNotNull(generatedArchive.getEntry("mylib/Foo$FooInner.class")); //$NON-NLS-1$
+					assertNotNull(generatedArchive.getEntry("mylib/Foo$FooInner$FooInnerInner.class")); //$NON-NLS-1$
+				}
+
+				String stdout= runJar(fProject, data.getJarLocation().toOSString());
+				stdout= stdout.replaceAll("\r\n", "\n").replaceAll("\r", "\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				assertEquals("created mylib.Foo\n", stdout); //$NON-NLS-1$
+			}
+		} finally {
+			JavaProjectHelper.removeFromClasspath(fProject, root.getPath());
+		}
+	}
 }
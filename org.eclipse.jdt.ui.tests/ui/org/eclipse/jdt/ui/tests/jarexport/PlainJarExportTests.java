@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2020 IBM Corporation and others.
+ * Copyright (c) 2008, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,18 +14,28 @@
 package org.eclipse.jdt.ui.tests.jarexport;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.After;
 import org.junit.Before;
@@ -41,6 +51,8 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.resources.ResourcesPlugin;
 
 import org.eclipse.ui.IWorkbenchWindow;
@@ -160,6 +172,99 @@ public class PlainJarExportTests {
 		assertEquals(expected.toString(), entries.toString());
 	}
 
+	@Test
+	public void exportIncrementally() throws Exception {
+		JarPackageData data= createJarPackageData();
+
+		data.setElements(new Object[] { fCU });
+		data.setExportClassFiles(true);
+		data.setDescriptionLocation(fProject.getPath().append(getName() + ".jardesc"));
+		data.setSaveDescription(true);
+		data.setIncrementalExport(true);
+
+		byte[] mainClass;
+		byte[] innerClass;
+		try (ZipFile jar= createArchive(data)) {
+			mainClass= getContent(jar, "org/eclipse/jdt/ui/test/Main.class");
+			innerClass= getContent(jar, "org/eclipse/jdt/ui/test/Main$MainInner.class");
+		}
+		IFile hashesFile= ResourcesPlugin.getWorkspace().getRoot().getFile(fProject.getPath().append(getName() + ".jarhashes"));
+		assertTrue(hashesFile.exists());
+
+		// a new export only keeps these compressed bytes if it copies them from the previous JAR
+		File jarFile= data.getAbsoluteJarLocation().toFile();
+		storeUncompressed(jarFile, hashesFile);
+		long mainCompressedSize;
+		try (ZipFile jar= new ZipFile(jarFile)) {
+			mainCompressedSize= jar.getEntry("org/eclipse/jdt/ui/test/Main.class").getCompressedSize();
+		}
+		assertTrue(mainCompressedSize > mainClass.length);
+
+		String source= fCU.getSource();
+		fCU.getBuffer().setContents(source.replace("public class MainInner {", "public class MainInner {\n        int field;\n        void method() {}"));
+		fCU.save(null, true);
+		ResourcesPlugin.getWorkspace().build(IncrementalProjectBuilder.INCREMENTAL_BUILD, null);
+
+		ArrayList<String> entries;
+		try (ZipFile jar= createArchive(data)) {
+			entries= getSortedEntries(jar);
+			assertTrue(Arrays.equals(mainClass, getContent(jar, "org/eclipse/jdt/ui/test/Main.class")));
+			assertEquals(mainCompressedSize, jar.getEntry("org/eclipse/jdt/ui/test/Main.class").getCompressedSize());
+			byte[] changedInnerClass= getContent(jar, "org/eclipse/jdt/ui/test/Main$MainInner.class");
+			assertFalse(Arrays.equals(innerClass, changedInnerClass));
+			assertTrue(jar.getEntry("org/eclipse/jdt/ui/test/Main$MainInner.class").getCompressedSize() < changedInnerClass.length);
+		}
+		List<String> expected= Arrays.asList("META-INF/MANIFEST.MF\n", "org/eclipse/jdt/ui/test/Main$1.class\n", "org/eclipse/jdt/ui/test/Main$MainInner.class\n", "org/eclipse/jdt/ui/test/Main.class\n");
+		assertEquals(expected.toString(), entries.toString());
+		assertFalse(new File(data.getAbsoluteJarLocation().toOSString() + ".previous").exists());
+	}
+
+	@Test
+	public void entryHashesRequireSavedDescription() throws Exception {
+		JarPackageData data= createJarPackageData();
+
+		data.setElements(new Object[] { fCU });
+		data.setExportClassFiles(true);
+		data.setDescriptionLocation(fProject.getPath().append(getName() + ".jardesc"));
+		data.setIncrementalExport(true);
+
+		createArchive(data).close();
+		assertFalse(ResourcesPlugin.getWorkspace().getRoot().getFile(fProject.getPath().append(getName() + ".jarhashes")).exists());
+	}
+
+	/**
+	 * Rewrites a JAR with deflated but uncompressed entries and records the rewritten JAR in the
+	 * entry hashes of the incremental export.
+	 *
+	 * @param jarFile the JAR
+	 * @param hashesFile the entry hashes of the JAR
+	 * @throws Exception if the JAR cannot be rewritten
+	 */
+	private static void storeUncompressed(File jarFile, IFile hashesFile) throws Exception {
+		File temp= new File(jarFile.getPath() + ".tmp");
+		try (ZipFile jar= new ZipFile(jarFile); ZipOutputStream output= new ZipOutputStream(new FileOutputStream(temp))) {
+			output.setLevel(Deflater.NO_COMPRESSION);
+			for (Enumeration<? extends ZipEntry> entries= jar.entries(); entries.hasMoreElements();) {
+				ZipEntry entry= entries.nextElement();
+				output.putNextEntry(new ZipEntry(entry.getName()));
+				try (InputStream input= jar.getInputStream(entry)) {
+					input.transferTo(output);
+				}
+				output.closeEntry();
+			}
+		}
+		Files.move(temp.toPath(), jarFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+		String hashes;
+		try (InputStream input= hashesFile.getContents(true)) {
+			hashes= new String(input.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		// the first line holds the format version, the size and the modification time of the JAR
+		String version= hashes.substring(0, hashes.indexOf(' '));
+		hashes= version + ' ' + jarFile.length() + ' ' + jarFile.lastModified() + hashes.substring(hashes.indexOf('\n'));
+		hashesFile.setContents(new ByteArrayInputStream(hashes.getBytes(StandardCharsets.UTF_8)), true, false, null);
+	}
+
 	private JarPackageData createJarPackageData() {
 		JarPackageData data= new JarPackageData();
 		data.setJarLocation(ResourcesPlugin.getWorkspace().getRoot().getLocation().append(getName() + ".jar"));
@@ -185,6 +290,14 @@ public class PlainJarExportTests {
 		return JarPackagerUtil.getArchiveFile(data.getJarLocation());
 	}
 
+	private static byte[] getContent(ZipFile jar, String entryName) throws IOException {
+		ZipEntry entry= jar.getEntry(entryName);
+		assertNotNull(entryName, entry);
+		try (InputStream stream= jar.getInputStream(entry)) {
+			return stream.readAllBytes();
+		}
+	}
+
 	private static ArrayList<String> getSortedEntries(ZipFile jar) {
 		ArrayList<String> entries= new ArrayList<>();
 		for (Enumeration<? extends ZipEntry> entriesEnum= jar.entries(); entriesEnum.hasMoreElements(); ) {
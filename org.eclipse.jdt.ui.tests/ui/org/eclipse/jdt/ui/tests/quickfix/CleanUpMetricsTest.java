@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.quickfix;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import org.eclipse.jdt.internal.corext.fix.CleanUpConstants;
+import org.eclipse.jdt.internal.corext.fix.CleanUpMetrics;
+import org.eclipse.jdt.internal.corext.fix.CleanUpMetrics.CleanUpStatistics;
+import org.eclipse.jdt.internal.corext.fix.CleanUpRefactoring;
+
+import org.eclipse.jdt.ui.cleanup.CleanUpOptions;
+import org.eclipse.jdt.ui.tests.core.rules.ProjectTestSetup;
+
+import org.eclipse.jdt.internal.ui.fix.CodeStyleCleanUp;
+import org.eclipse.jdt.internal.ui.fix.SortMembersCleanUp;
+import org.eclipse.jdt.internal.ui.fix.UnusedCodeCleanUp;
+
+public class CleanUpMetricsTest {
+
+	@Rule
+	public ProjectTestSetup projectSetup= new ProjectTestSetup();
+
+	private IJavaProject fJProject1;
+
+	private IPackageFragmentRoot fSourceFolder;
+
+	@Before
+	public void setUp() throws Exception {
+		fJProject1= projectSetup.getProject();
+		fSourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		JavaProjectHelper.clear(fJProject1, projectSetup.getDefaultClasspath());
+	}
+
+	@Test
+	public void aggregatesPerCleanUpClass() throws Exception {
+		CleanUpMetrics metrics= new CleanUpMetrics();
+		metrics.recordFix(new UnusedCodeCleanUp(), 100, 10, true);
+		metrics.recordFix(new UnusedCodeCleanUp(), 50, 5, false);
+		metrics.recordOverlapDrop(new UnusedCodeCleanUp());
+		metrics.recordFix(new SortMembersCleanUp(), 500, 0, true);
+		metrics.recordFreshASTReparse(new SortMembersCleanUp());
+
+		List<CleanUpStatistics> statistics= metrics.getStatistics();
+		assertEquals(2, statistics.size());
+
+		CleanUpStatistics slowest= statistics.get(0);
+		assertEquals(SortMembersCleanUp.class.getName(), slowest.getName());
+		assertEquals(1, slowest.getInvocations());
+		assertEquals(1, slowest.getFreshASTReparses());
+
+		CleanUpStatistics unused= statistics.get(1);
+		assertEquals(UnusedCodeCleanUp.class.getName(), unused.getName());
+		assertEquals(2, unused.getInvocations());
+		assertEquals(150, unused.getNanos());
+		assertEquals(1, unused.getFixes());
+		assertEquals(1, unused.getOverlapDrops());
+
+		assertEquals(1, metrics.getFreshASTReparses());
+	}
+
+	@Test
+	public void exportsCSVAndJSON() throws Exception {
+		CleanUpMetrics metrics= new CleanUpMetrics();
+		metrics.recordFix(new UnusedCodeCleanUp(), 100, 10, true);
+
+		StringWriter csv= new StringWriter();
+		metrics.writeCSV(csv);
+		String[] lines= csv.toString().split("\n");
+		assertEquals(2, lines.length);
+		assertEquals("cleanUp,invocations,nanos,allocatedBytes,fixes,overlapDrops,freshASTReparses", lines[0]);
+		assertTrue(lines[1], lines[1].startsWith(UnusedCodeCleanUp.class.getName() + ",1,100,"));
+
+		StringWriter json= new StringWriter();
+		metrics.writeJSON(json);
+		assertTrue(json.toString(), json.toString().contains("\"cleanUp\": \"" + UnusedCodeCleanUp.class.getName() + "\", \"invocations\": 1, \"nanos\": 100"));
+	}
+
+	@Test
+	public void recordsTimingsOfRefactoring() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuilder buf= new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("import java.util.List;\n");
+		buf.append("public class E1 {\n");
+		buf.append("    public static int I;\n");
+		buf.append("    public void foo() {\n");
+		buf.append("        (new E1()).I= 10;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		ICompilationUnit cu1= pack1.createCompilationUnit("E1.java", buf.toString(), false, null);
+
+		buf= new StringBuilder();
+		buf.append("package test1;\n");
+		buf.append("public class E2 {\n");
+		buf.append("}\n");
+		ICompilationUnit cu2= pack1.createCompilationUnit("E2.java", buf.toString(), false, null);
+
+		Map<String, String> options= new Hashtable<>();
+		options.put(CleanUpConstants.MEMBER_ACCESSES_STATIC_QUALIFY_WITH_DECLARING_CLASS, CleanUpOptions.TRUE);
+		options.put(CleanUpConstants.MEMBER_ACCESSES_STATIC_QUALIFY_WITH_DECLARING_CLASS_INSTANCE_ACCESS, CleanUpOptions.TRUE);
+		options.put(CleanUpConstants.REMOVE_UNUSED_CODE_IMPORTS, CleanUpOptions.TRUE);
+
+		CleanUpRefactoring refactoring= new CleanUpRefactoring();
+		refactoring.addCompilationUnit(cu1);
+		refactoring.addCompilationUnit(cu2);
+		refactoring.addCleanUp(new CodeStyleCleanUp(options));
+		refactoring.addCleanUp(new UnusedCodeCleanUp(options));
+
+		CleanUpMetrics metrics= new CleanUpMetrics();
+		refactoring.setMetrics(metrics);
+		refactoring.checkAllConditions(new NullProgressMonitor());
+		refactoring.createChange(null);
+
+		List<CleanUpStatistics> statistics= metrics.getStatistics();
+		assertEquals(2, statistics.size());
+		for (Class<?> cleanUp : new Class<?>[] { CodeStyleCleanUp.class, UnusedCodeCleanUp.class }) {
+			CleanUpStatistics cleanUpStatistics= getStatistics(statistics, cleanUp);
+			assertNotNull(cleanUp.getName(), cleanUpStatistics);
+			// one call per compilation unit, only E1 has something to clean up
+			assertEquals(cleanUp.getName(), 2, cleanUpStatistics.getInvocations());
+			assertEquals(cleanUp.getName(), 1, cleanUpStatistics.getFixes());
+			assertTrue(cleanUp.getName(), cleanUpStatistics.getNanos() > 0);
+		}
+	}
+
+	private static CleanUpStatistics getStatistics(List<CleanUpStatistics> statistics, Class<?> cleanUp) {
+		for (CleanUpStatistics cleanUpStatistics : statistics) {
+			if (cleanUpStatistics.getName().equals(cleanUp.getName()))
+				return cleanUpStatistics;
+		}
+		return null;
+	}
+}
@@ -36,7 +36,8 @@ import org.junit.runners.Suite;
 	CleanUpAnnotationTest.class,
 	SaveParticipantTest.class,
 	CleanUpActionTest.class,
-	NullAnnotationsCleanUpTest1d8.class
+	NullAnnotationsCleanUpTest1d8.class,
+	CleanUpMetricsTest.class
 })
 public class CleanUpTestCaseSuite {
 }
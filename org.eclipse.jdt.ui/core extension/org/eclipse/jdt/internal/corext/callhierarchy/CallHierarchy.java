@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -41,6 +41,7 @@ public class CallHierarchy {
     private static final String PREF_USE_FILTERS = "PREF_USE_FILTERS"; //$NON-NLS-1$
     private static final String PREF_FILTERS_LIST = "PREF_FILTERS_LIST"; //$NON-NLS-1$
     private static final String PREF_FILTER_TESTCODE= "PREF_FILTER_TESTCODE"; //$NON-NLS-1$
+    private static final String PREF_USE_CALL_GRAPH_INDEX= "PREF_USE_CALL_GRAPH_INDEX"; //$NON-NLS-1$
 
     private static CallHierarchy fgInstance;
     private CallHierarchyCore fgCallHierarchyCore;
@@ -81,6 +82,17 @@ public class CallHierarchy {
         settings.setValue(PREF_FILTER_TESTCODE, enabled);
     }
 
+    public boolean isCallGraphIndexEnabled() {
+        IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
+
+        return settings.getBoolean(PREF_USE_CALL_GRAPH_INDEX);
+    }
+
+    public static void setCallGraphIndexEnabled(boolean enabled) {
+        IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
+
+        settings.setValue(PREF_USE_CALL_GRAPH_INDEX, enabled);
+    }
 
     public Collection<IJavaElement> getImplementingMethods(IMethod method) {
         return fgCallHierarchyCore.getImplementingMethods(method);
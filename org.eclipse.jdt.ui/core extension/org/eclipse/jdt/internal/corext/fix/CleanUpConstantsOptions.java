@@ -395,6 +395,7 @@ public class CleanUpConstantsOptions extends CleanUpConstants {
 		store.setDefault(SHOW_CLEAN_UP_WIZARD, true);
 		store.setDefault(CLEANUP_PROFILE, DEFAULT_PROFILE);
 		store.setDefault(CLEANUP_ON_SAVE_PROFILE, DEFAULT_SAVE_PARTICIPANT_PROFILE);
+		store.setDefault(CLEANUP_PARALLELISM, DEFAULT_CLEANUP_PARALLELISM);
 	}
 
 	public static void setDefaultOptions(int kind, CleanUpOptions options) {
@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.fix;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.ui.cleanup.ICleanUp;
+
+/**
+ * Collects timing and allocation statistics of clean ups. An instance can be passed to
+ * {@link CleanUpRefactoring#setMetrics(CleanUpMetrics)} or
+ * {@link CleanUpPostSaveListener#setMetrics(CleanUpMetrics)}; after the run the collected
+ * statistics can be inspected with {@link #getStatistics()} or exported with
+ * {@link #writeCSV(Writer)} and {@link #writeJSON(Writer)}.
+ * <p>
+ * Statistics are aggregated per clean up class. This class is thread safe.
+ * </p>
+ */
+public final class CleanUpMetrics {
+
+	/**
+	 * The statistics collected for one clean up class.
+	 */
+	public static final class CleanUpStatistics {
+
+		private final String fName;
+		private final AtomicLong fInvocations= new AtomicLong();
+		private final AtomicLong fNanos= new AtomicLong();
+		private final AtomicLong fAllocatedBytes= new AtomicLong();
+		private final AtomicLong fFixes= new AtomicLong();
+		private final AtomicLong fOverlapDrops= new AtomicLong();
+		private final AtomicLong fFreshASTReparses= new AtomicLong();
+
+		private CleanUpStatistics(String name) {
+			fName= name;
+		}
+
+		/**
+		 * @return the fully qualified class name of the clean up
+		 */
+		public String getName() {
+			return fName;
+		}
+
+		/**
+		 * @return the number of calls to {@link ICleanUp#createFix(org.eclipse.jdt.ui.cleanup.CleanUpContext)}
+		 */
+		public long getInvocations() {
+			return fInvocations.get();
+		}
+
+		/**
+		 * @return the total time spent in <code>createFix</code>, in nanoseconds
+		 */
+		public long getNanos() {
+			return fNanos.get();
+		}
+
+		/**
+		 * @return the bytes allocated by the calling threads during <code>createFix</code>, or
+		 *         <code>-1</code> if the VM does not support allocation measurement
+		 */
+		public long getAllocatedBytes() {
+			return ALLOCATED_BYTES_METHOD != null ? fAllocatedBytes.get() : -1;
+		}
+
+		/**
+		 * @return the number of fixes created by the clean up
+		 */
+		public long getFixes() {
+			return fFixes.get();
+		}
+
+		/**
+		 * @return the number of fixes which have been dropped because they overlapped with the
+		 *         fixes of a previous clean up
+		 */
+		public long getOverlapDrops() {
+			return fOverlapDrops.get();
+		}
+
+		/**
+		 * @return the number of times a compilation unit had to be parsed again because the clean
+		 *         up requires a fresh AST
+		 */
+		public long getFreshASTReparses() {
+			return fFreshASTReparses.get();
+		}
+	}
+
+	private static final Method ALLOCATED_BYTES_METHOD= findAllocatedBytesMethod();
+
+	private final ConcurrentHashMap<String, CleanUpStatistics> fStatistics= new ConcurrentHashMap<>();
+	private final AtomicLong fFreshASTReparses= new AtomicLong();
+
+	/**
+	 * Records one call to {@link ICleanUp#createFix(org.eclipse.jdt.ui.cleanup.CleanUpContext)}.
+	 *
+	 * @param cleanUp the clean up
+	 * @param nanos the time spent in <code>createFix</code>
+	 * @param allocatedBytes the bytes allocated by the current thread during <code>createFix</code>
+	 * @param createdFix <code>true</code> if <code>createFix</code> returned a fix
+	 */
+	public void recordFix(ICleanUp cleanUp, long nanos, long allocatedBytes, boolean createdFix) {
+		CleanUpStatistics statistics= getStatistics(cleanUp);
+		statistics.fInvocations.incrementAndGet();
+		statistics.fNanos.addAndGet(nanos);
+		if (allocatedBytes > 0)
+			statistics.fAllocatedBytes.addAndGet(allocatedBytes);
+		if (createdFix)
+			statistics.fFixes.incrementAndGet();
+	}
+
+	/**
+	 * Records that a fix of the clean up was rejected because its edits overlapped with the edits
+	 * of a previous clean up.
+	 *
+	 * @param cleanUp the clean up
+	 */
+	public void recordOverlapDrop(ICleanUp cleanUp) {
+		getStatistics(cleanUp).fOverlapDrops.incrementAndGet();
+	}
+
+	/**
+	 * Records that a compilation unit has to be parsed again before the clean up can be executed.
+	 *
+	 * @param cleanUp the clean up requiring the fresh AST
+	 */
+	public void recordFreshASTReparse(ICleanUp cleanUp) {
+		fFreshASTReparses.incrementAndGet();
+		getStatistics(cleanUp).fFreshASTReparses.incrementAndGet();
+	}
+
+	/**
+	 * @return the total number of fresh AST reparses
+	 */
+	public long getFreshASTReparses() {
+		return fFreshASTReparses.get();
+	}
+
+	/**
+	 * Returns the collected statistics, sorted by decreasing time.
+	 *
+	 * @return the statistics of all clean ups executed so far
+	 */
+	public List<CleanUpStatistics> getStatistics() {
+		List<CleanUpStatistics> result= new ArrayList<>(fStatistics.values());
+		Collections.sort(result, (s1, s2) -> {
+			int compare= Long.compare(s2.getNanos(), s1.getNanos());
+			return compare != 0 ? compare : s1.getName().compareTo(s2.getName());
+		});
+		return result;
+	}
+
+	/**
+	 * Discards all statistics collected so far.
+	 */
+	public void reset() {
+		fStatistics.clear();
+		fFreshASTReparses.set(0);
+	}
+
+	/**
+	 * Writes the statistics as comma separated values, one line per clean up, preceded by a header
+	 * line.
+	 *
+	 * @param writer the writer to write to
+	 * @throws IOException if writing fails
+	 */
+	public void writeCSV(Writer writer) throws IOException {
+		writer.write("cleanUp,invocations,nanos,allocatedBytes,fixes,overlapDrops,freshASTReparses\n"); //$NON-NLS-1$
+		for (CleanUpStatistics statistics : getStatistics()) {
+			writer.write(statistics.getName());
+			writer.write(',');
+			writer.write(Long.toString(statistics.getInvocations()));
+			writer.write(',');
+			writer.write(Long.toString(statistics.getNanos()));
+			writer.write(',');
+			writer.write(Long.toString(statistics.getAllocatedBytes()));
+			writer.write(',');
+			writer.write(Long.toString(statistics.getFixes()));
+			writer.write(',');
+			writer.write(Long.toString(statistics.getOverlapDrops()));
+			writer.write(',');
+			writer.write(Long.toString(statistics.getFreshASTReparses()));
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Writes the statistics as a JSON object with the total number of fresh AST reparses and an
+	 * array of per clean up statistics.
+	 *
+	 * @param writer the writer to write to
+	 * @throws IOException if writing fails
+	 */
+	public void writeJSON(Writer writer) throws IOException {
+		writer.write("{\n  \"freshASTReparses\": "); //$NON-NLS-1$
+		writer.write(Long.toString(getFreshASTReparses()));
+		writer.write(",\n  \"cleanUps\": ["); //$NON-NLS-1$
+		boolean first= true;
+		for (CleanUpStatistics statistics : getStatistics()) {
+			if (!first)
+				writer.write(',');
+			first= false;
+			writer.write("\n    {\"cleanUp\": \""); //$NON-NLS-1$
+			writer.write(statistics.getName());
+			writer.write("\", \"invocations\": "); //$NON-NLS-1$
+			writer.write(Long.toString(statistics.getInvocations()));
+			writer.write(", \"nanos\": "); //$NON-NLS-1$
+			writer.write(Long.toString(statistics.getNanos()));
+			writer.write(", \"allocatedBytes\": "); //$NON-NLS-1$
+			writer.write(Long.toString(statistics.getAllocatedBytes()));
+			writer.write(", \"fixes\": "); //$NON-NLS-1$
+			writer.write(Long.toString(statistics.getFixes()));
+			writer.write(", \"overlapDrops\": "); //$NON-NLS-1$
+			writer.write(Long.toString(statistics.getOverlapDrops()));
+			writer.write(", \"freshASTReparses\": "); //$NON-NLS-1$
+			writer.write(Long.toString(statistics.getFreshASTReparses()));
+			writer.write('}');
+		}
+		writer.write("\n  ]\n}\n"); //$NON-NLS-1$
+		writer.flush();
+	}
+
+	private CleanUpStatistics getStatistics(ICleanUp cleanUp) {
+		return fStatistics.computeIfAbsent(cleanUp.getClass().getName(), CleanUpStatistics::new);
+	}
+
+	/**
+	 * Returns the number of bytes allocated so far by the current thread.
+	 *
+	 * @return the allocated bytes, or <code>-1</code> if not supported by the VM
+	 */
+	public static long getCurrentThreadAllocatedBytes() {
+		if (ALLOCATED_BYTES_METHOD == null)
+			return -1;
+		try {
+			return ((Long) ALLOCATED_BYTES_METHOD.invoke(ManagementFactory.getThreadMXBean(), Long.valueOf(Thread.currentThread().getId()))).longValue();
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return -1;
+		}
+	}
+
+	/*
+	 * com.sun.management.ThreadMXBean is not available on all VMs, hence it is accessed reflectively.
+	 */
+	private static Method findAllocatedBytesMethod() {
+		try {
+			ThreadMXBean bean= ManagementFactory.getThreadMXBean();
+			for (Class<?> type : bean.getClass().getInterfaces()) {
+				if ("com.sun.management.ThreadMXBean".equals(type.getName())) { //$NON-NLS-1$
+					Method isSupported= type.getMethod("isThreadAllocatedMemorySupported"); //$NON-NLS-1$
+					if (!((Boolean) isSupported.invoke(bean)).booleanValue())
+						return null;
+					return type.getMethod("getThreadAllocatedBytes", long.class); //$NON-NLS-1$
+				}
+			}
+		} catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+			// not supported
+		}
+		return null;
+	}
+}
@@ -307,6 +307,23 @@ public class CleanUpPostSaveListener implements IPostSaveListener {
 	private static final String CHANGED_REGION_POSITION_CATEGORY= "changed_region_position_category"; //$NON-NLS-1$
 	private static boolean FIRST_CALL= false;
 	private static boolean FIRST_CALL_DONE= false;
+	private static volatile CleanUpMetrics fgMetrics= null;
+
+	/**
+	 * Sets the metrics to which the statistics of the clean ups executed on save are reported.
+	 *
+	 * @param metrics the metrics, or <code>null</code> to not collect statistics
+	 */
+	public static void setMetrics(CleanUpMetrics metrics) {
+		fgMetrics= metrics;
+	}
+
+	/**
+	 * @return the metrics collecting the statistics of the save actions, or <code>null</code> if none
+	 */
+	public static CleanUpMetrics getMetrics() {
+		return fgMetrics;
+	}
 
 	@Override
 	public boolean needsChangedRegions(ICompilationUnit unit) throws CoreException {
@@ -346,6 +363,8 @@ public class CleanUpPostSaveListener implements IPostSaveListener {
 				slowCleanUps= null;
 			}
 			IUndoManager manager= RefactoringCore.getUndoManager();
+			CleanUpMetrics metrics= fgMetrics;
+			boolean firstPass= true;
 
 			boolean success= false;
 			try {
@@ -371,7 +390,10 @@ public class CleanUpPostSaveListener implements IPostSaveListener {
     				CompilationUnit ast= null;
     				if (requiresAST(cleanUps)) {
     					ast= createAst(unit, options, new SubProgressMonitor(monitor, 10));
+    					if (!firstPass && metrics != null)
+    						metrics.recordFreshASTReparse(cleanUps[0]);
     				}
+    				firstPass= false;
 
     				CleanUpContext context;
     				if (changedRegions == null) {
@@ -381,7 +403,7 @@ public class CleanUpPostSaveListener implements IPostSaveListener {
     				}
 
     				ArrayList<ICleanUp> undoneCleanUps= new ArrayList<>();
-					CleanUpChange change= CleanUpRefactoring.calculateChange(context, cleanUps, undoneCleanUps, slowCleanUps);
+					CleanUpChange change= CleanUpRefactoring.calculateChange(context, cleanUps, undoneCleanUps, slowCleanUps, metrics);
 
     				RefactoringStatus postCondition= new RefactoringStatus();
 					for (ICleanUp cleanUp : cleanUps) {
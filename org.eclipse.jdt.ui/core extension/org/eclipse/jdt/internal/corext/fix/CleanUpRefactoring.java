@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -16,9 +16,17 @@ package org.eclipse.jdt.internal.corext.fix;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.swt.widgets.Display;
 
@@ -60,6 +68,7 @@ import org.eclipse.ltk.core.refactoring.TextEditBasedChangeGroup;
 import org.eclipse.ltk.core.refactoring.TextFileChange;
 
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.JavaModelException;
@@ -250,10 +259,25 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		private final Hashtable<ICompilationUnit, List<CleanUpChange>> fSolutions;
 		private final Hashtable<ICompilationUnit, ParseListElement> fCompilationUnitParseElementMap;
 		private final CleanUpRefactoringProgressMonitor fMonitor;
-
-		public CleanUpASTRequestor(List<ParseListElement> parseList, Hashtable<ICompilationUnit, List<CleanUpChange>> solutions, CleanUpRefactoringProgressMonitor monitor) {
+		private final CleanUpMetrics fMetrics;
+		private final boolean fReuseUnchangedASTs;
+		private final Object fFixLock;
+
+		/**
+		 * @param parseList the elements to compute the clean ups for
+		 * @param solutions the map to add the solutions to
+		 * @param monitor the progress monitor
+		 * @param metrics the metrics to report to, or <code>null</code>
+		 * @param reuseUnchangedASTs <code>true</code> to reuse the ASTs of unchanged compilation units
+		 * @param fixLock the lock held while clean ups that do not support concurrent fixes create
+		 *            their fixes, or <code>null</code> if the fixes are created sequentially
+		 */
+		public CleanUpASTRequestor(List<ParseListElement> parseList, Hashtable<ICompilationUnit, List<CleanUpChange>> solutions, CleanUpRefactoringProgressMonitor monitor, CleanUpMetrics metrics, boolean reuseUnchangedASTs, Object fixLock) {
 			fSolutions= solutions;
 			fMonitor= monitor;
+			fMetrics= metrics;
+			fReuseUnchangedASTs= reuseUnchangedASTs;
+			fFixLock= fixLock;
 			fUndoneElements= new ArrayList<>();
 			fCompilationUnitParseElementMap= new Hashtable<>(parseList.size());
 			for (ParseListElement element : parseList) {
@@ -294,11 +318,22 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			return fUndoneElements;
 		}
 
+		public Hashtable<ICompilationUnit, List<CleanUpChange>> getSolutions() {
+			return fSolutions;
+		}
+
 		private ICleanUp[] calculateSolutions(CleanUpContext context, ICleanUp[] cleanUps) {
 			List<ICleanUp>result= new ArrayList<>();
 			CleanUpChange solution;
 			try {
-				solution= calculateChange(context, cleanUps, result, null);
+				solution= calculateChange(context, cleanUps, result, null, fMetrics, fFixLock);
+
+				// As long as no clean up changed the unit, the AST is still fresh: continue with it instead of parsing it again
+				while (fReuseUnchangedASTs && solution == null && !result.isEmpty() && context.getAST() != null) {
+					ICleanUp[] remaining= result.toArray(new ICleanUp[result.size()]);
+					result.clear();
+					solution= calculateChange(context, remaining, result, null, fMetrics, fFixLock);
+				}
 			} catch (CoreException e) {
 				throw new FixCalculationException(e);
 			}
@@ -327,17 +362,23 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		private List<ParseListElement> fParseList;
 		private final Hashtable<ICompilationUnit, List<CleanUpChange>> fSolutions;
 		private final Hashtable<ICompilationUnit, ICompilationUnit> fWorkingCopies; // map from primary to working copy
+		private final Hashtable<ICompilationUnit, Integer> fAppliedChanges; // map from primary to number of changes applied to its working copy
+		private final Set<ICompilationUnit> fTargetOrder; // primaries in the order of the targets
 		private final Map<String, String> fCleanUpOptions;
 		private final int fSize;
 		private int fIndex;
+		private boolean fFirstPass;
 
 		public CleanUpFixpointIterator(CleanUpTarget[] targets, ICleanUp[] cleanUps) {
 			fSolutions= new Hashtable<>(targets.length);
 			fWorkingCopies= new Hashtable<>();
+			fAppliedChanges= new Hashtable<>();
 
 			fParseList= new ArrayList<>(targets.length);
+			fTargetOrder= new LinkedHashSet<>(targets.length);
 			for (CleanUpTarget target : targets) {
 				fParseList.add(new ParseListElement(target, cleanUps));
+				fTargetOrder.add(target.getCompilationUnit().getPrimary());
 			}
 
 			fCleanUpOptions= new Hashtable<>();
@@ -349,6 +390,7 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 
 			fSize= targets.length;
 			fIndex= 1;
+			fFirstPass= true;
 		}
 
 		public boolean hasNext() {
@@ -369,34 +411,28 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 							compilationUnit= compilationUnit.getWorkingCopy(new WorkingCopyOwner() {}, null);
 							fWorkingCopies.put(compilationUnit.getPrimary(), compilationUnit);
 						}
-						applyChange(compilationUnit, fSolutions.get(compilationUnit.getPrimary()));
+						applyNewChanges(compilationUnit);
 					}
 
 					if (requiresAST(element.getCleanUps())) {
 						parseList.add(compilationUnit);
+						if (!fFirstPass && fMetrics != null)
+							fMetrics.recordFreshASTReparse(element.getCleanUps()[0]);
 					} else {
 						sourceList.add(compilationUnit);
 					}
 				}
 
 				CleanUpRefactoringProgressMonitor cuMonitor= new CleanUpRefactoringProgressMonitor(monitor, parseList.size() + sourceList.size(), fSize, fIndex);
-				CleanUpASTRequestor requestor= new CleanUpASTRequestor(fParseList, fSolutions, cuMonitor);
-				if (parseList.size() > 0) {
-					ASTBatchParser parser= new ASTBatchParser() {
-						@Override
-						protected ASTParser createParser(IJavaProject project) {
-							ASTParser result= createCleanUpASTParser();
-							result.setProject(project);
-
-							Map<String, String> options= RefactoringASTParser.getCompilerOptions(project);
-							options.putAll(fCleanUpOptions);
-							result.setCompilerOptions(options);
-							return result;
-						}
-					};
+				CleanUpASTRequestor requestor= new CleanUpASTRequestor(fParseList, fSolutions, cuMonitor, fMetrics, fReuseUnchangedASTs, null);
+				List<ParseListElement> undoneElements= new ArrayList<>();
+				int parallelism= Math.min(fParallelism, parseList.size() / MIN_PARALLEL_BATCH_SIZE);
+				if (parallelism > 1) {
+					undoneElements.addAll(parseInParallel(parseList, parallelism, cuMonitor));
+				} else if (parseList.size() > 0) {
 					try {
 						ICompilationUnit[] units= parseList.toArray(new ICompilationUnit[parseList.size()]);
-						parser.createASTs(units, new String[0], requestor, cuMonitor);
+						createASTBatchParser().createASTs(units, new String[0], requestor, cuMonitor);
 					} catch (FixCalculationException e) {
 						throw e.getException();
 					}
@@ -411,12 +447,171 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 						throw new OperationCanceledException();
 				}
 
-				fParseList= requestor.getUndoneElements();
+				undoneElements.addAll(requestor.getUndoneElements());
+				fParseList= undoneElements;
 				fIndex= cuMonitor.getIndex();
+				fFirstPass= false;
 			} finally {
 			}
 		}
 
+		private ASTBatchParser createASTBatchParser() {
+			return new ASTBatchParser() {
+				@Override
+				protected ASTParser createParser(IJavaProject project) {
+					ASTParser result= createCleanUpASTParser();
+					result.setProject(project);
+
+					Map<String, String> options= RefactoringASTParser.getCompilerOptions(project);
+					options.putAll(fCleanUpOptions);
+					result.setCompilerOptions(options);
+					return result;
+				}
+			};
+		}
+
+		/**
+		 * Parses the given compilation units in batches on a pool of at most
+		 * <code>parallelism</code> threads and computes the clean up solutions for each batch.
+		 * The results of the batches are merged into {@link #fSolutions} in the order in which
+		 * the batches have been created, hence independent of the order in which they complete.
+		 *
+		 * @param parseList the compilation units to parse
+		 * @param parallelism the maximal number of batches processed at the same time
+		 * @param monitor the monitor to report progress to, only accessed from the calling thread
+		 * @return the elements which have to be processed again in the next iteration
+		 * @throws CoreException if a clean up failed
+		 */
+		private List<ParseListElement> parseInParallel(List<ICompilationUnit> parseList, int parallelism, final CleanUpRefactoringProgressMonitor monitor) throws CoreException {
+			List<List<ICompilationUnit>> batches= createBatches(parseList, parallelism);
+			List<ForkJoinTask<CleanUpASTRequestor>> tasks= new ArrayList<>(batches.size());
+
+			// cancellation of the workers is driven by the caller's monitor, progress is reported when a batch is merged
+			final AtomicBoolean aborted= new AtomicBoolean();
+			final IProgressMonitor cancelMonitor= new NullProgressMonitor() {
+				@Override
+				public boolean isCanceled() {
+					return aborted.get() || monitor.isCanceled();
+				}
+			};
+
+			// clean ups which do not support concurrent fixes create them one at a time
+			final Object fixLock= new Object();
+
+			monitor.beginTask("", parseList.size()); //$NON-NLS-1$
+			ForkJoinPool pool= new ForkJoinPool(parallelism);
+			try {
+				for (final List<ICompilationUnit> batch : batches) {
+					tasks.add(pool.submit(() -> {
+						CleanUpRefactoringProgressMonitor batchMonitor= new CleanUpRefactoringProgressMonitor(cancelMonitor, batch.size(), fSize, 0);
+						CleanUpASTRequestor batchRequestor= new CleanUpASTRequestor(fParseList, new Hashtable<ICompilationUnit, List<CleanUpChange>>(batch.size()), batchMonitor, fMetrics, fReuseUnchangedASTs, fixLock);
+						ICompilationUnit[] units= batch.toArray(new ICompilationUnit[batch.size()]);
+						createASTBatchParser().createASTs(units, new String[0], batchRequestor, batchMonitor);
+						return batchRequestor;
+					}));
+				}
+
+				List<ParseListElement> undoneElements= new ArrayList<>();
+				for (int i= 0; i < tasks.size(); i++) {
+					CleanUpASTRequestor batchRequestor= joinBatch(tasks.get(i));
+					for (Entry<ICompilationUnit, List<CleanUpChange>> entry : batchRequestor.getSolutions().entrySet()) {
+						List<CleanUpChange> changes= fSolutions.get(entry.getKey());
+						if (changes == null) {
+							fSolutions.put(entry.getKey(), entry.getValue());
+						} else {
+							changes.addAll(entry.getValue());
+						}
+					}
+					undoneElements.addAll(batchRequestor.getUndoneElements());
+
+					int done= batches.get(i).size() - batchRequestor.getUndoneElements().size();
+					for (int j= 0; j < done; j++) {
+						monitor.internalWorked(1);
+						monitor.flush();
+					}
+				}
+				return undoneElements;
+			} finally {
+				// stop the remaining batches and wait for the running ones, the caller disposes the working copies
+				aborted.set(true);
+				pool.shutdownNow();
+				awaitTermination(pool);
+			}
+		}
+
+		private void awaitTermination(ForkJoinPool pool) {
+			boolean interrupted= false;
+			try {
+				while (true) {
+					try {
+						if (pool.awaitTermination(1, TimeUnit.SECONDS))
+							return;
+					} catch (InterruptedException e) {
+						interrupted= true;
+					}
+				}
+			} finally {
+				if (interrupted)
+					Thread.currentThread().interrupt();
+			}
+		}
+
+		private CleanUpASTRequestor joinBatch(ForkJoinTask<CleanUpASTRequestor> task) throws CoreException {
+			try {
+				return task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				Throwable cause= e.getCause();
+				if (cause instanceof FixCalculationException)
+					throw ((FixCalculationException) cause).getException();
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new CoreException(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IJavaStatusConstants.INTERNAL_ERROR, cause.getMessage(), cause));
+			}
+		}
+
+		/**
+		 * Partitions the compilation units into batches of units from the same package. Small
+		 * packages are combined and large packages are split, such that each worker gets a few
+		 * batches of similar size.
+		 *
+		 * @param parseList the compilation units to partition
+		 * @param parallelism the number of workers
+		 * @return the batches, in the order of the packages in <code>parseList</code>
+		 */
+		private List<List<ICompilationUnit>> createBatches(List<ICompilationUnit> parseList, int parallelism) {
+			Map<IJavaElement, List<ICompilationUnit>> packages= new LinkedHashMap<>();
+			for (ICompilationUnit unit : parseList) {
+				IJavaElement parent= unit.getParent();
+				List<ICompilationUnit> units= packages.get(parent);
+				if (units == null) {
+					units= new ArrayList<>();
+					packages.put(parent, units);
+				}
+				units.add(unit);
+			}
+
+			int batchSize= Math.max(MIN_PARALLEL_BATCH_SIZE, (parseList.size() + 2 * parallelism - 1) / (2 * parallelism));
+			List<List<ICompilationUnit>> result= new ArrayList<>();
+			List<ICompilationUnit> current= new ArrayList<>(batchSize);
+			for (List<ICompilationUnit> units : packages.values()) {
+				for (ICompilationUnit unit : units) {
+					current.add(unit);
+					if (current.size() == batchSize) {
+						result.add(current);
+						current= new ArrayList<>(batchSize);
+					}
+				}
+			}
+			if (!current.isEmpty())
+				result.add(current);
+			return result;
+		}
+
 		public void dispose() {
 			for (ICompilationUnit cu : fWorkingCopies.values()) {
 				try {
@@ -441,9 +636,10 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 
 			Change[] result= new Change[fSolutions.size()];
 			int i=0;
-			for (Entry<ICompilationUnit, List<CleanUpChange>> entry : fSolutions.entrySet()) {
-				List<CleanUpChange> changes= entry.getValue();
-				ICompilationUnit unit= entry.getKey();
+			for (ICompilationUnit unit : fTargetOrder) {
+				List<CleanUpChange> changes= fSolutions.get(unit);
+				if (changes == null)
+					continue;
 
 				int saveMode;
 				if (fLeaveFilesDirty) {
@@ -478,8 +674,34 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 	        return result;
         }
 
-		private void applyChange(ICompilationUnit compilationUnit, List<CleanUpChange> changes) throws JavaModelException, CoreException {
-			IDocument document= new Document(changes.get(0).getCurrentContent(new NullProgressMonitor()));
+		/**
+		 * Brings the working copy up to date by applying the changes which have been computed
+		 * since the last call. Changes already applied are not applied again, and the buffer
+		 * is left untouched if there are no new changes.
+		 *
+		 * @param compilationUnit the working copy
+		 * @throws CoreException if the buffer cannot be accessed
+		 */
+		private void applyNewChanges(ICompilationUnit compilationUnit) throws CoreException {
+			ICompilationUnit primary= compilationUnit.getPrimary();
+			List<CleanUpChange> changes= fSolutions.get(primary);
+			Integer applied= fAppliedChanges.get(primary);
+			int first= applied != null ? applied.intValue() : 0;
+			if (first == changes.size())
+				return;
+
+			applyChange(compilationUnit, changes.subList(first, changes.size()), first == 0);
+			fAppliedChanges.put(primary, Integer.valueOf(changes.size()));
+		}
+
+		private void applyChange(ICompilationUnit compilationUnit, List<CleanUpChange> changes, boolean fromOriginalContent) throws JavaModelException, CoreException {
+			String content;
+			if (fromOriginalContent) {
+				content= changes.get(0).getCurrentContent(new NullProgressMonitor());
+			} else {
+				content= compilationUnit.getBuffer().getContents();
+			}
+			IDocument document= new Document(content);
 			for (CleanUpChange change : changes) {
 				TextEdit edit= change.getEdit().copy();
 
@@ -501,6 +723,12 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 	 */
 	private static final int SLOW_CLEAN_UP_THRESHOLD= 2000;
 
+	/**
+	 * The minimal number of compilation units parsed by one worker in a batch if clean ups are
+	 * computed in parallel. Fewer compilation units are processed on the calling thread.
+	 */
+	private static final int MIN_PARALLEL_BATCH_SIZE= 10;
+
 	private final List<ICleanUp> fCleanUps;
 	private final Hashtable<IJavaProject, List<CleanUpTarget>> fProjects;
 	private Change fChange;
@@ -509,6 +737,12 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 
 	private boolean fUseOptionsFromProfile;
 
+	private int fParallelism;
+
+	private CleanUpMetrics fMetrics;
+
+	private boolean fReuseUnchangedASTs;
+
 	public CleanUpRefactoring() {
 		this(FixMessages.CleanUpRefactoring_Refactoring_name);
 	}
@@ -518,12 +752,55 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		fCleanUps= new ArrayList<>();
 		fProjects= new Hashtable<>();
 		fUseOptionsFromProfile= false;
+		fParallelism= JavaPlugin.getDefault().getPreferenceStore().getInt(CleanUpConstants.CLEANUP_PARALLELISM);
+		fReuseUnchangedASTs= true;
 	}
 
 	public void setUseOptionsFromProfile(boolean enabled) {
 		fUseOptionsFromProfile= enabled;
 	}
 
+	/**
+	 * Sets the maximal number of threads used to compute the clean ups. Only clean ups whose
+	 * requirements support concurrent fixes are asked for several fixes at the same time, the
+	 * others create their fixes one at a time.
+	 *
+	 * @param parallelism the number of threads, <code>1</code> or less to compute the
+	 *            clean ups sequentially
+	 * @see CleanUpConstants#CLEANUP_PARALLELISM
+	 */
+	public void setParallelism(int parallelism) {
+		fParallelism= parallelism;
+	}
+
+	/**
+	 * Sets whether clean ups requiring a fresh AST may be executed on the AST of the previous
+	 * pass if no clean up of that pass changed the compilation unit. If disabled, the compilation
+	 * unit is always parsed again.
+	 *
+	 * @param enabled <code>true</code> to reuse ASTs of unchanged compilation units
+	 */
+	public void setReuseUnchangedASTs(boolean enabled) {
+		fReuseUnchangedASTs= enabled;
+	}
+
+	/**
+	 * Sets the metrics to which the statistics of the clean ups executed by this refactoring are
+	 * reported.
+	 *
+	 * @param metrics the metrics, or <code>null</code> to not collect statistics
+	 */
+	public void setMetrics(CleanUpMetrics metrics) {
+		fMetrics= metrics;
+	}
+
+	/**
+	 * @return the metrics collecting the statistics of this refactoring, or <code>null</code> if none
+	 */
+	public CleanUpMetrics getMetrics() {
+		return fMetrics;
+	}
+
 	public void addCompilationUnit(ICompilationUnit unit) {
 		addCleanUpTarget(new CleanUpTarget(unit));
 	}
@@ -755,6 +1032,25 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 	}
 
 	public static CleanUpChange calculateChange(CleanUpContext context, ICleanUp[] cleanUps, List<ICleanUp> undoneCleanUps, HashSet<ICleanUp> slowCleanUps) throws CoreException {
+		return calculateChange(context, cleanUps, undoneCleanUps, slowCleanUps, null);
+	}
+
+	/**
+	 * Computes the change of the given clean ups on the compilation unit of <code>context</code>.
+	 *
+	 * @param context the context to pass to the clean ups
+	 * @param cleanUps the clean ups to execute
+	 * @param undoneCleanUps the list to which clean ups that have to be executed in a further pass are added
+	 * @param slowCleanUps the set to which clean ups slower than {@link #SLOW_CLEAN_UP_THRESHOLD} are added, or <code>null</code>
+	 * @param metrics the metrics to report the statistics of the clean ups to, or <code>null</code>
+	 * @return the change, or <code>null</code> if no clean up created a fix
+	 * @throws CoreException if a clean up failed
+	 */
+	public static CleanUpChange calculateChange(CleanUpContext context, ICleanUp[] cleanUps, List<ICleanUp> undoneCleanUps, HashSet<ICleanUp> slowCleanUps, CleanUpMetrics metrics) throws CoreException {
+		return calculateChange(context, cleanUps, undoneCleanUps, slowCleanUps, metrics, null);
+	}
+
+	private static CleanUpChange calculateChange(CleanUpContext context, ICleanUp[] cleanUps, List<ICleanUp> undoneCleanUps, HashSet<ICleanUp> slowCleanUps, CleanUpMetrics metrics, Object fixLock) throws CoreException {
 		if (cleanUps.length == 0)
 			return null;
 
@@ -763,13 +1059,12 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		do {
 			ICleanUp cleanUp= cleanUps[i];
 			ICleanUpFix fix;
-			if (slowCleanUps != null) {
-				long timeBefore= System.currentTimeMillis();
-				fix= cleanUp.createFix(context);
-				if (System.currentTimeMillis() - timeBefore > SLOW_CLEAN_UP_THRESHOLD)
-					slowCleanUps.add(cleanUp);
+			if (fixLock != null && !cleanUp.getRequirements().supportsConcurrentFixes()) {
+				synchronized (fixLock) {
+					fix= createFix(cleanUp, context, slowCleanUps, metrics);
+				}
 			} else {
-				fix= cleanUp.createFix(context);
+				fix= createFix(cleanUp, context, slowCleanUps, metrics);
 			}
 			if (fix != null) {
 				CompilationUnitChange current= fix.createChange(null);
@@ -778,6 +1073,8 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 				if (solution != null) {
 					if (TextEditUtil.overlaps(currentEdit, solution.getEdit())) {
 						undoneCleanUps.add(cleanUp);
+						if (metrics != null)
+							metrics.recordOverlapDrop(cleanUp);
 					} else {
 						CleanUpChange merge= new CleanUpChange(FixMessages.CleanUpRefactoring_clean_up_multi_chang_name, context.getCompilationUnit());
 						merge.setEdit(TextEditUtil.merge(currentEdit, solution.getEdit()));
@@ -803,6 +1100,28 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		return solution;
 	}
 
+	private static ICleanUpFix createFix(ICleanUp cleanUp, CleanUpContext context, HashSet<ICleanUp> slowCleanUps, CleanUpMetrics metrics) throws CoreException {
+		ICleanUpFix fix;
+		if (metrics != null) {
+			long bytesBefore= CleanUpMetrics.getCurrentThreadAllocatedBytes();
+			long timeBefore= System.nanoTime();
+			fix= cleanUp.createFix(context);
+			long nanos= System.nanoTime() - timeBefore;
+			long bytes= bytesBefore < 0 ? -1 : CleanUpMetrics.getCurrentThreadAllocatedBytes() - bytesBefore;
+			metrics.recordFix(cleanUp, nanos, bytes, fix != null);
+			if (slowCleanUps != null && nanos / 1000000 > SLOW_CLEAN_UP_THRESHOLD)
+				slowCleanUps.add(cleanUp);
+		} else if (slowCleanUps != null) {
+			long timeBefore= System.currentTimeMillis();
+			fix= cleanUp.createFix(context);
+			if (System.currentTimeMillis() - timeBefore > SLOW_CLEAN_UP_THRESHOLD)
+				slowCleanUps.add(cleanUp);
+		} else {
+			fix= cleanUp.createFix(context);
+		}
+		return fix;
+	}
+
 	private static void copyChangeGroups(CompilationUnitChange target, CompilationUnitChange source) {
 		for (TextEditBasedChangeGroup changeGroup : source.getChangeGroups()) {
 			TextEditGroup textEditGroup= changeGroup.getTextEditGroup();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -24,6 +24,7 @@ import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.manipulation.OrganizeImportsOperation;
 import org.eclipse.jdt.core.manipulation.OrganizeImportsOperation.IChooseImportQuery;
+import org.eclipse.jdt.core.manipulation.TypeNameMatchIndex;
 import org.eclipse.jdt.core.search.TypeNameMatch;
 
 import org.eclipse.jdt.internal.corext.codemanipulation.CodeGenerationSettings;
@@ -36,7 +37,19 @@ import org.eclipse.jdt.internal.core.manipulation.util.BasicElementLabels;
 
 public class ImportsFix extends TextEditFix {
 
-	public static ICleanUpFix createCleanUp(final CompilationUnit cu, CodeGenerationSettings settings, boolean organizeImports, RefactoringStatus status) throws CoreException {
+	/**
+	 * Creates a fix which organizes the imports of the given compilation unit.
+	 *
+	 * @param cu the compilation unit
+	 * @param settings the code generation settings
+	 * @param organizeImports whether to organize the imports
+	 * @param status the status to report unresolvable references and parse errors to
+	 * @param typeNameMatchIndex the index shared by all compilation units of the clean up, or
+	 *            <code>null</code> to search for the unresolved types of this unit
+	 * @return the fix or <code>null</code> if the imports do not change
+	 * @throws CoreException if the imports could not be organized
+	 */
+	public static ICleanUpFix createCleanUp(final CompilationUnit cu, CodeGenerationSettings settings, boolean organizeImports, RefactoringStatus status, TypeNameMatchIndex typeNameMatchIndex) throws CoreException {
 		if (!organizeImports)
 			return null;
 
@@ -48,6 +61,7 @@ public class ImportsFix extends TextEditFix {
 
 		final ICompilationUnit unit= (ICompilationUnit)cu.getJavaElement();
 		OrganizeImportsOperation op= new OrganizeImportsOperation(unit, cu, settings.importIgnoreLowercase, false, false, query);
+		op.setTypeNameMatchIndex(typeNameMatchIndex);
 		final TextEdit edit= op.createTextEdit(null);
 		if (hasAmbiguity[0]) {
 			status.addInfo(Messages.format(ActionMessages.OrganizeImportsAction_multi_error_unresolvable, getLocationString(cu)));
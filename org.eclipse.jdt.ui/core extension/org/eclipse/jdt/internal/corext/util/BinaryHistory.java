@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * A history which is stored in an append-only binary log instead of an xml file. Every access and
+ * removal is recorded, and {@link #save()} only appends the records since the last save. The log
+ * is replayed when the history is loaded, and compacted to one record per element when it has
+ * grown too long or could not be read completely.
+ * <p>
+ * If there is no log yet, the xml file of the history is loaded and migrated to the log with the
+ * next save. The xml file is only deleted once the written log has been read back.
+ * </p>
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public abstract class BinaryHistory<K, V> extends History<K, V> {
+
+	private static final int LOG_MAGIC= 0x4A484C47;
+	private static final int LOG_VERSION= 1;
+	private static final String LOG_FILE_EXTENSION= ".bin"; //$NON-NLS-1$
+
+	private static final byte RECORD_ACCESSED= 1;
+	private static final byte RECORD_REMOVED= 2;
+
+	/**
+	 * The largest valid record, larger ones can only be read from a corrupt log
+	 */
+	private static final int MAX_RECORD_SIZE= 1 << 20;
+
+	/**
+	 * The number of records after which the log is compacted
+	 */
+	private static final int COMPACTION_THRESHOLD= 8 * MAX_HISTORY_SIZE;
+
+	/**
+	 * The records which have not been appended to the log yet
+	 */
+	private final ByteArrayOutputStream fPendingRecords= new ByteArrayOutputStream();
+	/**
+	 * The number of records in the log, including the pending ones
+	 */
+	private int fLogRecordCount;
+	private boolean fNeedsCompaction;
+
+	public BinaryHistory(String fileName, String rootNodeName, String infoNodeName) {
+		super(fileName, rootNodeName, infoNodeName);
+	}
+
+	@Override
+	public synchronized void load() {
+		File logFile= getStateFile(getLogFileName());
+		if (!logFile.exists()) {
+			// migrate the xml file, if any, with the next save
+			fNeedsCompaction= true;
+			super.load();
+			return;
+		}
+		Map<K, V> history= new LinkedHashMap<>(80, 0.75f, true);
+		try {
+			int count= readLog(logFile, history);
+			if (count == -1)
+				fNeedsCompaction= true;
+			else
+				fLogRecordCount= count;
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+			fNeedsCompaction= true;
+		}
+		addLoaded(history.values());
+	}
+
+	@Override
+	public synchronized void save() {
+		File logFile= getStateFile(getLogFileName());
+		try {
+			if (fNeedsCompaction || fLogRecordCount > COMPACTION_THRESHOLD || !logFile.exists())
+				compactLog(logFile);
+			else if (fPendingRecords.size() > 0)
+				appendLog(logFile);
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+			fNeedsCompaction= true;
+		}
+	}
+
+	/**
+	 * Writes <code>object</code> to a record of the binary log.
+	 *
+	 * @param object The object to store
+	 * @param out The output to write to
+	 * @throws IOException if the object cannot be written
+	 */
+	protected abstract void writeObject(V object, DataOutput out) throws IOException;
+
+	/**
+	 * Return a new instance of an Object read from a record of the binary log.
+	 *
+	 * @param in The input containing the data written by {@link #writeObject(Object, DataOutput)}
+	 * @return a new instance of an Object, or <code>null</code> if the object no longer exists
+	 * @throws IOException if the record cannot be read
+	 */
+	protected abstract V readObject(DataInput in) throws IOException;
+
+	/**
+	 * Requests that the next save rewrites the log, so it stores the current state of all
+	 * elements. Subclasses call this when an element has changed in place, which the log does not
+	 * record.
+	 */
+	protected synchronized void requestCompaction() {
+		fNeedsCompaction= true;
+	}
+
+	@Override
+	void elementAccessed(V object) {
+		record(RECORD_ACCESSED, object);
+	}
+
+	@Override
+	void elementRemoved(V object) {
+		record(RECORD_REMOVED, object);
+	}
+
+	private static File getStateFile(String fileName) {
+		return JavaPlugin.getDefault().getStateLocation().append(fileName).toFile();
+	}
+
+	private String getLogFileName() {
+		String fileName= getFileName();
+		String baseName= fileName.endsWith(".xml") ? fileName.substring(0, fileName.length() - 4) : fileName; //$NON-NLS-1$
+		return baseName + LOG_FILE_EXTENSION;
+	}
+
+	private void record(byte kind, V object) {
+		if (fNeedsCompaction)
+			return;
+		try {
+			writeRecord(new DataOutputStream(fPendingRecords), kind, object);
+			fLogRecordCount++;
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+			fNeedsCompaction= true;
+		}
+	}
+
+	private void writeRecord(DataOutputStream out, byte kind, V object) throws IOException {
+		ByteArrayOutputStream payload= new ByteArrayOutputStream();
+		writeObject(object, new DataOutputStream(payload));
+		out.writeByte(kind);
+		out.writeInt(payload.size());
+		payload.writeTo(out);
+		out.flush();
+	}
+
+	/**
+	 * Replays the records of the log.
+	 *
+	 * @param logFile the log
+	 * @param history the map to replay the records into
+	 * @return the number of records, or -1 if the log could not be read completely
+	 * @throws IOException if the log cannot be read
+	 */
+	private int readLog(File logFile, Map<K, V> history) throws IOException {
+		try (DataInputStream in= new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)))) {
+			if (in.readInt() != LOG_MAGIC || in.readByte() != LOG_VERSION)
+				return -1;
+			int count= 0;
+			int kind;
+			while ((kind= in.read()) != -1) {
+				int length= in.readInt();
+				if (length < 0 || length > MAX_RECORD_SIZE || (kind != RECORD_ACCESSED && kind != RECORD_REMOVED)) {
+					// records appended to a corrupt log could not be read
+					return -1;
+				}
+				byte[] payload= new byte[length];
+				in.readFully(payload);
+				count++;
+				V object= readObject(new DataInputStream(new ByteArrayInputStream(payload)));
+				if (object == null)
+					continue;
+				if (kind == RECORD_ACCESSED)
+					history.put(getKey(object), object);
+				else
+					history.remove(getKey(object));
+			}
+			return count;
+		} catch (EOFException e) {
+			// the last save did not complete
+			return -1;
+		}
+	}
+
+	private void appendLog(File logFile) throws IOException {
+		try (OutputStream out= new FileOutputStream(logFile, true)) {
+			fPendingRecords.writeTo(out);
+		}
+		fPendingRecords.reset();
+	}
+
+	private void compactLog(File logFile) throws IOException {
+		File tempFile= new File(logFile.getPath() + ".tmp"); //$NON-NLS-1$
+		int count= 0;
+		try (DataOutputStream out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			out.writeInt(LOG_MAGIC);
+			out.writeByte(LOG_VERSION);
+			// the values are ordered from the eldest to the most recently accessed one
+			for (V object : getValues()) {
+				writeRecord(out, RECORD_ACCESSED, object);
+				count++;
+			}
+		}
+		try {
+			Files.move(tempFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		fPendingRecords.reset();
+		fLogRecordCount= count;
+		fNeedsCompaction= false;
+
+		File xmlFile= getStateFile(getFileName());
+		if (!xmlFile.equals(logFile) && xmlFile.exists() && readLog(logFile, new HashMap<>()) == count) {
+			// the log replaces the migrated xml file
+			xmlFile.delete();
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -62,7 +62,8 @@ import org.eclipse.jdt.internal.core.manipulation.util.BasicElementLabels;
  * MAX_HISTORY_SIZE. If the list exceeds this size the eldest element is removed
  * from the list. An element can be added/renewed with a call to <code>accessed(Object)</code>.
  *
- * The history can be stored to/loaded from an xml file.
+ * The history can be stored to/loaded from an xml file. {@link BinaryHistory} stores it in a binary
+ * log instead.
  *
  * @param <K> key type
  * @param <V> value type
@@ -71,7 +72,7 @@ public abstract class History<K, V> {
 
 	private static final String DEFAULT_ROOT_NODE_NAME= "histroyRootNode"; //$NON-NLS-1$
 	private static final String DEFAULT_INFO_NODE_NAME= "infoNode"; //$NON-NLS-1$
-	private static final int MAX_HISTORY_SIZE= 60;
+	static final int MAX_HISTORY_SIZE= 60;
 
 	private static JavaUIException createException(Throwable t, String message) {
 		return new JavaUIException(JavaUIStatus.createError(IStatus.ERROR, message, t));
@@ -104,6 +105,7 @@ public abstract class History<K, V> {
 	public synchronized void accessed(V object) {
 		fHistory.put(getKey(object), object);
 		rebuildPositions();
+		elementAccessed(object);
 	}
 
 	public synchronized boolean contains(V object) {
@@ -119,14 +121,18 @@ public abstract class History<K, V> {
 	}
 
 	public synchronized Object remove(V object) {
-		Object removed= fHistory.remove(getKey(object));
+		V removed= fHistory.remove(getKey(object));
 		rebuildPositions();
+		if (removed != null)
+			elementRemoved(removed);
 		return removed;
 	}
 
 	public synchronized Object removeKey(Object key) {
-		Object removed= fHistory.remove(key);
+		V removed= fHistory.remove(key);
 		rebuildPositions();
+		if (removed != null)
+			elementRemoved(removed);
 		return removed;
 	}
 
@@ -215,6 +221,40 @@ public abstract class History<K, V> {
 		return fHistory.values();
 	}
 
+	String getFileName() {
+		return fFileName;
+	}
+
+	/**
+	 * Adds the loaded objects, from the eldest to the most recently accessed one.
+	 *
+	 * @param objects the objects to add
+	 */
+	void addLoaded(Collection<V> objects) {
+		for (V object : objects) {
+			fHistory.put(getKey(object), object);
+		}
+		rebuildPositions();
+	}
+
+	/**
+	 * Called after <code>object</code> has been added or renewed.
+	 *
+	 * @param object the accessed object
+	 */
+	void elementAccessed(V object) {
+		// only recorded by binary histories
+	}
+
+	/**
+	 * Called after <code>object</code> has been removed.
+	 *
+	 * @param object the removed object
+	 */
+	void elementRemoved(V object) {
+		// only recorded by binary histories
+	}
+
 	/**
 	 * Store <code>Object</code> in <code>Element</code>
 	 *
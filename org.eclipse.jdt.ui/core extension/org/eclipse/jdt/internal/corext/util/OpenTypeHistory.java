@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,13 +13,18 @@
  *******************************************************************************/
  package org.eclipse.jdt.internal.corext.util;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.w3c.dom.Element;
 
@@ -56,26 +61,31 @@ import org.eclipse.jdt.internal.corext.CorextMessages;
 
 /**
  * History for the open type dialog. Object and keys are both {@link TypeNameMatch}s.
+ * <p>
+ * The history is stored in the binary log of {@link BinaryHistory}. Its consistency check only validates
+ * the types which are contained in the elements changed by the Java element deltas since the last
+ * check, unless the history has just been loaded.
+ * </p>
  */
-public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
+public class OpenTypeHistory extends BinaryHistory<TypeNameMatch, TypeNameMatch> {
 
 	private static class TypeHistoryDeltaListener implements IElementChangedListener {
 		@Override
 		public void elementChanged(ElementChangedEvent event) {
-			if (processDelta(event.getDelta())) {
-				OpenTypeHistory.getInstance().markAsInconsistent();
+			Set<IJavaElement> affectedElements= new HashSet<>();
+			processDelta(event.getDelta(), affectedElements);
+			if (!affectedElements.isEmpty()) {
+				OpenTypeHistory.getInstance().markAsInconsistent(affectedElements);
 			}
 		}
 
 		/**
-		 * Computes whether the history needs a consistency check or not.
+		 * Collects the elements whose types need a consistency check.
 		 *
 		 * @param delta the Java element delta
-		 *
-		 * @return <code>true</code> if consistency must be checked
-		 *  <code>false</code> otherwise.
+		 * @param affectedElements the set to add the elements to
 		 */
-		private boolean processDelta(IJavaElementDelta delta) {
+		private void processDelta(IJavaElementDelta delta, Set<IJavaElement> affectedElements) {
 			IJavaElement elem= delta.getElement();
 
 			boolean isChanged= delta.getKind() == IJavaElementDelta.CHANGED;
@@ -85,44 +95,55 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 				case IJavaElement.JAVA_PROJECT:
 					if (isRemoved || (isChanged &&
 							(delta.getFlags() & IJavaElementDelta.F_CLOSED) != 0)) {
-						return true;
+						affectedElements.add(elem);
+						return;
 					}
-					return processChildrenDelta(delta);
+					processChildrenDelta(delta, affectedElements);
+					break;
 				case IJavaElement.PACKAGE_FRAGMENT_ROOT:
 					if (isRemoved || (isChanged && (
 							(delta.getFlags() & IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED) != 0 ||
 							(delta.getFlags() & IJavaElementDelta.F_REMOVED_FROM_CLASSPATH) != 0))) {
-						return true;
+						affectedElements.add(elem);
+						return;
 					}
-					return processChildrenDelta(delta);
+					processChildrenDelta(delta, affectedElements);
+					break;
 				case IJavaElement.TYPE:
 					if (isChanged && (delta.getFlags() & IJavaElementDelta.F_MODIFIERS) != 0) {
-						return true;
+						affectedElements.add(elem);
+						return;
 					}
 					if (isRemoved) {
-						return true;
+						affectedElements.add(elem);
+						return;
 					}
-					return processChildrenDelta(delta);
+					processChildrenDelta(delta, affectedElements);
+					break;
 				case IJavaElement.JAVA_MODEL:
 				case IJavaElement.PACKAGE_FRAGMENT:
 				case IJavaElement.CLASS_FILE:
 					if (isRemoved) {
-						return true;
+						affectedElements.add(elem);
+						return;
 					}
-					return processChildrenDelta(delta);
+					processChildrenDelta(delta, affectedElements);
+					break;
 				case IJavaElement.COMPILATION_UNIT:
 					// Not the primary compilation unit. Ignore it
 					if (!JavaModelUtil.isPrimary((ICompilationUnit) elem)) {
-						return false;
+						return;
 					}
 
 					if (isRemoved || (isChanged && isUnknownStructuralChange(delta.getFlags()))) {
-						return true;
+						affectedElements.add(elem);
+						return;
 					}
-					return processChildrenDelta(delta);
+					processChildrenDelta(delta, affectedElements);
+					break;
 				default:
 					// fields, methods, imports ect
-					return false;
+					break;
 			}
 		}
 
@@ -138,13 +159,10 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 		}
 		*/
 
-		private boolean processChildrenDelta(IJavaElementDelta delta) {
+		private void processChildrenDelta(IJavaElementDelta delta, Set<IJavaElement> affectedElements) {
 			for (IJavaElementDelta child : delta.getAffectedChildren()) {
-				if (processDelta(child)) {
-					return true;
-				}
+				processDelta(child, affectedElements);
 			}
-			return false;
 		}
 	}
 
@@ -170,6 +188,12 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 	// Map of cached time stamps
 	private Map<TypeNameMatch, Long> fTimestampMapping;
 
+	// The elements changed since the last consistency check, guarded by the lock
+	// and not by the history since markAsInconsistent isn't synchronized.
+	private final Object fAffectedElementsLock= new Object();
+	private Set<IJavaElement> fAffectedElements;
+	private boolean fCheckAllTypes;
+
 	private final IElementChangedListener fDeltaListener;
 	private final UpdateJob fUpdateJob;
 
@@ -197,8 +221,12 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 	private OpenTypeHistory() {
 		super(FILENAME, NODE_ROOT, NODE_TYPE_INFO);
 		fTimestampMapping= new HashMap<>();
+		fAffectedElements= new HashSet<>();
+		fCheckAllTypes= true;
 		fNeedsConsistencyCheck= true;
 		load();
+		// drop the time stamps of types removed later on in the log
+		fTimestampMapping.keySet().retainAll(getKeys());
 		fDeltaListener= new TypeHistoryDeltaListener();
 		JavaCore.addElementChangedListener(fDeltaListener);
 		fUpdateJob= new UpdateJob();
@@ -211,6 +239,26 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 	}
 
 	public void markAsInconsistent() {
+		synchronized (fAffectedElementsLock) {
+			fCheckAllTypes= true;
+		}
+		scheduleConsistencyCheck();
+	}
+
+	/**
+	 * Marks the types contained in the given elements as inconsistent. Only these types are
+	 * validated by the next consistency check.
+	 *
+	 * @param affectedElements the changed elements
+	 */
+	public void markAsInconsistent(Collection<IJavaElement> affectedElements) {
+		synchronized (fAffectedElementsLock) {
+			fAffectedElements.addAll(affectedElements);
+		}
+		scheduleConsistencyCheck();
+	}
+
+	private void scheduleConsistencyCheck() {
 		fNeedsConsistencyCheck= true;
 		// cancel the old job. If no job is running this is a NOOP.
 		fUpdateJob.cancel();
@@ -297,38 +345,76 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 		// Setting fNeedsConsistencyCheck is necessary here since
 		// markAsInconsistent isn't synchronized.
 		fNeedsConsistencyCheck= true;
-		List<TypeNameMatch> typesToCheck= new ArrayList<>(getKeys());
+		boolean checkAllTypes;
+		Set<IJavaElement> affectedElements;
+		synchronized (fAffectedElementsLock) {
+			checkAllTypes= fCheckAllTypes;
+			affectedElements= fAffectedElements;
+			fCheckAllTypes= false;
+			fAffectedElements= new HashSet<>();
+		}
+		List<TypeNameMatch> typesToCheck= new ArrayList<>();
+		for (TypeNameMatch type : getKeys()) {
+			if (checkAllTypes || isContained(type, affectedElements))
+				typesToCheck.add(type);
+		}
 		monitor.beginTask(CorextMessages.TypeInfoHistory_consistency_check, typesToCheck.size());
 		monitor.setTaskName(CorextMessages.TypeInfoHistory_consistency_check);
-		for (TypeNameMatch type : typesToCheck) {
-			long currentTimestamp= getContainerTimestamp(type);
-			Long lastTested= fTimestampMapping.get(type);
-			if (lastTested != null && currentTimestamp != IResource.NULL_STAMP && currentTimestamp == lastTested.longValue() && !isContainerDirty(type))
-				continue;
-			try {
-				IType jType= type.getType();
-				if (jType == null || !jType.exists()) {
-					remove(type);
-				} else {
-					// copy over the modifiers since they may have changed
-					int modifiers= jType.getFlags();
-					if (modifiers != type.getModifiers()) {
-						replace(type, SearchEngine.createTypeNameMatch(jType, modifiers));
+		try {
+			for (TypeNameMatch type : typesToCheck) {
+				long currentTimestamp= getContainerTimestamp(type);
+				Long lastTested= fTimestampMapping.get(type);
+				if (lastTested != null && currentTimestamp != IResource.NULL_STAMP && currentTimestamp == lastTested.longValue() && !isContainerDirty(type))
+					continue;
+				try {
+					IType jType= type.getType();
+					if (jType == null || !jType.exists()) {
+						remove(type);
 					} else {
-						fTimestampMapping.put(type, currentTimestamp);
+						// copy over the modifiers since they may have changed
+						int modifiers= jType.getFlags();
+						if (modifiers != type.getModifiers()) {
+							replace(type, SearchEngine.createTypeNameMatch(jType, modifiers));
+						} else {
+							fTimestampMapping.put(type, currentTimestamp);
+							// the log does not record time stamps changed in place
+							requestCompaction();
+						}
 					}
+				} catch (JavaModelException e) {
+					remove(type);
 				}
-			} catch (JavaModelException e) {
-				remove(type);
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+				monitor.worked(1);
+			}
+		} catch (OperationCanceledException e) {
+			// the next check has to validate the types not checked by this one
+			synchronized (fAffectedElementsLock) {
+				fCheckAllTypes|= checkAllTypes;
+				fAffectedElements.addAll(affectedElements);
 			}
-			if (monitor.isCanceled())
-				throw new OperationCanceledException();
-			monitor.worked(1);
+			throw e;
 		}
 		monitor.done();
+		synchronized (fAffectedElementsLock) {
+			if (fCheckAllTypes || !fAffectedElements.isEmpty())
+				return;
+		}
 		fNeedsConsistencyCheck= false;
 	}
 
+	private static boolean isContained(TypeNameMatch type, Set<IJavaElement> elements) {
+		if (elements.isEmpty())
+			return false;
+		// handles are compared, the type and its parents need not exist
+		for (IJavaElement element= type.getType(); element != null; element= element.getParent()) {
+			if (elements.contains(element))
+				return true;
+		}
+		return false;
+	}
+
 	private long getContainerTimestamp(TypeNameMatch match) {
 		try {
 			IType type= match.getType();
@@ -381,6 +467,29 @@ public class OpenTypeHistory extends History<TypeNameMatch, TypeNameMatch> {
 		save();
 	}
 
+	@Override
+	protected void writeObject(TypeNameMatch type, DataOutput out) throws IOException {
+		out.writeUTF(type.getType().getHandleIdentifier());
+		out.writeInt(type.getModifiers());
+		Long timestamp= fTimestampMapping.get(type);
+		out.writeLong(timestamp == null ? IResource.NULL_STAMP : timestamp.longValue());
+	}
+
+	@Override
+	protected TypeNameMatch readObject(DataInput in) throws IOException {
+		IJavaElement element= JavaCore.create(in.readUTF());
+		int modifiers= in.readInt();
+		long timestamp= in.readLong();
+		if (!(element instanceof IType))
+			return null;
+
+		TypeNameMatch info= SearchEngine.createTypeNameMatch((IType) element, modifiers);
+		if (timestamp != IResource.NULL_STAMP) {
+			fTimestampMapping.put(info, timestamp);
+		}
+		return info;
+	}
+
 	@Override
 	protected TypeNameMatch createFromElement(Element type) {
 		String handle= type.getAttribute(NODE_HANDLE);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -13,9 +13,13 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.util;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import org.w3c.dom.Element;
 
-public class QualifiedTypeNameHistory extends History<String, String> {
+public class QualifiedTypeNameHistory extends BinaryHistory<String, String> {
 
 	private static final String NODE_ROOT= "qualifiedTypeNameHistroy"; //$NON-NLS-1$
 	private static final String NODE_TYPE_INFO= "fullyQualifiedTypeName"; //$NON-NLS-1$
@@ -46,6 +50,16 @@ public class QualifiedTypeNameHistory extends History<String, String> {
 		return element.getAttribute(NODE_NAME);
 	}
 
+	@Override
+	protected void writeObject(String object, DataOutput out) throws IOException {
+		out.writeUTF(object);
+	}
+
+	@Override
+	protected String readObject(DataInput in) throws IOException {
+		return in.readUTF();
+	}
+
 	@Override
 	protected String getKey(String object) {
 		return object;
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.generics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
+
+/**
+ * Resolves several batches of compilation units of a project concurrently, and passes the resolved
+ * units to an {@link ASTRequestor} one at a time.
+ * <p>
+ * Each batch is resolved by its own {@link ASTParser}. A resolved unit waits for its turn before it
+ * is passed on, and the parser of its batch waits with it, so the bindings of a batch are only used
+ * by one thread at a time, and the requestor does not need to be thread-safe. The turns go
+ * round-robin over the batches in the order in which they were given, so the order in which the
+ * units are passed on does not depend on the timing of the threads.
+ * </p>
+ */
+final class ConcurrentASTCreator {
+
+	/**
+	 * The time in milliseconds after which a unit waiting for its turn checks for cancellation
+	 */
+	private static final long WAIT_TIMEOUT= 100;
+
+	private final IJavaProject fProject;
+
+	private final ASTRequestor fRequestor;
+
+	private final Object fLock= new Object();
+
+	/**
+	 * The number of units each batch has passed on
+	 */
+	private int[] fPassedOn;
+
+	/**
+	 * Whether the parser of each batch has finished
+	 */
+	private boolean[] fFinished;
+
+	private int fUnfinished;
+
+	/**
+	 * The batch whose next unit is passed on next
+	 */
+	private int fTurn;
+
+	/**
+	 * The index of each batch's unit which is passed on next
+	 */
+	private int fRound;
+
+	/**
+	 * Creates a new AST creator.
+	 *
+	 * @param project the project of the compilation units
+	 * @param requestor the requestor to pass the resolved units to
+	 */
+	ConcurrentASTCreator(IJavaProject project, ASTRequestor requestor) {
+		fProject= project;
+		fRequestor= requestor;
+	}
+
+	/**
+	 * Resolves the given batches concurrently, using one thread per batch, and passes the resolved
+	 * units on. Returns after all units have been passed on.
+	 *
+	 * @param batches the batches of compilation units
+	 * @param monitor the progress monitor, only used for cancellation
+	 * @throws OperationCanceledException if the monitor has been canceled
+	 */
+	void createASTs(List<ICompilationUnit[]> batches, IProgressMonitor monitor) {
+		IProgressMonitor cancelMonitor= new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+		int count= batches.size();
+		synchronized (fLock) {
+			fPassedOn= new int[count];
+			fFinished= new boolean[count];
+			fUnfinished= count;
+			fTurn= 0;
+			fRound= 0;
+		}
+		ExecutorService executor= Executors.newFixedThreadPool(count);
+		try {
+			List<Future<?>> futures= new ArrayList<>(count);
+			for (int i= 0; i < count; i++) {
+				int batch= i;
+				futures.add(executor.submit(() -> createASTs(batch, batches.get(batch), cancelMonitor)));
+			}
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new OperationCanceledException();
+				} catch (ExecutionException e) {
+					Throwable cause= e.getCause();
+					if (cause instanceof RuntimeException)
+						throw (RuntimeException) cause;
+					if (cause instanceof Error)
+						throw (Error) cause;
+					throw new IllegalStateException(cause);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void createASTs(int batch, ICompilationUnit[] units, IProgressMonitor monitor) {
+		try {
+			ASTParser parser= ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
+			parser.setProject(fProject);
+			parser.setCompilerOptions(RefactoringASTParser.getCompilerOptions(fProject));
+			parser.setResolveBindings(true);
+			parser.createASTs(units, new String[0], new ASTRequestor() {
+				@Override
+				public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+					waitForTurn(batch, monitor);
+					try {
+						fRequestor.acceptAST(source, ast);
+					} finally {
+						synchronized (fLock) {
+							fPassedOn[batch]++;
+							nextTurn();
+							fLock.notifyAll();
+						}
+					}
+				}
+			}, monitor);
+		} finally {
+			synchronized (fLock) {
+				fFinished[batch]= true;
+				fUnfinished--;
+				if (fTurn == batch)
+					nextTurn();
+				fLock.notifyAll();
+			}
+		}
+	}
+
+	private void waitForTurn(int batch, IProgressMonitor monitor) {
+		synchronized (fLock) {
+			while (fTurn != batch) {
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+				try {
+					fLock.wait(WAIT_TIMEOUT);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new OperationCanceledException();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Passes the turn to the next batch which has not finished before passing on its unit of the
+	 * round. Must be called while holding the lock.
+	 */
+	private void nextTurn() {
+		do {
+			fTurn++;
+			if (fTurn == fPassedOn.length) {
+				fTurn= 0;
+				fRound++;
+			}
+		} while (fUnfinished > 0 && fFinished[fTurn] && fPassedOn[fTurn] <= fRound);
+	}
+}
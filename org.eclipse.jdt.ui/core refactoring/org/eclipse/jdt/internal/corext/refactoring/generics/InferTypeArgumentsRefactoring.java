@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -23,6 +23,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
@@ -110,6 +111,21 @@ public class InferTypeArgumentsRefactoring extends Refactoring {
 	private boolean fAssumeCloneReturnsSameType;
 	private boolean fLeaveUnconstrainedRaw;
 
+	/**
+	 * The number of batches of compilation units which are resolved concurrently
+	 */
+	private int fParallelism= Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+	/**
+	 * The number of compilation units which are resolved together
+	 */
+	private int fBatchSize= 150;
+
+	/**
+	 * The start time of the constraint creation in nanoseconds
+	 */
+	private long fCreationStart;
+
 	/**
 	 * Creates a new infer type arguments refactoring.
 	 * @param elements the elements to process, or <code>null</code> if invoked by scripting
@@ -148,6 +164,38 @@ public class InferTypeArgumentsRefactoring extends Refactoring {
 		return fLeaveUnconstrainedRaw;
 	}
 
+	/**
+	 * Sets the number of batches of compilation units which are resolved concurrently while the
+	 * constraints are created. The order in which the compilation units are visited depends on this
+	 * number, but not on the timing of the threads.
+	 *
+	 * @param parallelism the number of concurrently resolved batches, or <code>1</code> to resolve
+	 *            the compilation units of a project in sequence
+	 */
+	public void setParallelism(int parallelism) {
+		Assert.isLegal(parallelism > 0);
+		fParallelism= parallelism;
+	}
+
+	public int getParallelism() {
+		return fParallelism;
+	}
+
+	/**
+	 * Sets the number of compilation units which are resolved together while the constraints are
+	 * created. Smaller batches need less memory but share fewer bindings.
+	 *
+	 * @param batchSize the number of compilation units in a batch
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isLegal(batchSize > 0);
+		fBatchSize= batchSize;
+	}
+
+	public int getBatchSize() {
+		return fBatchSize;
+	}
+
 	/*
 	 * @see org.eclipse.ltk.core.refactoring.Refactoring#checkInitialConditions(org.eclipse.core.runtime.IProgressMonitor)
 	 */
@@ -168,66 +216,48 @@ public class InferTypeArgumentsRefactoring extends Refactoring {
 		final RefactoringStatus result= new RefactoringStatus();
 		try {
 			fTCModel= new InferTypeArgumentsTCModel();
-			final InferTypeArgumentsConstraintCreator unitCollector= new InferTypeArgumentsConstraintCreator(fTCModel, fAssumeCloneReturnsSameType);
+			fCreationStart= System.nanoTime();
 
 			for (Entry<IJavaProject, ArrayList<IJavaElement>> entry : projectsToElements.entrySet()) {
 				IJavaProject project= entry.getKey();
 				ArrayList<IJavaElement> javaElementsList= entry.getValue();
 				IJavaElement[] javaElements= javaElementsList.toArray(new IJavaElement[javaElementsList.size()]);
 				List<ICompilationUnit> cus= Arrays.asList(JavaModelUtil.getAllCompilationUnits(javaElements));
-				int batchSize= 150;
+				int batchSize= fBatchSize;
 				int batches= ((cus.size()-1) / batchSize) + 1;
 				SubProgressMonitor projectMonitor= new SubProgressMonitor(pm, 1);
 				projectMonitor.beginTask("", batches); //$NON-NLS-1$
 				projectMonitor.setTaskName(RefactoringCoreMessages.InferTypeArgumentsRefactoring_building);
-				for (int i= 0; i < batches; i++) {
-					List<ICompilationUnit> batch= cus.subList(i * batchSize, Math.min(cus.size(), (i + 1) * batchSize));
-					ICompilationUnit[] batchCus= batch.toArray(new ICompilationUnit[batch.size()]);
-					final SubProgressMonitor batchMonitor= new SubProgressMonitor(projectMonitor, 1);
-					batchMonitor.subTask(RefactoringCoreMessages.InferTypeArgumentsRefactoring_calculating_dependencies);
-					ASTParser parser= ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
-					parser.setProject(project);
-					parser.setCompilerOptions(RefactoringASTParser.getCompilerOptions(project));
-					parser.setResolveBindings(true);
-					parser.createASTs(batchCus, new String[0], new ASTRequestor() {
-						@Override
-						public void acceptAST(final ICompilationUnit source, final CompilationUnit ast) {
-							batchMonitor.subTask(BasicElementLabels.getFileName(source));
-							SafeRunner.run(new ISafeRunnable() {
-								@Override
-								public void run() throws Exception {
-									for (IProblem problem : ast.getProblems()) {
-										if (problem.isError()) {
-											String cuName= JavaElementLabels.getElementLabel(source, JavaElementLabels.CU_QUALIFIED);
-											String msg= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_error_in_cu_skipped, new Object[] {cuName});
-											result.addError(msg, JavaStatusContext.create(source, SourceRangeFactory.create(problem)));
-											return;
-										}
-									}
-									ast.accept(unitCollector);
-								}
-
-								@Override
-								public void handleException(Throwable exception) {
-									String cuName= JavaElementLabels.getElementLabel(source, JavaElementLabels.CU_QUALIFIED);
-									String msg= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_internal_error, new Object[] {cuName});
-									JavaPlugin.log(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IJavaStatusConstants.INTERNAL_ERROR, msg, null));
-									String msg2= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_error_skipped, new Object[] {cuName});
-									result.addError(msg2, JavaStatusContext.create(source));
-								}
-							});
-							fTCModel.newCu();
-						}
-
-						@Override
-						public void acceptBinding(String bindingKey, IBinding binding) {
-							//do nothing
-						}
-					}, batchMonitor);
+				if (fParallelism > 1 && batches > 1) {
+					createConstraintsConcurrently(project, cus, batchSize, result, projectMonitor);
+				} else {
+					for (int i= 0; i < batches; i++) {
+						List<ICompilationUnit> batch= cus.subList(i * batchSize, Math.min(cus.size(), (i + 1) * batchSize));
+						ICompilationUnit[] batchCus= batch.toArray(new ICompilationUnit[batch.size()]);
+						final SubProgressMonitor batchMonitor= new SubProgressMonitor(projectMonitor, 1);
+						batchMonitor.subTask(RefactoringCoreMessages.InferTypeArgumentsRefactoring_calculating_dependencies);
+						ASTParser parser= ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
+						parser.setProject(project);
+						parser.setCompilerOptions(RefactoringASTParser.getCompilerOptions(project));
+						parser.setResolveBindings(true);
+						parser.createASTs(batchCus, new String[0], new ASTRequestor() {
+							@Override
+							public void acceptAST(final ICompilationUnit source, final CompilationUnit ast) {
+								createConstraints(source, ast, result, batchMonitor);
+							}
+
+							@Override
+							public void acceptBinding(String bindingKey, IBinding binding) {
+								//do nothing
+							}
+						}, batchMonitor);
+					}
 				}
 				projectMonitor.done();
 				fTCModel.newCu();
 			}
+			if (JavaPlugin.DEBUG_TYPE_CONSTRAINTS)
+				System.out.println("Created " + fTCModel.getTypeConstraintCount() + " constraints in " + (System.nanoTime() - fCreationStart) / 1000000 + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 
 //			Display.getDefault().syncExec(new Runnable() {
 //				public void run() {
@@ -252,6 +282,79 @@ public class InferTypeArgumentsRefactoring extends Refactoring {
 		}
 	}
 
+	/**
+	 * Creates the constraints of the given compilation units of a project. Batches of units are
+	 * resolved concurrently, and the resolved units are visited one at a time in an order which only
+	 * depends on the list of units.
+	 *
+	 * @param project the project
+	 * @param cus the compilation units of the project
+	 * @param batchSize the number of units resolved together
+	 * @param result the status to add problems to
+	 * @param projectMonitor the progress monitor, with one unit of work per batch
+	 */
+	private void createConstraintsConcurrently(IJavaProject project, List<ICompilationUnit> cus, int batchSize, RefactoringStatus result, IProgressMonitor projectMonitor) {
+		ConcurrentASTCreator creator= new ConcurrentASTCreator(project, new ASTRequestor() {
+			@Override
+			public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+				createConstraints(source, ast, result, projectMonitor);
+			}
+		});
+		List<ICompilationUnit[]> batches= new ArrayList<>(fParallelism);
+		for (int start= 0; start < cus.size(); start+= batchSize) {
+			List<ICompilationUnit> batch= cus.subList(start, Math.min(cus.size(), start + batchSize));
+			batches.add(batch.toArray(new ICompilationUnit[batch.size()]));
+			if (batches.size() == fParallelism || start + batchSize >= cus.size()) {
+				projectMonitor.subTask(RefactoringCoreMessages.InferTypeArgumentsRefactoring_calculating_dependencies);
+				creator.createASTs(batches, projectMonitor);
+				projectMonitor.worked(batches.size());
+				batches.clear();
+			}
+		}
+	}
+
+	/**
+	 * Creates the constraints of a compilation unit, unless it has compile errors.
+	 *
+	 * @param source the compilation unit
+	 * @param ast the AST of the compilation unit, with resolved bindings
+	 * @param result the status to add problems to
+	 * @param monitor the progress monitor to report the unit and the created constraints to
+	 */
+	private void createConstraints(ICompilationUnit source, CompilationUnit ast, RefactoringStatus result, IProgressMonitor monitor) {
+		if (monitor.isCanceled())
+			throw new OperationCanceledException();
+		SafeRunner.run(new ISafeRunnable() {
+			@Override
+			public void run() throws Exception {
+				for (IProblem problem : ast.getProblems()) {
+					if (problem.isError()) {
+						String cuName= JavaElementLabels.getElementLabel(source, JavaElementLabels.CU_QUALIFIED);
+						String msg= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_error_in_cu_skipped, new Object[] {cuName});
+						result.addError(msg, JavaStatusContext.create(source, SourceRangeFactory.create(problem)));
+						return;
+					}
+				}
+				ast.accept(new InferTypeArgumentsConstraintCreator(fTCModel, fAssumeCloneReturnsSameType));
+			}
+
+			@Override
+			public void handleException(Throwable exception) {
+				String cuName= JavaElementLabels.getElementLabel(source, JavaElementLabels.CU_QUALIFIED);
+				String msg= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_internal_error, new Object[] {cuName});
+				JavaPlugin.log(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IJavaStatusConstants.INTERNAL_ERROR, msg, null));
+				String msg2= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_error_skipped, new Object[] {cuName});
+				result.addError(msg2, JavaStatusContext.create(source));
+			}
+		});
+		fTCModel.newCu();
+		int constraints= fTCModel.getTypeConstraintCount();
+		long elapsed= System.nanoTime() - fCreationStart;
+		long perSecond= elapsed == 0 ? 0 : constraints * 1000000000L / elapsed;
+		monitor.subTask(Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_creating_constraints,
+				new Object[] { BasicElementLabels.getFileName(source), Integer.valueOf(constraints), Long.valueOf(perSecond) }));
+	}
+
 	private void clearGlobalState() {
 		TypeSet.resetCount();
 		EnumeratedTypeSet.resetCount();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -198,6 +198,13 @@ public class InferTypeArgumentsTCModel {
 		return result;
 	}
 
+	/**
+	 * @return the number of type constraints created so far
+	 */
+	public int getTypeConstraintCount() {
+		return fTypeConstraints.size();
+	}
+
 	public ITypeConstraint2[] getAllTypeConstraints() {
 		Set<ITypeConstraint2> typeConstraints= fTypeConstraints.keySet();
 		return typeConstraints.toArray(new ITypeConstraint2[typeConstraints.size()]);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2018 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -1300,6 +1300,9 @@ public class RenameTypeProcessor extends JavaRenameProcessor implements ITextUpd
 		progressMonitor.beginTask("", max * 3); //$NON-NLS-1$
 		progressMonitor.setTaskName(RefactoringCoreMessages.RenameTypeProcessor_checking_similarly_named_declarations_refactoring_conditions);
 
+		// similarly named methods often share their hierarchies, so create them only once
+		final RippleMethodFinder2.HierarchyCache hierarchyCache= new RippleMethodFinder2.HierarchyCache(null);
+
 		for (Entry<IJavaElement, String> entry : fPreloadedElementToName.entrySet()) {
 
 			IJavaElement element= entry.getKey();
@@ -1363,7 +1366,7 @@ public class RenameTypeProcessor extends JavaRenameProcessor implements ITextUpd
 					final IType declaringType= currentMethod.getDeclaringType();
 					ITypeHierarchy hierarchy= null;
 					if (!declaringType.isInterface())
-						hierarchy= declaringType.newTypeHierarchy(new NullProgressMonitor());
+						hierarchy= hierarchyCache.getTypeHierarchy(declaringType, new NullProgressMonitor());
 
 					final IMethod topmost= MethodChecks.getTopmostMethod(currentMethod, hierarchy, new NullProgressMonitor());
 					if (topmost != null)
@@ -1371,7 +1374,7 @@ public class RenameTypeProcessor extends JavaRenameProcessor implements ITextUpd
 					if (handledTopLevelMethods.contains(currentMethod))
 						continue;
 					handledTopLevelMethods.add(currentMethod);
-					final IMethod[] ripples= RippleMethodFinder2.getRelatedMethods(currentMethod, new NullProgressMonitor(), null);
+					final IMethod[] ripples= RippleMethodFinder2.getRelatedMethods(currentMethod, hierarchyCache, new NullProgressMonitor());
 
 					if (checkForWarnings(warnings, newName, ripples))
 						continue;
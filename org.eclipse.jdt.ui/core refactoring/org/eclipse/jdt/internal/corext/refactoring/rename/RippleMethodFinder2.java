@@ -62,8 +62,8 @@ public class RippleMethodFinder2 {
 	private MultiMap<IType, IMethod> fTypeToMethod;
 	private Set<IType> fRootTypes;
 	private MultiMap<IType, IType> fRootReps;
-	private Map<IType, ITypeHierarchy> fRootHierarchies;
 	private UnionFind fUnionFind;
+	private HierarchyCache fHierarchyCache;
 
 	private final boolean fExcludeBinaries;
 	private final ReferencesInBinaryContext fBinaryRefs;
@@ -86,53 +86,153 @@ public class RippleMethodFinder2 {
 			return fImplementation.get(key);
 		}
 	}
+	/**
+	 * A union-find structure over the types which declare a ripple method. The types are numbered
+	 * in the order in which they are added, and the sets are merged by rank with path compression,
+	 * so finding the representative of a type takes almost constant time, even for interfaces with
+	 * thousands of implementors.
+	 */
 	private static class UnionFind {
-		HashMap<IType, IType> fElementToRepresentative= new HashMap<>();
+		private final Map<IType, Integer> fIds= new HashMap<>();
+		private final List<IType> fTypes= new ArrayList<>();
+		private int[] fParents= new int[16];
+		private byte[] fRanks= new byte[16];
 
 		public void init(IType type) {
-			fElementToRepresentative.put(type, type);
+			if (fIds.containsKey(type))
+				return;
+			int id= fTypes.size();
+			if (id == fParents.length) {
+				fParents= Arrays.copyOf(fParents, 2 * id);
+				fRanks= Arrays.copyOf(fRanks, 2 * id);
+			}
+			fParents[id]= id;
+			fRanks[id]= 0;
+			fIds.put(type, Integer.valueOf(id));
+			fTypes.add(type);
 		}
 
-		//path compression:
+		/**
+		 * @param element a type
+		 * @return the representative of the type's set, or <code>null</code> if the type has not been added
+		 */
 		public IType find(IType element) {
-			IType root= element;
-			IType rep= fElementToRepresentative.get(root);
-			while (rep != null && ! rep.equals(root)) {
-				root= rep;
-				rep= fElementToRepresentative.get(root);
-			}
-			if (rep == null)
+			Integer id= fIds.get(element);
+			if (id == null)
 				return null;
+			return fTypes.get(findRoot(id.intValue()));
+		}
 
-			rep= fElementToRepresentative.get(element);
-			while (! rep.equals(root)) {
-				IType temp= element;
-				element= rep;
-				fElementToRepresentative.put(temp, root);
-				rep= fElementToRepresentative.get(element);
+		private int findRoot(int id) {
+			int root= id;
+			while (fParents[root] != root) {
+				root= fParents[root];
+			}
+			//path compression:
+			while (fParents[id] != root) {
+				int next= fParents[id];
+				fParents[id]= root;
+				id= next;
 			}
 			return root;
 		}
 
-//		//straightforward:
-//		public IType find(IType element) {
-//			IType current= element;
-//			IType rep= (IType) fElementToRepresentative.get(current);
-//			while (rep != null && ! rep.equals(current)) {
-//				current= rep;
-//				rep= (IType) fElementToRepresentative.get(current);
-//			}
-//			if (rep == null)
-//				return null;
-//			else
-//				return current;
-//		}
-
-		public void union(IType rep1, IType rep2) {
-			fElementToRepresentative.put(rep1, rep2);
+		/**
+		 * Merges the sets of the given types. The representative of the merged set is the one of
+		 * the set with the higher rank.
+		 *
+		 * @param element1 a type which has been added
+		 * @param element2 another type which has been added
+		 */
+		public void union(IType element1, IType element2) {
+			int root1= findRoot(fIds.get(element1).intValue());
+			int root2= findRoot(fIds.get(element2).intValue());
+			if (root1 == root2)
+				return;
+			if (fRanks[root1] < fRanks[root2]) {
+				fParents[root1]= root2;
+			} else if (fRanks[root1] > fRanks[root2]) {
+				fParents[root2]= root1;
+			} else {
+				fParents[root2]= root1;
+				fRanks[root1]++;
+			}
 		}
 	}
 
+	/**
+	 * Caches the type hierarchies which are created while finding ripple methods, so they can be
+	 * reused when the ripple methods of several methods are searched in one refactoring session.
+	 * The cached hierarchies are not updated, so a cache must only be used while the Java model
+	 * does not change, and only with the working copy owner it has been created for.
+	 *
+	 */
+	public static final class HierarchyCache {
+		private final WorkingCopyOwner fOwner;
+		private final Map<IType, ITypeHierarchy> fTypeHierarchies= new HashMap<>();
+		private final Map<IType, ITypeHierarchy> fSupertypeHierarchies= new HashMap<>();
+
+		/**
+		 * Creates an empty cache.
+		 *
+		 * @param owner the working copy owner of the hierarchies, or <code>null</code>
+		 */
+		public HierarchyCache(WorkingCopyOwner owner) {
+			fOwner= owner;
+		}
+
+		/**
+		 * @return the working copy owner of the cached hierarchies, or <code>null</code>
+		 */
+		public WorkingCopyOwner getOwner() {
+			return fOwner;
+		}
+
+		/**
+		 * Returns the type hierarchy of the given type, and creates it if it is not cached yet.
+		 *
+		 * @param type the focus type
+		 * @param pm the progress monitor
+		 * @return the type hierarchy of the type
+		 * @throws JavaModelException if the hierarchy could not be created
+		 */
+		public ITypeHierarchy getTypeHierarchy(IType type, IProgressMonitor pm) throws JavaModelException {
+			ITypeHierarchy hierarchy= fTypeHierarchies.get(type);
+			if (hierarchy == null) {
+				hierarchy= type.newTypeHierarchy(fOwner, pm);
+				fTypeHierarchies.put(type, hierarchy);
+			}
+			return hierarchy;
+		}
+
+		/**
+		 * Returns a hierarchy which contains at least all supertypes of the given type. A cached
+		 * type hierarchy of the type is preferred over creating a supertype hierarchy.
+		 *
+		 * @param type the focus type
+		 * @param pm the progress monitor
+		 * @return a hierarchy which contains the supertypes of the type
+		 * @throws JavaModelException if the hierarchy could not be created
+		 */
+		public ITypeHierarchy getSupertypeHierarchy(IType type, IProgressMonitor pm) throws JavaModelException {
+			ITypeHierarchy hierarchy= fTypeHierarchies.get(type);
+			if (hierarchy == null)
+				hierarchy= fSupertypeHierarchies.get(type);
+			if (hierarchy == null) {
+				hierarchy= type.newSupertypeHierarchy(fOwner, pm);
+				fSupertypeHierarchies.put(type, hierarchy);
+			}
+			return hierarchy;
+		}
+
+		/**
+		 * Removes all cached hierarchies.
+		 */
+		public void clear() {
+			fTypeHierarchies.clear();
+			fSupertypeHierarchies.clear();
+		}
+	}
 
 	private RippleMethodFinder2(IMethod method, boolean excludeBinaries, boolean searchOnlyInCompilationUnit){
 		fMethod= method;
@@ -153,7 +253,7 @@ public class RippleMethodFinder2 {
 			if (! MethodChecks.isVirtual(method))
 				return new IMethod[]{ method };
 
-			return new RippleMethodFinder2(method, excludeBinaries, false).getAllRippleMethods(pm, owner);
+			return new RippleMethodFinder2(method, excludeBinaries, false).getAllRippleMethods(pm, new HierarchyCache(owner));
 		} finally{
 			pm.done();
 		}
@@ -163,7 +263,7 @@ public class RippleMethodFinder2 {
 			if (! MethodChecks.isVirtual(method))
 				return new IMethod[]{ method };
 
-			return new RippleMethodFinder2(method, true, true).getAllRippleMethods(pm, owner);
+			return new RippleMethodFinder2(method, true, true).getAllRippleMethods(pm, new HierarchyCache(owner));
 		} finally{
 			pm.done();
 		}
@@ -172,19 +272,47 @@ public class RippleMethodFinder2 {
 		return getRelatedMethods(method, true, pm, owner);
 	}
 
+	/**
+	 * Finds the ripple methods of the given method, using and filling the given hierarchy cache.
+	 * Callers which look for the ripple methods of several methods should share one cache, so the
+	 * type hierarchies are only created once.
+	 *
+	 * @param method the method
+	 * @param cache the cache of type hierarchies, which also defines the working copy owner
+	 * @param pm the progress monitor
+	 * @return the ripple methods, excluding binary methods
+	 * @throws CoreException if the search failed
+	 */
+	public static IMethod[] getRelatedMethods(IMethod method, HierarchyCache cache, IProgressMonitor pm) throws CoreException {
+		try {
+			if (! MethodChecks.isVirtual(method))
+				return new IMethod[]{ method };
+
+			return new RippleMethodFinder2(method, true, false).getAllRippleMethods(pm, cache);
+		} finally{
+			pm.done();
+		}
+	}
+
 	public static IMethod[] getRelatedMethods(IMethod method, ReferencesInBinaryContext binaryRefs, IProgressMonitor pm, WorkingCopyOwner owner) throws CoreException {
 		try {
 			if (! MethodChecks.isVirtual(method))
 				return new IMethod[]{ method };
 
-			return new RippleMethodFinder2(method, binaryRefs).getAllRippleMethods(pm, owner);
+			return new RippleMethodFinder2(method, binaryRefs).getAllRippleMethods(pm, new HierarchyCache(owner));
 		} finally{
 			pm.done();
 		}
 	}
 
-	private IMethod[] getAllRippleMethods(IProgressMonitor pm, WorkingCopyOwner owner) throws CoreException {
-		IMethod[] rippleMethods= findAllRippleMethods(pm, owner);
+	private IMethod[] getAllRippleMethods(IProgressMonitor pm, HierarchyCache cache) throws CoreException {
+		IMethod[] rippleMethods;
+		fHierarchyCache= cache;
+		try {
+			rippleMethods= findAllRippleMethods(pm, cache.getOwner());
+		} finally {
+			fHierarchyCache= null;
+		}
 		if (fDeclarationToMatch == null)
 			return rippleMethods;
 
@@ -277,11 +405,11 @@ public class RippleMethodFinder2 {
 		 */
 		checkCanceled(pm);
 		IType methodType= fMethod.getDeclaringType();
-		ITypeHierarchy methodHierarchy= hierarchy(pm, owner, fUnionFind.find(methodType));
+		ITypeHierarchy methodHierarchy= hierarchy(pm, fUnionFind.find(methodType));
 		IType[] methodTypeSubtypes= methodHierarchy.getAllSubtypes(methodType);
 		// don't spend time on this check, unless we have a small hierarchy for the type under rename and a lot of search matches
 		if (methodTypeSubtypes.length <= numberOfSearchMatches / 10) {
-			boolean couldHaveMarriedAlienTypes= couldHaveMarriedAlienTypes(pm, owner, methodHierarchy, methodTypeSubtypes);
+			boolean couldHaveMarriedAlienTypes= couldHaveMarriedAlienTypes(pm, methodHierarchy, methodTypeSubtypes);
 			if (!couldHaveMarriedAlienTypes) {
 				return toArray(relatedMethods);
 			}
@@ -294,7 +422,7 @@ public class RippleMethodFinder2 {
 			//TODO: would only need subtype hierarchies of all top-of-ripple relatedTypesToProcess
 			for (IType relatedType : relatedTypesToProcess) {
 				checkCanceled(pm);
-				ITypeHierarchy hierarchy= hierarchy(pm, owner, relatedType);
+				ITypeHierarchy hierarchy= hierarchy(pm, relatedType);
 				IType[] allSubTypes= hierarchy.getAllSubtypes(relatedType);
 				relatedSubTypes.addAll(Arrays.asList(allSubTypes));
 			}
@@ -305,7 +433,7 @@ public class RippleMethodFinder2 {
 				checkCanceled(pm);
 				Collection<IMethod> alienMethods= fTypeToMethod.get(alienType);
 				for (IMethod alienMethod : alienMethods) {
-					ITypeHierarchy hierarchy= hierarchy(pm, owner, alienType);
+					ITypeHierarchy hierarchy= hierarchy(pm, alienType);
 
 					for (IType subtype : hierarchy.getAllSubtypes(alienType)) {
 						if (relatedSubTypes.contains(subtype)) {
@@ -333,7 +461,6 @@ public class RippleMethodFinder2 {
 		}
 
 		fRootReps= null;
-		fRootHierarchies= null;
 		fTypeToMethod= null;
 		fUnionFind= null;
 
@@ -344,20 +471,20 @@ public class RippleMethodFinder2 {
 	 * For the method under rename, checks if any sub-type inherits a method with the same name from a different super type.
 	 *
 	 * @param pm progress monitor to
-	 * @param owner owner of the compilation unit under rename
 	 * @param methodHierarchy the type hierarchy of the method under rename
 	 * @param methodTypeSubtypes the sub-types of the type under rename
 	 * @return {@code false} if there can be no married alien types to the method under rename, {@code true} otherwise.
 	 * @throws JavaModelException if creating a type hierarchy fails
 	 */
-	private boolean couldHaveMarriedAlienTypes(IProgressMonitor pm, WorkingCopyOwner owner, ITypeHierarchy methodHierarchy, IType[] methodTypeSubtypes) throws JavaModelException {
+	private boolean couldHaveMarriedAlienTypes(IProgressMonitor pm, ITypeHierarchy methodHierarchy, IType[] methodTypeSubtypes) throws JavaModelException {
 		Set<IType> allTypesInMethodHierarchy= new HashSet<>(Arrays.asList(methodHierarchy.getAllClasses()));
 		allTypesInMethodHierarchy.addAll(Arrays.asList(methodHierarchy.getAllInterfaces()));
 
 
 		for (IType methodTypeSubtype : methodTypeSubtypes) {
 			checkCanceled(pm);
-			ITypeHierarchy subtypeHierarchy= methodTypeSubtype.newTypeHierarchy(owner, pm);
+			// only the supertypes are needed, and they are shared by many subtypes
+			ITypeHierarchy subtypeHierarchy= fHierarchyCache.getSupertypeHierarchy(methodTypeSubtype, pm);
 			IType[] subtypeSuperTypes= subtypeHierarchy.getAllSupertypes(methodTypeSubtype);
 			for (IType subtypeSuperType : subtypeSuperTypes) {
 				checkCanceled(pm);
@@ -399,11 +526,11 @@ public class RippleMethodFinder2 {
 		}
 	}
 
-	private ITypeHierarchy hierarchy(IProgressMonitor pm, WorkingCopyOwner owner, IType type)
+	private ITypeHierarchy hierarchy(IProgressMonitor pm, IType type)
 			throws JavaModelException {
-		ITypeHierarchy hierarchy= getCachedHierarchy(type, owner, new SubProgressMonitor(pm, 1));
+		ITypeHierarchy hierarchy= getCachedHierarchy(type, new SubProgressMonitor(pm, 1));
 		if (hierarchy == null)
-			hierarchy= type.newTypeHierarchy(owner, new SubProgressMonitor(pm, 1));
+			hierarchy= fHierarchyCache.getTypeHierarchy(type, new SubProgressMonitor(pm, 1));
 		return hierarchy;
 	}
 
@@ -417,15 +544,11 @@ public class RippleMethodFinder2 {
 
 	}
 
-	private ITypeHierarchy getCachedHierarchy(IType type, WorkingCopyOwner owner, IProgressMonitor monitor) throws JavaModelException {
+	private ITypeHierarchy getCachedHierarchy(IType type, IProgressMonitor monitor) throws JavaModelException {
 		IType rep= fUnionFind.find(type);
 		if (rep != null) {
 			for (IType root : fRootReps.get(rep)) {
-				ITypeHierarchy hierarchy= fRootHierarchies.get(root);
-				if (hierarchy == null) {
-					hierarchy= root.newTypeHierarchy(owner, new SubProgressMonitor(monitor, 1));
-					fRootHierarchies.put(root, hierarchy);
-				}
+				ITypeHierarchy hierarchy= fHierarchyCache.getTypeHierarchy(root, new SubProgressMonitor(monitor, 1));
 				if (hierarchy.contains(type))
 					return hierarchy;
 			}
@@ -510,7 +633,6 @@ public class RippleMethodFinder2 {
 			if (rep != null)
 				fRootReps.put(rep, type);
 		}
-		fRootHierarchies= new HashMap<>();
 	}
 
 	private void uniteWithSupertypes(IType anchor, IType type) throws JavaModelException {
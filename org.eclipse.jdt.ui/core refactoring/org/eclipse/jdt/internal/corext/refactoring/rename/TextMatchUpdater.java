@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -15,9 +15,16 @@ package org.eclipse.jdt.internal.corext.refactoring.rename;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
@@ -50,8 +57,19 @@ import org.eclipse.jdt.internal.corext.refactoring.SearchResultGroup;
 import org.eclipse.jdt.internal.corext.refactoring.changes.TextChangeCompatibility;
 import org.eclipse.jdt.internal.corext.refactoring.rename.RefactoringScanner.TextMatch;
 import org.eclipse.jdt.internal.corext.refactoring.tagging.ITextUpdating;
+import org.eclipse.jdt.internal.corext.refactoring.util.RawContentFilter;
 import org.eclipse.jdt.internal.corext.refactoring.util.TextChangeManager;
+import org.eclipse.jdt.internal.corext.util.Parallelism;
 
+/**
+ * Updates the textual matches of a renamed element in strings and comments.
+ * <p>
+ * The compilation units in the scope are collected first. They are then scanned concurrently,
+ * skipping the units whose raw contents do not contain the name, and the matches are added to the
+ * text changes in the order of the units, so the changes do not depend on the timing of the
+ * threads.
+ * </p>
+ */
 class TextMatchUpdater {
 
 	private static final String TEXT_EDIT_LABEL= RefactoringCoreMessages.TextMatchUpdater_update;
@@ -66,7 +84,9 @@ class TextMatchUpdater {
 	private final SearchResultGroup[] fReferences;
 	private final boolean fOnlyQualified;
 
-	private final RefactoringScanner fScanner;
+	private final String fCurrentName;
+	private final String fCurrentQualifier;
+	private final RawContentFilter fFilter;
 	private final String fNewName;
 	private final int fCurrentNameLength;
 
@@ -81,7 +101,9 @@ class TextMatchUpdater {
 
 		fNewName= newName;
 		fCurrentNameLength= currentName.length();
-		fScanner= new RefactoringScanner(currentName, currentQualifier);
+		fCurrentName= currentName;
+		fCurrentQualifier= currentQualifier;
+		fFilter= new RawContentFilter(currentName);
 	}
 
 	static void perform(IProgressMonitor pm, IJavaSearchScope scope, String currentName, String currentQualifier, String newName, TextChangeManager manager, SearchResultGroup[] references, boolean onlyQualified) throws JavaModelException{
@@ -96,12 +118,14 @@ class TextMatchUpdater {
 		try{
 			IProject[] projectsInScope= getProjectsInScope();
 
-			pm.beginTask("", projectsInScope.length); //$NON-NLS-1$
+			pm.beginTask("", 2 * projectsInScope.length); //$NON-NLS-1$
+			List<ICompilationUnit> cus= new ArrayList<>();
 			for (IProject project : projectsInScope) {
 				if (pm.isCanceled())
 					throw new OperationCanceledException();
-				addTextMatches(project, new SubProgressMonitor(pm, 1));
+				addCompilationUnits(project, cus, new SubProgressMonitor(pm, 1));
 			}
+			addTextMatches(cus, new SubProgressMonitor(pm, projectsInScope.length));
 		} finally{
 			pm.done();
 		}
@@ -120,7 +144,7 @@ class TextMatchUpdater {
 		return projectsInScope.toArray(new IProject[projectsInScope.size()]);
 	}
 
-	private void addTextMatches(IResource resource, IProgressMonitor pm) throws JavaModelException{
+	private void addCompilationUnits(IResource resource, List<ICompilationUnit> cus, IProgressMonitor pm) throws JavaModelException{
 		try{
 			String task= RefactoringCoreMessages.TextMatchUpdater_searching + resource.getFullPath();
 			if (resource instanceof IFile){
@@ -132,7 +156,7 @@ class TextMatchUpdater {
 					return;
 				if (! fScope.encloses(element))
 					return;
-				addCuTextMatches((ICompilationUnit) element);
+				cus.add((ICompilationUnit) element);
 
 			} else if (resource instanceof IContainer){
 				IResource[] members= ((IContainer) resource).members();
@@ -141,7 +165,7 @@ class TextMatchUpdater {
 				for (IResource member : members) {
 					if (pm.isCanceled())
 						throw new OperationCanceledException();
-					addTextMatches(member, new SubProgressMonitor(pm, 1));
+					addCompilationUnits(member, cus, new SubProgressMonitor(pm, 1));
 				}
 			}
 		} catch (JavaModelException e){
@@ -153,9 +177,78 @@ class TextMatchUpdater {
 		}
 	}
 
-	private void addCuTextMatches(ICompilationUnit cu) throws JavaModelException{
-		fScanner.scan(cu);
-		Set<TextMatch> matches= fScanner.getMatches(); //Set of TextMatch
+	private void addTextMatches(List<ICompilationUnit> cus, IProgressMonitor pm) throws JavaModelException {
+		try {
+			pm.beginTask("", cus.size()); //$NON-NLS-1$
+			if (Parallelism.DEFAULT <= 1 || cus.size() < 2) {
+				for (ICompilationUnit cu : cus) {
+					if (pm.isCanceled())
+						throw new OperationCanceledException();
+					addCuTextMatches(cu, scan(cu));
+					pm.worked(1);
+				}
+				return;
+			}
+			ExecutorService executor= Executors.newFixedThreadPool(Parallelism.DEFAULT);
+			try {
+				List<Future<Set<TextMatch>>> futures= new ArrayList<>(cus.size());
+				for (ICompilationUnit cu : cus) {
+					futures.add(executor.submit(() -> {
+						if (pm.isCanceled())
+							throw new OperationCanceledException();
+						return scan(cu);
+					}));
+				}
+				// the text change manager is not thread-safe, so the matches are added here
+				for (int i= 0; i < cus.size(); i++) {
+					if (pm.isCanceled())
+						throw new OperationCanceledException();
+					addCuTextMatches(cus.get(i), getMatches(futures.get(i)));
+					pm.worked(1);
+				}
+			} finally {
+				executor.shutdownNow();
+			}
+		} finally {
+			pm.done();
+		}
+	}
+
+	private static Set<TextMatch> getMatches(Future<Set<TextMatch>> future) throws JavaModelException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			Throwable cause= e.getCause();
+			if (cause instanceof JavaModelException)
+				throw (JavaModelException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Scans a compilation unit for textual matches. Can be called from any thread.
+	 *
+	 * @param cu the compilation unit
+	 * @return the matches
+	 * @throws JavaModelException if the contents of the unit cannot be accessed
+	 */
+	private Set<TextMatch> scan(ICompilationUnit cu) throws JavaModelException {
+		IResource resource= cu.getResource();
+		if (resource instanceof IFile && !cu.hasUnsavedChanges() && !fFilter.canContain((IFile) resource))
+			return Collections.emptySet();
+		RefactoringScanner scanner= new RefactoringScanner(fCurrentName, fCurrentQualifier);
+		scanner.scan(cu);
+		return scanner.getMatches();
+	}
+
+	private void addCuTextMatches(ICompilationUnit cu, Set<TextMatch> matches) {
 		if (matches.isEmpty())
 			return;
 
@@ -185,7 +278,9 @@ class TextMatchUpdater {
 	}
 
 	private void addTextUpdates(ICompilationUnit cu, Set<TextMatch> matches) {
-		for (TextMatch match : matches) {
+		List<TextMatch> sortedMatches= new ArrayList<>(matches);
+		sortedMatches.sort(Comparator.comparingInt(TextMatch::getStartPosition));
+		for (TextMatch match : sortedMatches) {
 			if (!match.isQualified() && fOnlyQualified)
 				continue;
 			int matchStart= match.getStartPosition();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -26,6 +26,13 @@ import org.eclipse.jdt.internal.corext.refactoring.typeconstraints2.TTypes;
 /**
  * A type-safe wrapper for {@code Set<TType>} that also adds {@code TType}-specific
  * functionality, e.g. subTypes() and superTypes().
+ * <p>
+ * If the universe of types is small enough, the members are also kept in a {@link TypeBitSet},
+ * which answers intersections, inclusions and equality checks between enumerated type sets
+ * word by word. The ordered set of members stays the reference for iteration.
+ * </p>
+ *
+ * @see TypeSetEnvironment#isDense()
  */
 public class EnumeratedTypeSet extends TypeSet {
 	static private int sCount= 0;
@@ -41,7 +48,13 @@ public class EnumeratedTypeSet extends TypeSet {
 	/**
 	 * Set containing the TTypes in this EnumeratedTypeSet.
 	 */
-	Set<TType> fMembers= new LinkedHashSet<>();
+	private Set<TType> fMembers= new LinkedHashSet<>();
+
+	/**
+	 * The members as a bit set, or <code>null</code> if the universe of types is too large or some
+	 * member belongs to another type environment.
+	 */
+	private TypeBitSet fBits;
 
 	/**
 	 * Constructs a new EnumeratedTypeSet with the members of Set s in it.
@@ -52,8 +65,9 @@ public class EnumeratedTypeSet extends TypeSet {
 	 */
 	public EnumeratedTypeSet(Iterator<TType> types, TypeSetEnvironment typeSetEnvironment) {
 		super(typeSetEnvironment);
+		fBits= typeSetEnvironment.createTypeBitSet();
 		while (types.hasNext()) {
-			fMembers.add(types.next());
+			addMember(types.next());
 		}
 		sCount++;
 	}
@@ -65,6 +79,7 @@ public class EnumeratedTypeSet extends TypeSet {
 	 */
 	public EnumeratedTypeSet(TypeSetEnvironment typeSetEnvironment) {
 		super(typeSetEnvironment);
+		fBits= typeSetEnvironment.createTypeBitSet();
 		sCount++;
 	}
 
@@ -77,7 +92,8 @@ public class EnumeratedTypeSet extends TypeSet {
 	public EnumeratedTypeSet(TType t, TypeSetEnvironment typeSetEnvironment) {
 		super(typeSetEnvironment);
 		Assert.isNotNull(t);
-		fMembers.add(t);
+		fBits= typeSetEnvironment.createTypeBitSet();
+		addMember(t);
 		sCount++;
 	}
 
@@ -95,6 +111,8 @@ public class EnumeratedTypeSet extends TypeSet {
 		if (o instanceof EnumeratedTypeSet) {
 			EnumeratedTypeSet other= (EnumeratedTypeSet) o;
 
+			if (fBits != null && other.fBits != null)
+				return fBits.equals(other.fBits);
 			return fMembers.equals(other.fMembers);
 		} else if (o instanceof SingletonTypeSet) {
 			SingletonTypeSet other= (SingletonTypeSet) o;
@@ -129,6 +147,10 @@ public class EnumeratedTypeSet extends TypeSet {
 	@Override
 	protected TypeSet specialCasesIntersectedWith(TypeSet s2) {
 		if (s2 instanceof EnumeratedTypeSet) {
+			EnumeratedTypeSet ets2= (EnumeratedTypeSet) s2;
+			if (fBits != null && ets2.fBits != null && !fBits.intersects(ets2.fBits))
+				return getTypeSetEnvironment().getEmptyTypeSet();
+
 			EnumeratedTypeSet result= new EnumeratedTypeSet(getTypeSetEnvironment());
 
 			result.addAll(this); // copy first since retainAll() modifies in-place
@@ -153,7 +175,8 @@ public class EnumeratedTypeSet extends TypeSet {
 			// if s2 has array types, the following will retain them, as it should.
 			EnumeratedTypeSet ets2= (EnumeratedTypeSet) s2;
 			fMembers= new LinkedHashSet<>();
-			fMembers.addAll(ets2.fMembers);
+			fBits= getTypeSetEnvironment().createTypeBitSet();
+			addAll(ets2);
 		} else
 			retainAll(s2);
 	}
@@ -201,6 +224,7 @@ public class EnumeratedTypeSet extends TypeSet {
 		EnumeratedTypeSet result= new EnumeratedTypeSet(getTypeSetEnvironment());
 
 		result.fMembers.addAll(fMembers);
+		result.fBits= fBits != null ? new TypeBitSet(fBits) : null;
 		result.initComplete();
 		return result;
 	}
@@ -214,6 +238,8 @@ public class EnumeratedTypeSet extends TypeSet {
 			fMembers= new LinkedHashSet<>();
 		else
 			fMembers.clear();
+		if (fBits != null)
+			fBits.clear();
 	}
 
 	@Override
@@ -228,20 +254,38 @@ public class EnumeratedTypeSet extends TypeSet {
 	public boolean add(TType t) {
 		// Doesn't make sense to do here what other methods do (copy-and-modify)
 		Assert.isTrue(!isUniverse(), "Someone's trying to expand the universe!"); //$NON-NLS-1$
-		return fMembers.add(t);
+		return addMember(t);
+	}
+
+	private boolean addMember(TType t) {
+		if (!fMembers.add(t))
+			return false;
+		if (fBits != null) {
+			if (fBits.canHold(t))
+				fBits.add(t);
+			else
+				fBits= null; // a type of another environment has no dense id
+		}
+		return true;
 	}
 
 	@Override
 	public boolean contains(TType t) {
 		if (isUniverse())
 			return true;
+		if (fBits != null && fBits.canHold(t))
+			return fBits.contains(t);
 		return fMembers.contains(t);
 	}
 
 	public boolean remove(TType t) {
 		if (isUniverse())
 			fMembers= cloneSet(fMembers);
-		return fMembers.remove(t);
+		if (!fMembers.remove(t))
+			return false;
+		if (fBits != null)
+			fBits.remove(t);
+		return true;
 	}
 
 	private Set<TType> cloneSet(Set<TType> members) {
@@ -249,15 +293,15 @@ public class EnumeratedTypeSet extends TypeSet {
 	}
 
 	public boolean addAll(TypeSet s) {
-		if (s instanceof EnumeratedTypeSet) {
-			EnumeratedTypeSet ets= (EnumeratedTypeSet) s;
-
-			return fMembers.addAll(ets.fMembers);
-		} else {
-			EnumeratedTypeSet ets= s.enumerate();
+		EnumeratedTypeSet ets= s.enumerate();
 
-			return fMembers.addAll(ets.fMembers);
+		if (fBits != null && ets.fBits != null && fBits.containsAll(ets.fBits))
+			return false;
+		boolean changed= false;
+		for (TType t : ets.fMembers) {
+			changed|= addMember(t);
 		}
+		return changed;
 	}
 
 	@Override
@@ -278,13 +322,24 @@ public class EnumeratedTypeSet extends TypeSet {
 			return false;
 		EnumeratedTypeSet ets= s.enumerate();
 
+		if (fBits != null && ets.fBits != null)
+			return fBits.containsAll(ets.fBits);
 		return fMembers.containsAll(ets.fMembers);
 	}
 
 	public boolean removeAll(EnumeratedTypeSet s) {
 		if (isUniverse())
 			fMembers= cloneSet(fMembers);
-		return fMembers.removeAll(s.fMembers);
+		if (fBits != null && s.fBits != null) {
+			if (!fBits.intersects(s.fBits))
+				return false;
+			fBits.removeAll(s.fBits);
+			return fMembers.removeIf(t -> !fBits.contains(t));
+		}
+		boolean changed= fMembers.removeAll(s.fMembers);
+		if (changed && fBits != null)
+			fBits= createTypeBitSet(fMembers);
+		return changed;
 	}
 
 	public boolean retainAll(TypeSet s) {
@@ -294,9 +349,36 @@ public class EnumeratedTypeSet extends TypeSet {
 
 		if (isUniverse()) {
 			fMembers= cloneSet(ets.fMembers);
+			fBits= createTypeBitSet(fMembers);
 			return true;
-		} else
-			return fMembers.retainAll(ets.fMembers);
+		} else if (fBits != null && ets.fBits != null) {
+			if (ets.fBits.containsAll(fBits))
+				return false;
+			fBits.retainAll(ets.fBits);
+			return fMembers.removeIf(t -> !fBits.contains(t));
+		} else {
+			boolean changed= fMembers.retainAll(ets.fMembers);
+			if (changed && fBits != null)
+				fBits= createTypeBitSet(fMembers);
+			return changed;
+		}
+	}
+
+	/**
+	 * @param members the types
+	 * @return a new bit set of the given types, or <code>null</code> if they cannot be represented
+	 *         by a bit set
+	 */
+	private TypeBitSet createTypeBitSet(Set<TType> members) {
+		TypeBitSet bits= getTypeSetEnvironment().createTypeBitSet();
+		if (bits != null) {
+			for (TType t : members) {
+				if (!bits.canHold(t))
+					return null;
+				bits.add(t);
+			}
+		}
+		return bits;
 	}
 
 	@Override
@@ -319,17 +401,17 @@ public class EnumeratedTypeSet extends TypeSet {
 		EnumeratedTypeSet result= new EnumeratedTypeSet(getTypeSetEnvironment());
 
 		// Add to result each element of fMembers that has no proper supertype in fMembers
-		result.fMembers.addAll(fMembers);
+		result.addAll(this);
 		for (TType t : fMembers) {
 			if (t.isArrayType()) {
 				ArrayType at= (ArrayType) t;
 				int numDims= at.getDimensions();
 				for(Iterator<TType> subIter=TTypes.getAllSubTypesIterator(at.getElementType()); subIter.hasNext(); ) {
-					result.fMembers.remove(TTypes.createArrayType(subIter.next(), numDims));
+					result.remove(TTypes.createArrayType(subIter.next(), numDims));
 				}
 			} else {
 				for (Iterator<TType> iterator= TTypes.getAllSubTypesIterator(t); iterator.hasNext();) {
-					result.fMembers.remove(iterator.next());
+					result.remove(iterator.next());
 				}
 			}
 		}
@@ -345,13 +427,13 @@ public class EnumeratedTypeSet extends TypeSet {
 		EnumeratedTypeSet result= new EnumeratedTypeSet(getTypeSetEnvironment());
 
 		// Add to result each element of fMembers that has no proper subtype in fMembers
-		result.fMembers.addAll(fMembers);
+		result.addAll(this);
 
 		for (TType t : fMembers) {
 			// java.lang.Object is only in the lower bound if fMembers consists
 			// of only java.lang.Object, but that case is handled above.
 			if (t.equals(getJavaLangObject())) {
-				result.fMembers.remove(t);
+				result.remove(t);
 				continue;
 			}
 
@@ -359,11 +441,11 @@ public class EnumeratedTypeSet extends TypeSet {
 				ArrayType at= (ArrayType) t;
 				int numDims= at.getDimensions();
 				for(Iterator<TType> superIter=TTypes.getAllSuperTypesIterator(at.getElementType()); superIter.hasNext(); ) {
-					result.fMembers.remove(TTypes.createArrayType(superIter.next(), numDims));
+					result.remove(TTypes.createArrayType(superIter.next(), numDims));
 				}
 			} else {
 				for (Iterator<TType> iterator= TTypes.getAllSuperTypesIterator(t); iterator.hasNext();) {
-					result.fMembers.remove(iterator.next());
+					result.remove(iterator.next());
 				}
 			}
 		}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.typeconstraints.typesets;
+
+import java.util.Arrays;
+
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TType;
+import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TypeEnvironment;
+
+/**
+ * A set of the types of one {@link TypeEnvironment}, stored as a bit set over the dense type ids.
+ * Set operations work on whole words of 64 types at a time. Since the environment creates each type
+ * only once, the bits agree with the {@link TType#equals(Object)} of the members.
+ *
+ * @see TType#getTypeId()
+ */
+final class TypeBitSet {
+
+	private static final long[] NO_WORDS= new long[0];
+
+	private final TypeEnvironment fEnvironment;
+
+	private long[] fWords;
+
+	TypeBitSet(TypeEnvironment environment) {
+		fEnvironment= environment;
+		fWords= NO_WORDS;
+	}
+
+	TypeBitSet(TypeBitSet other) {
+		fEnvironment= other.fEnvironment;
+		fWords= other.fWords.clone();
+	}
+
+	/**
+	 * @param t a type
+	 * @return <code>true</code> iff the type belongs to the environment of this set, and can
+	 *         therefore be added to it
+	 */
+	boolean canHold(TType t) {
+		return t.getEnvironment() == fEnvironment;
+	}
+
+	boolean add(TType t) {
+		int id= t.getTypeId();
+		int index= id >>> 6;
+		if (index >= fWords.length)
+			fWords= Arrays.copyOf(fWords, Math.max(index + 1, 2 * fWords.length));
+		long old= fWords[index];
+		fWords[index]= old | (1L << id);
+		return old != fWords[index];
+	}
+
+	boolean remove(TType t) {
+		int id= t.getTypeId();
+		int index= id >>> 6;
+		if (index >= fWords.length)
+			return false;
+		long old= fWords[index];
+		fWords[index]= old & ~(1L << id);
+		return old != fWords[index];
+	}
+
+	boolean contains(TType t) {
+		int id= t.getTypeId();
+		int index= id >>> 6;
+		return index < fWords.length && (fWords[index] & (1L << id)) != 0;
+	}
+
+	boolean containsAll(TypeBitSet other) {
+		long[] otherWords= other.fWords;
+		for (int i= 0; i < otherWords.length; i++) {
+			if ((otherWords[i] & ~getWord(i)) != 0)
+				return false;
+		}
+		return true;
+	}
+
+	boolean intersects(TypeBitSet other) {
+		int length= Math.min(fWords.length, other.fWords.length);
+		for (int i= 0; i < length; i++) {
+			if ((fWords[i] & other.fWords[i]) != 0)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Removes all types which are not in the given set.
+	 *
+	 * @param other the types to retain
+	 */
+	void retainAll(TypeBitSet other) {
+		for (int i= 0; i < fWords.length; i++) {
+			fWords[i]&= other.getWord(i);
+		}
+	}
+
+	/**
+	 * Removes all types which are in the given set.
+	 *
+	 * @param other the types to remove
+	 */
+	void removeAll(TypeBitSet other) {
+		int length= Math.min(fWords.length, other.fWords.length);
+		for (int i= 0; i < length; i++) {
+			fWords[i]&= ~other.fWords[i];
+		}
+	}
+
+	void clear() {
+		Arrays.fill(fWords, 0);
+	}
+
+	private long getWord(int index) {
+		return index < fWords.length ? fWords[index] : 0;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof TypeBitSet))
+			return false;
+		TypeBitSet other= (TypeBitSet) obj;
+		if (fEnvironment != other.fEnvironment)
+			return false;
+		int length= Math.max(fWords.length, other.fWords.length);
+		for (int i= 0; i < length; i++) {
+			if (getWord(i) != other.getWord(i))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		long hash= 1234;
+		for (int i= fWords.length; --i >= 0;) {
+			hash^= fWords[i] * (i + 1);
+		}
+		return (int) ((hash >> 32) ^ hash);
+	}
+}
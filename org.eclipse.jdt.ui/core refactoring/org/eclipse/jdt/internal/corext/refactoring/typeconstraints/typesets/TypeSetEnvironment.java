@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2015 IBM Corporation and others.
+ * Copyright (c) 2005, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -24,6 +24,14 @@ import org.eclipse.jdt.internal.corext.refactoring.typeconstraints.types.TypeEnv
 
 public class TypeSetEnvironment {
 
+	/**
+	 * The default maximum number of types for which enumerated type sets keep their members in a
+	 * {@link TypeBitSet}. This bounds the size of a bit set to 2 KB.
+	 */
+	private static final int MAX_DENSE_TYPE_COUNT= 1 << 14;
+
+	private final int fMaxDenseTypeCount;
+
 	private final TypeEnvironment fTypeEnvironment;
 	private final TypeUniverseSet fUniverse;
 	private final EmptyTypeSet fEmptyTypeSet;
@@ -37,11 +45,47 @@ public class TypeSetEnvironment {
 	private int fgCommonExprMisses= 0;
 
 	public TypeSetEnvironment(TypeEnvironment typeEnvironment) {
+		this(typeEnvironment, MAX_DENSE_TYPE_COUNT);
+	}
+
+	/**
+	 * Creates a type set environment whose enumerated type sets use bit sets as long as the type
+	 * environment holds at most the given number of types.
+	 *
+	 * @param typeEnvironment the type environment
+	 * @param maxDenseTypeCount the maximum number of types for bit sets, a negative value to never
+	 *            use bit sets
+	 */
+	public TypeSetEnvironment(TypeEnvironment typeEnvironment, int maxDenseTypeCount) {
 		fTypeEnvironment= typeEnvironment;
+		fMaxDenseTypeCount= maxDenseTypeCount;
 		fUniverse= new TypeUniverseSet(this);
 		fEmptyTypeSet= new EmptyTypeSet(this);
 	}
 
+	public TypeEnvironment getTypeEnvironment() {
+		return fTypeEnvironment;
+	}
+
+	/**
+	 * Returns whether the universe of types is small enough for type sets to be represented by
+	 * bit sets over the type ids.
+	 *
+	 * @return <code>true</code> iff enumerated type sets keep a bit set of their members
+	 */
+	public boolean isDense() {
+		return fTypeEnvironment.getTypeCount() <= fMaxDenseTypeCount;
+	}
+
+	/**
+	 * @return a new bit set for the types of this environment, or <code>null</code> if the
+	 *         universe of types is too large
+	 * @see #isDense()
+	 */
+	TypeBitSet createTypeBitSet() {
+		return isDense() ? new TypeBitSet(fTypeEnvironment) : null;
+	}
+
 	public TType getJavaLangObject() {
 		return fTypeEnvironment.getJavaLangObject();
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,7 +14,12 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.refactoring.util;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.regex.Pattern;
@@ -61,10 +66,17 @@ public class QualifiedNameFinder {
 
 		private final String fNewValue;
 		private final QualifiedNameSearchResult fResult;
+		private final RawContentFilter fFilter;
 
-		public ResultCollector(QualifiedNameSearchResult result, String newValue) {
+		/**
+		 * The edits of the matches per file, which are collected from several threads
+		 */
+		private final Map<IFile, List<ReplaceEdit>> fEdits= new HashMap<>();
+
+		public ResultCollector(QualifiedNameSearchResult result, String newValue, RawContentFilter filter) {
 			fResult= result;
 			fNewValue= newValue;
+			fFilter= filter;
 		}
 
 		@Override
@@ -87,7 +99,7 @@ public class QualifiedNameFinder {
 			if (segment != null && (segment.startsWith(".refactorings") || segment.startsWith(".deprecations"))) //$NON-NLS-1$ //$NON-NLS-2$
 				return false;
 
-			return true;
+			return fFilter == null || fFilter.canContain(file);
 		}
 
 		@Override
@@ -110,16 +122,34 @@ public class QualifiedNameFinder {
 			}
 
 			IFile file= matchAccess.getFile();
-			synchronized(fResult) {
-				TextChange change= fResult.getChange(file);
-				TextChangeCompatibility.addTextEdit(
-					change,
-					RefactoringCoreMessages.QualifiedNameFinder_update_name,
-					new ReplaceEdit(start, length, fNewValue), QUALIFIED_NAMES);
+			ReplaceEdit edit= new ReplaceEdit(start, length, fNewValue);
+			synchronized(fEdits) {
+				fEdits.computeIfAbsent(file, f -> new ArrayList<>()).add(edit);
 			}
 
 			return true;
 		}
+
+		/**
+		 * Adds the collected edits to the result. The files and edits are added in a fixed order,
+		 * so the result does not depend on the order in which the files were searched.
+		 */
+		public void addEdits() {
+			List<IFile> files= new ArrayList<>(fEdits.keySet());
+			files.sort(Comparator.comparing(file -> file.getFullPath().toString()));
+			for (IFile file : files) {
+				List<ReplaceEdit> edits= fEdits.get(file);
+				edits.sort(Comparator.comparingInt(ReplaceEdit::getOffset));
+				TextChange change= fResult.getChange(file);
+				for (ReplaceEdit edit : edits) {
+					TextChangeCompatibility.addTextEdit(
+						change,
+						RefactoringCoreMessages.QualifiedNameFinder_update_name,
+						edit, QUALIFIED_NAMES);
+				}
+			}
+			fEdits.clear();
+		}
 	}
 
 	private QualifiedNameFinder() {
@@ -140,11 +170,18 @@ public class QualifiedNameFinder {
 			return;
 		}
 
-		ResultCollector collector= new ResultCollector(result, newValue);
+		// the pattern is a plain name unless it contains wildcards
+		RawContentFilter filter= containsWildcards(pattern) ? null : new RawContentFilter(pattern);
+		ResultCollector collector= new ResultCollector(result, newValue, filter);
 		TextSearchEngine engine= TextSearchEngine.create();
 		Pattern searchPattern= PatternConstructor.createPattern(pattern, true, false);
 
 		engine.search(createScope(filePatterns, root), collector, searchPattern, monitor);
+		collector.addEdits();
+	}
+
+	private static boolean containsWildcards(String pattern) {
+		return pattern.indexOf('*') != -1 || pattern.indexOf('?') != -1 || pattern.indexOf('\\') != -1;
 	}
 
 	private static TextSearchScope createScope(String filePatterns, IProject root) {
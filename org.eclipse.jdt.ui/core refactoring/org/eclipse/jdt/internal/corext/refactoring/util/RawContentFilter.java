@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.core.resources.IFile;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.LocationKind;
+
+/**
+ * A cheap test whether a file can contain a text, which looks for the text in the raw bytes of the
+ * file instead of decoding and scanning its contents.
+ * <p>
+ * The test only rules out files when that is safe. It accepts all files if the text is not plain
+ * ASCII, and it accepts files whose encoding does not store ASCII characters as the same single
+ * bytes, and files with unsaved changes in a file buffer. The filter is thread-safe.
+ * </p>
+ */
+public final class RawContentFilter {
+
+	private static final int BUFFER_SIZE= 8192;
+
+	/**
+	 * The ASCII bytes of the text, or <code>null</code> if the text is not plain ASCII
+	 */
+	private final byte[] fBytes;
+
+	private final Map<String, Boolean> fCompatibleCharsets= new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a filter for the given text.
+	 *
+	 * @param text the text which the accepted files can contain
+	 */
+	public RawContentFilter(String text) {
+		fBytes= isAscii(text) ? text.getBytes(StandardCharsets.US_ASCII) : null;
+	}
+
+	/**
+	 * Tests whether the given file can contain the text of this filter.
+	 *
+	 * @param file the file
+	 * @return <code>false</code> if the file does not contain the text, <code>true</code> if it
+	 *         contains it or if this cannot be decided from its raw bytes
+	 */
+	public boolean canContain(IFile file) {
+		if (fBytes == null || fBytes.length == 0)
+			return true;
+		ITextFileBuffer buffer= FileBuffers.getTextFileBufferManager().getTextFileBuffer(file.getFullPath(), LocationKind.IFILE);
+		if (buffer != null && buffer.isDirty())
+			return true;
+		try {
+			if (!isCompatible(file.getCharset()))
+				return true;
+			try (InputStream stream= file.getContents(true)) {
+				return contains(stream);
+			}
+		} catch (CoreException | IOException e) {
+			// let the caller read the file and report the problem
+			return true;
+		}
+	}
+
+	private boolean isCompatible(String charsetName) {
+		return fCompatibleCharsets.computeIfAbsent(charsetName, name -> {
+			try {
+				return Boolean.valueOf(Arrays.equals(fBytes, new String(fBytes, StandardCharsets.US_ASCII).getBytes(Charset.forName(name))));
+			} catch (IllegalArgumentException e) {
+				// illegal or unsupported charset
+				return Boolean.FALSE;
+			}
+		}).booleanValue();
+	}
+
+	private boolean contains(InputStream stream) throws IOException {
+		byte[] buffer= new byte[Math.max(BUFFER_SIZE, 2 * fBytes.length)];
+		int kept= 0;
+		int read;
+		while ((read= stream.read(buffer, kept, buffer.length - kept)) != -1) {
+			int end= kept + read;
+			if (contains(buffer, end))
+				return true;
+			// keep the tail which can be the start of a match across the buffer boundary
+			kept= Math.min(end, fBytes.length - 1);
+			System.arraycopy(buffer, end - kept, buffer, 0, kept);
+		}
+		return false;
+	}
+
+	private boolean contains(byte[] buffer, int end) {
+		byte first= fBytes[0];
+		int last= end - fBytes.length;
+		for (int i= 0; i <= last; i++) {
+			if (buffer[i] != first)
+				continue;
+			int j= 1;
+			while (j < fBytes.length && buffer[i + j] == fBytes[j]) {
+				j++;
+			}
+			if (j == fBytes.length)
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean isAscii(String text) {
+		for (int i= 0; i < text.length(); i++) {
+			if (text.charAt(i) > 0x7f)
+				return false;
+		}
+		return true;
+	}
+}
@@ -27,6 +27,8 @@ import org.eclipse.ui.editors.text.EditorsUI;
 
 import org.eclipse.jdt.ui.PreferenceConstants;
 
+import org.eclipse.jdt.internal.corext.util.SuperTypeHierarchyCache;
+
 public class JavaUIPreferenceInitializer extends AbstractPreferenceInitializer {
 
 	@Override
@@ -36,6 +38,9 @@ public class JavaUIPreferenceInitializer extends AbstractPreferenceInitializer {
 		EditorsUI.useAnnotationsPreferencePage(store);
 		EditorsUI.useQuickDiffPreferencePage(store);
 		PreferenceConstants.initializeDefaultValues(store);
+
+		store.setDefault(SuperTypeHierarchyCache.PREF_CAPACITY, SuperTypeHierarchyCache.DEFAULT_CAPACITY);
+		store.setDefault(SuperTypeHierarchyCache.PREF_MAX_WEIGHT, SuperTypeHierarchyCache.DEFAULT_MAX_WEIGHT);
 	}
 
 	public static void setThemeBasedPreferences(IPreferenceStore store, boolean fireEvent) {
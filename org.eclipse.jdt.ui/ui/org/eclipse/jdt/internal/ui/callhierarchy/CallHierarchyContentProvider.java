@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -157,6 +157,10 @@ public class CallHierarchyContentProvider implements ITreeContentProvider {
 
 					}
 				}
+				if (methodWrapper.hasCachedCalls()) {
+					// e.g. found by expanding the hierarchy, no search is needed
+					return methodWrapper.getCalls(null);
+				}
 				if (fManager != null) {
 					Object[] children= fManager.getChildren(new DeferredMethodWrapper(this, methodWrapper));
 					if (children != null)
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -163,6 +163,10 @@ public final class CallHierarchyMessages extends NLS {
 	public static String ExpandWithConstructorsAction_expandWithConstructors_description;
 	public static String ExpandWithConstructorsAction_expandWithConstructors_tooltip;
 	public static String ExpandWithConstructorsDialog_title;
+	public static String ExpandCallHierarchyAction_text;
+	public static String ExpandCallHierarchyAction_description;
+	public static String ExpandCallHierarchyAction_tooltip;
+	public static String ExpandCallHierarchyAction_job_name;
 	public static String PinCallHierarchyViewAction_label;
 	public static String PinCallHierarchyViewAction_tooltip;
 	static {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2019 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -236,6 +236,7 @@ public class CallHierarchyViewPart extends ViewPart implements ICallHierarchyVie
     private CopyCallHierarchyAction fCopyAction;
     private CancelSearchAction fCancelSearchAction;
     private ExpandWithConstructorsAction fExpandWithConstructorsAction;
+    private ExpandCallHierarchyAction fExpandCallHierarchyAction;
     private RemoveFromViewAction fRemoveFromViewAction;
     private ShowSearchInDialogAction fShowSearchInDialogAction;
     private CompositeActionGroup fActionGroups;
@@ -998,6 +999,9 @@ public class CallHierarchyViewPart extends ViewPart implements ICallHierarchyVie
         if (fExpandWithConstructorsAction.canActionBeAdded()) {
         	menu.appendToGroup(GROUP_FOCUS, fExpandWithConstructorsAction);
         }
+        if (fExpandCallHierarchyAction.canActionBeAdded()) {
+        	menu.appendToGroup(GROUP_FOCUS, fExpandCallHierarchyAction);
+        }
 
         if (fRemoveFromViewAction.canActionBeAdded()){
         	menu.appendToGroup(GROUP_FOCUS, fRemoveFromViewAction);
@@ -1050,6 +1054,7 @@ public class CallHierarchyViewPart extends ViewPart implements ICallHierarchyVie
         fCancelSearchAction = new CancelSearchAction(this);
         setCancelEnabled(false);
         fExpandWithConstructorsAction= new ExpandWithConstructorsAction(this, fCallHierarchyViewer);
+        fExpandCallHierarchyAction= new ExpandCallHierarchyAction(fCallHierarchyViewer);
         fRemoveFromViewAction= new RemoveFromViewAction(this, fCallHierarchyViewer);
         fPinViewAction= new PinCallHierarchyViewAction(this);
         fToggleOrientationActions = new ToggleOrientationAction[] {
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.callhierarchy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.swt.widgets.Control;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.viewers.IStructuredSelection;
+
+import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchyExpander;
+import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
+import org.eclipse.jdt.internal.corext.util.Parallelism;
+
+import org.eclipse.jdt.internal.ui.JavaPluginImages;
+
+/**
+ * The action to expand the whole hierarchy below the selected members up to the maximum call
+ * depth. The callers of a level are searched together, and the nodes are expanded as soon as
+ * their children have been found.
+ *
+ * @since 3.27
+ */
+class ExpandCallHierarchyAction extends Action {
+
+	/**
+	 * The call hierarchy viewer.
+	 */
+	private final CallHierarchyViewer fCallHierarchyViewer;
+
+	/**
+	 * Creates the action to expand the hierarchy.
+	 *
+	 * @param viewer the call hierarchy viewer
+	 */
+	public ExpandCallHierarchyAction(CallHierarchyViewer viewer) {
+		super(CallHierarchyMessages.ExpandCallHierarchyAction_text);
+		fCallHierarchyViewer= viewer;
+		setDescription(CallHierarchyMessages.ExpandCallHierarchyAction_description);
+		setToolTipText(CallHierarchyMessages.ExpandCallHierarchyAction_tooltip);
+		setImageDescriptor(JavaPluginImages.DESC_ELCL_EXPANDALL);
+		setDisabledImageDescriptor(JavaPluginImages.DESC_DLCL_EXPANDALL);
+	}
+
+	@Override
+	public void run() {
+		MethodWrapper[] wrappers= getSelectedWrappers();
+		if (wrappers.length == 0)
+			return;
+		Control control= fCallHierarchyViewer.getControl();
+		CallHierarchyExpander expander= new CallHierarchyExpander(CallHierarchyUI.getDefault().getMaxCallDepth(), Parallelism.DEFAULT, wrapper -> {
+			if (!control.isDisposed()) {
+				control.getDisplay().asyncExec(() -> {
+					if (!control.isDisposed()) {
+						fCallHierarchyViewer.setExpandedState(wrapper, true);
+					}
+				});
+			}
+		});
+		Job job= new Job(CallHierarchyMessages.ExpandCallHierarchyAction_job_name) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					expander.expand(wrappers, monitor);
+				} catch (OperationCanceledException e) {
+					return Status.CANCEL_STATUS;
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		job.setUser(true);
+		job.schedule();
+	}
+
+	private MethodWrapper[] getSelectedWrappers() {
+		List<MethodWrapper> wrappers= new ArrayList<>();
+		for (Object element : (IStructuredSelection) fCallHierarchyViewer.getSelection()) {
+			if (element instanceof MethodWrapper) {
+				wrappers.add((MethodWrapper) element);
+			}
+		}
+		return wrappers.toArray(new MethodWrapper[wrappers.size()]);
+	}
+
+	/**
+	 * Checks whether this action can be added for the selected element in the call hierarchy.
+	 *
+	 * @return <code>true</code> if the action can be added, <code>false</code> otherwise
+	 */
+	protected boolean canActionBeAdded() {
+		IStructuredSelection selection= (IStructuredSelection) fCallHierarchyViewer.getSelection();
+		if (selection.isEmpty())
+			return false;
+		for (Object element : selection) {
+			if (!(element instanceof MethodWrapper) || !((MethodWrapper) element).canHaveChildren())
+				return false;
+		}
+		return true;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -23,6 +23,7 @@ import org.eclipse.ltk.core.refactoring.RefactoringStatus;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.manipulation.TypeNameMatchIndex;
 
 import org.eclipse.jdt.internal.corext.codemanipulation.CodeGenerationSettings;
 import org.eclipse.jdt.internal.corext.fix.CleanUpConstants;
@@ -34,10 +35,16 @@ import org.eclipse.jdt.ui.cleanup.ICleanUpFix;
 
 import org.eclipse.jdt.internal.ui.preferences.JavaPreferencesSettings;
 
+/**
+ * Organizes imports. Supports concurrent calls to {@link #createFix(CleanUpContext)}. If a project
+ * has more than one compilation unit to clean up, the unresolved types of all units are looked up
+ * in one shared {@link TypeNameMatchIndex} of the project.
+ */
 public class ImportsCleanUp extends AbstractCleanUp {
 
 	private CodeGenerationSettings fCodeGeneratorSettings;
 	private RefactoringStatus fStatus;
+	private TypeNameMatchIndex fTypeNameMatchIndex;
 
 	public ImportsCleanUp(Map<String, String> options) {
 		super(options);
@@ -59,8 +66,15 @@ public class ImportsCleanUp extends AbstractCleanUp {
     	if (compilationUnit == null)
     		return null;
 
-		return ImportsFix.createCleanUp(compilationUnit, fCodeGeneratorSettings,
-				isEnabled(CleanUpConstants.ORGANIZE_IMPORTS), fStatus);
+		RefactoringStatus status= new RefactoringStatus();
+		ICleanUpFix fix= ImportsFix.createCleanUp(compilationUnit, fCodeGeneratorSettings,
+				isEnabled(CleanUpConstants.ORGANIZE_IMPORTS), status, fTypeNameMatchIndex);
+		if (fStatus != null && !status.isOK()) {
+			synchronized (fStatus) {
+				fStatus.merge(status);
+			}
+		}
+		return fix;
 	}
 
     @Override
@@ -69,6 +83,8 @@ public class ImportsCleanUp extends AbstractCleanUp {
 		if (isEnabled(CleanUpConstants.ORGANIZE_IMPORTS)) {
     		fCodeGeneratorSettings= JavaPreferencesSettings.getCodeGenerationSettings(project);
     		fStatus= new RefactoringStatus();
+    		if (compilationUnits.length > 1)
+    			fTypeNameMatchIndex= new TypeNameMatchIndex();
 		}
 
 		return super.checkPreConditions(project, compilationUnits, monitor);
@@ -77,6 +93,7 @@ public class ImportsCleanUp extends AbstractCleanUp {
     @Override
 	public RefactoringStatus checkPostConditions(IProgressMonitor monitor) throws CoreException {
     	fCodeGeneratorSettings= null;
+    	fTypeNameMatchIndex= null;
     	try {
 	    	if (fStatus == null || fStatus.isOK()) {
 	    		return super.checkPostConditions(monitor);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,8 +14,9 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.fix;
 
-import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.ibm.icu.text.MessageFormat;
 
@@ -45,7 +46,10 @@ import org.eclipse.jdt.internal.core.manipulation.util.BasicElementLabels;
 
 public class SortMembersCleanUp extends AbstractCleanUp {
 
-	private HashSet<IResource> fTouchedFiles;
+	/**
+	 * The files changed by the fixes of this clean up, fixes may be created concurrently
+	 */
+	private final Set<IResource> fTouchedFiles= ConcurrentHashMap.newKeySet();
 
 	public SortMembersCleanUp() {
 		super();
@@ -64,9 +68,6 @@ public class SortMembersCleanUp extends AbstractCleanUp {
 		boolean sortMembers= isEnabled(CleanUpConstants.SORT_MEMBERS);
 		ICleanUpFix fix= SortMembersFix.createCleanUp(compilationUnit, sortMembers, sortMembers && isEnabled(CleanUpConstants.SORT_MEMBERS_ALL));
 		if (fix != null) {
-			if (fTouchedFiles == null) {
-				fTouchedFiles= new HashSet<>();
-			}
 			fTouchedFiles.add(((ICompilationUnit)compilationUnit.getJavaElement()).getResource());
 		}
 		return fix;
@@ -74,7 +75,7 @@ public class SortMembersCleanUp extends AbstractCleanUp {
 
 	@Override
 	public RefactoringStatus checkPostConditions(IProgressMonitor monitor) throws CoreException {
-		if (fTouchedFiles == null) {
+		if (fTouchedFiles.isEmpty()) {
 			return super.checkPostConditions(monitor);
 		} else {
 			if (monitor == null)
@@ -98,7 +99,7 @@ public class SortMembersCleanUp extends AbstractCleanUp {
     			return result;
 			} finally {
 				monitor.done();
-				fTouchedFiles= null;
+				fTouchedFiles.clear();
 			}
 
 		}
@@ -145,7 +146,7 @@ public class SortMembersCleanUp extends AbstractCleanUp {
 
     @Override
 	public CleanUpRequirements getRequirements() {
-    	return new CleanUpRequirements(isEnabled(CleanUpConstants.SORT_MEMBERS), false, false, null);
+    	return new CleanUpRequirements(isEnabled(CleanUpConstants.SORT_MEMBERS), false, false, null, true);
     }
 
 	private static boolean containsRelevantMarkers(IFile file) throws CoreException {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -81,6 +81,7 @@ class JarOptionsPage extends WizardPage implements IJarPackageWizardPage {
 	private Label		fDescriptionFileLabel;
 	private Text		fDescriptionFileText;
 	private Button		fDescriptionFileBrowseButton;
+	private Button		fIncrementalExportCheckbox;
 	private Button		fBuildIfNeededCheckbox;
 
 	// dialog store id constants
@@ -212,6 +213,7 @@ class JarOptionsPage extends WizardPage implements IJarPackageWizardPage {
 		fUseSourceFoldersCheckbox.setSelection(fJarPackage.useSourceFolderHierarchy());
 		fSaveDescriptionCheckbox.setSelection(fJarPackage.isDescriptionSaved());
 		fDescriptionFileText.setText(fJarPackage.getDescriptionLocation().toString());
+		fIncrementalExportCheckbox.setSelection(fJarPackage.isIncrementalExport());
 	}
 
 	/**
@@ -251,6 +253,7 @@ class JarOptionsPage extends WizardPage implements IJarPackageWizardPage {
 		fJarPackage.setSaveDescription(fSaveDescriptionCheckbox.getSelection());
 		fJarPackage.setDescriptionLocation(new Path(fDescriptionFileText.getText()));
 		fJarPackage.setUseSourceFolderHierarchy(fUseSourceFoldersCheckbox.getSelection());
+		fJarPackage.setIncrementalExport(fIncrementalExportCheckbox.getSelection());
 	}
 
 	/**
@@ -279,6 +282,7 @@ class JarOptionsPage extends WizardPage implements IJarPackageWizardPage {
 		fDescriptionFileBrowseButton.setEnabled(saveDescription);
 		fDescriptionFileText.setEnabled(saveDescription);
 		fDescriptionFileLabel.setEnabled(saveDescription);
+		fIncrementalExportCheckbox.setEnabled(saveDescription);
 
 		boolean exportClassFiles= fJarPackage.areClassFilesExported() && !fJarPackage.areOutputFoldersExported();
 		fExportWarningsCheckbox.setEnabled(exportClassFiles);
@@ -362,6 +366,11 @@ class JarOptionsPage extends WizardPage implements IJarPackageWizardPage {
 				handleDescriptionFileBrowseButtonPressed();
 			}
 		});
+
+		fIncrementalExportCheckbox= new Button(fDescriptionFileGroup, SWT.CHECK | SWT.LEFT);
+		fIncrementalExportCheckbox.setText(JarPackagerMessages.JarOptionsPage_incrementalExport_text);
+		fIncrementalExportCheckbox.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, false, false, 3, 1));
+		fIncrementalExportCheckbox.addListener(SWT.Selection, new UntypedListener());
 	}
 
 	/**
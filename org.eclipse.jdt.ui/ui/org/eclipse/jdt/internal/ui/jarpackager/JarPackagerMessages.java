@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -225,6 +225,8 @@ public final class JarPackagerMessages extends NLS {
 
 	public static String JarOptionsPage_howTreatProblems_label;
 
+	public static String JarOptionsPage_incrementalExport_text;
+
 	public static String JarOptionsPage_saveAsDialog_message;
 
 	public static String JarOptionsPage_saveAsDialog_title;
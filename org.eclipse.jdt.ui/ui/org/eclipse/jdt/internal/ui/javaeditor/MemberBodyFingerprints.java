@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.ui.javaeditor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.Assignment;
+import org.eclipse.jdt.core.dom.Block;
+import org.eclipse.jdt.core.dom.BodyDeclaration;
+import org.eclipse.jdt.core.dom.BooleanLiteral;
+import org.eclipse.jdt.core.dom.CharacterLiteral;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.InfixExpression;
+import org.eclipse.jdt.core.dom.Initializer;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.Modifier;
+import org.eclipse.jdt.core.dom.NumberLiteral;
+import org.eclipse.jdt.core.dom.PostfixExpression;
+import org.eclipse.jdt.core.dom.PrefixExpression;
+import org.eclipse.jdt.core.dom.PrimitiveType;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.StringLiteral;
+import org.eclipse.jdt.core.dom.TagElement;
+import org.eclipse.jdt.core.dom.TextElement;
+
+/**
+ * Fingerprints of the member bodies of a compilation unit, which tell the semantic highlighting
+ * reconciler which bodies have changed since the last reconcile.
+ * <p>
+ * A member body is the block of a method or an initializer which is not nested in another member
+ * body. Its fingerprint covers the node types, names, literals, operators and positions of its
+ * nodes, relative to the start of the body. The skeleton is everything outside of the member
+ * bodies. Its fingerprint covers the same, with positions relative to the enclosing member
+ * declaration, so it does not change when a body before the member changes its length.
+ * </p>
+ * <p>
+ * The bindings and thus the highlightings in a body only depend on the body itself and on the
+ * skeleton, as long as no other compilation unit changes. If the skeletons of two reconciles are
+ * equal, only the changed bodies need to be reconciled.
+ * </p>
+ *
+ * @since 3.27
+ */
+public final class MemberBodyFingerprints {
+
+	private static final long PRIME= 0x100000001B3L;
+
+	private static final class Hasher extends ASTVisitor {
+
+		/**
+		 * The member bodies, or <code>null</code> if nested bodies are hashed like other nodes
+		 */
+		private final List<Block> fBodies;
+		private final List<Long> fBodyHashes;
+
+		/**
+		 * The start positions of the enclosing member declarations
+		 */
+		private final Deque<Integer> fBases= new ArrayDeque<>();
+
+		private long fHash;
+
+		Hasher(int base, boolean collectBodies) {
+			super(true);
+			fBases.push(Integer.valueOf(base));
+			fBodies= collectBodies ? new ArrayList<>() : null;
+			fBodyHashes= collectBodies ? new ArrayList<>() : null;
+		}
+
+		@Override
+		public boolean preVisit2(ASTNode node) {
+			if (fBodies != null && isMemberBody(node)) {
+				Hasher hasher= new Hasher(node.getStartPosition(), false);
+				node.accept(hasher);
+				fBodies.add((Block) node);
+				fBodyHashes.add(Long.valueOf(hasher.fHash));
+				// only the presence of the body is part of the skeleton
+				mix(-1);
+				return false;
+			}
+			mix(node.getNodeType());
+			mix(node.getFlags() & (ASTNode.MALFORMED | ASTNode.RECOVERED));
+			if (fBodies != null && node instanceof BodyDeclaration) {
+				fBases.push(Integer.valueOf(node.getStartPosition()));
+			} else if (node.getNodeType() != ASTNode.COMPILATION_UNIT) {
+				// the length of the unit changes with the length of its bodies
+				mix(node.getStartPosition() - fBases.peek().intValue());
+				mix(node.getLength());
+			}
+			String token= getToken(node);
+			if (token != null)
+				mix(token.hashCode());
+			return true;
+		}
+
+		@Override
+		public void postVisit(ASTNode node) {
+			if (fBodies != null && node instanceof BodyDeclaration)
+				fBases.pop();
+		}
+
+		private void mix(long value) {
+			fHash= (fHash ^ value) * PRIME;
+		}
+
+		private static boolean isMemberBody(ASTNode node) {
+			return node.getLocationInParent() == MethodDeclaration.BODY_PROPERTY || node.getLocationInParent() == Initializer.BODY_PROPERTY;
+		}
+
+		private static String getToken(ASTNode node) {
+			switch (node.getNodeType()) {
+				case ASTNode.SIMPLE_NAME:
+					return ((SimpleName) node).getIdentifier();
+				case ASTNode.NUMBER_LITERAL:
+					return ((NumberLiteral) node).getToken();
+				case ASTNode.STRING_LITERAL:
+					return ((StringLiteral) node).getEscapedValue();
+				case ASTNode.CHARACTER_LITERAL:
+					return ((CharacterLiteral) node).getEscapedValue();
+				case ASTNode.BOOLEAN_LITERAL:
+					return String.valueOf(((BooleanLiteral) node).booleanValue());
+				case ASTNode.MODIFIER:
+					return ((Modifier) node).getKeyword().toString();
+				case ASTNode.PRIMITIVE_TYPE:
+					return ((PrimitiveType) node).getPrimitiveTypeCode().toString();
+				case ASTNode.INFIX_EXPRESSION:
+					return ((InfixExpression) node).getOperator().toString();
+				case ASTNode.PREFIX_EXPRESSION:
+					return ((PrefixExpression) node).getOperator().toString();
+				case ASTNode.POSTFIX_EXPRESSION:
+					return ((PostfixExpression) node).getOperator().toString();
+				case ASTNode.ASSIGNMENT:
+					return ((Assignment) node).getOperator().toString();
+				case ASTNode.TAG_ELEMENT:
+					return ((TagElement) node).getTagName();
+				case ASTNode.TEXT_ELEMENT:
+					return ((TextElement) node).getText();
+				default:
+					return null;
+			}
+		}
+	}
+
+	private final long fSkeletonHash;
+	private final Block[] fBodies;
+	private final long[] fBodyHashes;
+
+	private MemberBodyFingerprints(long skeletonHash, List<Block> bodies, List<Long> bodyHashes) {
+		fSkeletonHash= skeletonHash;
+		fBodies= bodies.toArray(new Block[bodies.size()]);
+		fBodyHashes= new long[bodyHashes.size()];
+		for (int i= 0; i < fBodyHashes.length; i++) {
+			fBodyHashes[i]= bodyHashes.get(i).longValue();
+		}
+	}
+
+	private MemberBodyFingerprints(long skeletonHash, long[] bodyHashes) {
+		fSkeletonHash= skeletonHash;
+		fBodies= new Block[0];
+		fBodyHashes= bodyHashes;
+	}
+
+	/**
+	 * Computes the fingerprints of the given compilation unit. Does not resolve bindings.
+	 *
+	 * @param ast the compilation unit
+	 * @return the fingerprints
+	 */
+	public static MemberBodyFingerprints create(CompilationUnit ast) {
+		Hasher hasher= new Hasher(0, true);
+		ast.accept(hasher);
+		return new MemberBodyFingerprints(hasher.fHash, hasher.fBodies, hasher.fBodyHashes);
+	}
+
+	/**
+	 * Returns the member bodies which have changed with respect to the given older fingerprints.
+	 *
+	 * @param previous the fingerprints of the previous reconcile
+	 * @return the changed bodies of this unit in source order, or <code>null</code> if the
+	 *         skeletons differ and the whole unit has to be reconciled
+	 */
+	public List<Block> getChangedBodies(MemberBodyFingerprints previous) {
+		if (fSkeletonHash != previous.fSkeletonHash || fBodyHashes.length != previous.fBodyHashes.length)
+			return null;
+		List<Block> changed= new ArrayList<>();
+		for (int i= 0; i < fBodyHashes.length; i++) {
+			if (fBodyHashes[i] != previous.fBodyHashes[i])
+				changed.add(fBodies[i]);
+		}
+		return changed;
+	}
+
+	/**
+	 * Releases the AST nodes, so the fingerprints can be kept without keeping the AST.
+	 *
+	 * @return fingerprints without bodies, which can only serve as <code>previous</code> argument
+	 *         of {@link #getChangedBodies(MemberBodyFingerprints)}
+	 */
+	public MemberBodyFingerprints withoutNodes() {
+		return new MemberBodyFingerprints(fSkeletonHash, fBodyHashes);
+	}
+}
@@ -15,6 +15,7 @@
 package org.eclipse.jdt.internal.ui.javaeditor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.swt.widgets.Display;
@@ -36,6 +37,7 @@ import org.eclipse.ui.IWorkbenchPartSite;
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.ConstructorInvocation;
 import org.eclipse.jdt.core.dom.Expression;
@@ -77,9 +79,8 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		@Override
 		protected boolean visitLiteral(Expression node) {
 			fToken.update(node);
-			for (int i= 0, n= fJobSemanticHighlightings.length; i < n; i++) {
-				SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-				if (fJobHighlightings[i].isEnabled() && semanticHighlighting.consumesLiteral(fToken)) {
+			for (int i : fJobLiteralHighlightings) {
+				if (fJobSemanticHighlightings[i].consumesLiteral(fToken)) {
 					int offset= node.getStartPosition();
 					int length= node.getLength();
 					if (offset > -1 && length > 0)
@@ -135,12 +136,9 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 				int offset= node.getStartPosition();
 				int length= node.getLength();
 				if (offset > -1 && length > 0) {
-					for (int i= 0; i < fJobSemanticHighlightings.length; i++) {
-						SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-						if (semanticHighlighting instanceof RestrictedIdentifiersHighlighting) {
-							addPosition(offset, length, fJobHighlightings[i]);
-							return false;
-						}
+					if (fJobRestrictedIdentifiersHighlighting != null) {
+						addPosition(offset, length, fJobRestrictedIdentifiersHighlighting);
+						return false;
 					}
 				}
 			}
@@ -154,12 +152,9 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 				int offset= node.getStartPosition();
 				int length= 5; // length of 'yield'
 				if (offset > -1 && length > 0) {
-					for (int i= 0; i < fJobSemanticHighlightings.length; i++) {
-						SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-						if (semanticHighlighting instanceof RestrictedIdentifiersHighlighting) {
-							addPosition(offset, length, fJobHighlightings[i]);
-							return true;
-						}
+					if (fJobRestrictedIdentifiersHighlighting != null) {
+						addPosition(offset, length, fJobRestrictedIdentifiersHighlighting);
+						return true;
 					}
 				}
 			}
@@ -173,12 +168,9 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 				int offset= node.getRestrictedIdentifierStartPosition();
 				int length= 6; // length of 'record'
 				if (offset > -1 && length > 0) {
-					for (int i= 0; i < fJobSemanticHighlightings.length; i++) {
-						SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-						if (semanticHighlighting instanceof RestrictedIdentifiersHighlighting) {
-							addPosition(offset, length, fJobHighlightings[i]);
-							return true;
-						}
+					if (fJobRestrictedIdentifiersHighlighting != null) {
+						addPosition(offset, length, fJobRestrictedIdentifiersHighlighting);
+						return true;
 					}
 				}
 			}
@@ -192,12 +184,9 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 					int offset= node.getRestrictedIdentifierStartPosition();
 					int length= 7; // length of 'permits'
 					if (offset > -1) {
-						for (int i= 0; i < fJobSemanticHighlightings.length; i++) {
-							SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-							if (semanticHighlighting instanceof RestrictedIdentifiersHighlighting) {
-								addPosition(offset, length, fJobHighlightings[i]);
-								return true;
-							}
+						if (fJobRestrictedIdentifiersHighlighting != null) {
+							addPosition(offset, length, fJobRestrictedIdentifiersHighlighting);
+							return true;
 						}
 					}
 				}
@@ -222,12 +211,9 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 					return true;
 				}
 				if (offset > -1 && length > 0) {
-					for (int i= 0; i < fJobSemanticHighlightings.length; i++) {
-						SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-						if (semanticHighlighting instanceof RestrictedIdentifiersHighlighting) {
-							addPosition(offset, length, fJobHighlightings[i]);
-							return false;
-						}
+					if (fJobRestrictedIdentifiersHighlighting != null) {
+						addPosition(offset, length, fJobRestrictedIdentifiersHighlighting);
+						return false;
 					}
 				}
 			}
@@ -240,9 +226,8 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		@Override
 		public boolean visit(SimpleName node) {
 			fToken.update(node);
-			for (int i= 0, n= fJobSemanticHighlightings.length; i < n; i++) {
-				SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-				if (fJobHighlightings[i].isEnabled() && semanticHighlighting.consumes(fToken)) {
+			for (int i : fJobNameHighlightings) {
+				if (fJobSemanticHighlightings[i].consumes(fToken)) {
 					int offset= node.getStartPosition();
 					int length= node.getLength();
 					if (offset > -1 && length > 0)
@@ -262,8 +247,7 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		 */
 		private void addPosition(int offset, int length, Highlighting highlighting) {
 			boolean isExisting= false;
-			// TODO: use binary search
-			for (int i= 0, n= fRemovedPositions.size(); i < n; i++) {
+			for (int i= indexAtOffset(offset), n= fRemovedPositions.size(); i < n && fRemovedOffsets[i] == offset; i++) {
 				HighlightedPosition position= (HighlightedPosition) fRemovedPositions.get(i);
 				if (position == null)
 					continue;
@@ -288,8 +272,7 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		 */
 		@Override
 		protected void retainPositions(int offset, int length) {
-			// TODO: use binary search
-			for (int i= 0, n= fRemovedPositions.size(); i < n; i++) {
+			for (int i= indexAtOffset(offset), n= fRemovedPositions.size(); i < n && fRemovedOffsets[i] <= offset + length; i++) {
 				HighlightedPosition position= (HighlightedPosition) fRemovedPositions.get(i);
 				if (position != null && position.isContained(offset, length)) {
 					fRemovedPositions.set(i, null);
@@ -319,6 +302,37 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	private List<Position> fRemovedPositions= new ArrayList<>();
 	/** Number of removed positions */
 	private int fNOfRemovedPositions;
+	/**
+	 * The offsets of the removed positions when the reconcile started, for binary search. The
+	 * positions are ordered by offset, and removed positions are only replaced by <code>null</code>.
+	 * @since 3.27
+	 */
+	private int[] fRemovedOffsets= new int[0];
+
+	/**
+	 * The fingerprints of the AST from which the presented positions were computed, or
+	 * <code>null</code> if the next reconcile must collect the positions of the whole AST.
+	 * Written from the UI thread when a reconcile's update has been applied.
+	 * @since 3.27
+	 */
+	private volatile MemberBodyFingerprints fPresentedFingerprints;
+	/**
+	 * The generation of the presented positions, which is incremented in the UI thread whenever
+	 * they have to be collected from the whole AST again. An update only sets
+	 * {@link #fPresentedFingerprints} if no such request has been made since its reconcile started.
+	 * @since 3.27
+	 */
+	private volatile int fPresentedGeneration;
+	/**
+	 * The generation of the presented positions when the reconcile started - cache for background thread, only valid during {@link #reconciled(CompilationUnit, boolean, IProgressMonitor)}
+	 * @since 3.27
+	 */
+	private int fJobGeneration;
+	/**
+	 * The fingerprints of the AST being reconciled - cache for background thread, only valid during {@link #reconciled(CompilationUnit, boolean, IProgressMonitor)}
+	 * @since 3.27
+	 */
+	private MemberBodyFingerprints fJobFingerprints;
 
 	/** Background job */
 	private Job fJob;
@@ -348,6 +362,21 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 * @since 3.5
 	 */
 	private Highlighting fJobDeprecatedMemberHighlighting;
+	/**
+	 * The indices of the enabled highlightings, which can consume names - cache for background thread, only valid during {@link #reconciled(CompilationUnit, boolean, IProgressMonitor)}
+	 * @since 3.27
+	 */
+	private int[] fJobNameHighlightings;
+	/**
+	 * The indices of the enabled highlightings, which can consume literals - cache for background thread, only valid during {@link #reconciled(CompilationUnit, boolean, IProgressMonitor)}
+	 * @since 3.27
+	 */
+	private int[] fJobLiteralHighlightings;
+	/**
+	 * The highlighting of restricted identifiers, or <code>null</code> - cache for background thread, only valid during {@link #reconciled(CompilationUnit, boolean, IProgressMonitor)}
+	 * @since 3.27
+	 */
+	private Highlighting fJobRestrictedIdentifiersHighlighting;
 
 	/*
 	 * @see org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener#aboutToBeReconciled()
@@ -382,21 +411,17 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			if (ast == null || fJobPresenter.isCanceled())
 				return;
 
-			ASTNode[] subtrees= getAffectedSubtrees(ast);
-			if (subtrees.length == 0)
-				return;
-
+			fJobGeneration= fPresentedGeneration;
 			startReconcilingPositions();
 
+			ASTNode[] subtrees= getAffectedSubtrees(ast, forced);
+			if (subtrees.length == 0) {
+				stopReconcilingPositions();
+				return;
+			}
+
 			if (!fJobPresenter.isCanceled()) {
-				fJobDeprecatedMemberHighlighting= null;
-				for (int i= 0, n= fJobSemanticHighlightings.length; i < n; i++) {
-					SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-					if (fJobHighlightings[i].isEnabled() && semanticHighlighting instanceof DeprecatedMemberHighlighting) {
-						fJobDeprecatedMemberHighlighting= fJobHighlightings[i];
-						break;
-					}
-				}
+				initializeJobHighlightings();
 				reconcilePositions(subtrees);
 			}
 
@@ -413,6 +438,10 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			fJobSemanticHighlightings= null;
 			fJobHighlightings= null;
 			fJobDeprecatedMemberHighlighting= null;
+			fJobNameHighlightings= null;
+			fJobLiteralHighlightings= null;
+			fJobRestrictedIdentifiersHighlighting= null;
+			fJobFingerprints= null;
 			synchronized (fReconcileLock) {
 				fIsReconciling= false;
 			}
@@ -420,12 +449,52 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	}
 
 	/**
-	 * @param node Root node
+	 * Returns the subtrees which may be affected by past document changes. These are the changed
+	 * member bodies if the rest of the AST is unchanged since the presented positions were
+	 * computed, and the whole AST otherwise.
+	 *
+	 * @param ast the AST
+	 * @param forced <code>true</code> if the reconcile was forced, for example because other
+	 *            compilation units have changed
 	 * @return Array of subtrees that may be affected by past document changes
+	 * @see MemberBodyFingerprints
 	 */
-	private ASTNode[] getAffectedSubtrees(ASTNode node) {
-		// TODO: only return nodes which are affected by document changes - would require an 'anchor' concept for taking distant effects into account
-		return new ASTNode[] { node };
+	private ASTNode[] getAffectedSubtrees(CompilationUnit ast, boolean forced) {
+		fJobFingerprints= MemberBodyFingerprints.create(ast);
+		MemberBodyFingerprints presented= fPresentedFingerprints;
+		// the presenter drops its positions when the input changes
+		if (!forced && presented != null && fNOfRemovedPositions > 0) {
+			List<Block> changedBodies= fJobFingerprints.getChangedBodies(presented);
+			if (changedBodies != null)
+				return changedBodies.toArray(new ASTNode[changedBodies.size()]);
+		}
+		return new ASTNode[] { ast };
+	}
+
+	/**
+	 * Initializes the highlightings which are looked up per node type.
+	 */
+	private void initializeJobHighlightings() {
+		fJobDeprecatedMemberHighlighting= null;
+		fJobRestrictedIdentifiersHighlighting= null;
+		int[] names= new int[fJobSemanticHighlightings.length];
+		int[] literals= new int[fJobSemanticHighlightings.length];
+		int nameCount= 0;
+		int literalCount= 0;
+		for (int i= 0, n= fJobSemanticHighlightings.length; i < n; i++) {
+			SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
+			if (fJobRestrictedIdentifiersHighlighting == null && semanticHighlighting instanceof RestrictedIdentifiersHighlighting)
+				fJobRestrictedIdentifiersHighlighting= fJobHighlightings[i];
+			if (!fJobHighlightings[i].isEnabled())
+				continue;
+			if (fJobDeprecatedMemberHighlighting == null && semanticHighlighting instanceof DeprecatedMemberHighlighting)
+				fJobDeprecatedMemberHighlighting= fJobHighlightings[i];
+			names[nameCount++]= i;
+			if (semanticHighlighting.canConsumeLiterals())
+				literals[literalCount++]= i;
+		}
+		fJobNameHighlightings= Arrays.copyOf(names, nameCount);
+		fJobLiteralHighlightings= Arrays.copyOf(literals, literalCount);
 	}
 
 	/**
@@ -434,6 +503,53 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	private void startReconcilingPositions() {
 		fJobPresenter.addAllPositions(fRemovedPositions);
 		fNOfRemovedPositions= fRemovedPositions.size();
+		if (fRemovedOffsets.length < fNOfRemovedPositions)
+			fRemovedOffsets= new int[fNOfRemovedPositions];
+		for (int i= 0; i < fNOfRemovedPositions; i++) {
+			fRemovedOffsets[i]= fRemovedPositions.get(i).getOffset();
+		}
+	}
+
+	/**
+	 * Returns the index of the first removed position whose offset was at least the given
+	 * offset when the reconcile started.
+	 *
+	 * @param offset the offset
+	 * @return the index, or the number of removed positions if there is no such position
+	 */
+	private int indexAtOffset(int offset) {
+		int low= 0;
+		int high= fRemovedPositions.size();
+		while (low < high) {
+			int mid= (low + high) >>> 1;
+			if (fRemovedOffsets[mid] < offset)
+				low= mid + 1;
+			else
+				high= mid;
+		}
+		return low;
+	}
+
+	/**
+	 * Retains the positions which are not contained in any of the given subtrees, since they are
+	 * not affected by the changes.
+	 *
+	 * @param subtrees the subtrees, ordered by offset and not overlapping
+	 */
+	private void retainPositionsOutside(ASTNode[] subtrees) {
+		int k= 0;
+		for (int i= 0, n= fRemovedPositions.size(); i < n; i++) {
+			Position position= fRemovedPositions.get(i);
+			int offset= fRemovedOffsets[i];
+			while (k < subtrees.length && subtrees[k].getStartPosition() + subtrees[k].getLength() <= offset)
+				k++;
+			boolean isAffected= k < subtrees.length && subtrees[k].getStartPosition() <= offset
+					&& offset + position.getLength() <= subtrees[k].getStartPosition() + subtrees[k].getLength();
+			if (!isAffected) {
+				fRemovedPositions.set(i, null);
+				fNOfRemovedPositions--;
+			}
+		}
 	}
 
 	/**
@@ -442,9 +558,8 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 * @param subtrees the AST subtrees
 	 */
 	private void reconcilePositions(ASTNode[] subtrees) {
-		// FIXME: remove positions not covered by subtrees
-
-
+		if (subtrees[0].getNodeType() != ASTNode.COMPILATION_UNIT)
+			retainPositionsOutside(subtrees);
 
 		for (ASTNode subtree : subtrees)
 			subtree.accept(fCollector);
@@ -485,7 +600,17 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		if (display == null || display.isDisposed())
 			return;
 
-		display.asyncExec(runnable);
+		SemanticHighlightingPresenter presenter= fJobPresenter;
+		MemberBodyFingerprints fingerprints= fJobFingerprints.withoutNodes();
+		int generation= fJobGeneration;
+		display.asyncExec(() -> {
+			// the presenter skips canceled updates, then the presented positions are outdated
+			boolean isApplied= !presenter.isCanceled();
+			runnable.run();
+			// a refresh since the start of the reconcile needs the positions of the whole AST
+			if (generation == fPresentedGeneration)
+				fPresentedFingerprints= isApplied ? fingerprints : null;
+		});
 	}
 
 	/**
@@ -509,6 +634,7 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		fPresenter= presenter;
 		fSemanticHighlightings= semanticHighlightings;
 		fHighlightings= highlightings;
+		invalidatePresentedPositions();
 
 		fEditor= editor;
 		fSourceViewer= sourceViewer;
@@ -540,6 +666,16 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		fSemanticHighlightings= null;
 		fHighlightings= null;
 		fPresenter= null;
+		invalidatePresentedPositions();
+	}
+
+	/**
+	 * Makes the next reconciles collect the positions of the whole AST, until the update of a
+	 * reconcile which started after this call has been applied. Must be called in the UI thread.
+	 */
+	private void invalidatePresentedPositions() {
+		fPresentedGeneration++;
+		fPresentedFingerprints= null;
 	}
 
 	/**
@@ -547,6 +683,8 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 */
 	private void scheduleJob() {
 		final ITypeRoot element= fEditor.getInputJavaElement();
+		// the highlightings or the input have changed
+		invalidatePresentedPositions();
 
 		synchronized (fJobLock) {
 			final Job oldJob= fJob;
@@ -570,7 +708,8 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 						if (monitor.isCanceled())
 							return Status.CANCEL_STATUS;
 						CompilationUnit ast= SharedASTProviderCore.getAST(element, SharedASTProviderCore.WAIT_YES, monitor);
-						reconciled(ast, false, monitor);
+						// forced, so that the positions of the whole AST are collected
+						reconciled(ast, true, monitor);
 						synchronized (fJobLock) {
 							// allow the job to be gc'ed
 							if (fJob == this)
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -447,6 +447,14 @@ public class SemanticHighlightings {
 			return JavaEditorMessages.SemanticHighlighting_autoboxing;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#canConsumeLiterals()
+		 */
+		@Override
+		public boolean canConsumeLiterals() {
+			return true;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#consumesLiteral(org.eclipse.jdt.internal.ui.javaeditor.SemanticToken)
 		 */
@@ -1746,6 +1754,14 @@ public class SemanticHighlightings {
 			return false;
 		}
 
+		/*
+		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#canConsumeLiterals()
+		 */
+		@Override
+		public boolean canConsumeLiterals() {
+			return true;
+		}
+
 		/*
 		 * @see org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlighting#consumesLiteral(org.eclipse.jdt.internal.ui.javaeditor.SemanticToken)
 		 */
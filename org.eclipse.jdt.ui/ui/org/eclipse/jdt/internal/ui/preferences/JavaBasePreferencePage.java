@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -71,6 +71,7 @@ public class JavaBasePreferencePage extends PreferencePage implements IWorkbench
 	private static final String DOUBLE_CLICK_EXPANDS= PreferenceConstants.DOUBLE_CLICK_EXPANDS;
 
     private static final String OPEN_CALL_HIERARCHY_IMPLEMENTORS= "PREF_USE_IMPLEMENTORS"; //$NON-NLS-1$ //org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchy.PREF_USE_IMPLEMENTORS
+    private static final String OPEN_CALL_HIERARCHY_CALL_GRAPH_INDEX= "PREF_USE_CALL_GRAPH_INDEX"; //$NON-NLS-1$ //org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchy.PREF_USE_CALL_GRAPH_INDEX
 
 
 	private ArrayList<Button> fCheckBoxes;
@@ -177,6 +178,7 @@ public class JavaBasePreferencePage extends PreferencePage implements IWorkbench
 		callHierarchyGroup.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
 		callHierarchyGroup.setText(PreferencesMessages.JavaBasePreferencePage_openCallHierarchy);
 		addCheckBox(callHierarchyGroup, PreferencesMessages.JavaBasePreferencePage_showCalleeImplementations, null, OPEN_CALL_HIERARCHY_IMPLEMENTORS);
+		addCheckBox(callHierarchyGroup, PreferencesMessages.JavaBasePreferencePage_useCallGraphIndex, null, OPEN_CALL_HIERARCHY_CALL_GRAPH_INDEX);
 
 		Group refactoringGroup= new Group(result, SWT.NONE);
 		refactoringGroup.setLayout(new GridLayout());
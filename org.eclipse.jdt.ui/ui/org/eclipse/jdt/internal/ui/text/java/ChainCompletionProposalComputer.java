@@ -14,9 +14,6 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -48,6 +45,7 @@ import org.eclipse.jdt.internal.ui.text.ChainElement;
 import org.eclipse.jdt.internal.ui.text.ChainElementAnalyzer;
 import org.eclipse.jdt.internal.ui.text.ChainFinder;
 import org.eclipse.jdt.internal.ui.text.ChainType;
+import org.eclipse.jdt.internal.ui.text.MemberIndex;
 import org.eclipse.jdt.internal.ui.text.template.contentassist.TemplateProposal;
 
 public class ChainCompletionProposalComputer implements IJavaCompletionProposalComputer {
@@ -161,22 +159,15 @@ public class ChainCompletionProposalComputer implements IJavaCompletionProposalC
 			excludedTypes[i]= "L" + excludedTypes[i].replace('.', '/'); //$NON-NLS-1$
 		}
 
+		// library members are answered from the index once it has been built in the background
+		MemberIndex.getDefault().indexClasspath(ctx.getProject());
 		final IType invocationType= ctx.getCompilationUnit().findPrimaryType();
 
 		final List<ChainType> expectedTypes= ChainElementAnalyzer.resolveBindingsForExpectedTypes(ctx.getProject(), ctx.getCoreContext());
 		final ChainFinder finder= new ChainFinder(expectedTypes, Arrays.asList(excludedTypes), invocationType);
-		final ExecutorService executor= Executors.newSingleThreadExecutor();
-		try {
-			Future<?> future= executor.submit(() -> {
-				if (findEntrypoints()) {
-					finder.startChainSearch(entrypoints, maxChains, minDepth, maxDepth);
-				}
-			});
-			long timeout= Long.parseLong(JavaManipulation.getPreference(PreferenceConstants.PREF_CHAIN_TIMEOUT, ctx.getProject()));
-			future.get(timeout, TimeUnit.SECONDS);
-		} catch (final Exception e) {
-			finder.cancel();
-			executor.shutdownNow();
+		final long timeout= Long.parseLong(JavaManipulation.getPreference(PreferenceConstants.PREF_CHAIN_TIMEOUT, ctx.getProject()));
+		// the search runs on a shared pool and keeps the chains found before the timeout
+		if (findEntrypoints() && !finder.startChainSearch(entrypoints, maxChains, minDepth, maxDepth, TimeUnit.SECONDS.toMillis(timeout))) {
 			setError("Timeout during call chain computation."); //$NON-NLS-1$
 		}
 		return buildCompletionProposals(finder.getChains());
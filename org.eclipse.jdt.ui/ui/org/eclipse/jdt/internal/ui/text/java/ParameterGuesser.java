@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -45,6 +45,7 @@ import org.eclipse.jdt.ui.JavaElementImageDescriptor;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.JavaPluginImages;
+import org.eclipse.jdt.internal.ui.text.MemberIndex;
 import org.eclipse.jdt.internal.ui.text.template.contentassist.PositionBasedCompletionProposal;
 import org.eclipse.jdt.internal.ui.util.StringMatcher;
 import org.eclipse.jdt.internal.ui.viewsupport.JavaElementImageProvider;
@@ -186,7 +187,7 @@ public class ParameterGuesser {
 				if (field.isResolved()) {
 					typeSignature= new BindingKey(field.getKey()).toSignature();
 				} else {
-					typeSignature= field.getTypeSignature();
+					typeSignature= getTypeSignature(field);
 				}
 				break;
 			}
@@ -207,7 +208,7 @@ public class ParameterGuesser {
 					if (method.isResolved()) {
 						typeSignature= Signature.getReturnType(new BindingKey(method.getKey()).toSignature());
 					} else {
-						typeSignature= method.getReturnType();
+						typeSignature= getReturnType(method);
 					}
 					elementName= elementName + "()";  //$NON-NLS-1$
 				} else {
@@ -224,6 +225,20 @@ public class ParameterGuesser {
 		return new Variable(type, elementName, variableType, isAutoboxMatch, positionScore, NO_TRIGGERS, getImageDescriptor(element));
 	}
 
+	/*
+	 * The types of library members are taken from the member index if possible, which avoids
+	 * opening the class files of all suggested members.
+	 */
+	private static String getTypeSignature(IField field) throws JavaModelException {
+		String typeSignature= MemberIndex.getDefault().getTypeSignature(field);
+		return typeSignature != null ? typeSignature : field.getTypeSignature();
+	}
+
+	private static String getReturnType(IMethod method) throws JavaModelException {
+		String returnType= MemberIndex.getDefault().getTypeSignature(method);
+		return returnType != null ? returnType : method.getReturnType();
+	}
+
 	private ImageDescriptor getImageDescriptor(IJavaElement elem) {
 		JavaElementImageProvider imageProvider= new JavaElementImageProvider();
 		ImageDescriptor desc= imageProvider.getBaseImageDescriptor(elem, JavaElementImageProvider.OVERLAY_ICONS);
@@ -277,7 +292,7 @@ public class ParameterGuesser {
 	private boolean isMethodToSuggest(IMethod method) {
 		try {
 			String methodName= method.getElementName();
-			return method.getNumberOfParameters() == 0 && !Signature.SIG_VOID.equals(method.getReturnType())
+			return method.getNumberOfParameters() == 0 && !Signature.SIG_VOID.equals(getReturnType(method))
 				&& (methodName.startsWith("get") || methodName.startsWith("is"));    //$NON-NLS-1$//$NON-NLS-2$
 		} catch (JavaModelException e) {
 			return false;
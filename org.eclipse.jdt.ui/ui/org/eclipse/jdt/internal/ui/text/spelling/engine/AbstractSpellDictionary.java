@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -14,22 +14,26 @@
 package org.eclipse.jdt.internal.ui.text.spelling.engine;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -88,10 +92,23 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 
 
 	/**
-	 * Canonical name for UTF-8 encoding
-	 * @since 3.6
+	 * The folder in the state location with the compiled dictionaries
+	 * @since 3.27
+	 */
+	private static final String COMPILED_DICTIONARY_FOLDER= "spelling"; //$NON-NLS-1$
+
+	/**
+	 * The file extension of the compiled dictionaries
+	 * @since 3.27
 	 */
-	private static final String UTF_8= "UTF-8"; //$NON-NLS-1$
+	private static final String COMPILED_DICTIONARY_EXTENSION= ".dictionary"; //$NON-NLS-1$
+
+	/**
+	 * The maximal number of candidates taken from one bucket of the neighborhood, see
+	 * https://bugs.eclipse.org/bugs/show_bug.cgi?id=195357
+	 * @since 3.27
+	 */
+	private static final int NEIGHBORHOOD_BUCKET_LIMIT= 500;
 
 	/** The bucket capacity */
 	protected static final int BUCKET_CAPACITY= 4;
@@ -114,6 +131,13 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	/** The mapping from phonetic hashes to word lists */
 	private final Map<ByteArrayWrapper, Object> fHashBuckets= new HashMap<>(getInitialSize(), LOAD_FACTOR);
 
+	/**
+	 * The memory-mapped compiled word list, or <code>null</code> if the words are in
+	 * {@link #fHashBuckets}. Words added later are always hashed into {@link #fHashBuckets}.
+	 * @since 3.27
+	 */
+	private volatile CompiledSpellDictionary fCompiledDictionary;
+
 	/** The phonetic hash provider */
 	private IPhoneticHashProvider fHashProvider= new DefaultPhoneticHashProvider();
 
@@ -146,17 +170,45 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	 *
 	 * @param hash
 	 *                   The hash to retrieve the candidates of
-	 * @return Array of candidates for the phonetic hash
+	 * @param limit
+	 *                   The maximal number of candidates to return
+	 * @return List of candidates for the phonetic hash
+	 * @since 3.27
 	 */
-	protected final Object getCandidates(final String hash) {
-		ByteArrayWrapper hashBytes;
-		try {
-			hashBytes= new ByteArrayWrapper(hash.getBytes(UTF_8));
-		} catch (UnsupportedEncodingException e) {
-			JavaPlugin.log(e);
-			return null;
+	private List<String> getCandidates(final String hash, final int limit) {
+		final byte[] hashBytes= hash.getBytes(StandardCharsets.UTF_8);
+		List<String> result= Collections.emptyList();
+
+		final CompiledSpellDictionary compiled= fCompiledDictionary;
+		if (compiled != null) {
+			int bucket= compiled.findBucket(hashBytes);
+			if (bucket >= 0) {
+				int count= Math.min(limit, compiled.getWordCount(bucket));
+				result= new ArrayList<>(count);
+				for (int index= 0; index < count; index++)
+					result.add(compiled.getWord(bucket, index));
+			}
+		}
+
+		final Object candidates= fHashBuckets.get(new ByteArrayWrapper(hashBytes));
+		if (candidates == null)
+			return result;
+		if (result.isEmpty())
+			result= new ArrayList<>(BUCKET_CAPACITY);
+		if (candidates instanceof byte[]) {
+			if (result.size() < limit)
+				result.add(new String((byte[])candidates, StandardCharsets.UTF_8));
+			return result;
+		}
+
+		@SuppressWarnings("unchecked")
+		final ArrayList<byte[]> candidateList= (ArrayList<byte[]>)candidates;
+		for (byte[] candidate : candidateList) {
+			if (result.size() >= limit)
+				break;
+			result.add(new String(candidate, StandardCharsets.UTF_8));
 		}
-		return fHashBuckets.get(hashBytes);
+		return result;
 	}
 
 	/**
@@ -175,49 +227,14 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	protected final Set<RankedWordProposal> getCandidates(final String word, final boolean sentence, final ArrayList<String> hashs) {
 
 		int distance= 0;
-		String hash= null;
 
 		final StringBuilder buffer= new StringBuilder(BUFFER_CAPACITY);
 		final HashSet<RankedWordProposal> result= new HashSet<>(BUCKET_CAPACITY * hashs.size());
 
-		for (String hash2 : hashs) {
+		for (String hash : hashs) {
 
-			hash= hash2;
+			for (String candidate : getCandidates(hash, NEIGHBORHOOD_BUCKET_LIMIT)) {
 
-			final Object candidates= getCandidates(hash);
-			if (candidates == null)
-				continue;
-			else if (candidates instanceof byte[]) {
-				String candidate;
-				try {
-					candidate= new String((byte[])candidates, UTF_8);
-				} catch (UnsupportedEncodingException e) {
-					JavaPlugin.log(e);
-					return result;
-				}
-				distance= fDistanceAlgorithm.getDistance(word, candidate);
-				if (distance < DISTANCE_THRESHOLD) {
-					buffer.setLength(0);
-					buffer.append(candidate);
-					if (sentence)
-						buffer.setCharAt(0, Character.toUpperCase(buffer.charAt(0)));
-					result.add(new RankedWordProposal(buffer.toString(), -distance));
-				}
-				continue;
-			}
-
-			@SuppressWarnings("unchecked")
-			final ArrayList<byte[]> candidateList= (ArrayList<byte[]>)candidates;
-			int candidateSize= Math.min(500, candidateList.size()); // see https://bugs.eclipse.org/bugs/show_bug.cgi?id=195357
-			for (int offset= 0; offset < candidateSize; offset++) {
-
-				String candidate;
-				try {
-					candidate= new String(candidateList.get(offset), UTF_8);
-				} catch (UnsupportedEncodingException e) {
-					JavaPlugin.log(e);
-					return result;
-				}
 				distance= fDistanceAlgorithm.getDistance(word, candidate);
 
 				if (distance < DISTANCE_THRESHOLD) {
@@ -255,37 +272,10 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 
 		StringBuilder buffer= new StringBuilder(BUFFER_CAPACITY);
 
-		final Object candidates= getCandidates(fHashProvider.getHash(word));
-		if (candidates == null)
-			return;
-		else if (candidates instanceof byte[]) {
-			String candidate;
-			try {
-				candidate= new String((byte[])candidates, UTF_8);
-			} catch (UnsupportedEncodingException e) {
-				JavaPlugin.log(e);
-				return;
-			}
-			distance= fDistanceAlgorithm.getDistance(word, candidate);
-			buffer.append(candidate);
-			if (sentence)
-				buffer.setCharAt(0, Character.toUpperCase(buffer.charAt(0)));
-			result.add(new RankedWordProposal(buffer.toString(), -distance));
-			return;
-		}
+		final List<String> candidates= getCandidates(fHashProvider.getHash(word), Integer.MAX_VALUE);
+		final ArrayList<RankedWordProposal> matches= new ArrayList<>(candidates.size());
 
-		@SuppressWarnings("unchecked")
-		final ArrayList<byte[]> candidateList= (ArrayList<byte[]>)candidates;
-		final ArrayList<RankedWordProposal> matches= new ArrayList<>(candidateList.size());
-
-		for (byte[] element : candidateList) {
-			String candidate;
-			try {
-				candidate= new String(element, UTF_8);
-			} catch (UnsupportedEncodingException e) {
-				JavaPlugin.log(e);
-				return;
-			}
+		for (String candidate : candidates) {
 			distance= fDistanceAlgorithm.getDistance(word, candidate);
 
 			if (distance <= minimum) {
@@ -314,7 +304,8 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	 * @since 3.3
 	 */
 	protected boolean isEmpty() {
-		return fHashBuckets.isEmpty();
+		CompiledSpellDictionary compiled= fCompiledDictionary;
+		return fHashBuckets.isEmpty() && (compiled == null || compiled.isEmpty());
 	}
 
 	/**
@@ -463,15 +454,8 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	protected final void hashWord(final String word) {
 
 		final String hash= fHashProvider.getHash(word);
-		ByteArrayWrapper hashBytes;
-		byte[] wordBytes;
-		try {
-			hashBytes= new ByteArrayWrapper(hash.getBytes(UTF_8));
-			wordBytes= word.getBytes(UTF_8);
-		} catch (UnsupportedEncodingException e) {
-			JavaPlugin.log(e);
-			return;
-		}
+		ByteArrayWrapper hashBytes= new ByteArrayWrapper(hash.getBytes(StandardCharsets.UTF_8));
+		byte[] wordBytes= word.getBytes(StandardCharsets.UTF_8);
 
 		Object bucket= fHashBuckets.get(hashBytes);
 
@@ -506,32 +490,25 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 			// Do nothing
 		}
 
-		final Object candidates= getCandidates(fHashProvider.getHash(word));
-		if (candidates == null)
-			return false;
-		else if (candidates instanceof byte[]) {
-			String candidate;
-			try {
-				candidate= new String((byte[])candidates, UTF_8);
-			} catch (UnsupportedEncodingException e) {
-				JavaPlugin.log(e);
-				return false;
-			}
-			if (candidate.equals(word) || candidate.equals(word.toLowerCase()))
+		final byte[] hashBytes= fHashProvider.getHash(word).getBytes(StandardCharsets.UTF_8);
+		final byte[] wordBytes= word.getBytes(StandardCharsets.UTF_8);
+		final byte[] lowercaseWordBytes= word.toLowerCase().getBytes(StandardCharsets.UTF_8);
+
+		final CompiledSpellDictionary compiled= fCompiledDictionary;
+		if (compiled != null) {
+			int bucket= compiled.findBucket(hashBytes);
+			if (bucket >= 0 && (compiled.contains(bucket, wordBytes) || compiled.contains(bucket, lowercaseWordBytes)))
 				return true;
-			return false;
 		}
+
+		final Object candidates= fHashBuckets.get(new ByteArrayWrapper(hashBytes));
+		if (candidates == null)
+			return false;
+		else if (candidates instanceof byte[])
+			return Arrays.equals((byte[])candidates, wordBytes) || Arrays.equals((byte[])candidates, lowercaseWordBytes);
+
 		@SuppressWarnings("unchecked")
 		final ArrayList<byte[]> candidateList= (ArrayList<byte[]>)candidates;
-		byte[] wordBytes;
-		byte[] lowercaseWordBytes;
-		try {
-			wordBytes= word.getBytes(UTF_8);
-			lowercaseWordBytes= word.toLowerCase().getBytes(UTF_8);
-		} catch (UnsupportedEncodingException e) {
-			JavaPlugin.log(e);
-			return false;
-		}
 		for (byte[] candidate : candidateList) {
 			if (Arrays.equals(candidate, wordBytes) || Arrays.equals(candidate, lowercaseWordBytes)) {
 				return true;
@@ -574,7 +551,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 
 	@Override
 	public synchronized final boolean isLoaded() {
-		return fLoaded || fHashBuckets.size() > 0;
+		return fLoaded || fHashBuckets.size() > 0 || fCompiledDictionary != null;
 	}
 
 	/**
@@ -592,7 +569,21 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 		if (url != null) {
 			InputStream stream= null;
 			int line= 0;
+			File compiledFile= null;
+			String compiledKey= null;
 			try {
+				if (isCompilable()) {
+					compiledKey= getCompiledKey(url);
+					if (compiledKey != null) {
+						compiledFile= getCompiledFile(url, compiledKey);
+						CompiledSpellDictionary compiled= openCompiled(compiledFile, compiledKey);
+						if (compiled != null) {
+							fCompiledDictionary= compiled;
+							return true;
+						}
+					}
+				}
+
 				stream= url.openStream();
 				if (stream != null) {
 					String word= null;
@@ -627,6 +618,8 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 								hashWord(word);
 						}
 					}
+					if (compiledFile != null)
+						compile(url, compiledFile, compiledKey);
 					return true;
 				}
 			} catch (FileNotFoundException ex) {
@@ -659,6 +652,132 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 		return false;
 	}
 
+	/**
+	 * Tells whether the word list of this dictionary may be compiled into the binary format
+	 * of {@link CompiledSpellDictionary}, which is cached in the state location and memory-mapped
+	 * on later loads.
+	 * <p>
+	 * Subclasses whose word list is read from a stable URL should return <code>true</code>.
+	 * </p>
+	 *
+	 * @return <code>true</code> if the word list may be compiled
+	 * @since 3.27
+	 */
+	protected boolean isCompilable() {
+		return false;
+	}
+
+	/**
+	 * Returns the key identifying the current content of the word list. The key changes when the
+	 * word list, its encoding or the phonetic hash provider change.
+	 *
+	 * @param url the URL of the word list
+	 * @return the key, or <code>null</code> if the URL cannot be accessed
+	 * @since 3.27
+	 */
+	private String getCompiledKey(URL url) {
+		try {
+			URLConnection connection= url.openConnection();
+			// the connection opens the word list to read its modification time and length
+			try (InputStream stream= connection.getInputStream()) {
+				StringBuilder key= new StringBuilder();
+				key.append(url.toExternalForm()).append('\n');
+				key.append(getEncoding()).append('\n');
+				key.append(fHashProvider.getClass().getName()).append('\n');
+				key.append(connection.getLastModified()).append('\n');
+				key.append(connection.getContentLengthLong());
+				return key.toString();
+			}
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the compiled file of a version of a word list. Each version gets its own file, since
+	 * the file of the previous version may still be mapped.
+	 *
+	 * @param url the URL of the word list
+	 * @param key the key of the version of the word list
+	 * @return the compiled file
+	 * @since 3.27
+	 */
+	private static File getCompiledFile(URL url, String key) {
+		String name= getCompiledFilePrefix(url) + Integer.toHexString(key.hashCode()) + COMPILED_DICTIONARY_EXTENSION;
+		return JavaPlugin.getDefault().getStateLocation().append(COMPILED_DICTIONARY_FOLDER).append(name).toFile();
+	}
+
+	private static String getCompiledFilePrefix(URL url) {
+		return Integer.toHexString(url.toExternalForm().hashCode()) + '-';
+	}
+
+	/**
+	 * Deletes the compiled files of other versions of a word list. Files which are still mapped
+	 * cannot be deleted on all platforms, they are deleted by a later compilation.
+	 *
+	 * @param url the URL of the word list
+	 * @param file the compiled file of the current version
+	 * @since 3.27
+	 */
+	private static void deleteStaleCompiledFiles(URL url, File file) {
+		String prefix= getCompiledFilePrefix(url);
+		File[] files= file.getParentFile().listFiles((directory, name) -> name.startsWith(prefix) && name.endsWith(COMPILED_DICTIONARY_EXTENSION));
+		if (files == null)
+			return;
+		for (File stale : files) {
+			if (!stale.equals(file))
+				stale.delete();
+		}
+	}
+
+	private static CompiledSpellDictionary openCompiled(File file, String key) {
+		try {
+			return CompiledSpellDictionary.open(file, key);
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Compiles the loaded word list and replaces the in-memory buckets by the memory-mapped
+	 * compiled dictionary. The words stay in memory if there is an unusable file of the same
+	 * version which cannot be deleted.
+	 *
+	 * @param url the URL of the word list
+	 * @param file the file to compile to
+	 * @param key the key of the word list
+	 * @since 3.27
+	 */
+	private void compile(URL url, File file, String key) {
+		if (file.exists() && !file.delete())
+			return;
+		deleteStaleCompiledFiles(url, file);
+
+		CompiledSpellDictionary.Builder builder= new CompiledSpellDictionary.Builder();
+		for (Map.Entry<ByteArrayWrapper, Object> entry : fHashBuckets.entrySet()) {
+			Object bucket= entry.getValue();
+			if (bucket instanceof byte[]) {
+				builder.add(entry.getKey().byteArray, Collections.singletonList((byte[]) bucket));
+			} else {
+				@SuppressWarnings("unchecked")
+				List<byte[]> bucketList= (List<byte[]>) bucket;
+				builder.add(entry.getKey().byteArray, bucketList);
+			}
+		}
+		try {
+			builder.write(file, key);
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+			return;
+		}
+		CompiledSpellDictionary compiled= openCompiled(file, key);
+		if (compiled != null) {
+			fCompiledDictionary= compiled;
+			fHashBuckets.clear();
+		}
+	}
+
 	/**
 	 * Compacts the dictionary.
 	 *
@@ -698,6 +817,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 		fLoaded= false;
 		fMustLoad= true;
 		fHashBuckets.clear();
+		fCompiledDictionary= null;
 	}
 
 	@Override
@@ -0,0 +1,393 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.spelling.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+
+/**
+ * Read-only spell dictionary stored in a compact binary file which is memory-mapped, so that the
+ * words do not have to be loaded into the heap.
+ * <p>
+ * The file consists of a header, a table of phonetic hash buckets sorted by the unsigned bytes of
+ * the hash, a table of words and a pool with the UTF-8 bytes of all hashes and words:
+ * </p>
+ * <pre>
+ * long   magic
+ * int    version
+ * int    checksum
+ * int    key length, followed by the UTF-8 bytes of the key
+ * int    bucket count, int word count, int pool size
+ * bucket count * (int hash offset, int hash length, int first word, int word count)
+ * word count * (int word offset, int word length)
+ * pool size bytes
+ * </pre>
+ * <p>
+ * The key identifies the word list the file was compiled from; a file whose key does not match is
+ * stale and must be compiled again. The checksum is the CRC-32 of the file with the checksum set to
+ * zero. A file is only mapped if its checksum matches and all its offsets are inside the pool.
+ * </p>
+ * <p>
+ * A file may stay mapped until the dictionary is garbage collected, and a mapped file cannot be
+ * replaced or deleted on all platforms. Compiled files are therefore never overwritten; a changed
+ * word list is compiled into a new file.
+ * </p>
+ *
+ * @since 3.27
+ */
+public final class CompiledSpellDictionary {
+
+	/**
+	 * Collects the phonetic hash buckets and writes them in the compiled format.
+	 */
+	public static final class Builder {
+
+		private final List<byte[]> fHashes= new ArrayList<>();
+		private final List<List<byte[]>> fWords= new ArrayList<>();
+
+		/**
+		 * Adds a bucket.
+		 *
+		 * @param hash the UTF-8 bytes of the phonetic hash, must not have been added before
+		 * @param words the UTF-8 bytes of the words with this hash, in lookup order
+		 */
+		public void add(byte[] hash, List<byte[]> words) {
+			fHashes.add(hash);
+			fWords.add(words);
+		}
+
+		/**
+		 * Writes the compiled dictionary. The file is first written to a temporary file and then
+		 * moved, so that readers never see a partially written file.
+		 *
+		 * @param file the file to write, must not exist
+		 * @param key the key of the word list
+		 * @throws IOException if writing fails or if the file exists
+		 */
+		public void write(File file, String key) throws IOException {
+			Integer[] order= new Integer[fHashes.size()];
+			for (int i= 0; i < order.length; i++)
+				order[i]= Integer.valueOf(i);
+			Arrays.sort(order, (i1, i2) -> Arrays.compareUnsigned(fHashes.get(i1.intValue()), fHashes.get(i2.intValue())));
+
+			int wordCount= 0;
+			int poolSize= 0;
+			for (int i= 0; i < order.length; i++) {
+				poolSize+= fHashes.get(i).length;
+				for (byte[] word : fWords.get(i))
+					poolSize+= word.length;
+				wordCount+= fWords.get(i).size();
+			}
+
+			File directory= file.getParentFile();
+			directory.mkdirs();
+			File temp= File.createTempFile(file.getName(), ".tmp", directory); //$NON-NLS-1$
+			try {
+				CRC32 checksum= new CRC32();
+				try (DataOutputStream out= new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(new FileOutputStream(temp)), checksum))) {
+					byte[] keyBytes= key.getBytes(StandardCharsets.UTF_8);
+					out.writeLong(MAGIC);
+					out.writeInt(VERSION);
+					out.writeInt(0); // checksum
+					out.writeInt(keyBytes.length);
+					out.write(keyBytes);
+					out.writeInt(order.length);
+					out.writeInt(wordCount);
+					out.writeInt(poolSize);
+
+					// bucket table: hashes first in the pool, then the words in bucket order
+					int hashOffset= 0;
+					int firstWord= 0;
+					for (Integer index : order) {
+						byte[] hash= fHashes.get(index.intValue());
+						int words= fWords.get(index.intValue()).size();
+						out.writeInt(hashOffset);
+						out.writeInt(hash.length);
+						out.writeInt(firstWord);
+						out.writeInt(words);
+						hashOffset+= hash.length;
+						firstWord+= words;
+					}
+					int wordOffset= hashOffset;
+					for (Integer index : order) {
+						for (byte[] word : fWords.get(index.intValue())) {
+							out.writeInt(wordOffset);
+							out.writeInt(word.length);
+							wordOffset+= word.length;
+						}
+					}
+					for (Integer index : order)
+						out.write(fHashes.get(index.intValue()));
+					for (Integer index : order) {
+						for (byte[] word : fWords.get(index.intValue()))
+							out.write(word);
+					}
+				}
+				try (RandomAccessFile out= new RandomAccessFile(temp, "rw")) { //$NON-NLS-1$
+					out.seek(CHECKSUM_OFFSET);
+					out.writeInt((int) checksum.getValue());
+				}
+				// fails if the file exists, it may still be mapped
+				Files.move(temp.toPath(), file.toPath());
+			} finally {
+				Files.deleteIfExists(temp.toPath());
+			}
+		}
+	}
+
+	/** The magic number: "JDTSPELL" */
+	private static final long MAGIC= 0x4A44545350454C4CL;
+
+	/** The version of the file format */
+	private static final int VERSION= 2;
+
+	private static final int CHECKSUM_OFFSET= 12;
+
+	private static final int KEY_OFFSET= 20;
+
+	private static final int BUCKET_ENTRY_SIZE= 16;
+
+	private static final int WORD_ENTRY_SIZE= 8;
+
+	/** The mapped file, only accessed with absolute indices */
+	private final ByteBuffer fBuffer;
+
+	private final int fBucketCount;
+
+	private final int fWordCount;
+
+	private final int fBucketTable;
+
+	private final int fWordTable;
+
+	private final int fPool;
+
+	private CompiledSpellDictionary(ByteBuffer buffer, int bucketCount, int wordCount, int bucketTable) {
+		fBuffer= buffer;
+		fBucketCount= bucketCount;
+		fWordCount= wordCount;
+		fBucketTable= bucketTable;
+		fWordTable= bucketTable + bucketCount * BUCKET_ENTRY_SIZE;
+		fPool= fWordTable + wordCount * WORD_ENTRY_SIZE;
+	}
+
+	/**
+	 * Maps a compiled dictionary into memory.
+	 *
+	 * @param file the compiled dictionary
+	 * @param key the expected key of the word list
+	 * @return the dictionary, or <code>null</code> if the file does not exist, has been compiled
+	 *         from a different word list or is corrupt
+	 * @throws IOException if reading the file fails
+	 */
+	public static CompiledSpellDictionary open(File file, String key) throws IOException {
+		if (!file.isFile())
+			return null;
+
+		MappedByteBuffer buffer;
+		try (FileChannel channel= FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size= channel.size();
+			if (size > Integer.MAX_VALUE)
+				return null;
+			buffer= channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+
+		byte[] keyBytes= key.getBytes(StandardCharsets.UTF_8);
+		int limit= buffer.limit();
+		if (limit < KEY_OFFSET + keyBytes.length + 12 || buffer.getLong(0) != MAGIC || buffer.getInt(8) != VERSION || buffer.getInt(16) != keyBytes.length)
+			return null;
+		for (int i= 0; i < keyBytes.length; i++) {
+			if (buffer.get(KEY_OFFSET + i) != keyBytes[i])
+				return null;
+		}
+		int position= KEY_OFFSET + keyBytes.length;
+		int bucketCount= buffer.getInt(position);
+		int wordCount= buffer.getInt(position + 4);
+		int poolSize= buffer.getInt(position + 8);
+		int bucketTable= position + 12;
+		if (bucketCount < 0 || wordCount < 0 || poolSize < 0
+				|| (long) bucketTable + (long) bucketCount * BUCKET_ENTRY_SIZE + (long) wordCount * WORD_ENTRY_SIZE + poolSize != limit)
+			return null;
+		if (getChecksum(buffer) != buffer.getInt(CHECKSUM_OFFSET))
+			return null;
+		CompiledSpellDictionary dictionary= new CompiledSpellDictionary(buffer, bucketCount, wordCount, bucketTable);
+		return dictionary.isValid(poolSize) ? dictionary : null;
+	}
+
+	private static int getChecksum(ByteBuffer buffer) {
+		CRC32 checksum= new CRC32();
+		ByteBuffer range= buffer.duplicate();
+		range.limit(CHECKSUM_OFFSET).position(0);
+		checksum.update(range);
+		checksum.update(new byte[4]);
+		range= buffer.duplicate();
+		range.position(CHECKSUM_OFFSET + 4);
+		checksum.update(range);
+		return (int) checksum.getValue();
+	}
+
+	/**
+	 * Checks that the tables only refer to bytes in the pool and to words in the word table, and
+	 * that the buckets are sorted for the binary search.
+	 *
+	 * @param poolSize the size of the pool
+	 * @return <code>true</code> if the tables are valid
+	 */
+	private boolean isValid(int poolSize) {
+		int previousOffset= 0;
+		int previousLength= -1;
+		for (int bucket= 0; bucket < fBucketCount; bucket++) {
+			int entry= fBucketTable + bucket * BUCKET_ENTRY_SIZE;
+			int hashOffset= fBuffer.getInt(entry);
+			int hashLength= fBuffer.getInt(entry + 4);
+			int firstWord= fBuffer.getInt(entry + 8);
+			int count= fBuffer.getInt(entry + 12);
+			if (!isInRange(hashOffset, hashLength, poolSize) || !isInRange(firstWord, count, fWordCount))
+				return false;
+			if (previousLength != -1 && compareUnsigned(fPool + previousOffset, previousLength, fPool + hashOffset, hashLength) >= 0)
+				return false;
+			previousOffset= hashOffset;
+			previousLength= hashLength;
+		}
+		for (int word= 0; word < fWordCount; word++) {
+			int entry= fWordTable + word * WORD_ENTRY_SIZE;
+			if (!isInRange(fBuffer.getInt(entry), fBuffer.getInt(entry + 4), poolSize))
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isInRange(int offset, int length, int size) {
+		return offset >= 0 && length >= 0 && (long) offset + length <= size;
+	}
+
+	/**
+	 * @return the number of words in this dictionary
+	 */
+	public int getWordCount() {
+		return fWordCount;
+	}
+
+	/**
+	 * @return <code>true</code> if this dictionary has no words
+	 */
+	public boolean isEmpty() {
+		return fWordCount == 0;
+	}
+
+	/**
+	 * Finds the bucket of a phonetic hash by binary search.
+	 *
+	 * @param hash the UTF-8 bytes of the phonetic hash
+	 * @return the index of the bucket, or <code>-1</code> if there is no word with this hash
+	 */
+	public int findBucket(byte[] hash) {
+		int low= 0;
+		int high= fBucketCount - 1;
+		while (low <= high) {
+			int middle= (low + high) >>> 1;
+			int entry= fBucketTable + middle * BUCKET_ENTRY_SIZE;
+			int compare= compareUnsigned(fPool + fBuffer.getInt(entry), fBuffer.getInt(entry + 4), hash);
+			if (compare < 0)
+				low= middle + 1;
+			else if (compare > 0)
+				high= middle - 1;
+			else
+				return middle;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param bucket the index of a bucket
+	 * @return the number of words in the bucket
+	 */
+	public int getWordCount(int bucket) {
+		return fBuffer.getInt(fBucketTable + bucket * BUCKET_ENTRY_SIZE + 12);
+	}
+
+	/**
+	 * Decodes a word of a bucket.
+	 *
+	 * @param bucket the index of a bucket
+	 * @param index the index of the word in the bucket
+	 * @return the word
+	 */
+	public String getWord(int bucket, int index) {
+		int entry= getWordEntry(bucket, index);
+		int offset= fPool + fBuffer.getInt(entry);
+		int length= fBuffer.getInt(entry + 4);
+		ByteBuffer word= fBuffer.duplicate();
+		word.limit(offset + length).position(offset);
+		return StandardCharsets.UTF_8.decode(word).toString();
+	}
+
+	/**
+	 * Tells whether a bucket contains a word, without decoding the words of the bucket.
+	 *
+	 * @param bucket the index of a bucket
+	 * @param word the UTF-8 bytes of the word
+	 * @return <code>true</code> if the bucket contains the word
+	 */
+	public boolean contains(int bucket, byte[] word) {
+		int count= getWordCount(bucket);
+		for (int i= 0; i < count; i++) {
+			int entry= getWordEntry(bucket, i);
+			if (compareUnsigned(fPool + fBuffer.getInt(entry), fBuffer.getInt(entry + 4), word) == 0)
+				return true;
+		}
+		return false;
+	}
+
+	private int getWordEntry(int bucket, int index) {
+		int firstWord= fBuffer.getInt(fBucketTable + bucket * BUCKET_ENTRY_SIZE + 8);
+		return fWordTable + (firstWord + index) * WORD_ENTRY_SIZE;
+	}
+
+	private int compareUnsigned(int offset1, int length1, int offset2, int length2) {
+		int common= Math.min(length1, length2);
+		for (int i= 0; i < common; i++) {
+			int compare= Integer.compare(fBuffer.get(offset1 + i) & 0xff, fBuffer.get(offset2 + i) & 0xff);
+			if (compare != 0)
+				return compare;
+		}
+		return Integer.compare(length1, length2);
+	}
+
+	private int compareUnsigned(int offset, int length, byte[] bytes) {
+		int common= Math.min(length, bytes.length);
+		for (int i= 0; i < common; i++) {
+			int compare= Integer.compare(fBuffer.get(offset + i) & 0xff, bytes[i] & 0xff);
+			if (compare != 0)
+				return compare;
+		}
+		return Integer.compare(length, bytes.length);
+	}
+}
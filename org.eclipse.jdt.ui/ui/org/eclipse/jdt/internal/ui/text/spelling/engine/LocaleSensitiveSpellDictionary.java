@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -58,6 +58,11 @@ public class LocaleSensitiveSpellDictionary extends AbstractSpellDictionary {
 		return new URL(fLocation, fLocale.toString() + ".dictionary");  //$NON-NLS-1$
 	}
 
+	@Override
+	protected boolean isCompilable() {
+		return true;
+	}
+
 	@Override
 	protected int getInitialSize() {
 		return 32 * 1024;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -87,6 +87,11 @@ public class PersistentSpellDictionary extends AbstractSpellDictionary {
 		hashWord(word);
 	}
 
+	@Override
+	protected boolean isCompilable() {
+		return true;
+	}
+
 	@Override
 	protected final URL getURL() {
 		return fLocation;
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.viewsupport;
+
+import java.util.Arrays;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+
+/**
+ * The start offsets of the text problem markers of a resource, by severity. Answers which is the
+ * highest severity of the markers starting in a source range with a binary search per severity,
+ * instead of reading the attributes of all markers for every range.
+ * <p>
+ * The index is a snapshot of the markers at the time it was created. It is immutable and thus
+ * thread-safe.
+ * </p>
+ *
+ * @since 3.27
+ */
+public final class ProblemMarkerIndex {
+
+	private static final int[] NO_OFFSETS= new int[0];
+
+	/**
+	 * The sorted start offsets of the markers, indexed by {@link IMarker#SEVERITY_INFO},
+	 * {@link IMarker#SEVERITY_WARNING} and {@link IMarker#SEVERITY_ERROR}. Markers without start
+	 * offset have the offset <code>-1</code>.
+	 */
+	private final int[][] fOffsets;
+
+	private ProblemMarkerIndex(int[][] offsets) {
+		fOffsets= offsets;
+	}
+
+	/**
+	 * Creates the index of the problem markers of the given resource. Only markers which are also
+	 * text markers and which have an info, warning or error severity are indexed.
+	 *
+	 * @param resource the resource
+	 * @param depth the depth of the markers to index, see
+	 *            {@link IResource#findMarkers(String, boolean, int)}
+	 * @return the index
+	 * @throws CoreException if the markers cannot be read
+	 */
+	public static ProblemMarkerIndex create(IResource resource, int depth) throws CoreException {
+		IMarker[] markers= resource.findMarkers(IMarker.PROBLEM, true, depth);
+		int[][] offsets= new int[IMarker.SEVERITY_ERROR + 1][];
+		int[] counts= new int[offsets.length];
+		for (int i= 0; i < offsets.length; i++) {
+			offsets[i]= new int[markers.length];
+		}
+		for (IMarker marker : markers) {
+			if (!marker.isSubtypeOf(IMarker.TEXT))
+				continue;
+			int severity= marker.getAttribute(IMarker.SEVERITY, -1);
+			if (severity == IMarker.SEVERITY_INFO || severity == IMarker.SEVERITY_WARNING || severity == IMarker.SEVERITY_ERROR) {
+				offsets[severity][counts[severity]++]= marker.getAttribute(IMarker.CHAR_START, -1);
+			}
+		}
+		for (int i= 0; i < offsets.length; i++) {
+			if (counts[i] == 0) {
+				offsets[i]= NO_OFFSETS;
+			} else {
+				offsets[i]= Arrays.copyOf(offsets[i], counts[i]);
+				Arrays.sort(offsets[i]);
+			}
+		}
+		return new ProblemMarkerIndex(offsets);
+	}
+
+	/**
+	 * Returns the highest severity of the markers which start in the given range.
+	 *
+	 * @param offset the offset of the range
+	 * @param length the length of the range
+	 * @return the highest severity, or <code>-1</code> if no marker starts in the range
+	 */
+	public int getMaxSeverity(int offset, int length) {
+		for (int severity= IMarker.SEVERITY_ERROR; severity >= IMarker.SEVERITY_INFO; severity--) {
+			int[] offsets= fOffsets[severity];
+			int index= Arrays.binarySearch(offsets, offset);
+			// a marker starting at the offset, or else the first marker starting after it
+			if (index < 0)
+				index= -index - 1;
+			if (index < offsets.length && offsets[index] < offset + length)
+				return severity;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the start offsets of the markers with the given severity.
+	 *
+	 * @param severity one of {@link IMarker#SEVERITY_INFO}, {@link IMarker#SEVERITY_WARNING} and
+	 *            {@link IMarker#SEVERITY_ERROR}
+	 * @return the sorted offsets, <code>-1</code> for markers without start offset. The array must
+	 *         not be modified.
+	 */
+	public int[] getOffsets(int severity) {
+		return fOffsets[severity];
+	}
+}
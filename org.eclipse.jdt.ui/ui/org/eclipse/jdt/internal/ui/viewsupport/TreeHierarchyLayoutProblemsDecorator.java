@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -73,4 +73,9 @@ public class TreeHierarchyLayoutProblemsDecorator extends ProblemsLabelDecorator
 		fIsFlatLayout= state;
 	}
 
+	@Override
+	protected boolean isInsideSourceRange() {
+		return true;
+	}
+
 }
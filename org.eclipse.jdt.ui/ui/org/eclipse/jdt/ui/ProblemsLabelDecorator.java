@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -76,11 +76,14 @@ import org.eclipse.jdt.core.JavaModelException;
 
 import org.eclipse.jdt.launching.JavaRuntime;
 
+import org.eclipse.jdt.internal.corext.util.LRUMap;
+
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.JavaPluginImages;
 import org.eclipse.jdt.internal.ui.viewsupport.IProblemChangedListener;
 import org.eclipse.jdt.internal.ui.viewsupport.ImageDescriptorRegistry;
 import org.eclipse.jdt.internal.ui.viewsupport.ImageImageDescriptor;
+import org.eclipse.jdt.internal.ui.viewsupport.ProblemMarkerIndex;
 
 /**
  * LabelDecorator that decorates an element's image with error and warning overlays that
@@ -141,6 +144,11 @@ public class ProblemsLabelDecorator implements ILabelDecorator, ILightweightLabe
 
 	static final boolean DEBUG = false;
 
+	/**
+	 * The maximal number of files whose problem markers are indexed by one decorator.
+	 */
+	private static final int MAX_MARKER_INDEXES= 32;
+
 	private ImageDescriptorRegistry fRegistry;
 	private boolean fUseNewRegistry= false;
 	private IProblemChangedListener fProblemChangedListener;
@@ -148,6 +156,18 @@ public class ProblemsLabelDecorator implements ILabelDecorator, ILightweightLabe
 	private ListenerList<ILabelProviderListener> fListeners;
 	private ISourceRange fCachedRange;
 
+	/**
+	 * The marker indexes of recently decorated files. Indexes are only kept while the decorator
+	 * listens to problem changes, which invalidate them.
+	 */
+	private final Map<IResource, ProblemMarkerIndex> fMarkerIndexes= new LRUMap<>(MAX_MARKER_INDEXES);
+
+	/**
+	 * Incremented whenever marker indexes are cleared, so that an index created from markers which
+	 * have changed in the meantime is not cached. Guarded by <code>fMarkerIndexes</code>.
+	 */
+	private long fMarkerIndexGeneration;
+
 	/** job to update adornments for container resources in UI thread */
 	private final AdornmentUpdateJob adornmentUpdateJob;
 
@@ -602,20 +622,62 @@ public class ProblemsLabelDecorator implements ILabelDecorator, ILightweightLabe
 		if (res == null || !res.isAccessible()) {
 			return 0;
 		}
-		int severity= -1;
-		IMarker[] markers= res.findMarkers(IMarker.PROBLEM, true, depth);
-		if (markers != null && markers.length > 0) {
-			for (int i= 0; i < markers.length && (severity != IMarker.SEVERITY_ERROR); i++) {
-				IMarker curr= markers[i];
-				if (isMarkerInRange(curr, sourceElement)) {
-					int val= curr.getAttribute(IMarker.SEVERITY, -1);
-					if (val == IMarker.SEVERITY_INFO || val == IMarker.SEVERITY_WARNING || val == IMarker.SEVERITY_ERROR) {
-						severity= Math.max(severity, val);
-					}
+		ProblemMarkerIndex index= getMarkerIndex(res, depth);
+		if (isInsideSourceRange()) {
+			ISourceRange range= sourceElement.getSourceRange();
+			return range != null ? convertToTick(index.getMaxSeverity(range.getOffset(), range.getLength())) : 0;
+		}
+		for (int severity= IMarker.SEVERITY_ERROR; severity >= IMarker.SEVERITY_INFO; severity--) {
+			for (int pos : index.getOffsets(severity)) {
+				if (isInside(pos, sourceElement))
+					return convertToTick(severity);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the index of the problem markers of the given file. The index is cached until the
+	 * problem markers of the file change.
+	 *
+	 * @param res the file
+	 * @param depth the depth of the markers
+	 * @return the index
+	 * @throws CoreException if the markers cannot be read
+	 */
+	private ProblemMarkerIndex getMarkerIndex(IResource res, int depth) throws CoreException {
+		if (fProblemChangedListener == null) {
+			// the index would not be invalidated
+			return ProblemMarkerIndex.create(res, depth);
+		}
+		ProblemMarkerIndex index;
+		long generation;
+		synchronized (fMarkerIndexes) {
+			index= fMarkerIndexes.get(res);
+			generation= fMarkerIndexGeneration;
+		}
+		if (index == null) {
+			index= ProblemMarkerIndex.create(res, depth);
+			synchronized (fMarkerIndexes) {
+				if (generation == fMarkerIndexGeneration) {
+					fMarkerIndexes.put(res, index);
+				}
+			}
+		}
+		return index;
+	}
+
+	private void clearMarkerIndexes(IResource[] changedResources) {
+		synchronized (fMarkerIndexes) {
+			fMarkerIndexGeneration++;
+			if (changedResources == null) {
+				fMarkerIndexes.clear();
+			} else {
+				for (IResource resource : changedResources) {
+					fMarkerIndexes.remove(resource);
 				}
 			}
 		}
-		return convertToTick(severity);
 	}
 
 	private static int convertToTick(int severity) {
@@ -683,14 +745,6 @@ public class ProblemsLabelDecorator implements ILabelDecorator, ILightweightLabe
 		}
 	}
 
-	private boolean isMarkerInRange(IMarker marker, ISourceReference sourceElement) throws CoreException {
-		if (marker.isSubtypeOf(IMarker.TEXT)) {
-			int pos= marker.getAttribute(IMarker.CHAR_START, -1);
-			return isInside(pos, sourceElement);
-		}
-		return false;
-	}
-
 	private IAnnotationModel isInJavaAnnotationModel(ICompilationUnit original) {
 		if (original.isWorkingCopy()) {
 			FileEditorInput editorInput= new FileEditorInput((IFile) original.getResource());
@@ -743,6 +797,25 @@ public class ProblemsLabelDecorator implements ILabelDecorator, ILightweightLabe
 		return pos != null && isInside(pos.getOffset(), sourceElement);
 	}
 
+	/**
+	 * Returns whether {@link #isInside(int, ISourceReference)} tests if a position is inside the
+	 * source range of the element, like the implementation in this class. The problem markers in the
+	 * source range of an element are then looked up in an index of the markers of the file, instead
+	 * of testing the position of each marker.
+	 * <p>
+	 * Subclasses which do not override {@link #isInside(int, ISourceReference)} can override this
+	 * method to return <code>true</code>.
+	 * </p>
+	 *
+	 * @return <code>true</code> if the markers of an element are the markers in its source range.
+	 *         The implementation in this class only returns <code>true</code> if this decorator is
+	 *         not an instance of a subclass.
+	 * @since 3.27
+	 */
+	protected boolean isInsideSourceRange() {
+		return getClass() == ProblemsLabelDecorator.class;
+	}
+
 	/**
 	 * Tests if a position is inside the source range of an element.
 	 * @param pos Position to be tested.
@@ -770,6 +843,7 @@ public class ProblemsLabelDecorator implements ILabelDecorator, ILightweightLabe
 			JavaPlugin.getDefault().getProblemMarkerManager().removeListener(fProblemChangedListener);
 			fProblemChangedListener= null;
 		}
+		clearMarkerIndexes(null);
 		if (fRegistry != null && fUseNewRegistry) {
 			fRegistry.dispose();
 		}
@@ -792,7 +866,12 @@ public class ProblemsLabelDecorator implements ILabelDecorator, ILightweightLabe
 		}
 		fListeners.add(listener);
 		if (fProblemChangedListener == null) {
-			fProblemChangedListener= this::fireProblemsChanged;
+			fProblemChangedListener= (changedResources, isMarkerChange) -> {
+				if (isMarkerChange) {
+					clearMarkerIndexes(changedResources);
+				}
+				fireProblemsChanged(changedResources, isMarkerChange);
+			};
 			JavaPlugin.getDefault().getProblemMarkerManager().addListener(fProblemChangedListener);
 		}
 	}
@@ -804,6 +883,7 @@ public class ProblemsLabelDecorator implements ILabelDecorator, ILightweightLabe
 			if (fListeners.isEmpty() && fProblemChangedListener != null) {
 				JavaPlugin.getDefault().getProblemMarkerManager().removeListener(fProblemChangedListener);
 				fProblemChangedListener= null;
+				clearMarkerIndexes(null);
 			}
 		}
 	}
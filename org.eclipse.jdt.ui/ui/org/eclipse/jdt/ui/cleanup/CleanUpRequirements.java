@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2019 IBM Corporation and others.
+ * Copyright (c) 2008, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -41,6 +41,21 @@ public final class CleanUpRequirements {
 		this.requirementsCore= new CleanUpRequirementsCore(requiresAST, requiresFreshAST, requiresChangedRegions, compilerOptions);
 	}
 
+	/**
+	 * Create a new instance
+	 *
+	 * @param requiresAST <code>true</code> if an AST is required
+	 * @param requiresFreshAST <code>true</code> if a fresh AST is required
+	 * @param requiresChangedRegions <code>true</code> if changed regions are required
+	 * @param compilerOptions map of compiler options or <code>null</code> if no requirements
+	 * @param supportsConcurrentFixes <code>true</code> if {@link ICleanUp#createFix(CleanUpContext)}
+	 *            may be called concurrently for different compilation units
+	 * @since 3.27
+	 */
+	public CleanUpRequirements(boolean requiresAST, boolean requiresFreshAST, boolean requiresChangedRegions, Map<String, String> compilerOptions, boolean supportsConcurrentFixes) {
+		this.requirementsCore= new CleanUpRequirementsCore(requiresAST, requiresFreshAST, requiresChangedRegions, compilerOptions, supportsConcurrentFixes);
+	}
+
 	/**
 	 * Create a new instance
 	 *
@@ -103,4 +118,16 @@ public final class CleanUpRequirements {
 		return requirementsCore.requiresChangedRegions();
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Tells whether {@link ICleanUp#createFix(CleanUpContext)} may be called concurrently for
+	 * different compilation units. Clean ups which do not support this are never asked for two
+	 * fixes at the same time, even if the clean ups are computed in parallel.
+	 *
+	 * @return <code>true</code> if fixes may be created concurrently
+	 * @since 3.27
+	 */
+	public boolean supportsConcurrentFixes() {
+		return requirementsCore.supportsConcurrentFixes();
+	}
+
+}
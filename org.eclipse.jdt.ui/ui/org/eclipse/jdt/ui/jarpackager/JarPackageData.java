@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -134,6 +134,12 @@ public class JarPackageData {
 	// Add directory entries to the jar
 	private boolean fIncludeDirectoryEntries;
 
+	// Compress the entries on several threads
+	private boolean fParallelCompression;
+
+	// Copy the unchanged entries from the previously exported JAR
+	private boolean fIncrementalExport;
+
 	// Projects for which to store refactoring information
 	private IProject[] fRefactoringProjects= {};
 
@@ -1057,6 +1063,67 @@ public class JarPackageData {
 		fIncludeDirectoryEntries = includeDirectoryEntries;
 	}
 
+	/**
+	 * Tells whether the entries of the JAR are compressed on several threads. In this mode, entries
+	 * of archives which are extracted into the JAR are copied without compressing them again if
+	 * they are already compressed in the same way.
+	 * <p>
+	 * This option is not persisted in JAR descriptions.
+	 * </p>
+	 *
+	 * @return <code>true</code> if the entries are compressed on several threads
+	 *
+	 * @since 3.27
+	 */
+	public boolean isParallelCompressionEnabled() {
+		return fParallelCompression;
+	}
+
+	/**
+	 * Sets the option to compress the entries of the JAR on several threads.
+	 *
+	 * @param parallelCompression <code>true</code> to compress the entries on several threads,
+	 *            <code>false</code> to compress them on the exporting thread
+	 *
+	 * @see #isParallelCompressionEnabled()
+	 * @since 3.27
+	 */
+	public void setParallelCompression(boolean parallelCompression) {
+		fParallelCompression= parallelCompression;
+	}
+
+	/**
+	 * Tells whether the JAR is exported incrementally. An incremental export records the content
+	 * hashes of the entries in a file next to the JAR description. When the description is
+	 * exported again, entries whose content has not changed are copied from the previously
+	 * exported JAR instead of being compressed again.
+	 * <p>
+	 * The JAR is exported completely if the JAR package has no description location, or if the
+	 * JAR has been changed since the previous export.
+	 * </p>
+	 *
+	 * @return <code>true</code> if the JAR is exported incrementally
+	 *
+	 * @see #getDescriptionLocation()
+	 * @since 3.27
+	 */
+	public boolean isIncrementalExport() {
+		return fIncrementalExport;
+	}
+
+	/**
+	 * Sets the option to export the JAR incrementally.
+	 *
+	 * @param incrementalExport <code>true</code> to export the JAR incrementally,
+	 *            <code>false</code> to always export all entries
+	 *
+	 * @see #isIncrementalExport()
+	 * @since 3.27
+	 */
+	public void setIncrementalExport(boolean incrementalExport) {
+		fIncrementalExport= incrementalExport;
+	}
+
 	/**
 	 * Returns the projects for which refactoring information should be stored.
 	 * <p>
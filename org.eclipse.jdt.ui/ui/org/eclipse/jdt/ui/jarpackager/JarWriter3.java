@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2020 IBM Corporation and others.
+ * Copyright (c) 2000, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -18,6 +18,8 @@ package org.eclipse.jdt.ui.jarpackager;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -61,7 +63,11 @@ import org.eclipse.ltk.core.refactoring.RefactoringDescriptorProxy;
 
 import org.eclipse.jdt.internal.core.manipulation.util.BasicElementLabels;
 import org.eclipse.jdt.internal.corext.util.Messages;
+import org.eclipse.jdt.internal.corext.util.Parallelism;
+import org.eclipse.jdt.internal.jarpackager.JarEntryHashes;
 import org.eclipse.jdt.internal.jarpackager.JarPackagerUtilCore;
+import org.eclipse.jdt.internal.jarpackager.ParallelJarOutputStream;
+import org.eclipse.jdt.internal.jarpackager.RawZipFile;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.jarpackager.JarPackagerMessages;
@@ -79,12 +85,27 @@ import org.eclipse.jdt.internal.ui.jarpackager.JarPackagerUtil;
  */
 public class JarWriter3 {
 
+	private static final int OUTPUT_BUFFER_SIZE= 64 * 1024;
+
+	private static final String ENTRY_HASHES_EXTENSION= "jarhashes"; //$NON-NLS-1$
+
+	private static final String PREVIOUS_JAR_SUFFIX= ".previous"; //$NON-NLS-1$
+
 	private Set<String> fDirectories= new HashSet<>();
 
 	private JarOutputStream fJarOutputStream;
 
 	private JarPackageData fJarPackage;
 
+	/**
+	 * The hashes of the written entries if the export is incremental, <code>null</code> otherwise
+	 */
+	private JarEntryHashes fEntryHashes;
+
+	private JarEntryHashes fPreviousEntryHashes;
+	private RawZipFile fPreviousJar;
+	private File fPreviousJarFile;
+
 	/**
 	* Gets the fJarOutputStream of this JarWriter3
 	*
@@ -127,11 +148,22 @@ public class JarWriter3 {
 			throw new OperationCanceledException("Cannot create JAR with path: " + fJarPackage.getAbsoluteJarLocation()); //$NON-NLS-1$
 
 		try {
-			if (fJarPackage.usesManifest() && fJarPackage.areGeneratedFilesExported()) {
-				Manifest manifest= fJarPackage.getManifestProvider().create(fJarPackage);
-				fJarOutputStream= new JarOutputStream(new BufferedOutputStream(new FileOutputStream(fJarPackage.getAbsoluteJarLocation().toFile())), manifest);
-			} else
-				fJarOutputStream= new JarOutputStream(new BufferedOutputStream(new FileOutputStream(fJarPackage.getAbsoluteJarLocation().toFile())));
+			Manifest manifest= null;
+			if (fJarPackage.usesManifest() && fJarPackage.areGeneratedFilesExported())
+				manifest= fJarPackage.getManifestProvider().create(fJarPackage);
+			File jarFile= fJarPackage.getAbsoluteJarLocation().toFile();
+			if (fJarPackage.isIncrementalExport())
+				openPreviousJar(jarFile);
+			OutputStream out= new BufferedOutputStream(new FileOutputStream(jarFile), OUTPUT_BUFFER_SIZE);
+			if (fJarPackage.isParallelCompressionEnabled())
+				fJarOutputStream= new ParallelJarOutputStream(out, manifest, Parallelism.DEFAULT);
+			else if (fEntryHashes != null)
+				// copying entries from the previous JAR needs the parallel stream
+				fJarOutputStream= new ParallelJarOutputStream(out, manifest, 1);
+			else if (manifest != null)
+				fJarOutputStream= new JarOutputStream(out, manifest);
+			else
+				fJarOutputStream= new JarOutputStream(out);
 			String comment= jarPackage.getComment();
 			if (comment != null)
 				fJarOutputStream.setComment(comment);
@@ -142,10 +174,99 @@ public class JarWriter3 {
 				addHistory(fJarPackage, new Path(JarPackagerUtil.getRefactoringsEntry()), new NullProgressMonitor());
 			}
 		} catch (IOException exception) {
+			closePreviousJar();
 			throw JarPackagerUtil.createCoreException(exception.getLocalizedMessage(), exception);
 		}
 	}
 
+	/**
+	 * Prepares an incremental export by moving the JAR of the previous export aside, so that the
+	 * entries which have not changed can be copied from it. Does nothing but start recording the
+	 * entry hashes if there are no hashes of the previous export, or if the JAR has been changed
+	 * since.
+	 *
+	 * @param jarFile the JAR to write
+	 */
+	private void openPreviousJar(File jarFile) {
+		IFile hashesFile= getEntryHashesFile();
+		if (hashesFile == null)
+			return;
+		fEntryHashes= new JarEntryHashes();
+		if (!hashesFile.exists() || !jarFile.isFile())
+			return;
+
+		JarEntryHashes previousHashes;
+		try (InputStream stream= hashesFile.getContents(true)) {
+			previousHashes= JarEntryHashes.read(stream);
+		} catch (CoreException | IOException ex) {
+			JavaPlugin.log(ex);
+			return;
+		}
+		if (previousHashes == null || !previousHashes.describes(jarFile))
+			return;
+
+		File previousJarFile= new File(jarFile.getPath() + PREVIOUS_JAR_SUFFIX);
+		if (previousJarFile.exists() && !previousJarFile.delete())
+			return;
+		if (!jarFile.renameTo(previousJarFile))
+			return;
+		fPreviousJarFile= previousJarFile;
+		fPreviousJar= RawZipFile.open(previousJarFile);
+		fPreviousEntryHashes= previousHashes;
+	}
+
+	private void closePreviousJar() {
+		if (fPreviousJar != null) {
+			try {
+				fPreviousJar.close();
+			} catch (IOException ex) {
+				// Do nothing
+			}
+			fPreviousJar= null;
+		}
+		if (fPreviousJarFile != null) {
+			fPreviousJarFile.delete();
+			fPreviousJarFile= null;
+		}
+	}
+
+	/**
+	 * Returns the file which stores the entry hashes for incremental exports. It is located next to
+	 * the JAR description.
+	 *
+	 * @return the file, or <code>null</code> if the JAR package does not save a valid description
+	 */
+	private IFile getEntryHashesFile() {
+		if (!fJarPackage.isDescriptionSaved())
+			return null;
+		IFile descriptionFile= fJarPackage.getDescriptionFile();
+		if (descriptionFile == null)
+			return null;
+		IPath path= descriptionFile.getFullPath().removeFileExtension().addFileExtension(ENTRY_HASHES_EXTENSION);
+		return ResourcesPlugin.getWorkspace().getRoot().getFile(path);
+	}
+
+	private void saveEntryHashes() {
+		IFile hashesFile= getEntryHashesFile();
+		if (!hashesFile.getParent().isAccessible())
+			return;
+		fEntryHashes.setJar(fJarPackage.getAbsoluteJarLocation().toFile());
+		try {
+			ByteArrayOutputStream output= new ByteArrayOutputStream();
+			fEntryHashes.write(output);
+			InputStream input= new ByteArrayInputStream(output.toByteArray());
+			if (hashesFile.exists()) {
+				hashesFile.setContents(input, true, false, null);
+			} else {
+				hashesFile.create(input, true, null);
+				hashesFile.setDerived(true, null);
+			}
+		} catch (CoreException | IOException ex) {
+			// the next export will not be incremental
+			JavaPlugin.log(ex);
+		}
+	}
+
 	/**
 	 * Creates the directory entries for the given path and writes it to the current archive.
 	 *
@@ -287,7 +408,34 @@ public class JarWriter3 {
 	 * @since 3.4
 	 */
 	protected void addEntry(JarEntry entry, InputStream content) throws IOException {
-		JarPackagerUtilCore.addEntry(entry, content, fJarOutputStream);
+		if (fEntryHashes != null)
+			addEntryIncrementally(entry, content);
+		else
+			JarPackagerUtilCore.addEntry(entry, content, fJarOutputStream);
+	}
+
+	private void addEntryIncrementally(JarEntry entry, InputStream content) throws IOException {
+		byte[] data;
+		try {
+			data= content.readAllBytes();
+		} finally {
+			content.close();
+		}
+		String name= entry.getName();
+		String hash= JarEntryHashes.hash(data);
+		fEntryHashes.put(name, hash);
+
+		RawZipFile.Entry previous= null;
+		if (fPreviousJar != null && hash.equals(fPreviousEntryHashes.get(name)))
+			previous= fPreviousJar.getEntry(name);
+		int method= entry.getMethod() != -1 ? entry.getMethod() : ZipEntry.DEFLATED;
+		if (previous != null && previous.getMethod() == method && previous.getSize() == data.length) {
+			// unchanged since the previous export, copy the compressed data
+			((ParallelJarOutputStream) fJarOutputStream).putRawEntry(entry, fPreviousJar, previous);
+		} else {
+			fJarOutputStream.putNextEntry(entry);
+			fJarOutputStream.write(data);
+		}
 	}
 
 	/**
@@ -392,8 +540,12 @@ public class JarWriter3 {
 			try {
 				fJarOutputStream.close();
 				registerInWorkspaceIfNeeded();
+				if (fEntryHashes != null)
+					saveEntryHashes();
 			} catch (IOException ex) {
 				throw JarPackagerUtil.createCoreException(ex.getLocalizedMessage(), ex);
+			} finally {
+				closePreviousJar();
 			}
 	}
 
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests.history;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileStore;
+
+import org.eclipse.core.runtime.Path;
+
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptorProxy;
+import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryIndex;
+import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryManager;
+import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryService;
+
+public class RefactoringHistoryIndexTests {
+
+	private static final class Proxy extends RefactoringDescriptorProxy {
+		private final String fDescription;
+		private final long fStamp;
+
+		Proxy(String description, long stamp) {
+			fDescription= description;
+			fStamp= stamp;
+		}
+
+		@Override
+		public String getDescription() {
+			return fDescription;
+		}
+
+		@Override
+		public String getProject() {
+			return null;
+		}
+
+		@Override
+		public long getTimeStamp() {
+			return fStamp;
+		}
+	}
+
+	private IFileStore fStore;
+
+	@Before
+	public void setUp() throws Exception {
+		fStore= EFS.getLocalFileSystem().getStore(new Path(Files.createTempDirectory("history").toString()));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		fStore.delete(EFS.NONE, null);
+	}
+
+	private static long[] stamps(RefactoringDescriptorProxy[] proxies) {
+		long[] stamps= new long[proxies.length];
+		for (int i= 0; i < proxies.length; i++)
+			stamps[i]= proxies[i].getTimeStamp();
+		return stamps;
+	}
+
+	private void appendTextIndex(long stamp, String description) throws Exception {
+		IFileStore folder= fStore.getFileStore(RefactoringHistoryManager.stampToPath(stamp));
+		folder.mkdir(EFS.NONE, null);
+		try (OutputStream output= folder.getChild(RefactoringHistoryService.NAME_INDEX_FILE).openOutputStream(EFS.APPEND, null)) {
+			output.write((String.valueOf(stamp) + RefactoringHistoryManager.DELIMITER_COMPONENT + description + RefactoringHistoryManager.DELIMITER_ENTRY).getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void testMissingIndex() throws Exception {
+		assertNull(new RefactoringHistoryIndex(fStore).readRefactoringDescriptorProxies(null, 0, Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testTimeRange() throws Exception {
+		RefactoringHistoryIndex index= new RefactoringHistoryIndex(fStore);
+		index.writeRefactoringDescriptorProxies(new RefactoringDescriptorProxy[] { new Proxy("c", 30), new Proxy("a", 10), new Proxy("d", 40), new Proxy("b", 20)});
+		RefactoringDescriptorProxy[] proxies= new RefactoringHistoryIndex(fStore).readRefactoringDescriptorProxies("project", 15, 30);
+		assertNotNull(proxies);
+		assertArrayEquals(new long[] { 20, 30 }, stamps(proxies));
+		assertEquals("b", proxies[0].getDescription());
+		assertEquals("project", proxies[0].getProject());
+	}
+
+	@Test
+	public void testAppendedRecords() throws Exception {
+		RefactoringHistoryIndex reader= new RefactoringHistoryIndex(fStore);
+		reader.writeRefactoringDescriptorProxies(new RefactoringDescriptorProxy[] { new Proxy("a", 10), new Proxy("b", 20)});
+		assertEquals(2, reader.readRefactoringDescriptorProxies(null, 0, Long.MAX_VALUE).length);
+
+		RefactoringHistoryIndex writer= new RefactoringHistoryIndex(fStore);
+		writer.addRefactoringDescriptor(30, "c");
+		writer.addRefactoringDescriptor(15, "a2");
+		writer.addRefactoringDescriptor(15, "a2");
+		writer.removeRefactoringDescriptors(new RefactoringDescriptorProxy[] { new Proxy("a", 10)});
+
+		RefactoringDescriptorProxy[] proxies= reader.readRefactoringDescriptorProxies(null, 0, Long.MAX_VALUE);
+		assertArrayEquals(new long[] { 15, 20, 30 }, stamps(proxies));
+		assertArrayEquals(stamps(proxies), stamps(new RefactoringHistoryIndex(fStore).readRefactoringDescriptorProxies(null, 0, Long.MAX_VALUE)));
+	}
+
+	@Test
+	public void testCompaction() throws Exception {
+		RefactoringHistoryIndex index= new RefactoringHistoryIndex(fStore);
+		index.writeRefactoringDescriptorProxies(new RefactoringDescriptorProxy[0]);
+		RefactoringDescriptorProxy[] proxies= new RefactoringDescriptorProxy[200];
+		for (int i= 0; i < proxies.length; i++) {
+			proxies[i]= new Proxy("refactoring " + i, i);
+			index.addRefactoringDescriptor(i, proxies[i].getDescription());
+		}
+		RefactoringDescriptorProxy[] removed= new RefactoringDescriptorProxy[150];
+		System.arraycopy(proxies, 0, removed, 0, removed.length);
+		index.removeRefactoringDescriptors(removed);
+		IFileStore file= fStore.getChild(RefactoringHistoryService.NAME_BINARY_INDEX_FILE);
+		long length= file.fetchInfo().getLength();
+
+		assertEquals(50, index.readRefactoringDescriptorProxies(null, 0, Long.MAX_VALUE).length);
+		assertTrue(file.fetchInfo().getLength() < length);
+		assertEquals(50, new RefactoringHistoryIndex(fStore).readRefactoringDescriptorProxies(null, 0, Long.MAX_VALUE).length);
+	}
+
+	@Test
+	public void testAddedRefactoringsKeepIndex() throws Exception {
+		appendTextIndex(10, "a");
+		new RefactoringHistoryIndex(fStore).writeRefactoringDescriptorProxies(new RefactoringDescriptorProxy[] { new Proxy("a", 10)});
+		RefactoringHistoryIndex index= new RefactoringHistoryIndex(fStore);
+		appendTextIndex(20, "b");
+		index.addRefactoringDescriptor(20, "b");
+		appendTextIndex(10, "c");
+		index.addRefactoringDescriptor(10, "c");
+
+		RefactoringDescriptorProxy[] proxies= new RefactoringHistoryIndex(fStore).readRefactoringDescriptorProxies(null, 0, Long.MAX_VALUE);
+		assertNotNull(proxies);
+		assertArrayEquals(new long[] { 10, 10, 20 }, stamps(proxies));
+	}
+
+	@Test
+	public void testTextIndexChangedByEarlierVersion() throws Exception {
+		appendTextIndex(10, "a");
+		new RefactoringHistoryIndex(fStore).writeRefactoringDescriptorProxies(new RefactoringDescriptorProxy[] { new Proxy("a", 10)});
+		assertNotNull(new RefactoringHistoryIndex(fStore).readRefactoringDescriptorProxies(null, 0, Long.MAX_VALUE));
+
+		// earlier versions only write the text index files
+		appendTextIndex(10, "b");
+		assertNull(new RefactoringHistoryIndex(fStore).readRefactoringDescriptorProxies(null, 0, Long.MAX_VALUE));
+		new RefactoringHistoryIndex(fStore).writeRefactoringDescriptorProxies(new RefactoringDescriptorProxy[] { new Proxy("a", 10), new Proxy("b", 10)});
+		assertNotNull(new RefactoringHistoryIndex(fStore).readRefactoringDescriptorProxies(null, 0, Long.MAX_VALUE));
+
+		appendTextIndex(1000000000000L, "c");
+		assertNull(new RefactoringHistoryIndex(fStore).readRefactoringDescriptorProxies(null, 0, Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testCorruptIndex() throws Exception {
+		try (OutputStream output= fStore.getChild(RefactoringHistoryService.NAME_BINARY_INDEX_FILE).openOutputStream(EFS.NONE, null)) {
+			output.write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+		}
+		assertNull(new RefactoringHistoryIndex(fStore).readRefactoringDescriptorProxies(null, 0, Long.MAX_VALUE));
+	}
+}
@@ -0,0 +1,569 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring.history;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileInfo;
+import org.eclipse.core.filesystem.IFileStore;
+
+import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptorProxy;
+import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
+
+/**
+ * Binary index of a refactoring history.
+ * <p>
+ * The index maps the time stamps of the refactorings of a history to their
+ * descriptions, so that the refactorings of a time range can be determined
+ * without reading the {@link RefactoringHistoryService#NAME_INDEX_FILE} files
+ * of the history tree. The descriptor of an entry is stored in the history
+ * file of the folder {@link RefactoringHistoryManager#stampToPath(long)}.
+ * </p>
+ * <p>
+ * The index file consists of a header followed by records which add or remove
+ * an entry. Changes of the history are appended, so that adding a refactoring
+ * does not rewrite the index. The records are read into arrays sorted by time
+ * stamp, which answer time range queries by binary search. Records appended by
+ * other index instances are read incrementally. The file is compacted once it
+ * contains more removed than remaining entries.
+ * </p>
+ * <p>
+ * The index also records the modification time and length of the
+ * {@link RefactoringHistoryService#NAME_INDEX_FILE} files it was written
+ * for. When the index file is read, they are compared with the files of the
+ * history tree, so that changes of the history by earlier versions, which do
+ * not maintain the index, are detected.
+ * </p>
+ * <p>
+ * If the index file does not exist, cannot be read, e.g. because it has
+ * been written by another version, or does not match the history tree, the
+ * index has to be recreated from the history tree by
+ * {@link #writeRefactoringDescriptorProxies(RefactoringDescriptorProxy[])}.
+ * </p>
+ */
+public final class RefactoringHistoryIndex {
+
+	/** The magic number of index files */
+	private static final int MAGIC= 0x52484958;
+
+	/** The version of the index format */
+	private static final int VERSION= 2;
+
+	/** The length of the header in bytes */
+	private static final int HEADER_LENGTH= 16;
+
+	/** The record kind of added entries */
+	private static final byte RECORD_ADD= 1;
+
+	/** The record kind of removed entries */
+	private static final byte RECORD_REMOVE= 2;
+
+	/** The record kind of the state of a text index file */
+	private static final byte RECORD_TEXT_INDEX= 3;
+
+	/** The minimal number of removed entries before the index is compacted */
+	private static final int COMPACT_THRESHOLD= 64;
+
+	/** The sorted descriptions of the entries */
+	private String[] fDescriptions= new String[0];
+
+	/** The index file store */
+	private final IFileStore fFile;
+
+	/** The generation of the read index file, changed when it is rewritten */
+	private long fGeneration= 0;
+
+	/** The history file store */
+	private final IFileStore fHistoryStore;
+
+	/** The number of bytes read from the index file, or <code>-1</code> if not read */
+	private long fLength= -1;
+
+	/** The number of removed entries in the index file */
+	private int fRemoved= 0;
+
+	/** The number of entries */
+	private int fSize= 0;
+
+	/** The sorted time stamps of the entries */
+	private long[] fStamps= new long[0];
+
+	/**
+	 * The modification times and lengths of the text index files, by the path
+	 * of their folder
+	 */
+	private Map<String, long[]> fTextIndexes= new HashMap<>();
+
+	/**
+	 * Creates a new refactoring history index.
+	 *
+	 * @param store
+	 *            the history file store
+	 */
+	public RefactoringHistoryIndex(final IFileStore store) {
+		Assert.isNotNull(store);
+		fHistoryStore= store;
+		fFile= store.getChild(RefactoringHistoryService.NAME_BINARY_INDEX_FILE);
+	}
+
+	/**
+	 * Records that a refactoring has been added to the history.
+	 * <p>
+	 * Nothing is recorded if the index file does not exist yet, since it will
+	 * be created from the history tree. The text index file of the refactoring
+	 * must already have been updated.
+	 * </p>
+	 *
+	 * @param stamp
+	 *            the time stamp of the refactoring
+	 * @param description
+	 *            the description of the refactoring
+	 */
+	public synchronized void addRefactoringDescriptor(final long stamp, final String description) {
+		appendRecords(RECORD_ADD, new RefactoringDescriptorProxy[] { new DefaultRefactoringDescriptorProxy(description, null, stamp)});
+	}
+
+	/**
+	 * Returns the history file store of this index.
+	 *
+	 * @return the history file store
+	 */
+	public IFileStore getHistoryStore() {
+		return fHistoryStore;
+	}
+
+	/**
+	 * Reads the refactoring descriptor proxies within the specified time range.
+	 *
+	 * @param project
+	 *            the name of the project, or <code>null</code> for the
+	 *            workspace
+	 * @param start
+	 *            the start time stamp, inclusive
+	 * @param end
+	 *            the end time stamp, inclusive
+	 * @return the refactoring descriptor proxies in ascending order of their
+	 *         time stamps, or <code>null</code> if the index has to be created
+	 *         from the history tree
+	 */
+	public synchronized RefactoringDescriptorProxy[] readRefactoringDescriptorProxies(final String project, final long start, final long end) {
+		if (!update())
+			return null;
+		int index= lowerBound(start);
+		final List<RefactoringDescriptorProxy> list= new ArrayList<>();
+		for (; index < fSize && fStamps[index] <= end; index++)
+			list.add(new DefaultRefactoringDescriptorProxy(fDescriptions[index], project, fStamps[index]));
+		return list.toArray(new RefactoringDescriptorProxy[list.size()]);
+	}
+
+	/**
+	 * Records that refactorings have been removed from the history.
+	 * <p>
+	 * The text index files of the refactorings must already have been
+	 * updated.
+	 * </p>
+	 *
+	 * @param proxies
+	 *            the refactoring descriptor proxies
+	 */
+	public synchronized void removeRefactoringDescriptors(final RefactoringDescriptorProxy[] proxies) {
+		appendRecords(RECORD_REMOVE, proxies);
+	}
+
+	/**
+	 * Writes a new index file containing exactly the specified refactorings.
+	 *
+	 * @param proxies
+	 *            the refactoring descriptor proxies of the history, as read
+	 *            from the current text index files
+	 */
+	public synchronized void writeRefactoringDescriptorProxies(final RefactoringDescriptorProxy[] proxies) {
+		reset();
+		for (RefactoringDescriptorProxy proxy : proxies)
+			insert(proxy.getTimeStamp(), proxy.getDescription());
+		if (!fHistoryStore.fetchInfo().exists())
+			return;
+		try {
+			fTextIndexes= readTextIndexes();
+		} catch (CoreException exception) {
+			RefactoringCorePlugin.log(exception);
+			invalidate();
+			return;
+		}
+		writeIndex();
+	}
+
+	/**
+	 * Writes a new index file containing the current entries.
+	 */
+	private void writeIndex() {
+		final IFileStore temporary= fHistoryStore.getChild(RefactoringHistoryService.NAME_BINARY_INDEX_FILE + ".tmp"); //$NON-NLS-1$
+		final long generation= System.nanoTime();
+		try {
+			try (DataOutputStream output= new DataOutputStream(new BufferedOutputStream(temporary.openOutputStream(EFS.NONE, null)))) {
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+				output.writeLong(generation);
+				for (int index= 0; index < fSize; index++)
+					writeRecord(output, RECORD_ADD, fStamps[index], fDescriptions[index]);
+				for (Map.Entry<String, long[]> entry : fTextIndexes.entrySet())
+					writeTextIndexRecord(output, entry.getKey(), entry.getValue());
+			}
+			temporary.move(fFile, EFS.OVERWRITE, null);
+			fGeneration= generation;
+			fLength= fFile.fetchInfo().getLength();
+		} catch (CoreException | IOException exception) {
+			RefactoringCorePlugin.log(exception);
+			invalidate();
+		}
+	}
+
+	/**
+	 * Appends records to the index file if it exists.
+	 *
+	 * @param kind
+	 *            the kind of the records
+	 * @param proxies
+	 *            the refactoring descriptor proxies to record
+	 */
+	private void appendRecords(final byte kind, final RefactoringDescriptorProxy[] proxies) {
+		if (!fFile.fetchInfo().exists())
+			return;
+		try (DataOutputStream output= new DataOutputStream(new BufferedOutputStream(fFile.openOutputStream(EFS.APPEND, null)))) {
+			final Set<IPath> folders= new HashSet<>();
+			for (RefactoringDescriptorProxy proxy : proxies) {
+				writeRecord(output, kind, proxy.getTimeStamp(), proxy.getDescription());
+				folders.add(RefactoringHistoryManager.stampToPath(proxy.getTimeStamp()));
+			}
+			for (IPath folder : folders) {
+				final IFileInfo info= fHistoryStore.getFileStore(folder).getChild(RefactoringHistoryService.NAME_INDEX_FILE).fetchInfo();
+				writeTextIndexRecord(output, folder.toString(), info.exists() ? new long[] { info.getLastModified(), info.getLength() } : null);
+			}
+		} catch (CoreException | IOException exception) {
+			RefactoringCorePlugin.log(exception);
+			invalidate();
+		}
+	}
+
+	/**
+	 * Inserts an entry into the sorted arrays, unless it is already contained.
+	 *
+	 * @param stamp
+	 *            the time stamp
+	 * @param description
+	 *            the description
+	 */
+	private void insert(final long stamp, final String description) {
+		int index= fSize;
+		if (fSize > 0 && fStamps[fSize - 1] >= stamp) {
+			index= lowerBound(stamp);
+			for (int offset= index; offset < fSize && fStamps[offset] == stamp; offset++) {
+				if (fDescriptions[offset].equals(description))
+					return;
+			}
+		}
+		if (fSize == fStamps.length) {
+			final int capacity= Math.max(16, fSize * 2);
+			fStamps= Arrays.copyOf(fStamps, capacity);
+			fDescriptions= Arrays.copyOf(fDescriptions, capacity);
+		}
+		System.arraycopy(fStamps, index, fStamps, index + 1, fSize - index);
+		System.arraycopy(fDescriptions, index, fDescriptions, index + 1, fSize - index);
+		fStamps[index]= stamp;
+		fDescriptions[index]= description;
+		fSize++;
+	}
+
+	/**
+	 * Deletes the index file, so that it is created again from the history
+	 * tree.
+	 */
+	private void invalidate() {
+		reset();
+		try {
+			fFile.delete(EFS.NONE, null);
+		} catch (CoreException exception) {
+			RefactoringCorePlugin.log(exception);
+		}
+	}
+
+	/**
+	 * Returns the position of the first entry whose time stamp is not less than
+	 * the specified one.
+	 *
+	 * @param stamp
+	 *            the time stamp
+	 * @return the position
+	 */
+	private int lowerBound(final long stamp) {
+		int low= 0;
+		int high= fSize;
+		while (low < high) {
+			final int middle= (low + high) >>> 1;
+			if (fStamps[middle] < stamp)
+				low= middle + 1;
+			else
+				high= middle;
+		}
+		return low;
+	}
+
+	/**
+	 * Reads the records of the index file.
+	 *
+	 * @param input
+	 *            the input stream, positioned after the header
+	 * @param position
+	 *            the position of the input stream in the file
+	 * @param length
+	 *            the length of the file
+	 * @throws IOException
+	 *             if the records are corrupt
+	 */
+	private void readRecords(final DataInputStream input, long position, final long length) throws IOException {
+		while (position < length) {
+			final byte kind= input.readByte();
+			final long stamp= input.readLong();
+			final int size= input.readInt();
+			if (size <= 0 || size > length - position)
+				throw new IOException("Corrupt refactoring history index: " + fFile); //$NON-NLS-1$
+			final byte[] bytes= new byte[size];
+			input.readFully(bytes);
+			final String description= new String(bytes, StandardCharsets.UTF_8);
+			if (kind == RECORD_ADD)
+				insert(stamp, description);
+			else if (kind == RECORD_REMOVE)
+				remove(stamp, description);
+			else if (kind == RECORD_TEXT_INDEX) {
+				// the stamp is the modification time of the text index file
+				final long textLength= input.readLong();
+				if (textLength < 0)
+					fTextIndexes.remove(description);
+				else
+					fTextIndexes.put(description, new long[] { stamp, textLength });
+				position+= 8;
+			} else
+				throw new IOException("Corrupt refactoring history index: " + fFile); //$NON-NLS-1$
+			position+= 13 + size;
+		}
+	}
+
+	/**
+	 * Reads the modification times and lengths of the text index files of the
+	 * history tree.
+	 *
+	 * @return the modification times and lengths, by the path of their folder
+	 * @throws CoreException
+	 *             if the history tree cannot be read
+	 */
+	private Map<String, long[]> readTextIndexes() throws CoreException {
+		final Map<String, long[]> indexes= new HashMap<>();
+		readTextIndexes(fHistoryStore, Path.EMPTY, indexes);
+		return indexes;
+	}
+
+	/**
+	 * Reads the modification times and lengths of the text index files below
+	 * a folder of the history tree.
+	 *
+	 * @param store
+	 *            the folder
+	 * @param path
+	 *            the path of the folder in the history tree
+	 * @param indexes
+	 *            the map to fill in
+	 * @throws CoreException
+	 *             if the folder cannot be read
+	 */
+	private static void readTextIndexes(final IFileStore store, final IPath path, final Map<String, long[]> indexes) throws CoreException {
+		for (IFileInfo info : store.childInfos(EFS.NONE, null)) {
+			if (info.isDirectory())
+				readTextIndexes(store.getChild(info.getName()), path.append(info.getName()), indexes);
+			else if (path.segmentCount() > 0 && RefactoringHistoryService.NAME_INDEX_FILE.equalsIgnoreCase(info.getName()))
+				indexes.put(path.toString(), new long[] { info.getLastModified(), info.getLength() });
+		}
+	}
+
+	/**
+	 * Removes an entry from the sorted arrays.
+	 *
+	 * @param stamp
+	 *            the time stamp
+	 * @param description
+	 *            the description
+	 */
+	private void remove(final long stamp, final String description) {
+		for (int index= lowerBound(stamp); index < fSize && fStamps[index] == stamp; index++) {
+			if (fDescriptions[index].equals(description)) {
+				System.arraycopy(fStamps, index + 1, fStamps, index, fSize - index - 1);
+				System.arraycopy(fDescriptions, index + 1, fDescriptions, index, fSize - index - 1);
+				fDescriptions[--fSize]= null;
+				fRemoved++;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Discards the entries read from the index file.
+	 */
+	private void reset() {
+		fStamps= new long[0];
+		fDescriptions= new String[0];
+		fSize= 0;
+		fTextIndexes= new HashMap<>();
+		fRemoved= 0;
+		fLength= -1;
+		fGeneration= 0;
+	}
+
+	/**
+	 * Brings the entries up to date with the index file.
+	 *
+	 * @return <code>true</code> if the entries are up to date,
+	 *         <code>false</code> if the index file does not exist or is
+	 *         unreadable
+	 */
+	private boolean update() {
+		final IFileInfo info= fFile.fetchInfo();
+		if (!info.exists()) {
+			reset();
+			return false;
+		}
+		final long length= info.getLength();
+		if (length == fLength)
+			return true;
+		try (InputStream stream= fFile.openInputStream(EFS.NONE, null)) {
+			final DataInputStream input= new DataInputStream(new BufferedInputStream(stream));
+			if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+				reset();
+				return false;
+			}
+			final long generation= input.readLong();
+			long position= HEADER_LENGTH;
+			if (fLength >= 0 && length > fLength && generation == fGeneration) {
+				// only read the records appended since the last update
+				for (long skip= fLength - HEADER_LENGTH; skip > 0;) {
+					final int skipped= input.skipBytes((int) Math.min(skip, Integer.MAX_VALUE));
+					if (skipped <= 0)
+						throw new EOFException();
+					skip-= skipped;
+				}
+				position= fLength;
+			} else
+				reset();
+			readRecords(input, position, length);
+			if (position == HEADER_LENGTH && !matchesTextIndexes()) {
+				// the history has been changed by a version which does not maintain the index
+				reset();
+				return false;
+			}
+			fGeneration= generation;
+			fLength= length;
+		} catch (EOFException exception) {
+			// a truncated record, e.g. from an interrupted write
+			reset();
+			return false;
+		} catch (CoreException | IOException exception) {
+			RefactoringCorePlugin.log(exception);
+			reset();
+			return false;
+		}
+		if (fRemoved >= COMPACT_THRESHOLD && fRemoved > fSize) {
+			fRemoved= 0;
+			writeIndex();
+		}
+		return true;
+	}
+
+	/**
+	 * Returns whether the recorded text index files match the ones of the
+	 * history tree.
+	 *
+	 * @return <code>true</code> if they match, <code>false</code> otherwise
+	 * @throws CoreException
+	 *             if the history tree cannot be read
+	 */
+	private boolean matchesTextIndexes() throws CoreException {
+		final Map<String, long[]> indexes= readTextIndexes();
+		if (indexes.size() != fTextIndexes.size())
+			return false;
+		for (Map.Entry<String, long[]> entry : indexes.entrySet()) {
+			final long[] recorded= fTextIndexes.get(entry.getKey());
+			if (recorded == null || !Arrays.equals(recorded, entry.getValue()))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Writes a record to the index file.
+	 *
+	 * @param output
+	 *            the output stream
+	 * @param kind
+	 *            the kind of the record
+	 * @param stamp
+	 *            the time stamp
+	 * @param description
+	 *            the description
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private static void writeRecord(final DataOutputStream output, final byte kind, final long stamp, final String description) throws IOException {
+		final byte[] bytes= description.getBytes(StandardCharsets.UTF_8);
+		output.writeByte(kind);
+		output.writeLong(stamp);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	/**
+	 * Writes a record of the state of a text index file to the index file.
+	 *
+	 * @param output
+	 *            the output stream
+	 * @param folder
+	 *            the path of the folder of the text index file
+	 * @param state
+	 *            the modification time and length of the text index file, or
+	 *            <code>null</code> if it does not exist
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private static void writeTextIndexRecord(final DataOutputStream output, final String folder, final long[] state) throws IOException {
+		writeRecord(output, RECORD_TEXT_INDEX, state != null ? state[0] : 0, folder);
+		output.writeLong(state != null ? state[1] : -1);
+	}
+}
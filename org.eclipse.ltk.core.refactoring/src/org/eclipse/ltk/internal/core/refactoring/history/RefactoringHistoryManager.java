@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2015 IBM Corporation and others.
+ * Copyright (c) 2005, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -101,6 +101,9 @@ public final class RefactoringHistoryManager {
 	/** The calendar instance */
 	private static final Calendar fgCalendar= Calendar.getInstance(TimeZone.getTimeZone("GMT+00:00")); //$NON-NLS-1$
 
+	/** The binary index of the workspace history, or <code>null</code> */
+	private static RefactoringHistoryIndex fgWorkspaceIndex= null;
+
 	/**
 	 * Checks whether the argument map is well-formed.
 	 * <p>
@@ -146,6 +149,30 @@ public final class RefactoringHistoryManager {
 		return new CoreException(new Status(IStatus.ERROR, RefactoringCore.ID_PLUGIN, IRefactoringCoreStatusCodes.REFACTORING_HISTORY_IO_ERROR, exception.getLocalizedMessage(), exception));
 	}
 
+	/**
+	 * Returns the binary index of the specified history.
+	 * <p>
+	 * Only histories in the workspace metadata are indexed. Shared histories
+	 * of projects may be changed by other tools, e.g. when updating from a
+	 * repository, which would leave the index out of date.
+	 * </p>
+	 *
+	 * @param store
+	 *            the history file store
+	 * @return the index, or <code>null</code> if the history is not indexed
+	 */
+	private static synchronized RefactoringHistoryIndex getIndex(final IFileStore store) {
+		final IFileStore root= EFS.getLocalFileSystem().getStore(RefactoringCorePlugin.getDefault().getStateLocation()).getChild(RefactoringHistoryService.NAME_HISTORY_FOLDER);
+		if (!root.isParentOf(store))
+			return null;
+		if (store.equals(root.getChild(RefactoringHistoryService.NAME_WORKSPACE_PROJECT))) {
+			if (fgWorkspaceIndex == null)
+				fgWorkspaceIndex= new RefactoringHistoryIndex(store);
+			return fgWorkspaceIndex;
+		}
+		return new RefactoringHistoryIndex(store);
+	}
+
 	/**
 	 * Escapes the specified string for the history index.
 	 *
@@ -239,6 +266,60 @@ public final class RefactoringHistoryManager {
 		}
 	}
 
+	/**
+	 * Reads refactoring descriptor proxies using the binary index of the
+	 * history.
+	 * <p>
+	 * If the index does not exist yet, e.g. for histories written by earlier
+	 * versions, it is created from the index files of the history tree.
+	 * </p>
+	 *
+	 * @param index
+	 *            the binary index of the history, or <code>null</code> to
+	 *            read the index files of the history tree
+	 * @param store
+	 *            the history file store
+	 * @param project
+	 *            the name of the project, or <code>null</code> for the
+	 *            workspace
+	 * @param collection
+	 *            the collection of proxies to fill in
+	 * @param start
+	 *            the start time stamp, inclusive
+	 * @param end
+	 *            the end time stamp, inclusive
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @param task
+	 *            the task label to use
+	 * @throws CoreException
+	 *             if an error occurs
+	 */
+	private static void readRefactoringDescriptorProxies(final RefactoringHistoryIndex index, final IFileStore store, final String project, final Collection<RefactoringDescriptorProxy> collection, final long start, final long end, final IProgressMonitor monitor, final String task) throws CoreException {
+		if (index == null) {
+			readRefactoringDescriptorProxies(store, project, collection, start, end, monitor, task);
+			return;
+		}
+		try {
+			monitor.beginTask(task, 1);
+			final RefactoringDescriptorProxy[] proxies= index.readRefactoringDescriptorProxies(project, start, end);
+			if (proxies != null) {
+				Collections.addAll(collection, proxies);
+				return;
+			}
+			final Set<RefactoringDescriptorProxy> set= new HashSet<>();
+			readRefactoringDescriptorProxies(store, project, set, 0, Long.MAX_VALUE, new SubProgressMonitor(monitor, 1), task);
+			index.writeRefactoringDescriptorProxies(set.toArray(new RefactoringDescriptorProxy[set.size()]));
+			for (RefactoringDescriptorProxy proxy : set) {
+				final long stamp= proxy.getTimeStamp();
+				if (stamp >= start && stamp <= end)
+					collection.add(proxy);
+			}
+		} finally {
+			monitor.done();
+		}
+	}
+
 	/**
 	 * Reads refactoring descriptor proxies from the specified input stream.
 	 * <p>
@@ -733,6 +814,9 @@ public final class RefactoringHistoryManager {
 	/** The history file store */
 	private final IFileStore fHistoryStore;
 
+	/** The binary index of the history, or <code>null</code> */
+	private final RefactoringHistoryIndex fIndex;
+
 	/**
 	 * The non-empty name of the managed project, or <code>null</code> for the
 	 * workspace
@@ -753,6 +837,7 @@ public final class RefactoringHistoryManager {
 		Assert.isTrue(name == null || !"".equals(name)); //$NON-NLS-1$
 		fHistoryStore= store;
 		fProjectName= name;
+		fIndex= getIndex(store);
 	}
 
 	/**
@@ -821,6 +906,8 @@ public final class RefactoringHistoryManager {
 								writeIndexEntry(index, set.toArray(new RefactoringDescriptorProxy[set.size()]), EFS.NONE, new SubProgressMonitor(monitor, 3, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
 							} else
 								writeIndexEntry(index, proxies, EFS.APPEND, new SubProgressMonitor(monitor, 5, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
+							if (fIndex != null)
+								fIndex.addRefactoringDescriptor(stamp, descriptor.getDescription());
 						}
 					} catch (ParserConfigurationException | IOException | SAXException exception) {
 						throw createCoreException(exception);
@@ -838,6 +925,8 @@ public final class RefactoringHistoryManager {
 						final Document result= transformDescriptor(descriptor, false);
 						writeHistoryEntry(history, result, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
 							writeIndexEntry(index, proxies, EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
+						if (fIndex != null)
+							fIndex.addRefactoringDescriptor(stamp, descriptor.getDescription());
 					} catch (IOException exception) {
 						throw createCoreException(exception);
 					}
@@ -923,10 +1012,10 @@ public final class RefactoringHistoryManager {
 			final Set<RefactoringDescriptorProxy> set= new HashSet<>();
 			try {
 				if (fHistoryStore.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists())
-					readRefactoringDescriptorProxies(fHistoryStore, fProjectName, set, start, end, new SubProgressMonitor(monitor, 80), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
+					readRefactoringDescriptorProxies(fIndex, fHistoryStore, fProjectName, set, start, end, new SubProgressMonitor(monitor, 80), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
 				final IFileStore store= EFS.getLocalFileSystem().getStore(RefactoringCorePlugin.getDefault().getStateLocation()).getChild(RefactoringHistoryService.NAME_HISTORY_FOLDER).getChild(RefactoringHistoryService.NAME_WORKSPACE_PROJECT);
 				if (store.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists())
-					readRefactoringDescriptorProxies(store, null, set, start, end, new SubProgressMonitor(monitor, 80), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
+					readRefactoringDescriptorProxies(getIndex(store), store, null, set, start, end, new SubProgressMonitor(monitor, 80), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
 			} catch (CoreException exception) {
 				RefactoringCorePlugin.log(exception);
 			}
@@ -1060,6 +1149,8 @@ public final class RefactoringHistoryManager {
 			} finally {
 				subMonitor.done();
 			}
+			if (fIndex != null)
+				fIndex.removeRefactoringDescriptors(proxies);
 		} finally {
 			monitor.done();
 		}
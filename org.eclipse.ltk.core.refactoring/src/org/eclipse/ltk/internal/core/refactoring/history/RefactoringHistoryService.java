@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2022 IBM Corporation and others.
  *
  * This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License 2.0
@@ -115,6 +115,9 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 	/** The singleton history */
 	private static RefactoringHistoryService fInstance= null;
 
+	/** The binary refactoring history index file name */
+	public static final String NAME_BINARY_INDEX_FILE= "refactorings.bin"; //$NON-NLS-1$
+
 	/** The refactoring history file */
 	public static final String NAME_HISTORY_FILE= "refactorings.history"; //$NON-NLS-1$
 
@@ -257,6 +260,7 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 								destination.delete(EFS.NONE, new SubProgressMonitor(monitor, 20));
 							destination.mkdir(EFS.NONE, new SubProgressMonitor(monitor, 20));
 							source.copy(destination, EFS.OVERWRITE, new SubProgressMonitor(monitor, 20));
+							destination.getChild(NAME_BINARY_INDEX_FILE).delete(EFS.NONE, null);
 							source.delete(EFS.NONE, new SubProgressMonitor(monitor, 20));
 						}
 					} else {
@@ -267,6 +271,7 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 								destination.delete(EFS.NONE, new SubProgressMonitor(monitor, 20));
 							destination.mkdir(EFS.NONE, new SubProgressMonitor(monitor, 20));
 							source.copy(destination, EFS.OVERWRITE, new SubProgressMonitor(monitor, 20));
+							destination.getChild(NAME_BINARY_INDEX_FILE).delete(EFS.NONE, null);
 							source.delete(EFS.NONE, new SubProgressMonitor(monitor, 20));
 						}
 					}